@@ -0,0 +1,29 @@
+#!/usr/bin/env bash
+# Measures time-to-first-request of a product image: from `docker run` until
+# GET /api/v1/products answers. Postgres, Redis and RabbitMQ must be reachable
+# from the container (e.g. the same docker network as docker compose).
+#
+# Usage: scripts/measure-startup.sh <image> [network] [runs]
+# Compare: scripts/measure-startup.sh ecommerce/product:latest
+#          scripts/measure-startup.sh ecommerce/product:fast
+set -euo pipefail
+
+IMAGE=${1:?image required}
+NETWORK=${2:-bridge}
+RUNS=${3:-5}
+PORT=18080
+
+total=0
+for run in $(seq 1 "$RUNS"); do
+    start=$(date +%s%N)
+    container=$(docker run -d --rm --network "$NETWORK" -p "$PORT:8080" "$IMAGE")
+    until curl -sf -o /dev/null "http://localhost:$PORT/api/v1/products"; do
+        sleep 0.05
+    done
+    elapsed=$(( ($(date +%s%N) - start) / 1000000 ))
+    docker stop "$container" > /dev/null
+    echo "run $run: ${elapsed} ms"
+    total=$(( total + elapsed ))
+done
+
+echo "$IMAGE: average time-to-first-request $(( total / RUNS )) ms over $RUNS runs"
@@ -0,0 +1,85 @@
+package com.johndo.product.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limiter whose limit follows observed latency (gradient style):
+ * while requests complete close to the long-term baseline round-trip time the
+ * limit grows by a queue allowance, and once they get slower than
+ * {@code rttTolerance} times the baseline it shrinks proportionally. Server
+ * errors apply a multiplicative decrease (AIMD).
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double LONG_RTT_WEIGHT = 0.01;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    private double longRttNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double rttTolerance,
+            double smoothing, double backoffRatio) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.smoothing = smoothing;
+        this.backoffRatio = backoffRatio;
+    }
+
+    /**
+     * Admits a request if the in-flight count stays below {@code share} of the
+     * current limit. Every successful call must be paired with
+     * {@link #onSample} or {@link #onDropped}.
+     */
+    public boolean tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public synchronized void onSample(long rttNanos) {
+        inFlight.decrementAndGet();
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+            return;
+        }
+        longRttNanos = longRttNanos * (1 - LONG_RTT_WEIGHT) + rttNanos * LONG_RTT_WEIGHT;
+
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRttNanos / rttNanos));
+        double queueSize = Math.sqrt(limit);
+        double newLimit = limit * gradient + queueSize;
+        update(limit * (1 - smoothing) + newLimit * smoothing);
+    }
+
+    public synchronized void onDropped() {
+        inFlight.decrementAndGet();
+        update(limit * backoffRatio);
+    }
+
+    private void update(double newLimit) {
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+}
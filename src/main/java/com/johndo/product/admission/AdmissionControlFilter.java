@@ -0,0 +1,131 @@
+package com.johndo.product.admission;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.johndo.product.config.AdmissionControlConfig;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Sheds load in front of the product and category controllers instead of
+ * letting request threads pile up behind a slow database or cache. Requests
+ * over a client's token bucket get 429, requests over the adaptive
+ * concurrency limit get 503; both carry {@code Retry-After}.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final Pattern SINGLE_RESOURCE = Pattern.compile("^/api/v1/(products|categories)/\\d+$");
+
+    private final AdmissionControlConfig config;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final MeterRegistry meterRegistry;
+    // Access ordered, so the least recently seen client is evicted first; guarded by itself
+    private final Map<String, TokenBucket> clientBuckets;
+
+    public AdmissionControlFilter(AdmissionControlConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        int maxClients = config.getClientRateLimit().getMaxClients();
+        this.clientBuckets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+                return size() > maxClients;
+            }
+        };
+        this.limiter = new AdaptiveConcurrencyLimiter(config.getInitialLimit(), config.getMinLimit(),
+                config.getMaxLimit(), config.getRttTolerance(), config.getSmoothing(), config.getBackoffRatio());
+
+        Gauge.builder("admission.limit", limiter, AdaptiveConcurrencyLimiter::getLimit).register(meterRegistry);
+        Gauge.builder("admission.in_flight", limiter, AdaptiveConcurrencyLimiter::getInFlight).register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        var priority = classify(request);
+
+        if (!acquireClientPermit(request)) {
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, priority, "Too many requests");
+            return;
+        }
+        if (!limiter.tryAcquire(shareOf(priority))) {
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, priority, "Service is overloaded, retry later");
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = response.getStatus() >= 500;
+        } finally {
+            if (failed) {
+                limiter.onDropped();
+            } else {
+                limiter.onSample(System.nanoTime() - start);
+            }
+        }
+    }
+
+    static RequestPriority classify(HttpServletRequest request) {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return RequestPriority.WRITE;
+        }
+        return SINGLE_RESOURCE.matcher(request.getRequestURI()).matches()
+                ? RequestPriority.CACHED_READ
+                : RequestPriority.LISTING;
+    }
+
+    private double shareOf(RequestPriority priority) {
+        return switch (priority) {
+            case CACHED_READ -> 1.0;
+            case LISTING -> config.getListingShare();
+            case WRITE -> config.getWriteShare();
+        };
+    }
+
+    private boolean acquireClientPermit(HttpServletRequest request) {
+        var rateLimit = config.getClientRateLimit();
+        if (!rateLimit.isEnabled()) {
+            return true;
+        }
+        var clientId = request.getHeader(rateLimit.getClientHeader());
+        if (clientId == null || clientId.isBlank()) {
+            clientId = request.getRemoteAddr();
+        }
+
+        long now = System.nanoTime();
+        TokenBucket bucket;
+        synchronized (clientBuckets) {
+            bucket = clientBuckets.computeIfAbsent(clientId,
+                    id -> new TokenBucket(rateLimit.getPermitsPerSecond(), rateLimit.getBurst(), now));
+        }
+        return bucket.tryAcquire(now);
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, RequestPriority priority, String message)
+            throws IOException {
+        meterRegistry.counter("admission.rejected", "priority", priority.name(), "status",
+                String.valueOf(status.value())).increment();
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(config.getRetryAfterSeconds()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"message\":\"" + message + "\"}");
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.johndo.product.admission;
+
+/**
+ * Admission classes, from the cheapest request to the most expensive one. A
+ * lower priority may only use part of the concurrency limit so that it is
+ * shed first when the limit shrinks.
+ */
+public enum RequestPriority {
+
+    // Single product/category reads, normally served from the cache
+    CACHED_READ,
+
+    // Paged listings that may scan and count in Postgres
+    LISTING,
+
+    // Creates, updates and deletes
+    WRITE;
+
+}
@@ -0,0 +1,34 @@
+package com.johndo.product.admission;
+
+/**
+ * Classic token bucket refilled lazily on each acquire.
+ */
+public class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefillNanos;
+
+    public TokenBucket(double permitsPerSecond, int burst, long nowNanos) {
+        this.permitsPerNano = permitsPerSecond / 1_000_000_000d;
+        this.capacity = burst;
+        this.tokens = burst;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    public synchronized boolean tryAcquire(long nowNanos) {
+        refill(nowNanos);
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    private void refill(long nowNanos) {
+        tokens = Math.min(capacity, tokens + (nowNanos - lastRefillNanos) * permitsPerNano);
+        lastRefillNanos = nowNanos;
+    }
+
+}
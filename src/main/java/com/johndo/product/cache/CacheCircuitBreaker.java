@@ -0,0 +1,144 @@
+package com.johndo.product.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.johndo.product.config.CacheBreakerConfig;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Circuit breaker for the Redis cache. After {@code failureThreshold}
+ * consecutive failures it opens and callers skip Redis (see
+ * {@link #allowRequest()}). After {@code openDuration} one call is let through
+ * as a probe: its success closes the breaker, its failure opens it again.
+ * Closing runs the registered recovery actions on a background thread, which
+ * replay what could not be written to Redis during the outage.
+ */
+@Component
+public class CacheCircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheCircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final CacheBreakerConfig config;
+    private final List<Runnable> recoveryActions = new CopyOnWriteArrayList<>();
+    private final ExecutorService recoveryExecutor;
+
+    // Written under this, read without locking on the fast path
+    private volatile State state = State.CLOSED;
+    private long stateSinceNanos = System.nanoTime();
+    private volatile int consecutiveFailures;
+
+    private final Counter failures;
+    private final Counter shortCircuited;
+    private final Counter opened;
+
+    public CacheCircuitBreaker(CacheBreakerConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.recoveryExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("cache-recovery-"));
+
+        Gauge.builder("cache.breaker.state", this, breaker -> breaker.state.ordinal())
+                .description("0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+        this.failures = meterRegistry.counter("cache.breaker.failures");
+        this.shortCircuited = meterRegistry.counter("cache.breaker.short_circuited");
+        this.opened = meterRegistry.counter("cache.breaker.opened");
+    }
+
+    // Runs after every recovery, off the request thread
+    public void onRecovery(Runnable action) {
+        recoveryActions.add(action);
+    }
+
+    /**
+     * Whether the caller should use Redis. A caller that gets {@code true}
+     * must report the outcome with {@link #recordSuccess()} or
+     * {@link #recordFailure(RuntimeException)}.
+     */
+    public boolean allowRequest() {
+        if (!config.isEnabled() || state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            // A probe that never reported back does not keep the breaker half-open forever
+            if (state != State.CLOSED && System.nanoTime() - stateSinceNanos >= config.getOpenDuration().toNanos()) {
+                transition(State.HALF_OPEN);
+                return true;
+            }
+            if (state == State.CLOSED) {
+                return true;
+            }
+        }
+        shortCircuited.increment();
+        return false;
+    }
+
+    public void recordSuccess() {
+        if (state == State.CLOSED && consecutiveFailures == 0) {
+            return;
+        }
+        synchronized (this) {
+            consecutiveFailures = 0;
+            if (state != State.HALF_OPEN) {
+                return;
+            }
+            transition(State.CLOSED);
+        }
+        log.info("Redis cache recovered, replaying queued cache maintenance");
+        for (var action : recoveryActions) {
+            recoveryExecutor.execute(() -> {
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    log.warn("Failed to replay cache maintenance after recovery", e);
+                }
+            });
+        }
+    }
+
+    public void recordFailure(RuntimeException error) {
+        failures.increment();
+        if (!config.isEnabled()) {
+            return;
+        }
+        synchronized (this) {
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN
+                    || (state == State.CLOSED && consecutiveFailures >= config.getFailureThreshold())) {
+                transition(State.OPEN);
+                opened.increment();
+                log.warn("Redis cache unavailable, bypassing it for {}: {}", config.getOpenDuration(),
+                        error.getMessage());
+            }
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    private void transition(State next) {
+        state = next;
+        stateSinceNanos = System.nanoTime();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        recoveryExecutor.shutdownNow();
+    }
+
+}
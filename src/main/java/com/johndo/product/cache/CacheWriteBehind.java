@@ -0,0 +1,184 @@
+package com.johndo.product.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.johndo.product.config.CacheWriteBehindConfig;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs cache maintenance (puts, evictions) off the request thread once the
+ * surrounding transaction has committed.
+ *
+ * <p>
+ * Operations are keyed by the cache entry they touch. While an operation is
+ * still queued, a newer one for the same key replaces it, so a burst of writes
+ * to one product costs a single Redis round trip. Each key is pinned to one
+ * worker thread, which keeps the operations for a key in submission order.
+ * Failures are retried with exponential backoff on the same worker; a retry
+ * is abandoned as soon as a newer operation for the key is queued, since that
+ * one supersedes it.
+ */
+@Component
+public class CacheWriteBehind {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheWriteBehind.class);
+
+    private record Task(Runnable operation, long enqueuedNanos) {
+    }
+
+    private final CacheWriteBehindConfig config;
+    private final ConcurrentMap<String, Task> pending = new ConcurrentHashMap<>();
+    // Keys queued or being applied right now
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final ExecutorService[] workers;
+
+    private final Timer lag;
+    private final Counter coalesced;
+    private final Counter retried;
+    private final Counter dropped;
+    private final Counter callerRuns;
+
+    public CacheWriteBehind(CacheWriteBehindConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.workers = new ExecutorService[Math.max(1, config.getThreads())];
+        var threadFactory = new CustomizableThreadFactory("cache-write-behind-");
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = Executors.newSingleThreadExecutor(threadFactory);
+        }
+
+        Gauge.builder("cache.write_behind.pending", outstanding, AtomicInteger::get).register(meterRegistry);
+        this.lag = Timer.builder("cache.write_behind.lag")
+                .description("Time from the first queued operation for a key until it was applied")
+                .register(meterRegistry);
+        this.coalesced = meterRegistry.counter("cache.write_behind.coalesced");
+        this.retried = meterRegistry.counter("cache.write_behind.retried");
+        this.dropped = meterRegistry.counter("cache.write_behind.dropped");
+        this.callerRuns = meterRegistry.counter("cache.write_behind.caller_runs");
+    }
+
+    /**
+     * Schedules {@code operation} for the cache entry {@code key} (e.g.
+     * {@code "products::42"}). Inside a transaction it is queued after commit
+     * and discarded on rollback, otherwise it is queued immediately.
+     */
+    public void afterCommit(String key, Runnable operation) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(key, operation);
+                }
+            });
+            return;
+        }
+        submit(key, operation);
+    }
+
+    void submit(String key, Runnable operation) {
+        if (!config.isEnabled()) {
+            runQuietly(key, operation);
+            return;
+        }
+        if (pending.size() >= config.getMaxPending() && !pending.containsKey(key)) {
+            // Back-pressure instead of an unbounded queue: the request pays for its own cache write
+            callerRuns.increment();
+            runQuietly(key, operation);
+            return;
+        }
+        var task = new Task(operation, System.nanoTime());
+        boolean[] added = { false };
+        pending.compute(key, (k, existing) -> {
+            if (existing == null) {
+                added[0] = true;
+                return task;
+            }
+            coalesced.increment();
+            // Keep the first enqueue time so the lag covers the whole wait
+            return new Task(operation, existing.enqueuedNanos());
+        });
+        if (added[0]) {
+            outstanding.incrementAndGet();
+            workers[Math.floorMod(key.hashCode(), workers.length)].execute(() -> drain(key));
+        }
+    }
+
+    // Number of keys whose cache maintenance has not been applied yet
+    public int pendingCount() {
+        return outstanding.get();
+    }
+
+    private void drain(String key) {
+        try {
+            var task = pending.remove(key);
+            if (task != null) {
+                apply(key, task);
+            }
+        } finally {
+            outstanding.decrementAndGet();
+        }
+    }
+
+    private void apply(String key, Task task) {
+        long backoffMillis = config.getRetryBackoff().toMillis();
+        for (int attempt = 1;; attempt++) {
+            try {
+                task.operation().run();
+                lag.record(System.nanoTime() - task.enqueuedNanos(), TimeUnit.NANOSECONDS);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= config.getMaxAttempts()) {
+                    dropped.increment();
+                    log.warn("Giving up on cache operation for {} after {} attempts", key, attempt, e);
+                    return;
+                }
+                retried.increment();
+            }
+            try {
+                Thread.sleep(backoffMillis << (attempt - 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (pending.containsKey(key)) {
+                return;
+            }
+        }
+    }
+
+    private void runQuietly(String key, Runnable operation) {
+        try {
+            operation.run();
+        } catch (RuntimeException e) {
+            log.warn("Cache operation for {} failed", key, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (var worker : workers) {
+            worker.shutdown();
+        }
+        // Give queued invalidations a chance to reach Redis before the connection factory closes
+        for (var worker : workers) {
+            worker.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.johndo.product.cache;
+
+/**
+ * One entry of an invalidation broadcast: either a single key of a cache, or
+ * (when {@code family} is set) every key starting with {@code key}. An empty
+ * family covers the whole cache.
+ */
+public record Invalidation(String cache, String key, boolean family) {
+
+    public static Invalidation key(String cache, Object key) {
+        return new Invalidation(cache, String.valueOf(key), false);
+    }
+
+    public static Invalidation family(String cache, String prefix) {
+        return new Invalidation(cache, prefix, true);
+    }
+
+    public static Invalidation all(String cache) {
+        return family(cache, "");
+    }
+
+    // Whether applying this entry already takes care of the other one
+    public boolean covers(Invalidation other) {
+        return family && cache.equals(other.cache) && other.key.startsWith(key);
+    }
+
+}
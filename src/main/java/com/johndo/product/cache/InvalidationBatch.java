@@ -0,0 +1,7 @@
+package com.johndo.product.cache;
+
+import java.util.List;
+
+// Wire format of one broadcast: the sending instance and what it invalidated
+public record InvalidationBatch(String origin, List<Invalidation> invalidations) {
+}
@@ -0,0 +1,200 @@
+package com.johndo.product.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.johndo.product.config.InvalidationBusConfig;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Tells the other instances which cache entries a local write made stale, so
+ * in-process caches can be kept per instance.
+ *
+ * <p>
+ * Invalidations are queued once the surrounding transaction commits and sent
+ * together after a short coalescing window as one {@link InvalidationBatch}
+ * on a fanout exchange. Every instance consumes the exchange through its own
+ * auto-delete queue and hands the entries to the listeners subscribed to the
+ * cache; its own broadcasts are recognized by the origin id and skipped, since
+ * the writer has already updated its local state. Delivery is best effort:
+ * subscribers keep their periodic full refresh to repair lost messages.
+ *
+ * <p>
+ * Families are the exception: a bulk write has no per-entry local update, so
+ * the writer's own subscribers receive them too, on the bus thread after
+ * commit, whether or not broadcasting is enabled.
+ */
+@Component
+public class InvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(InvalidationBus.class);
+
+    private final RabbitTemplate rabbitTemplate;
+    private final InvalidationBusConfig config;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, List<InvalidationListener>> listeners = new ConcurrentHashMap<>();
+
+    // Guarded by this
+    private final Set<Invalidation> pending = new LinkedHashSet<>();
+    private boolean flushScheduled;
+    private final ScheduledExecutorService executor;
+
+    private final Counter published;
+    private final Counter batches;
+    private final Counter received;
+    private final Counter failed;
+
+    public InvalidationBus(RabbitTemplate rabbitTemplate, InvalidationBusConfig config, MeterRegistry meterRegistry) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.config = config;
+        this.executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("invalidation-bus-"));
+
+        this.published = meterRegistry.counter("cache.invalidation.published");
+        this.batches = meterRegistry.counter("cache.invalidation.batches");
+        this.received = meterRegistry.counter("cache.invalidation.received");
+        this.failed = meterRegistry.counter("cache.invalidation.failed");
+    }
+
+    public void subscribe(String cache, InvalidationListener listener) {
+        listeners.computeIfAbsent(cache, key -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * Broadcasts the invalidation to the other instances, and hands a family
+     * to the local subscribers as well. Inside a transaction this happens
+     * after commit and not at all on rollback.
+     */
+    public void publish(Invalidation invalidation) {
+        if (!config.isEnabled() && !invalidation.family()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accept(invalidation);
+                }
+            });
+            return;
+        }
+        accept(invalidation);
+    }
+
+    private void accept(Invalidation invalidation) {
+        if (invalidation.family()) {
+            executor.execute(() -> deliver(List.of(invalidation)));
+        }
+        if (config.isEnabled()) {
+            enqueue(invalidation);
+        }
+    }
+
+    private synchronized void enqueue(Invalidation invalidation) {
+        pending.add(invalidation);
+        published.increment();
+        if (!flushScheduled) {
+            flushScheduled = true;
+            executor.schedule(this::flush, config.getCoalesceWindow().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void flush() {
+        List<Invalidation> batch;
+        synchronized (this) {
+            batch = new ArrayList<>(pending);
+            pending.clear();
+            flushScheduled = false;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            rabbitTemplate.convertAndSend(config.getExchange(), "",
+                    new InvalidationBatch(instanceId, compact(batch, config.getMaxBatchSize())));
+            batches.increment();
+        } catch (AmqpException e) {
+            failed.increment();
+            log.warn("Failed to broadcast {} cache invalidations: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    @RabbitListener(queues = "#{productInvalidationQueue.name}",
+            containerFactory = "invalidationListenerContainerFactory",
+            autoStartup = "${products.invalidation.enabled:true}")
+    public void onBatch(InvalidationBatch batch) {
+        if (instanceId.equals(batch.origin()) || batch.invalidations() == null) {
+            return;
+        }
+        received.increment();
+        deliver(batch.invalidations());
+    }
+
+    private void deliver(List<Invalidation> batch) {
+        Map<String, List<Invalidation>> byCache = new LinkedHashMap<>();
+        batch.forEach(
+                invalidation -> byCache.computeIfAbsent(invalidation.cache(), key -> new ArrayList<>()).add(invalidation));
+        byCache.forEach((cache, invalidations) -> {
+            for (var listener : listeners.getOrDefault(cache, List.of())) {
+                try {
+                    listener.onInvalidation(invalidations);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to apply invalidations for cache {}", cache, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Drops entries covered by a family in the same batch, and widens the batch
+     * to whole-cache invalidations when it is still larger than
+     * {@code maxSize}: past that point a reload is cheaper than the message.
+     */
+    static List<Invalidation> compact(Collection<Invalidation> invalidations, int maxSize) {
+        var distinct = new LinkedHashSet<>(invalidations);
+        var families = distinct.stream().filter(Invalidation::family).toList();
+        List<Invalidation> result = new ArrayList<>();
+        for (var invalidation : distinct) {
+            // Distinct families never cover each other both ways, so exactly one of them survives
+            if (families.stream().noneMatch(family -> !family.equals(invalidation) && family.covers(invalidation))) {
+                result.add(invalidation);
+            }
+        }
+        if (result.size() <= maxSize) {
+            return result;
+        }
+        return result.stream().map(Invalidation::cache).distinct().map(Invalidation::all).toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        // Send what is still queued so the other instances do not wait for their periodic refresh
+        flush();
+    }
+
+}
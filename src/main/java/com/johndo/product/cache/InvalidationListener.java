@@ -0,0 +1,14 @@
+package com.johndo.product.cache;
+
+import java.util.List;
+
+/**
+ * Receives the invalidations other instances broadcast for a cache this
+ * instance subscribed to via {@link InvalidationBus#subscribe}.
+ */
+@FunctionalInterface
+public interface InvalidationListener {
+
+    void onInvalidation(List<Invalidation> invalidations);
+
+}
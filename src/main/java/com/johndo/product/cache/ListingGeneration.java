@@ -0,0 +1,116 @@
+package com.johndo.product.cache;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import com.johndo.product.config.ListingCacheConfig;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Generation of the cached product listing pages. Every listing key includes
+ * it, so {@link #bump()} makes all pages of all sizes unreachable with one
+ * INCR; the orphaned entries expire with the cache TTL. Per-product entries
+ * ({@code products::<id>}) are not namespaced and are unaffected.
+ *
+ * <p>
+ * The counter lives in Redis so that instances agree on it. Each instance
+ * reuses the value it last read for a few milliseconds, so a listing request
+ * normally costs no extra round trip. While Redis is unavailable (see
+ * {@link CacheCircuitBreaker}) the instance counts bumps locally, which keeps
+ * its fallback cache correct, and applies one INCR once Redis is back.
+ */
+@Component
+public class ListingGeneration {
+
+    static final String KEY = "products:listing-generation";
+
+    private record Snapshot(long generation, long readAtNanos) {
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final ListingCacheConfig config;
+    private final CacheCircuitBreaker breaker;
+    private volatile Snapshot snapshot;
+    // A bump that has not reached Redis yet
+    private final AtomicBoolean bumpPending = new AtomicBoolean();
+
+    private final Counter bumps;
+
+    public ListingGeneration(StringRedisTemplate redisTemplate, ListingCacheConfig config,
+            CacheCircuitBreaker breaker, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.config = config;
+        this.breaker = breaker;
+        this.bumps = meterRegistry.counter("cache.listing.generation.bumps");
+        breaker.onRecovery(() -> {
+            if (bumpPending.get()) {
+                sync();
+            }
+        });
+    }
+
+    public long current() {
+        var local = snapshot;
+        if (local != null && System.nanoTime() - local.readAtNanos() < config.getGenerationLocalTtl().toNanos()) {
+            return local.generation();
+        }
+        sync();
+        local = snapshot;
+        return local == null ? 0 : local.generation();
+    }
+
+    // Invalidates every cached listing page
+    public void bump() {
+        bumps.increment();
+        bumpPending.set(true);
+        if (!sync()) {
+            // Move on locally so that the fallback cache misses the pages of the old generation
+            var local = snapshot;
+            snapshot = new Snapshot(local == null ? 1 : local.generation() + 1, System.nanoTime());
+        }
+    }
+
+    // Key of a page of GET /products in the "products" cache
+    public String pageKey(int page, int size) {
+        return "listing:" + current() + ":page:" + page + ":size:" + size;
+    }
+
+    // Key of a filtered or sorted listing page, given the query's canonical form
+    public String queryKey(String canonicalQuery) {
+        return "listing:" + current() + ":query:" + canonicalQuery;
+    }
+
+    // Reads the generation from Redis, incrementing it first if a bump is pending. False when
+    // Redis is unavailable, leaving the last known generation in place
+    private boolean sync() {
+        if (!breaker.allowRequest()) {
+            return false;
+        }
+        try {
+            long generation;
+            if (bumpPending.getAndSet(false)) {
+                try {
+                    generation = redisTemplate.opsForValue().increment(KEY);
+                } catch (DataAccessException e) {
+                    bumpPending.set(true);
+                    throw e;
+                }
+            } else {
+                var value = redisTemplate.opsForValue().get(KEY);
+                generation = value == null ? 0 : Long.parseLong(value);
+            }
+            breaker.recordSuccess();
+            snapshot = new Snapshot(generation, System.nanoTime());
+            return true;
+        } catch (DataAccessException e) {
+            breaker.recordFailure(e);
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,196 @@
+package com.johndo.product.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.cache.RedisCache;
+
+import com.johndo.product.config.CacheBreakerConfig;
+
+/**
+ * Redis cache behind the {@link CacheCircuitBreaker}. Redis errors are
+ * reported to the breaker and turn into cache misses instead of failing the
+ * request. While the breaker is not closed, reads and writes go to a small
+ * in-process cache instead, and every write is queued with the
+ * {@link ResilientCacheManager} as an invalidation to replay on Redis once it
+ * is back, so entries written before the outage cannot outlive it.
+ */
+public class ResilientCache implements Cache {
+
+    private record LocalEntry(Object value, long expiresAtNanos) {
+    }
+
+    private final Cache delegate;
+    private final CacheCircuitBreaker breaker;
+    private final ResilientCacheManager manager;
+    private final CacheBreakerConfig config;
+    // LRU, guarded by itself
+    private final Map<Object, LocalEntry> local;
+
+    ResilientCache(Cache delegate, CacheCircuitBreaker breaker, ResilientCacheManager manager,
+            CacheBreakerConfig config) {
+        this.delegate = delegate;
+        this.breaker = breaker;
+        this.manager = manager;
+        this.config = config;
+        this.local = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, LocalEntry> eldest) {
+                return size() > config.getLocalCacheSize();
+            }
+        };
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        if (breaker.allowRequest()) {
+            try {
+                var value = delegate.get(key);
+                breaker.recordSuccess();
+                return value;
+            } catch (DataAccessException e) {
+                breaker.recordFailure(e);
+            }
+        }
+        return getLocal(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        var wrapper = get(key);
+        var value = wrapper == null ? null : wrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        var cached = get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (breaker.allowRequest()) {
+            try {
+                delegate.put(key, value);
+                breaker.recordSuccess();
+                return;
+            } catch (DataAccessException e) {
+                breaker.recordFailure(e);
+            }
+        }
+        putLocal(key, value);
+        // Redis may still hold an older value
+        manager.queue(Invalidation.key(getName(), key));
+    }
+
+    @Override
+    public void evict(Object key) {
+        removeLocal(key);
+        apply(Invalidation.key(getName(), key));
+    }
+
+    @Override
+    public void clear() {
+        synchronized (local) {
+            local.clear();
+        }
+        apply(Invalidation.all(getName()));
+    }
+
+    // Removes every entry whose key starts with prefix (all of them for an empty prefix)
+    public void evictFamily(String prefix) {
+        synchronized (local) {
+            local.keySet().removeIf(key -> String.valueOf(key).startsWith(prefix));
+        }
+        apply(Invalidation.family(getName(), prefix));
+    }
+
+    private void apply(Invalidation invalidation) {
+        if (breaker.allowRequest()) {
+            try {
+                applyToRedis(invalidation);
+                breaker.recordSuccess();
+                return;
+            } catch (DataAccessException e) {
+                breaker.recordFailure(e);
+            }
+        }
+        manager.queue(invalidation);
+    }
+
+    // Throws on Redis errors; used directly by the replay
+    void applyToRedis(Invalidation invalidation) {
+        if (!invalidation.family()) {
+            delegate.evict(invalidation.key());
+        } else if (!invalidation.key().isEmpty() && delegate instanceof RedisCache redisCache) {
+            // SCAN-based, see RedisConfig
+            redisCache.clear(invalidation.key() + "*");
+        } else {
+            delegate.clear();
+        }
+    }
+
+    void clearLocal() {
+        synchronized (local) {
+            local.clear();
+        }
+    }
+
+    private ValueWrapper getLocal(Object key) {
+        synchronized (local) {
+            var entry = local.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.expiresAtNanos() >= 0) {
+                local.remove(key);
+                return null;
+            }
+            return new SimpleValueWrapper(entry.value());
+        }
+    }
+
+    private void putLocal(Object key, Object value) {
+        synchronized (local) {
+            local.put(key, new LocalEntry(value, System.nanoTime() + config.getLocalCacheTtl().toNanos()));
+        }
+    }
+
+    private void removeLocal(Object key) {
+        synchronized (local) {
+            local.remove(key);
+        }
+    }
+
+}
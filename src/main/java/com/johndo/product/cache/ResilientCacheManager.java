@@ -0,0 +1,119 @@
+package com.johndo.product.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+
+import com.johndo.product.config.CacheBreakerConfig;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Wraps every cache of the Redis {@link CacheManager} in a
+ * {@link ResilientCache} and keeps the invalidations that could not reach
+ * Redis while it was unavailable. They are replayed, oldest first, when the
+ * {@link CacheCircuitBreaker} closes; the local fallback caches are dropped at
+ * the same time since Redis is authoritative again.
+ */
+public class ResilientCacheManager implements CacheManager {
+
+    private static final Logger log = LoggerFactory.getLogger(ResilientCacheManager.class);
+
+    private final CacheManager delegate;
+    private final CacheCircuitBreaker breaker;
+    private final CacheBreakerConfig config;
+    private final ConcurrentMap<String, ResilientCache> caches = new ConcurrentHashMap<>();
+
+    // Guarded by this
+    private Set<Invalidation> queued = new LinkedHashSet<>();
+
+    private final Counter queuedInvalidations;
+    private final Counter replayedInvalidations;
+
+    public ResilientCacheManager(CacheManager delegate, CacheCircuitBreaker breaker, CacheBreakerConfig config,
+            MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.breaker = breaker;
+        this.config = config;
+        breaker.onRecovery(this::replay);
+
+        Gauge.builder("cache.breaker.queued", this, ResilientCacheManager::queuedCount).register(meterRegistry);
+        this.queuedInvalidations = meterRegistry.counter("cache.breaker.invalidations.queued");
+        this.replayedInvalidations = meterRegistry.counter("cache.breaker.invalidations.replayed");
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        var cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        var redisCache = delegate.getCache(name);
+        if (redisCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, key -> new ResilientCache(redisCache, breaker, this, config));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    synchronized void queue(Invalidation invalidation) {
+        if (queued.contains(Invalidation.all(invalidation.cache()))) {
+            // The whole cache is cleared on replay anyway
+            return;
+        }
+        queued.add(invalidation);
+        queuedInvalidations.increment();
+        if (queued.size() > config.getMaxQueuedInvalidations()) {
+            queued = new LinkedHashSet<>(InvalidationBus.compact(queued, config.getMaxQueuedInvalidations()));
+        }
+    }
+
+    synchronized int queuedCount() {
+        return queued.size();
+    }
+
+    void replay() {
+        caches.values().forEach(ResilientCache::clearLocal);
+        List<Invalidation> pending;
+        synchronized (this) {
+            pending = new ArrayList<>(queued);
+            queued = new LinkedHashSet<>();
+        }
+        for (int i = 0; i < pending.size(); i++) {
+            var invalidation = pending.get(i);
+            var cache = (ResilientCache) getCache(invalidation.cache());
+            try {
+                if (cache != null) {
+                    cache.applyToRedis(invalidation);
+                }
+                replayedInvalidations.increment();
+            } catch (DataAccessException e) {
+                // Down again: keep the rest for the next recovery
+                breaker.recordFailure(e);
+                pending.subList(i, pending.size()).forEach(this::queue);
+                log.warn("Replay of cache invalidations interrupted, {} left", pending.size() - i);
+                return;
+            }
+        }
+        if (!pending.isEmpty()) {
+            log.info("Replayed {} cache invalidations", pending.size());
+        }
+    }
+
+}
@@ -0,0 +1,219 @@
+package com.johndo.product.catalog;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.johndo.product.dto.Product.ProductResponseDTO;
+
+/**
+ * Immutable, column oriented copy of the product table held in direct
+ * (off-heap) buffers, or mapped from a {@link CatalogSnapshotFile}: ids
+ * sorted ascending as the primary index, prices as longs scaled by
+ * {@code priceScale}, and names/descriptions as codes into a shared
+ * {@link StringDictionary}. Nothing here is visible to the garbage collector
+ * except a handful of buffer headers, whatever the catalog size.
+ */
+public final class CatalogSnapshot {
+
+    static final int NO_CATEGORY = Integer.MIN_VALUE;
+
+    private final int size;
+    private final int priceScale;
+    private final LongBuffer ids;
+    private final LongBuffer prices;
+    private final IntBuffer quantities;
+    private final IntBuffer categoryIds;
+    private final IntBuffer nameCodes;
+    private final IntBuffer descriptionCodes;
+    private final StringDictionary dictionary;
+
+    CatalogSnapshot(int size, int priceScale, LongBuffer ids, LongBuffer prices, IntBuffer quantities,
+            IntBuffer categoryIds, IntBuffer nameCodes, IntBuffer descriptionCodes, StringDictionary dictionary) {
+        this.size = size;
+        this.priceScale = priceScale;
+        this.ids = ids;
+        this.prices = prices;
+        this.quantities = quantities;
+        this.categoryIds = categoryIds;
+        this.nameCodes = nameCodes;
+        this.descriptionCodes = descriptionCodes;
+        this.dictionary = dictionary;
+    }
+
+    public static Builder builder(int priceScale) {
+        return new Builder(priceScale);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long idAt(int row) {
+        return ids.get(row);
+    }
+
+    // Row of the given id, or a negative value when it is not in the snapshot
+    public int indexOf(long id) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = ids.get(mid);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    public ProductResponseDTO toResponse(int row) {
+        int categoryId = categoryIds.get(row);
+        return ProductResponseDTO.builder()
+                .id(ids.get(row))
+                .name(dictionary.get(nameCodes.get(row)))
+                .description(dictionary.get(descriptionCodes.get(row)))
+                .unitPrice(BigDecimal.valueOf(prices.get(row), priceScale))
+                .quantity(quantities.get(row))
+                .categoryId(categoryId == NO_CATEGORY ? null : categoryId)
+                .build();
+    }
+
+    public long offHeapBytes() {
+        return (long) size * (2 * Long.BYTES + 4 * Integer.BYTES) + dictionary.offHeapBytes();
+    }
+
+    int priceScale() {
+        return priceScale;
+    }
+
+    LongBuffer ids() {
+        return ids;
+    }
+
+    LongBuffer prices() {
+        return prices;
+    }
+
+    IntBuffer quantities() {
+        return quantities;
+    }
+
+    IntBuffer categoryIds() {
+        return categoryIds;
+    }
+
+    IntBuffer nameCodes() {
+        return nameCodes;
+    }
+
+    IntBuffer descriptionCodes() {
+        return descriptionCodes;
+    }
+
+    StringDictionary dictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Accumulates rows on the heap and copies them into direct buffers on
+     * {@link #build()}. Rows must be added in ascending id order.
+     */
+    public static final class Builder {
+
+        private final int priceScale;
+        private long[] ids = new long[1024];
+        private long[] prices = new long[1024];
+        private int[] quantities = new int[1024];
+        private int[] categoryIds = new int[1024];
+        private int[] nameCodes = new int[1024];
+        private int[] descriptionCodes = new int[1024];
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private int size;
+
+        private Builder(int priceScale) {
+            this.priceScale = priceScale;
+        }
+
+        public Builder add(ProductResponseDTO product) {
+            if (size > 0 && product.getId() <= ids[size - 1]) {
+                throw new IllegalStateException("Products must be added in ascending id order, got "
+                        + product.getId() + " after " + ids[size - 1]);
+            }
+            if (size == ids.length) {
+                grow();
+            }
+            ids[size] = product.getId();
+            prices[size] = product.getUnitPrice() == null ? 0
+                    : product.getUnitPrice().setScale(priceScale, RoundingMode.HALF_UP).unscaledValue()
+                            .longValueExact();
+            quantities[size] = product.getQuantity() == null ? 0 : product.getQuantity();
+            categoryIds[size] = product.getCategoryId() == null ? NO_CATEGORY : product.getCategoryId();
+            nameCodes[size] = encode(product.getName());
+            descriptionCodes[size] = encode(product.getDescription());
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public CatalogSnapshot build() {
+            return new CatalogSnapshot(size, priceScale,
+                    directLongs(ids, size), directLongs(prices, size),
+                    directInts(quantities, size), directInts(categoryIds, size),
+                    directInts(nameCodes, size), directInts(descriptionCodes, size),
+                    StringDictionary.of(strings));
+        }
+
+        private int encode(String value) {
+            if (value == null) {
+                return StringDictionary.NULL_CODE;
+            }
+            return codes.computeIfAbsent(value, key -> {
+                strings.add(key);
+                return strings.size() - 1;
+            });
+        }
+
+        private void grow() {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            categoryIds = Arrays.copyOf(categoryIds, capacity);
+            nameCodes = Arrays.copyOf(nameCodes, capacity);
+            descriptionCodes = Arrays.copyOf(descriptionCodes, capacity);
+        }
+
+        private static LongBuffer directLongs(long[] values, int length) {
+            var buffer = ByteBuffer.allocateDirect(Math.max(length, 1) * Long.BYTES)
+                    .order(ByteOrder.nativeOrder()).asLongBuffer();
+            buffer.put(values, 0, length).flip();
+            return buffer;
+        }
+
+        private static IntBuffer directInts(int[] values, int length) {
+            var buffer = ByteBuffer.allocateDirect(Math.max(length, 1) * Integer.BYTES)
+                    .order(ByteOrder.nativeOrder()).asIntBuffer();
+            buffer.put(values, 0, length).flip();
+            return buffer;
+        }
+
+    }
+
+}
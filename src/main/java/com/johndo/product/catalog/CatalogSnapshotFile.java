@@ -0,0 +1,226 @@
+package com.johndo.product.catalog;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import com.johndo.product.dto.Category.CategoryResponseDTO;
+
+/**
+ * On-disk form of a {@link CatalogSnapshot} together with the categories and
+ * the change feed position it reflects. The product columns are stored
+ * exactly as the snapshot holds them, so reading a file maps each column
+ * straight into a buffer instead of decoding it. Reading checks only the
+ * header's own checksum and the section lengths, so the snapshot serves reads
+ * right away and pages come in from the file on first touch; the checksum of
+ * the whole file is left to {@link Contents#checksumMatches()}, which the
+ * caller runs once it is serving.
+ *
+ * <p>
+ * Layout, big-endian: a fixed header (magic, version, high-water seq, write
+ * time, price scale, row count, dictionary entries, CRC32 of the header,
+ * dictionary bytes), the id, price, quantity, category, name and description
+ * columns, the dictionary offsets and bytes, the categories, and a CRC32 of
+ * all of it.
+ */
+final class CatalogSnapshotFile {
+
+    private static final int MAGIC = 0x50434154; // "PCAT"
+    private static final int VERSION = 2;
+    // Offset of the header checksum, which is computed with its own four bytes zeroed
+    private static final int HEADER_CHECKSUM_OFFSET = 36;
+    private static final int HEADER_BYTES = 48;
+    // Sections are mapped separately so files past 2 GB still load; checksummed in chunks of this size
+    private static final int CHUNK_BYTES = 1 << 30;
+
+    /**
+     * What a file holds; categories are decoded onto the heap, products stay
+     * mapped. The body mappings are kept for {@link #checksumMatches()}.
+     */
+    record Contents(CatalogSnapshot snapshot, List<CategoryResponseDTO> categories, long highWaterSeq,
+            Instant writtenAt, List<ByteBuffer> body, long expectedChecksum) {
+
+        // Reads every page of the file, so run it off the request path
+        boolean checksumMatches() {
+            var checksum = new CRC32();
+            body.forEach(chunk -> checksum.update(chunk.duplicate()));
+            return checksum.getValue() == expectedChecksum;
+        }
+    }
+
+    private CatalogSnapshotFile() {
+    }
+
+    /**
+     * Writes to a temporary file next to {@code path} and moves it into
+     * place, so a crash never leaves a half-written snapshot under the final
+     * name and a file that is mapped elsewhere keeps its old contents.
+     */
+    static void write(Path path, CatalogSnapshot snapshot, Collection<CategoryResponseDTO> categories,
+            long highWaterSeq, Instant writtenAt) throws IOException {
+        var temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        var checksum = new CRC32();
+        int size = snapshot.size();
+        var dictionary = snapshot.dictionary();
+        long dictionaryBytes = dictionary.offsets().get(dictionary.size());
+        try (var out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16), checksum))) {
+            var header = ByteBuffer.allocate(HEADER_BYTES)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(highWaterSeq)
+                    .putLong(writtenAt.toEpochMilli())
+                    .putInt(snapshot.priceScale())
+                    .putInt(size)
+                    .putInt(dictionary.size())
+                    .putInt(0)
+                    .putLong(dictionaryBytes);
+            header.putInt(HEADER_CHECKSUM_OFFSET, (int) headerChecksum(header));
+            out.write(header.array());
+            writeLongs(out, snapshot.ids(), size);
+            writeLongs(out, snapshot.prices(), size);
+            writeInts(out, snapshot.quantities(), size);
+            writeInts(out, snapshot.categoryIds(), size);
+            writeInts(out, snapshot.nameCodes(), size);
+            writeInts(out, snapshot.descriptionCodes(), size);
+            writeInts(out, dictionary.offsets(), dictionary.size() + 1);
+            var bytes = dictionary.bytes().duplicate().clear().limit((int) dictionaryBytes);
+            var chunk = new byte[1 << 16];
+            while (bytes.hasRemaining()) {
+                int length = Math.min(chunk.length, bytes.remaining());
+                bytes.get(chunk, 0, length);
+                out.write(chunk, 0, length);
+            }
+            out.writeInt(categories.size());
+            for (var category : categories) {
+                var name = category.getName() == null ? new byte[0] : category.getName().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(category.getId());
+                out.writeInt(category.getParentId() == null ? CatalogSnapshot.NO_CATEGORY : category.getParentId());
+                out.writeInt(name.length);
+                out.write(name);
+            }
+            out.flush();
+            // The checksum covers everything above; writing it through the stream would change it
+            out.write(ByteBuffer.allocate(Long.BYTES).putLong(checksum.getValue()).array());
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeLongs(DataOutputStream out, LongBuffer values, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            out.writeLong(values.get(i));
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, IntBuffer values, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            out.writeInt(values.get(i));
+        }
+    }
+
+    /**
+     * Maps a file written by {@link #write}. The returned snapshot reads from
+     * the mapping, which stays valid after the file is replaced or deleted.
+     * Only the header is checksummed here; a corrupt body shows up in
+     * {@link Contents#checksumMatches()}.
+     *
+     * @throws IOException when the file is truncated, its header is corrupt
+     *                     or it is of another format version
+     */
+    static Contents read(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES + Integer.BYTES + Long.BYTES) {
+                throw new IOException("Unexpected catalog snapshot size " + fileSize + ": " + path);
+            }
+            long bodySize = fileSize - Long.BYTES;
+            var header = map(channel, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a catalog snapshot of version " + VERSION + ": " + path);
+            }
+            if (headerChecksum(header) != Integer.toUnsignedLong(header.getInt(HEADER_CHECKSUM_OFFSET))) {
+                throw new IOException("Header checksum mismatch in catalog snapshot " + path);
+            }
+            long highWaterSeq = header.getLong();
+            var writtenAt = Instant.ofEpochMilli(header.getLong());
+            int priceScale = header.getInt();
+            int size = header.getInt();
+            int dictionarySize = header.getInt();
+            header.getInt();
+            long dictionaryBytes = header.getLong();
+
+            long position = HEADER_BYTES;
+            var ids = map(channel, position, (long) size * Long.BYTES).asLongBuffer();
+            position += (long) size * Long.BYTES;
+            var prices = map(channel, position, (long) size * Long.BYTES).asLongBuffer();
+            position += (long) size * Long.BYTES;
+            var intColumns = new IntBuffer[4];
+            for (int column = 0; column < intColumns.length; column++) {
+                intColumns[column] = map(channel, position, (long) size * Integer.BYTES).asIntBuffer();
+                position += (long) size * Integer.BYTES;
+            }
+            var offsets = map(channel, position, (dictionarySize + 1L) * Integer.BYTES).asIntBuffer();
+            position += (dictionarySize + 1L) * Integer.BYTES;
+            var bytes = map(channel, position, dictionaryBytes);
+            position += dictionaryBytes;
+
+            var categoryBuffer = map(channel, position, bodySize - position);
+            int categoryCount = categoryBuffer.getInt();
+            List<CategoryResponseDTO> categories = new ArrayList<>(categoryCount);
+            for (int i = 0; i < categoryCount; i++) {
+                int id = categoryBuffer.getInt();
+                int parentId = categoryBuffer.getInt();
+                var name = new byte[categoryBuffer.getInt()];
+                categoryBuffer.get(name);
+                categories.add(new CategoryResponseDTO(id, new String(name, StandardCharsets.UTF_8),
+                        parentId == CatalogSnapshot.NO_CATEGORY ? null : parentId));
+            }
+            if (categoryBuffer.hasRemaining()) {
+                throw new IOException("Trailing bytes in catalog snapshot " + path);
+            }
+            List<ByteBuffer> body = new ArrayList<>();
+            for (long chunk = 0; chunk < bodySize; chunk += CHUNK_BYTES) {
+                body.add(map(channel, chunk, Math.min(CHUNK_BYTES, bodySize - chunk)));
+            }
+            long expectedChecksum = map(channel, bodySize, Long.BYTES).getLong();
+
+            var snapshot = new CatalogSnapshot(size, priceScale, ids, prices, intColumns[0], intColumns[1],
+                    intColumns[2], intColumns[3], new StringDictionary(bytes, offsets, dictionarySize));
+            return new Contents(snapshot, categories, highWaterSeq, writtenAt, body, expectedChecksum);
+        } catch (RuntimeException e) {
+            // Buffer underflows and the like: the file does not hold what its header claims
+            throw new IOException("Malformed catalog snapshot " + path, e);
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long length) throws IOException {
+        if (length < 0 || position + length > channel.size()) {
+            throw new IOException("Catalog snapshot section at " + position + " runs past the end of the file");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+    }
+
+    private static long headerChecksum(ByteBuffer header) {
+        var copy = ByteBuffer.allocate(HEADER_BYTES).put(header.duplicate().clear());
+        copy.putInt(HEADER_CHECKSUM_OFFSET, 0);
+        var checksum = new CRC32();
+        checksum.update(copy.array());
+        return checksum.getValue();
+    }
+
+}
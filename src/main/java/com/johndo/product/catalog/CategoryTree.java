@@ -0,0 +1,246 @@
+package com.johndo.product.catalog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.johndo.product.dto.Category.CategoryResponseDTO;
+import com.johndo.product.dto.Category.CategoryTreeDTO;
+
+/**
+ * Immutable snapshot of the whole category hierarchy. Changes never mutate a
+ * tree; {@link #withCategory} and {@link #withoutCategory} return a copy that
+ * only re-links the parents affected by the change, so readers holding the
+ * previous instance keep a consistent view.
+ */
+public final class CategoryTree {
+
+    private record Node(Integer id, String name, Integer parentId, List<Integer> childIds) {
+    }
+
+    private static final CategoryTree EMPTY = new CategoryTree(Map.of(), List.of());
+
+    private final Map<Integer, Node> nodes;
+    private final List<Integer> rootIds;
+    // Rendered lazily once per snapshot, the tree endpoint then costs no work at all
+    private volatile List<CategoryTreeDTO> rendered;
+
+    private CategoryTree(Map<Integer, Node> nodes, List<Integer> rootIds) {
+        this.nodes = nodes;
+        this.rootIds = rootIds;
+    }
+
+    public static CategoryTree empty() {
+        return EMPTY;
+    }
+
+    public static CategoryTree of(Collection<CategoryResponseDTO> categories) {
+        Map<Integer, List<Integer>> children = new HashMap<>();
+        Set<Integer> ids = new HashSet<>();
+        categories.forEach(category -> ids.add(category.getId()));
+        List<Integer> roots = new ArrayList<>();
+        for (var category : categories) {
+            var parentId = category.getParentId();
+            if (parentId != null && ids.contains(parentId)) {
+                children.computeIfAbsent(parentId, key -> new ArrayList<>()).add(category.getId());
+            } else {
+                roots.add(category.getId());
+            }
+        }
+
+        Map<Integer, Node> nodes = new HashMap<>(categories.size() * 2);
+        for (var category : categories) {
+            var childIds = children.getOrDefault(category.getId(), List.of());
+            nodes.put(category.getId(), new Node(category.getId(), category.getName(), category.getParentId(),
+                    sorted(childIds)));
+        }
+        return new CategoryTree(nodes, sorted(roots));
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    // Every category in id order, the inverse of {@link #of}
+    public List<CategoryResponseDTO> categories() {
+        return nodes.keySet().stream().sorted().map(nodes::get).map(CategoryTree::toResponse).toList();
+    }
+
+    public CategoryResponseDTO find(Integer id) {
+        var node = nodes.get(id);
+        return node == null ? null : toResponse(node);
+    }
+
+    /**
+     * Path from the root down to (and including) the given category, or null if
+     * the category does not exist.
+     */
+    public List<CategoryResponseDTO> breadcrumbs(Integer id) {
+        var node = nodes.get(id);
+        if (node == null) {
+            return null;
+        }
+        List<CategoryResponseDTO> path = new ArrayList<>();
+        Set<Integer> visited = new HashSet<>();
+        while (node != null && visited.add(node.id())) {
+            path.add(toResponse(node));
+            node = node.parentId() == null ? null : nodes.get(node.parentId());
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    // Direct children of the given category, or the root categories for null
+    public List<CategoryResponseDTO> children(Integer parentId) {
+        var parent = parentId == null ? null : nodes.get(parentId);
+        var ids = parentId == null ? rootIds : parent == null ? List.<Integer>of() : parent.childIds();
+        return ids.stream().map(nodes::get).map(CategoryTree::toResponse).toList();
+    }
+
+    // The category itself followed by every category below it
+    public List<Integer> descendantIds(Integer id) {
+        if (!nodes.containsKey(id)) {
+            return List.of();
+        }
+        List<Integer> result = new ArrayList<>();
+        Set<Integer> visited = new HashSet<>();
+        List<Integer> pending = new ArrayList<>(List.of(id));
+        while (!pending.isEmpty()) {
+            var current = pending.remove(pending.size() - 1);
+            if (visited.add(current)) {
+                result.add(current);
+                pending.addAll(nodes.get(current).childIds());
+            }
+        }
+        return result;
+    }
+
+    public List<CategoryTreeDTO> toNestedDtos() {
+        var result = rendered;
+        if (result == null) {
+            result = rootIds.stream().map(this::render).toList();
+            rendered = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns a tree in which the given category is inserted or replaced,
+     * moving it (with its subtree) when its parent changed.
+     */
+    public CategoryTree withCategory(CategoryResponseDTO category) {
+        var id = category.getId();
+        var existing = nodes.get(id);
+        var parentId = category.getParentId();
+        // A parent that would make the category its own ancestor cannot be linked
+        boolean linkable = parentId != null && nodes.containsKey(parentId)
+                && (existing == null || !isAncestorOrSelf(id, parentId));
+
+        Map<Integer, Node> next = new HashMap<>(nodes);
+        List<Integer> roots = rootIds;
+        if (existing != null) {
+            var oldParent = linkedParent(existing);
+            if (oldParent != null) {
+                next.put(oldParent.id(), withChildren(oldParent, without(oldParent.childIds(), id)));
+            } else {
+                roots = without(roots, id);
+            }
+        }
+
+        var childIds = existing == null ? List.<Integer>of() : existing.childIds();
+        next.put(id, new Node(id, category.getName(), parentId, childIds));
+        if (linkable) {
+            var parent = next.get(parentId);
+            next.put(parentId, withChildren(parent, with(parent.childIds(), id)));
+        } else {
+            roots = with(roots, id);
+        }
+        return new CategoryTree(next, roots);
+    }
+
+    // Returns a tree without the given category; its children, if any, become roots
+    public CategoryTree withoutCategory(Integer id) {
+        var existing = nodes.get(id);
+        if (existing == null) {
+            return this;
+        }
+        Map<Integer, Node> next = new HashMap<>(nodes);
+        next.remove(id);
+        List<Integer> roots = rootIds;
+        var parent = linkedParent(existing);
+        if (parent != null) {
+            next.put(parent.id(), withChildren(parent, without(parent.childIds(), id)));
+        } else {
+            roots = without(roots, id);
+        }
+        for (var childId : existing.childIds()) {
+            roots = with(roots, childId);
+        }
+        return new CategoryTree(next, roots);
+    }
+
+    private boolean isAncestorOrSelf(Integer ancestorId, Integer id) {
+        Set<Integer> visited = new HashSet<>();
+        var node = nodes.get(id);
+        while (node != null && visited.add(node.id())) {
+            if (node.id().equals(ancestorId)) {
+                return true;
+            }
+            node = node.parentId() == null ? null : nodes.get(node.parentId());
+        }
+        return false;
+    }
+
+    // The parent whose child list holds this node, null when the node is a root
+    private Node linkedParent(Node node) {
+        if (node.parentId() == null) {
+            return null;
+        }
+        var parent = nodes.get(node.parentId());
+        return parent != null && parent.childIds().contains(node.id()) ? parent : null;
+    }
+
+    private CategoryTreeDTO render(Integer id) {
+        var node = nodes.get(id);
+        return CategoryTreeDTO.builder()
+                .id(node.id())
+                .name(node.name())
+                .parentId(node.parentId())
+                .children(node.childIds().stream().map(this::render).toList())
+                .build();
+    }
+
+    private static CategoryResponseDTO toResponse(Node node) {
+        return CategoryResponseDTO.builder()
+                .id(node.id())
+                .name(node.name())
+                .parentId(node.parentId())
+                .build();
+    }
+
+    private static Node withChildren(Node node, List<Integer> childIds) {
+        return new Node(node.id(), node.name(), node.parentId(), childIds);
+    }
+
+    private static List<Integer> with(List<Integer> ids, Integer id) {
+        List<Integer> result = new ArrayList<>(ids);
+        result.add(id);
+        return sorted(result);
+    }
+
+    private static List<Integer> without(List<Integer> ids, Integer id) {
+        List<Integer> result = new ArrayList<>(ids);
+        result.remove(id);
+        return List.copyOf(result);
+    }
+
+    private static List<Integer> sorted(List<Integer> ids) {
+        return ids.stream().sorted().toList();
+    }
+
+}
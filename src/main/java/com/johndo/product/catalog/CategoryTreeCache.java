@@ -0,0 +1,188 @@
+package com.johndo.product.catalog;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.johndo.product.cache.Invalidation;
+import com.johndo.product.cache.InvalidationBus;
+import com.johndo.product.cache.InvalidationListener;
+import com.johndo.product.config.CategoryTreeConfig;
+import com.johndo.product.dto.Category.CategoryResponseDTO;
+import com.johndo.product.mapper.CategoryMapperInterface;
+import com.johndo.product.repository.CategoryRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Holds the current {@link CategoryTree}. The tree is loaded from Postgres
+ * once (at startup or on first use) and afterwards kept up to date in place:
+ * local writes are applied directly, writes made by other instances arrive
+ * over the {@link InvalidationBus} and only the announced categories are
+ * re-read. A periodic full reload bounds the staleness caused by a lost
+ * invalidation message.
+ */
+@Component
+public class CategoryTreeCache implements InvalidationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoryTreeCache.class);
+
+    // Cache name on the invalidation bus; keys are category ids
+    static final String INVALIDATION_CACHE = "categories";
+
+    private final CategoryRepository categoryRepository;
+    private final CategoryMapperInterface categoryMapper;
+    private final CategoryTreeConfig config;
+    private final InvalidationBus invalidationBus;
+
+    private final AtomicReference<CategoryTree> tree = new AtomicReference<>();
+    private final ScheduledExecutorService executor;
+
+    public CategoryTreeCache(CategoryRepository categoryRepository,
+            CategoryMapperInterface categoryMapper,
+            CategoryTreeConfig config,
+            InvalidationBus invalidationBus,
+            MeterRegistry meterRegistry) {
+        this.categoryRepository = categoryRepository;
+        this.categoryMapper = categoryMapper;
+        this.config = config;
+        this.invalidationBus = invalidationBus;
+        this.executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("category-tree-"));
+
+        if (config.isEnabled()) {
+            invalidationBus.subscribe(INVALIDATION_CACHE, this);
+        }
+        Gauge.builder("categories.tree.size", tree, ref -> ref.get() == null ? 0 : ref.get().size())
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        long refreshMillis = config.getRefreshInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::reloadSafely, 0, refreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The current tree. When the cache is disabled every call reads all
+     * categories from the database.
+     */
+    public CategoryTree current() {
+        if (!config.isEnabled()) {
+            return load();
+        }
+        var current = tree.get();
+        if (current == null) {
+            synchronized (this) {
+                current = tree.get();
+                if (current == null) {
+                    current = load();
+                    tree.set(current);
+                }
+            }
+        }
+        return current;
+    }
+
+    public void categorySaved(CategoryResponseDTO category) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        apply(category.getId(), category);
+        invalidationBus.publish(Invalidation.key(INVALIDATION_CACHE, category.getId()));
+    }
+
+    public void categoryDeleted(Integer id) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        apply(id, null);
+        invalidationBus.publish(Invalidation.key(INVALIDATION_CACHE, id));
+    }
+
+    public void allCategoriesDeleted() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        synchronized (this) {
+            tree.set(CategoryTree.empty());
+        }
+        invalidationBus.publish(Invalidation.all(INVALIDATION_CACHE));
+    }
+
+    @Override
+    public void onInvalidation(List<Invalidation> invalidations) {
+        if (invalidations.stream().anyMatch(Invalidation::family)) {
+            reload();
+            return;
+        }
+        for (var invalidation : invalidations) {
+            var id = Integer.valueOf(invalidation.key());
+            apply(id, categoryRepository.findById(id).map(categoryMapper::toResponseDto).orElse(null));
+        }
+    }
+
+    /**
+     * Serves the given categories until the tree is loaded from the database,
+     * so reads made right after startup need not wait for it. Ignored once a
+     * tree is in place.
+     */
+    synchronized void restore(Collection<CategoryResponseDTO> categories) {
+        if (config.isEnabled() && tree.get() == null) {
+            tree.set(CategoryTree.of(categories));
+        }
+    }
+
+    void reload() {
+        long start = System.nanoTime();
+        synchronized (this) {
+            tree.set(load());
+        }
+        log.info("Category tree reloaded with {} categories in {} ms", tree.get().size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    // Copy-on-write update; writers are serialized so no concurrent change is lost
+    private synchronized void apply(Integer id, CategoryResponseDTO category) {
+        var current = tree.get();
+        if (current == null) {
+            // Not loaded yet, the first read will see the change
+            return;
+        }
+        tree.set(category == null ? current.withoutCategory(id) : current.withCategory(category));
+    }
+
+    private CategoryTree load() {
+        return CategoryTree.of(categoryRepository.findAll().stream()
+                .map(categoryMapper::toResponseDto)
+                .toList());
+    }
+
+    private void reloadSafely() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.error("Failed to reload category tree", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,170 @@
+package com.johndo.product.catalog;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.johndo.product.cache.Invalidation;
+
+/**
+ * An immutable in-process index of products together with the overlay of
+ * changes staged since it was built, as used by {@link ProductCatalog},
+ * {@link ProductSuggester} and the search index. Readers consult the overlay
+ * before the index. A staged change schedules a compaction after
+ * {@code compactionDelay}, which merges the overlay into a new index; a full
+ * rebuild replaces the index the same way. Either one only drops the entries
+ * it has seen, so changes staged while a new index is being built stay
+ * pending.
+ *
+ * <p>
+ * Rebuilds and compactions run on the owner's single-threaded executor,
+ * through the owner's {@code rebuild} and {@code compact} so it can add its
+ * own steps around them.
+ *
+ * @param <S> the index
+ * @param <T> what a change stages; null for a deletion
+ */
+public final class IndexOverlay<S, T> {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexOverlay.class);
+
+    // A pending change; value is null for a deletion
+    public record Change<T>(long sequence, T value) {
+    }
+
+    private final String name;
+    private final ScheduledExecutorService executor;
+    private final Supplier<Duration> compactionDelay;
+    private final Runnable rebuild;
+    private final Runnable compact;
+
+    private final AtomicReference<S> index = new AtomicReference<>();
+    private final ConcurrentMap<Long, Change<T>> overlay = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+
+    public IndexOverlay(String name, ScheduledExecutorService executor, Supplier<Duration> compactionDelay,
+            Runnable rebuild, Runnable compact) {
+        this.name = name;
+        this.executor = executor;
+        this.compactionDelay = compactionDelay;
+        this.rebuild = rebuild;
+        this.compact = compact;
+    }
+
+    // Null until the first index is built or loaded
+    public S current() {
+        return index.get();
+    }
+
+    // Serves an index loaded from disk; the overlay is left as it is
+    public void load(S loaded) {
+        index.set(loaded);
+    }
+
+    public void stage(Long id, T value) {
+        overlay.put(id, new Change<>(sequence.incrementAndGet(), value));
+        if (compactionScheduled.compareAndSet(false, true)) {
+            executor.schedule(this::compactSafely, compactionDelay.get().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // The pending change of the product, or null if there is none
+    public Change<T> pending(Long id) {
+        return overlay.get(id);
+    }
+
+    public Set<Long> pendingIds() {
+        return overlay.keySet();
+    }
+
+    public Collection<Change<T>> pendingChanges() {
+        return overlay.values();
+    }
+
+    public boolean hasPending() {
+        return !overlay.isEmpty();
+    }
+
+    public int pendingCount() {
+        return overlay.size();
+    }
+
+    /**
+     * The changes a build starting now covers, to be handed to
+     * {@link #swap} once it is done.
+     */
+    public Map<Long, Change<T>> beginBuild() {
+        return new HashMap<>(overlay);
+    }
+
+    public void swap(S next, Map<Long, Change<T>> applied) {
+        index.set(next);
+        // Entries replaced while the new index was being built stay pending
+        applied.forEach(overlay::remove);
+    }
+
+    /**
+     * Merges the overlay into the current index without touching the
+     * database, and returns the new index; null when there was nothing to do.
+     */
+    public S compact(BiFunction<S, Map<Long, T>, S> merge) {
+        var current = index.get();
+        if (current == null || overlay.isEmpty()) {
+            return null;
+        }
+        var applied = beginBuild();
+        Map<Long, T> changes = new HashMap<>();
+        applied.forEach((id, change) -> changes.put(id, change.value()));
+        var next = merge.apply(current, changes);
+        swap(next, applied);
+        return next;
+    }
+
+    /**
+     * Schedules a rebuild if any of the invalidations covers a whole family:
+     * a bulk write that no per-product change describes.
+     *
+     * @return whether a rebuild was scheduled
+     */
+    public boolean rebuildOnFamily(List<Invalidation> invalidations) {
+        if (invalidations.stream().noneMatch(Invalidation::family)) {
+            return false;
+        }
+        executor.execute(this::rebuildSafely);
+        return true;
+    }
+
+    public void rebuildSafely() {
+        try {
+            rebuild.run();
+        } catch (RuntimeException e) {
+            log.error("Failed to rebuild {}", name, e);
+        }
+    }
+
+    private void compactSafely() {
+        compactionScheduled.set(false);
+        try {
+            compact.run();
+        } catch (RuntimeException e) {
+            log.error("Failed to compact {}", name, e);
+        }
+    }
+
+}
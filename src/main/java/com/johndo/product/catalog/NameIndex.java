@@ -0,0 +1,279 @@
+package com.johndo.product.catalog;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.LongPredicate;
+
+import com.johndo.product.dto.Product.ProductSuggestionDTO;
+
+/**
+ * Immutable prefix index of product names. Names are stored once, as UTF-8
+ * in a single byte array, sorted by their {@link #normalize normalized} form,
+ * so the names starting with a prefix are one contiguous range of rows found
+ * by binary search. An implicit segment tree keeps the best ranked row under
+ * every node, which yields the top K of any range in O(K log n) without
+ * scanning it. Rank: in stock first, then newest (highest id).
+ */
+final class NameIndex {
+
+    // Best ranked suggestion first
+    static final Comparator<ProductSuggestionDTO> RANKING = Comparator
+            .comparing(ProductSuggestionDTO::isInStock).thenComparing(ProductSuggestionDTO::getId).reversed();
+
+    private record Row(String key, long id, byte[] name, boolean inStock) {
+    }
+
+    private static final Comparator<Row> ROW_ORDER = Comparator.comparing(Row::key).thenComparingLong(Row::id);
+
+    private final int size;
+    private final byte[] names;
+    // Row r is names[offsets[r], offsets[r + 1])
+    private final int[] offsets;
+    private final long[] ids;
+    private final BitSet inStock;
+    // tree[node] for 1 <= node < size is the best row below that node; node size + r is row r itself
+    private final int[] tree;
+
+    private NameIndex(int size, byte[] names, int[] offsets, long[] ids, BitSet inStock) {
+        this.size = size;
+        this.names = names;
+        this.offsets = offsets;
+        this.ids = ids;
+        this.inStock = inStock;
+        this.tree = new int[Math.max(1, size)];
+        for (int node = size - 1; node >= 1; node--) {
+            tree[node] = better(child(2 * node), child(2 * node + 1));
+        }
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    // Case-insensitive, ignoring leading blanks; the same form is used for names and prefixes
+    static String normalize(String text) {
+        return text.stripLeading().toLowerCase(Locale.ROOT);
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Heap held by the index
+    long memoryBytes() {
+        return names.length + 4L * offsets.length + 8L * ids.length + inStock.size() / 8 + 4L * tree.length;
+    }
+
+    /**
+     * The best ranked {@code limit} names starting with the normalized
+     * prefix, leaving out ids for which {@code skip} is true (products with
+     * pending changes, served from the overlay instead).
+     */
+    List<ProductSuggestionDTO> top(String normalizedPrefix, int limit, LongPredicate skip) {
+        int from = lowerBound(normalizedPrefix);
+        int to = lowerBound(normalizedPrefix + Character.MAX_VALUE);
+        List<ProductSuggestionDTO> result = new ArrayList<>(Math.min(limit, Math.max(0, to - from)));
+        if (from >= to) {
+            return result;
+        }
+        // Ranges ordered by their best row; taking one splits its range around it
+        var ranges = new PriorityQueue<int[]>((a, b) -> better(a[2], b[2]) == a[2] ? -1 : 1);
+        ranges.add(new int[] { from, to, best(from, to) });
+        while (!ranges.isEmpty() && result.size() < limit) {
+            var range = ranges.poll();
+            int row = range[2];
+            if (!skip.test(ids[row])) {
+                result.add(suggestionAt(row));
+            }
+            if (range[0] < row) {
+                ranges.add(new int[] { range[0], row, best(range[0], row) });
+            }
+            if (row + 1 < range[1]) {
+                ranges.add(new int[] { row + 1, range[1], best(row + 1, range[1]) });
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A new index with the given products replaced, added, or removed where
+     * the value is null. Unchanged rows are copied in order without being
+     * decoded, so this is linear in the index size plus O(changes log n).
+     */
+    NameIndex withChanges(Map<Long, ProductSuggestionDTO> changes) {
+        var changedIds = changes.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        var added = changes.values().stream()
+                .filter(product -> product != null)
+                .map(product -> row(product.getId(), product.getName(), product.isInStock()))
+                .sorted(ROW_ORDER)
+                .toList();
+
+        var writer = new Writer(size + added.size(), names.length);
+        int row = 0;
+        for (var next : added) {
+            int position = lowerBound(next.key(), next.id());
+            for (; row < position; row++) {
+                copyUnlessChanged(row, changedIds, writer);
+            }
+            writer.append(next.id(), next.name(), 0, next.name().length, next.inStock());
+        }
+        for (; row < size; row++) {
+            copyUnlessChanged(row, changedIds, writer);
+        }
+        return writer.finish();
+    }
+
+    private void copyUnlessChanged(int row, long[] changedIds, Writer writer) {
+        if (Arrays.binarySearch(changedIds, ids[row]) < 0) {
+            writer.append(ids[row], names, offsets[row], offsets[row + 1] - offsets[row], inStock.get(row));
+        }
+    }
+
+    private ProductSuggestionDTO suggestionAt(int row) {
+        return ProductSuggestionDTO.builder()
+                .id(ids[row])
+                .name(nameAt(row))
+                .inStock(inStock.get(row))
+                .build();
+    }
+
+    private String nameAt(int row) {
+        return new String(names, offsets[row], offsets[row + 1] - offsets[row], StandardCharsets.UTF_8);
+    }
+
+    // First row whose key is not less than the given key
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (normalize(nameAt(mid)).compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // First row not ordered before (key, id)
+    private int lowerBound(String key, long id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int compared = normalize(nameAt(mid)).compareTo(key);
+            if (compared < 0 || compared == 0 && ids[mid] < id) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Best row in [from, to)
+    private int best(int from, int to) {
+        int result = -1;
+        for (int low = from + size, high = to + size; low < high; low >>= 1, high >>= 1) {
+            if ((low & 1) == 1) {
+                result = better(result, child(low++));
+            }
+            if ((high & 1) == 1) {
+                result = better(result, child(--high));
+            }
+        }
+        return result;
+    }
+
+    private int child(int node) {
+        return node >= size ? node - size : tree[node];
+    }
+
+    private int better(int row, int other) {
+        if (row < 0) {
+            return other;
+        }
+        if (other < 0) {
+            return row;
+        }
+        boolean stocked = inStock.get(row);
+        if (stocked != inStock.get(other)) {
+            return stocked ? row : other;
+        }
+        return ids[row] > ids[other] ? row : other;
+    }
+
+    private static Row row(long id, String name, boolean inStock) {
+        return new Row(normalize(name), id, name.getBytes(StandardCharsets.UTF_8), inStock);
+    }
+
+    static final class Builder {
+
+        private final List<Row> rows = new ArrayList<>();
+
+        Builder add(long id, String name, boolean inStock) {
+            rows.add(row(id, name, inStock));
+            return this;
+        }
+
+        int size() {
+            return rows.size();
+        }
+
+        NameIndex build() {
+            rows.sort(ROW_ORDER);
+            long bytes = rows.stream().mapToLong(row -> row.name().length).sum();
+            var writer = new Writer(rows.size(), (int) Math.min(Integer.MAX_VALUE - 8, bytes));
+            rows.forEach(row -> writer.append(row.id(), row.name(), 0, row.name().length, row.inStock()));
+            return writer.finish();
+        }
+
+    }
+
+    // Appends rows in index order, growing its arrays as needed
+    private static final class Writer {
+
+        private byte[] names;
+        private int length;
+        private int[] offsets;
+        private long[] ids;
+        private final BitSet inStock = new BitSet();
+        private int count;
+
+        Writer(int expectedRows, int expectedBytes) {
+            this.names = new byte[Math.max(16, expectedBytes)];
+            this.ids = new long[Math.max(1, expectedRows)];
+            this.offsets = new int[ids.length + 1];
+        }
+
+        void append(long id, byte[] source, int from, int byteCount, boolean stocked) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+                offsets = Arrays.copyOf(offsets, count * 2 + 1);
+            }
+            if (length + byteCount > names.length) {
+                names = Arrays.copyOf(names, Math.max(names.length * 2, length + byteCount));
+            }
+            System.arraycopy(source, from, names, length, byteCount);
+            length += byteCount;
+            ids[count] = id;
+            inStock.set(count, stocked);
+            offsets[++count] = length;
+        }
+
+        NameIndex finish() {
+            return new NameIndex(count, Arrays.copyOf(names, length), Arrays.copyOf(offsets, count + 1),
+                    Arrays.copyOf(ids, count), inStock);
+        }
+
+    }
+
+}
@@ -0,0 +1,401 @@
+package com.johndo.product.catalog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.johndo.product.cache.Invalidation;
+import com.johndo.product.cache.InvalidationBus;
+import com.johndo.product.cache.InvalidationListener;
+import com.johndo.product.config.ProductCatalogConfig;
+import com.johndo.product.dto.PageWrapper;
+import com.johndo.product.dto.Product.ProductResponseDTO;
+import com.johndo.product.event.ProductChangedEvent;
+import com.johndo.product.event.ProductChangedEvent.ChangeType;
+import com.johndo.product.mapper.ProductMapperInterface;
+import com.johndo.product.model.ProductChange;
+import com.johndo.product.repository.ProductChangeRepository;
+import com.johndo.product.repository.ProductRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Optional in-process catalog serving product reads from an off-heap
+ * {@link CatalogSnapshot}. The snapshot is built from Postgres once the
+ * application is ready. Product changes land in a small on-heap overlay and
+ * are folded into a fresh snapshot after {@code compactionDelay}; listings are
+ * only served while the overlay is empty so their order and totals are exact.
+ * Products changed by other instances are announced on the
+ * {@link InvalidationBus}; they are re-read and staged the same way.
+ *
+ * <p>
+ * Every {@code snapshotInterval} a changed snapshot is written to
+ * {@code snapshotDirectory} together with the categories and the change feed
+ * position of its last full rebuild. On startup the newest such file is
+ * memory-mapped and served right away, and the feed is replayed from that
+ * position into the overlay; only without a usable file (none, too old, or
+ * ahead of the feed of the database it would serve) is the catalog rebuilt
+ * from Postgres. The file's checksum is verified after it starts serving, so
+ * a corrupt file is served until that pass finds it and triggers a rebuild.
+ */
+@Component
+public class ProductCatalog implements InvalidationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCatalog.class);
+
+    private static final String SNAPSHOT_PREFIX = "catalog-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    // Cache name on the invalidation bus; keys are product ids
+    public static final String INVALIDATION_CACHE = "products";
+
+    private final ProductRepository productRepository;
+    private final ProductChangeRepository productChangeRepository;
+    private final ProductMapperInterface productMapper;
+    private final CategoryTreeCache categoryTreeCache;
+    private final ProductCatalogConfig config;
+
+    // Feed position of the last full rebuild: every change after it may be missing from the snapshot
+    private volatile long highWaterSeq;
+    // The snapshot last written to or loaded from disk; only touched on the executor thread
+    private CatalogSnapshot persisted;
+    private final ScheduledExecutorService executor;
+    private final IndexOverlay<CatalogSnapshot, ProductResponseDTO> overlay;
+
+    public ProductCatalog(ProductRepository productRepository,
+            ProductChangeRepository productChangeRepository,
+            ProductMapperInterface productMapper,
+            CategoryTreeCache categoryTreeCache,
+            ProductCatalogConfig config,
+            InvalidationBus invalidationBus,
+            MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.productChangeRepository = productChangeRepository;
+        this.productMapper = productMapper;
+        this.categoryTreeCache = categoryTreeCache;
+        this.config = config;
+        this.executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("product-catalog-"));
+        this.overlay = new IndexOverlay<>("product catalog", executor, config::getCompactionDelay, this::rebuild,
+                this::compact);
+
+        if (config.isEnabled()) {
+            invalidationBus.subscribe(INVALIDATION_CACHE, this);
+        }
+        Gauge.builder("products.catalog.size", overlay, ref -> ref.current() == null ? 0 : ref.current().size())
+                .register(meterRegistry);
+        Gauge.builder("products.catalog.off_heap_bytes", overlay,
+                ref -> ref.current() == null ? 0 : ref.current().offHeapBytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("products.catalog.pending_changes", overlay, IndexOverlay::pendingCount)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        executor.execute(this::openSafely);
+        long refreshMillis = config.getRefreshInterval().toMillis();
+        executor.scheduleWithFixedDelay(overlay::rebuildSafely, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+        if (config.isSnapshotEnabled()) {
+            long snapshotMillis = config.getSnapshotInterval().toMillis();
+            executor.scheduleWithFixedDelay(this::persistSafely, snapshotMillis, snapshotMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        overlay.stage(event.getProductId(), event.getCurrent());
+    }
+
+    @Override
+    public void onInvalidation(List<Invalidation> invalidations) {
+        if (overlay.rebuildOnFamily(invalidations)) {
+            return;
+        }
+        for (var invalidation : invalidations) {
+            var id = Long.valueOf(invalidation.key());
+            overlay.stage(id, productRepository.findById(id).map(productMapper::toResponseDto).orElse(null));
+        }
+    }
+
+    public boolean isReady() {
+        return overlay.current() != null;
+    }
+
+    /**
+     * Returns the product if the catalog knows it, or null when the caller has
+     * to fall back to the cache/database (catalog not built yet, deleted, or
+     * created by another instance whose announcement was lost).
+     */
+    public ProductResponseDTO find(Long id) {
+        var current = overlay.current();
+        if (current == null) {
+            return null;
+        }
+        var pending = overlay.pending(id);
+        if (pending != null) {
+            return pending.value();
+        }
+        int row = current.indexOf(id);
+        return row >= 0 ? current.toResponse(row) : null;
+    }
+
+    public boolean canServeListings() {
+        return overlay.current() != null && !overlay.hasPending();
+    }
+
+    // Page of products in descending id order, same shape as the repository listing
+    public PageWrapper<ProductResponseDTO> page(Pageable pageable) {
+        var current = overlay.current();
+        int size = current.size();
+        List<ProductResponseDTO> content = new ArrayList<>(pageable.getPageSize());
+        long offset = pageable.getOffset();
+        for (long i = offset; i < offset + pageable.getPageSize() && i < size; i++) {
+            content.add(current.toResponse((int) (size - 1 - i)));
+        }
+        return new PageWrapper<>(new PageImpl<>(content, pageable, size));
+    }
+
+    private void openSafely() {
+        try {
+            open();
+        } catch (RuntimeException e) {
+            log.error("Failed to open product catalog", e);
+        }
+    }
+
+    private void persistSafely() {
+        try {
+            persist();
+        } catch (RuntimeException e) {
+            log.error("Failed to write product catalog snapshot", e);
+        }
+    }
+
+    // Maps the newest usable snapshot file and catches up from the change feed, or rebuilds from Postgres
+    void open() {
+        var loaded = config.isSnapshotEnabled() ? loadLatestSnapshot() : null;
+        if (loaded == null) {
+            rebuild();
+            return;
+        }
+        categoryTreeCache.restore(loaded.categories());
+        highWaterSeq = loaded.highWaterSeq();
+        persisted = loaded.snapshot();
+        overlay.load(loaded.snapshot());
+        int replayed = replayChangesAfter(loaded.highWaterSeq());
+        log.info("Product catalog caught up on {} changes since {}", replayed, loaded.writtenAt());
+        // Only the header was checked before serving; a corrupt body is replaced as soon as it is found
+        if (!loaded.checksumMatches()) {
+            log.warn("Checksum mismatch in product catalog snapshot written at {}, rebuilding",
+                    loaded.writtenAt());
+            persisted = null;
+            categoryTreeCache.reload();
+            rebuild();
+        }
+    }
+
+    // Stages every change after the given position, in commit order; the next compaction folds them in
+    private int replayChangesAfter(long seq) {
+        int batchSize = config.getFeedBatchSize();
+        int replayed = 0;
+        List<ProductChange> changes;
+        do {
+            changes = productChangeRepository.findBySeqGreaterThanOrderBySeqAsc(seq, Limit.of(batchSize));
+            for (var change : changes) {
+                overlay.stage(change.getProductId(),
+                        change.getChangeType() == ChangeType.DELETED ? null : change.getProduct());
+                seq = change.getSeq();
+            }
+            replayed += changes.size();
+        } while (changes.size() == batchSize);
+        return replayed;
+    }
+
+    // Full reload from Postgres using keyset pagination on the primary key
+    void rebuild() {
+        long start = System.nanoTime();
+        var applied = overlay.beginBuild();
+        // Read before the scan: changes committed during it are replayed after a restart, which is harmless
+        long latestSeq = productChangeRepository.findLatestSeq();
+        var builder = CatalogSnapshot.builder(config.getPriceScale());
+        var chunk = PageRequest.of(0, config.getLoadChunkSize(), Sort.by(Sort.Direction.ASC, "id"));
+        long lastId = 0;
+        while (true) {
+            var slice = productRepository.findByIdGreaterThan(lastId, chunk);
+            slice.forEach(product -> builder.add(productMapper.toResponseDto(product)));
+            if (!slice.hasNext()) {
+                break;
+            }
+            lastId = slice.getContent().get(slice.getNumberOfElements() - 1).getId();
+        }
+        highWaterSeq = latestSeq;
+        overlay.swap(builder.build(), applied);
+        log.info("Product catalog rebuilt with {} products in {} ms", builder.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    // Merges the overlay into the current snapshot without touching the database
+    void compact() {
+        overlay.compact(this::merge);
+    }
+
+    // Walks the snapshot and the changes in id order, so the result stays sorted by id
+    private CatalogSnapshot merge(CatalogSnapshot current, Map<Long, ProductResponseDTO> changes) {
+        var changedIds = changes.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+
+        var builder = CatalogSnapshot.builder(config.getPriceScale());
+        int row = 0;
+        int changed = 0;
+        while (row < current.size() || changed < changedIds.length) {
+            long rowId = row < current.size() ? current.idAt(row) : Long.MAX_VALUE;
+            long changedId = changed < changedIds.length ? changedIds[changed] : Long.MAX_VALUE;
+            if (rowId < changedId) {
+                builder.add(current.toResponse(row++));
+                continue;
+            }
+            var product = changes.get(changedId);
+            if (product != null) {
+                builder.add(product);
+            }
+            changed++;
+            if (rowId == changedId) {
+                row++;
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Writes the current snapshot out if it changed since the last write. It
+     * is stamped with the position of the last full rebuild rather than the
+     * latest change: compactions also fold in changes announced over the
+     * bus, which the feed position cannot vouch for, and replaying a change
+     * the snapshot already holds is harmless.
+     */
+    void persist() {
+        var current = overlay.current();
+        if (current == null || current == persisted) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            var directory = Path.of(config.getSnapshotDirectory());
+            Files.createDirectories(directory);
+            var file = directory.resolve(SNAPSHOT_PREFIX + highWaterSeq + SNAPSHOT_SUFFIX);
+            CatalogSnapshotFile.write(file, current, categoryTreeCache.current().categories(), highWaterSeq,
+                    Instant.now());
+            persisted = current;
+            // Files still mapped by this process stay readable after they are unlinked
+            for (var older : snapshotFiles(directory)) {
+                if (!older.equals(file)) {
+                    Files.deleteIfExists(older);
+                }
+            }
+        } catch (IOException e) {
+            // The catalog keeps serving from memory; a restart falls back to an older file or a full rebuild
+            log.warn("Failed to write product catalog snapshot to {}", config.getSnapshotDirectory(), e);
+            return;
+        }
+        log.info("Product catalog snapshot with {} products written in {} ms", current.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private CatalogSnapshotFile.Contents loadLatestSnapshot() {
+        var directory = Path.of(config.getSnapshotDirectory());
+        if (!Files.isDirectory(directory)) {
+            return null;
+        }
+        List<Path> files;
+        try {
+            files = snapshotFiles(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        files.sort(Comparator.comparingLong(ProductCatalog::highWaterSeqOf).reversed());
+        var oldest = Instant.now().minus(config.getSnapshotMaxAge());
+        long latestSeq = productChangeRepository.findLatestSeq();
+        for (var file : files) {
+            try {
+                long start = System.nanoTime();
+                var loaded = CatalogSnapshotFile.read(file);
+                if (loaded.snapshot().priceScale() != config.getPriceScale()) {
+                    log.info("Ignoring catalog snapshot {} written with price scale {}", file,
+                            loaded.snapshot().priceScale());
+                    continue;
+                }
+                if (loaded.highWaterSeq() > latestSeq) {
+                    // Written against another database or before a restore: the feed cannot bring it up to date
+                    log.info("Ignoring catalog snapshot {} ahead of the change feed at {}", file, latestSeq);
+                    continue;
+                }
+                if (loaded.writtenAt().isBefore(oldest)) {
+                    log.info("Ignoring catalog snapshot {} written at {}", file, loaded.writtenAt());
+                    continue;
+                }
+                log.info("Product catalog mapped from {} with {} products in {} ms", file, loaded.snapshot().size(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                return loaded;
+            } catch (IOException e) {
+                log.warn("Skipping unreadable catalog snapshot {}", file, e);
+            }
+        }
+        return null;
+    }
+
+    private static List<Path> snapshotFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return new ArrayList<>(files.filter(file -> {
+                var name = file.getFileName().toString();
+                return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+            }).toList());
+        }
+    }
+
+    private static long highWaterSeqOf(Path file) {
+        var name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,174 @@
+package com.johndo.product.catalog;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.johndo.product.cache.Invalidation;
+import com.johndo.product.cache.InvalidationBus;
+import com.johndo.product.cache.InvalidationListener;
+import com.johndo.product.config.ProductIdFilterConfig;
+import com.johndo.product.repository.ProductRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Per-instance {@link BloomFilter} of existing product ids, so lookups of ids
+ * that never existed are answered with a 404 before Redis or Postgres is
+ * asked. It is built from Postgres when the application is ready and rebuilt
+ * every {@code refreshInterval}, which also drops deleted ids.
+ *
+ * <p>
+ * Ids are not handed out in commit order, so the scan can pass an id whose
+ * create commits a moment later. Only ids that cannot still be in flight are
+ * judged: those up to the highest id seen by the previous rebuild, which were
+ * handed out at least one {@code refreshInterval} before this scan, and those
+ * more than {@code recentIdMargin} below the highest id this scan saw. Newer
+ * ids may also have been created by another instance whose announcement on
+ * the {@link InvalidationBus} has not arrived (or was lost), so they are let
+ * through. Local creates are added before their transaction commits, and
+ * creates announced by other instances when they arrive.
+ */
+@Component
+public class ProductIdFilter implements InvalidationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductIdFilter.class);
+
+    // The filter, the highest id its scan saw, and the highest id it may reject
+    private record Generation(BloomFilter filter, long maxId, long judgedUpTo) {
+    }
+
+    private final ProductRepository productRepository;
+    private final ProductIdFilterConfig config;
+    private final ScheduledExecutorService executor;
+
+    private volatile Generation current;
+    // Ids added while a rebuild runs, copied into the new filter before it is swapped in
+    private volatile Queue<Long> addedDuringRebuild;
+
+    private final Counter rejected;
+
+    public ProductIdFilter(ProductRepository productRepository,
+            ProductIdFilterConfig config,
+            InvalidationBus invalidationBus,
+            MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.config = config;
+        this.executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("product-id-filter-"));
+
+        if (config.isEnabled()) {
+            invalidationBus.subscribe(ProductCatalog.INVALIDATION_CACHE, this);
+        }
+        this.rejected = meterRegistry.counter("products.id_filter.rejected");
+        Gauge.builder("products.id_filter.bits", this, filter -> filter.current == null ? 0
+                : filter.current.filter().bitCount())
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        long refreshMillis = config.getRefreshInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::rebuildSafely, 0, refreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * False only if the product certainly does not exist. True while the
+     * filter is not built yet and for ids too recent to judge.
+     */
+    public boolean mightExist(long id) {
+        var generation = current;
+        if (generation == null || id > generation.judgedUpTo() || generation.filter().mightContain(id)) {
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    // Called for every created product; a rolled back create only costs a false positive
+    public void add(long id) {
+        var generation = current;
+        if (generation != null) {
+            generation.filter().add(id);
+        }
+        var pending = addedDuringRebuild;
+        if (pending != null) {
+            pending.add(id);
+        }
+    }
+
+    // Creates (and, indistinguishably, updates and deletes) announced by other instances
+    @Override
+    public void onInvalidation(List<Invalidation> invalidations) {
+        if (invalidations.stream().anyMatch(Invalidation::family)) {
+            executor.execute(this::rebuildSafely);
+            return;
+        }
+        invalidations.forEach(invalidation -> add(Long.parseLong(invalidation.key())));
+    }
+
+    void rebuild() {
+        long start = System.nanoTime();
+        Queue<Long> added = new ConcurrentLinkedQueue<>();
+        addedDuringRebuild = added;
+        try {
+            long expected = (long) (productRepository.count() * config.getGrowthFactor());
+            var filter = BloomFilter.create(Math.max(1024, expected), config.getFalsePositiveRate());
+            var chunk = PageRequest.of(0, config.getLoadChunkSize());
+            long maxId = 0;
+            while (true) {
+                var ids = productRepository.findIdsAfter(maxId, chunk);
+                ids.forEach(filter::add);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                maxId = ids.get(ids.size() - 1);
+                if (ids.size() < config.getLoadChunkSize()) {
+                    break;
+                }
+            }
+            added.forEach(filter::add);
+            var previous = current;
+            long judgedUpTo = Math.max(maxId - config.getRecentIdMargin(),
+                    previous == null ? 0 : Math.min(previous.maxId(), maxId));
+            current = new Generation(filter, maxId, judgedUpTo);
+            // Anything added between the copy above and the swap
+            added.forEach(filter::add);
+            log.info("Product id filter rebuilt up to id {}, judging up to {} ({} bits, {} hashes) in {} ms", maxId,
+                    judgedUpTo, filter.bitCount(), filter.hashCount(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } finally {
+            addedDuringRebuild = null;
+        }
+    }
+
+    private void rebuildSafely() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("Failed to rebuild product id filter", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,185 @@
+package com.johndo.product.catalog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.johndo.product.cache.Invalidation;
+import com.johndo.product.cache.InvalidationBus;
+import com.johndo.product.cache.InvalidationListener;
+import com.johndo.product.config.ProductSuggestConfig;
+import com.johndo.product.dto.Product.ProductResponseDTO;
+import com.johndo.product.dto.Product.ProductSuggestionDTO;
+import com.johndo.product.event.ProductChangedEvent;
+import com.johndo.product.repository.ProductRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Typeahead over product names, answered from an in-process
+ * {@link NameIndex} so keystrokes never reach the database. The index is
+ * built from Postgres once the application is ready; renames, stock changes,
+ * creates and deletes go to a small overlay that is merged into a fresh index
+ * after {@code compactionDelay}. Until then lookups combine both. Products
+ * changed by other instances are announced on the {@link InvalidationBus},
+ * re-read and staged the same way.
+ */
+@Component
+public class ProductSuggester implements InvalidationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSuggester.class);
+
+    private final ProductRepository productRepository;
+    private final ProductSuggestConfig config;
+
+    private final ScheduledExecutorService executor;
+    private final IndexOverlay<NameIndex, ProductSuggestionDTO> overlay;
+
+    private final Timer lookups;
+
+    public ProductSuggester(ProductRepository productRepository,
+            ProductSuggestConfig config,
+            InvalidationBus invalidationBus,
+            MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.config = config;
+        this.executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("product-suggester-"));
+        this.overlay = new IndexOverlay<>("product name index", executor, config::getCompactionDelay, this::rebuild,
+                this::compact);
+
+        if (config.isEnabled()) {
+            invalidationBus.subscribe(ProductCatalog.INVALIDATION_CACHE, this);
+        }
+        Gauge.builder("products.suggest.size", overlay, ref -> ref.current() == null ? 0 : ref.current().size())
+                .register(meterRegistry);
+        Gauge.builder("products.suggest.memory_bytes", overlay,
+                ref -> ref.current() == null ? 0 : ref.current().memoryBytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("products.suggest.pending_changes", overlay, IndexOverlay::pendingCount).register(meterRegistry);
+        this.lookups = Timer.builder("products.suggest.latency").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        long refreshMillis = config.getRefreshInterval().toMillis();
+        executor.scheduleWithFixedDelay(overlay::rebuildSafely, 0, refreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Only changes to what the index holds are staged, so plain stock movements within stock cost nothing
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        var before = event.getPrevious() == null ? null : suggestion(event.getPrevious());
+        var after = event.getCurrent() == null ? null : suggestion(event.getCurrent());
+        if (before != null && after != null && before.getName().equals(after.getName())
+                && before.isInStock() == after.isInStock()) {
+            return;
+        }
+        overlay.stage(event.getProductId(), after);
+    }
+
+    @Override
+    public void onInvalidation(List<Invalidation> invalidations) {
+        if (overlay.rebuildOnFamily(invalidations)) {
+            return;
+        }
+        for (var invalidation : invalidations) {
+            var id = Long.valueOf(invalidation.key());
+            overlay.stage(id, productRepository.findById(id)
+                    .map(product -> new ProductSuggestionDTO(product.getId(), product.getName(),
+                            product.getQuantity() > 0))
+                    .orElse(null));
+        }
+    }
+
+    public boolean isReady() {
+        return overlay.current() != null;
+    }
+
+    /**
+     * Up to {@code limit} products whose name starts with the prefix (case
+     * insensitive), in stock first and newest first. Empty until the index
+     * has been built.
+     */
+    public List<ProductSuggestionDTO> suggest(String prefix, int limit) {
+        var current = overlay.current();
+        if (current == null || prefix == null || prefix.isBlank() || limit <= 0) {
+            return List.of();
+        }
+        long start = System.nanoTime();
+        var normalizedPrefix = NameIndex.normalize(prefix);
+        var pendingIds = overlay.pendingIds();
+        List<ProductSuggestionDTO> result = new ArrayList<>(current.top(normalizedPrefix, limit, pendingIds::contains));
+        for (var pending : overlay.pendingChanges()) {
+            var product = pending.value();
+            if (product != null && NameIndex.normalize(product.getName()).startsWith(normalizedPrefix)) {
+                result.add(product);
+            }
+        }
+        result.sort(NameIndex.RANKING);
+        if (result.size() > limit) {
+            result = result.subList(0, limit);
+        }
+        lookups.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    // Full reload from Postgres using keyset pagination on the primary key
+    void rebuild() {
+        long start = System.nanoTime();
+        var applied = overlay.beginBuild();
+        var builder = NameIndex.builder();
+        var chunk = PageRequest.of(0, config.getLoadChunkSize());
+        long lastId = 0;
+        while (true) {
+            var rows = productRepository.findNamesAfter(lastId, chunk);
+            for (var row : rows) {
+                builder.add((Long) row[0], (String) row[1], (Integer) row[2] > 0);
+            }
+            if (rows.size() < config.getLoadChunkSize()) {
+                break;
+            }
+            lastId = (Long) rows.get(rows.size() - 1)[0];
+        }
+        var next = builder.build();
+        overlay.swap(next, applied);
+        log.info("Product name index rebuilt with {} names ({} bytes) in {} ms", next.size(), next.memoryBytes(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    // Merges the overlay into the current index without touching the database
+    void compact() {
+        overlay.compact(NameIndex::withChanges);
+    }
+
+    private static ProductSuggestionDTO suggestion(ProductResponseDTO product) {
+        return new ProductSuggestionDTO(product.getId(), product.getName(),
+                product.getQuantity() != null && product.getQuantity() > 0);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.johndo.product.catalog;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Distinct strings packed back to back as UTF-8 in one direct buffer,
+ * addressed by code. Code {@code i} spans {@code offsets[i]..offsets[i + 1]}.
+ */
+final class StringDictionary {
+
+    static final int NULL_CODE = -1;
+
+    private final ByteBuffer bytes;
+    private final IntBuffer offsets;
+    private final int size;
+
+    StringDictionary(ByteBuffer bytes, IntBuffer offsets, int size) {
+        this.bytes = bytes;
+        this.offsets = offsets;
+        this.size = size;
+    }
+
+    static StringDictionary of(List<String> strings) {
+        byte[][] encoded = new byte[strings.size()][];
+        int totalBytes = 0;
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+            totalBytes += encoded[i].length;
+        }
+
+        var bytes = ByteBuffer.allocateDirect(Math.max(totalBytes, 1));
+        var offsets = ByteBuffer.allocateDirect((encoded.length + 1) * Integer.BYTES)
+                .order(ByteOrder.nativeOrder()).asIntBuffer();
+        int position = 0;
+        for (int i = 0; i < encoded.length; i++) {
+            offsets.put(i, position);
+            bytes.put(position, encoded[i]);
+            position += encoded[i].length;
+        }
+        offsets.put(encoded.length, position);
+        return new StringDictionary(bytes, offsets, encoded.length);
+    }
+
+    String get(int code) {
+        if (code == NULL_CODE) {
+            return null;
+        }
+        int start = offsets.get(code);
+        byte[] value = new byte[offsets.get(code + 1) - start];
+        bytes.get(start, value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    int size() {
+        return size;
+    }
+
+    ByteBuffer bytes() {
+        return bytes;
+    }
+
+    IntBuffer offsets() {
+        return offsets;
+    }
+
+    long offHeapBytes() {
+        return bytes.capacity() + (long) offsets.capacity() * Integer.BYTES;
+    }
+
+}
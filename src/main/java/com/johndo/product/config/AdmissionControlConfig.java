@@ -0,0 +1,56 @@
+package com.johndo.product.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "products.admission")
+public class AdmissionControlConfig {
+
+    private boolean enabled = true;
+
+    // Concurrency limit bounds; the effective limit adapts between them from observed latency
+    private int initialLimit = 20;
+    private int minLimit = 4;
+    private int maxLimit = 200;
+
+    // How much slower than the long-term baseline a request may get before the limit shrinks
+    private double rttTolerance = 2.0;
+
+    // Weight of each new sample when moving the limit (0..1)
+    private double smoothing = 0.2;
+
+    // Multiplicative decrease applied when a request fails with a server error
+    private double backoffRatio = 0.9;
+
+    // Share of the limit each priority may use; cheap cached reads get the whole limit
+    private double listingShare = 0.8;
+    private double writeShare = 0.5;
+
+    // Value of the Retry-After header on rejected requests
+    private int retryAfterSeconds = 1;
+
+    private ClientRateLimit clientRateLimit = new ClientRateLimit();
+
+    @Getter
+    @Setter
+    public static class ClientRateLimit {
+
+        private boolean enabled = false;
+
+        // Header identifying the caller; falls back to the remote address
+        private String clientHeader = "X-Client-Id";
+
+        private double permitsPerSecond = 50;
+        private int burst = 100;
+
+        // Upper bound on tracked clients so spoofed ids cannot grow the map without limit
+        private int maxClients = 10000;
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.johndo.product.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.johndo.product.admission.AdmissionControlFilter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+@ConditionalOnProperty(prefix = "products.admission", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlFilterConfig {
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(AdmissionControlConfig config,
+            MeterRegistry meterRegistry) {
+        var registration = new FilterRegistrationBean<>(new AdmissionControlFilter(config, meterRegistry));
+        registration.addUrlPatterns("/api/v1/products", "/api/v1/products/*", "/api/v1/categories",
+                "/api/v1/categories/*");
+        // Run before anything that does real work so rejected requests stay cheap
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.johndo.product.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "products.cache-breaker")
+public class CacheBreakerConfig {
+
+    // When disabled Redis errors reach the caller, as before
+    private boolean enabled = true;
+
+    // Consecutive Redis failures (errors or timeouts) that open the breaker
+    private int failureThreshold = 5;
+
+    // How long the breaker stays open before a single call probes Redis again
+    private Duration openDuration = Duration.ofSeconds(10);
+
+    // In-process fallback used while the breaker is not closed, per cache
+    private int localCacheSize = 1000;
+    private Duration localCacheTtl = Duration.ofSeconds(30);
+
+    // Invalidations kept for replay on recovery; beyond this they are widened to whole caches
+    private int maxQueuedInvalidations = 10000;
+
+}
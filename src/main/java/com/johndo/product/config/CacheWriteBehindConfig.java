@@ -0,0 +1,32 @@
+package com.johndo.product.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "products.cache-write-behind")
+public class CacheWriteBehindConfig {
+
+    // When disabled cache maintenance runs on the request thread, as before
+    private boolean enabled = true;
+
+    // Worker threads; each cache key is always handled by the same worker so its writes stay in order
+    private int threads = 2;
+
+    // Pending keys above this are handled on the caller's thread instead of being queued
+    private int maxPending = 10000;
+
+    // Attempts per operation before it is dropped and left to the cache TTL
+    private int maxAttempts = 5;
+
+    // Delay before the first retry, doubled for every further attempt
+    private Duration retryBackoff = Duration.ofMillis(100);
+
+}
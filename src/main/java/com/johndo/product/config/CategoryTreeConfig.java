@@ -0,0 +1,23 @@
+package com.johndo.product.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "products.category-tree")
+public class CategoryTreeConfig {
+
+    // Serve category reads from the in-memory tree instead of Postgres
+    private boolean enabled = true;
+
+    // Full reload from Postgres, bounding staleness if an invalidation message was lost
+    private Duration refreshInterval = Duration.ofMinutes(30);
+
+}
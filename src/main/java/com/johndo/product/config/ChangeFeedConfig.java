@@ -0,0 +1,31 @@
+package com.johndo.product.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "products.changes")
+public class ChangeFeedConfig {
+
+    // Changes per page of GET /products/changes when no limit is given, and the largest limit accepted
+    private int defaultLimit = 100;
+
+    private int maxLimit = 1000;
+
+    // How often streams check for changes; local writes also wake them up right after commit
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    // Comment sent on idle streams so proxies keep the connection open
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    // Streams are closed after this; clients reconnect with Last-Event-ID
+    private Duration streamTimeout = Duration.ofMinutes(30);
+
+}
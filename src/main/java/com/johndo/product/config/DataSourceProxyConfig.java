@@ -0,0 +1,59 @@
+package com.johndo.product.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.johndo.product.monitoring.QueryInspectionInterceptor;
+import com.johndo.product.monitoring.QueryInspectionListener;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * Wraps the application {@link DataSource} so every statement is reported to
+ * the {@link QueryInspectionListener}, and binds the per-request query context
+ * around the API controllers. Replaces {@code spring.jpa.show-sql}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "products.query-inspector", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class DataSourceProxyConfig {
+
+    // static so the post processor does not force early initialization of this configuration
+    @Bean
+    public static BeanPostProcessor dataSourceProxyPostProcessor(ObjectProvider<QueryInspectionListener> listener) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(listener.getObject())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public WebMvcConfigurer queryInspectionConfigurer(QueryInspectorConfig queryInspectorConfig,
+            MeterRegistry meterRegistry) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(@NonNull InterceptorRegistry registry) {
+                registry.addInterceptor(new QueryInspectionInterceptor(queryInspectorConfig, meterRegistry))
+                        .addPathPatterns("/api/**");
+            }
+        };
+    }
+
+}
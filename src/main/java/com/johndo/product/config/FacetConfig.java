@@ -0,0 +1,28 @@
+package com.johndo.product.config;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "products.facets")
+public class FacetConfig {
+
+    // Lower bounds of the price buckets in ascending order; the last bucket is open-ended
+    private List<BigDecimal> priceBuckets = new ArrayList<>(List.of(
+            new BigDecimal("0"), new BigDecimal("10"), new BigDecimal("25"), new BigDecimal("50"),
+            new BigDecimal("100"), new BigDecimal("250"), new BigDecimal("500"), new BigDecimal("1000")));
+
+    // Recount from Postgres, correcting drift and picking up writes made by other instances
+    private Duration refreshInterval = Duration.ofMinutes(5);
+
+}
@@ -0,0 +1,32 @@
+package com.johndo.product.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Honours {@code spring.flyway.enabled=false} at run time. Under Spring AOT
+ * (the fast-startup build) the Flyway beans are fixed at build time and the
+ * property is no longer consulted, so the AppCDS training run in
+ * Dockerfile.fast-startup, which has no database, would still try to migrate.
+ */
+@Configuration
+public class FlywayConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(FlywayConfig.class);
+
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(Environment environment) {
+        return flyway -> {
+            if (!environment.getProperty("spring.flyway.enabled", Boolean.class, true)) {
+                log.info("Skipping Flyway migrations: spring.flyway.enabled is false");
+                return;
+            }
+            flyway.migrate();
+        };
+    }
+
+}
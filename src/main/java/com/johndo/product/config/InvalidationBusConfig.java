@@ -0,0 +1,29 @@
+package com.johndo.product.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "products.invalidation")
+public class InvalidationBusConfig {
+
+    // Broadcast local writes to the other instances and apply theirs
+    private boolean enabled = true;
+
+    // Fanout exchange every instance binds its own auto-delete queue to
+    private String exchange = "product-invalidation";
+
+    // Invalidations published within this window go out as one message
+    private Duration coalesceWindow = Duration.ofMillis(50);
+
+    // Above this many entries a batch is widened to whole-cache invalidations
+    private int maxBatchSize = 500;
+
+}
@@ -0,0 +1,37 @@
+package com.johndo.product.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "products.reservations")
+public class InventoryReservationConfig {
+
+    // How long a reservation holds stock before it lapses on its own
+    private Duration holdTtl = Duration.ofMinutes(10);
+
+    // Product quantities are copied to Redis on first use and re-read from Postgres after this
+    private Duration quantityTtl = Duration.ofMinutes(10);
+
+    // Expired holds removed per script call, keeping every call short
+    private int purgeLimit = 100;
+
+    // How often confirmed reservations are written to products.quantity, and how many products per transaction
+    private Duration reconcileInterval = Duration.ofSeconds(5);
+
+    private int reconcileBatchSize = 500;
+
+    // A claim on confirmed sales still open after this is taken as abandoned by its reconciler and decided
+    private Duration claimTimeout = Duration.ofMinutes(5);
+
+    // How long decided claims are kept; must exceed the time any reconciler can stall
+    private Duration claimRetention = Duration.ofDays(1);
+
+}
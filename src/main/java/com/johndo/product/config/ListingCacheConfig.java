@@ -0,0 +1,21 @@
+package com.johndo.product.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "products.listing-cache")
+public class ListingCacheConfig {
+
+    // How long an instance reuses the generation it read from Redis; bounds how long
+    // it can serve pages cached before another instance's write
+    private Duration generationLocalTtl = Duration.ofMillis(5);
+
+}
@@ -16,9 +16,4 @@ public class PaginationConfig {
     private int defaultPage;
     private int maxPageSize;
 
-    @Override
-    public String toString() {
-        return "page:" + defaultPage + ":size:" + defaultPageSize;
-    }
-
 }
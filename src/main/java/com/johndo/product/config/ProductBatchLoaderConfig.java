@@ -0,0 +1,29 @@
+package com.johndo.product.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "products.batch-loader")
+public class ProductBatchLoaderConfig {
+
+    // When disabled every cache miss runs its own findById
+    private boolean enabled = true;
+
+    // How long the first miss of a batch waits for others to join it
+    private Duration window = Duration.ofMillis(2);
+
+    // A batch is dispatched immediately once it reaches this many distinct ids
+    private int maxBatchSize = 100;
+
+    // Threads running the batched queries, so a slow batch does not hold back the next one
+    private int dispatchThreads = 4;
+
+}
@@ -0,0 +1,45 @@
+package com.johndo.product.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "products.catalog")
+public class ProductCatalogConfig {
+
+    // Off by default: the snapshot lives in direct memory, size -XX:MaxDirectMemorySize for it
+    private boolean enabled = false;
+
+    // Prices are stored as longs with this many decimal places (unit_price is numeric(38,2))
+    private int priceScale = 2;
+
+    // Rows fetched per keyset query while building the snapshot at startup
+    private int loadChunkSize = 5000;
+
+    // Quiet time after a change before pending changes are folded into a new snapshot
+    private Duration compactionDelay = Duration.ofSeconds(5);
+
+    // Full rebuild from Postgres, bounding staleness for writes made by other instances
+    private Duration refreshInterval = Duration.ofMinutes(10);
+
+    // Snapshot files written here are memory-mapped at startup; a restart then only replays the change feed
+    private boolean snapshotEnabled = true;
+    private String snapshotDirectory = "catalog-snapshot";
+
+    // How often the snapshot is written out, when it changed since the last write
+    private Duration snapshotInterval = Duration.ofMinutes(5);
+
+    // Older files are ignored at startup in favour of a full rebuild, bounding the changes to replay
+    private Duration snapshotMaxAge = Duration.ofDays(1);
+
+    // Change feed entries fetched per query while catching up after loading a snapshot file
+    private int feedBatchSize = 1000;
+
+}
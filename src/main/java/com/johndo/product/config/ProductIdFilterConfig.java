@@ -0,0 +1,37 @@
+package com.johndo.product.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "products.id-filter")
+public class ProductIdFilterConfig {
+
+    private boolean enabled = true;
+
+    // Share of unknown ids the filter lets through to the cache and database
+    private double falsePositiveRate = 0.01;
+
+    // Headroom for products created before the next rebuild, as a multiple of the current count
+    private double growthFactor = 1.5;
+
+    // Ids fetched per keyset query while building the filter
+    private int loadChunkSize = 10000;
+
+    // Full rebuild from Postgres; drops deleted ids and covers ids created since the last one
+    private Duration refreshInterval = Duration.ofMinutes(10);
+
+    // Ids this close to the newest one scanned may belong to creates still committing; they are let through
+    private long recentIdMargin = 1000;
+
+    // How long a lookup of a missing product is remembered (the filter's false positives)
+    private Duration negativeCacheTtl = Duration.ofSeconds(30);
+
+}
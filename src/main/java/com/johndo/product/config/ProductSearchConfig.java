@@ -0,0 +1,46 @@
+package com.johndo.product.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "products.search")
+public class ProductSearchConfig {
+
+    private boolean enabled = true;
+
+    // Segment files live here; relative paths resolve against the working directory
+    private String directory = "search-index";
+
+    // Hits returned when the request gives no limit, and the most it may ask for
+    private int defaultLimit = 10;
+    private int maxLimit = 100;
+
+    // How many times a name term counts compared to a description term; changing it rebuilds the index
+    private int nameBoost = 3;
+
+    // BM25 term frequency saturation and length normalization
+    private double k1 = 1.2;
+    private double b = 0.75;
+
+    // Rows fetched per keyset query while building the index
+    private int loadChunkSize = 5000;
+
+    // Quiet time after a change before pending changes are merged into a new segment and written to disk
+    private Duration compactionDelay = Duration.ofSeconds(30);
+
+    // Change feed polling, which brings in writes made by other instances and catches up after a restart
+    private Duration pollInterval = Duration.ofSeconds(5);
+    private int feedBatchSize = 1000;
+
+    // Full rebuild from Postgres, repairing anything the change feed does not carry
+    private Duration refreshInterval = Duration.ofHours(1);
+
+}
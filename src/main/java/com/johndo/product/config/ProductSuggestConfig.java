@@ -0,0 +1,32 @@
+package com.johndo.product.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "products.suggest")
+public class ProductSuggestConfig {
+
+    private boolean enabled = true;
+
+    // Suggestions returned when the request gives no limit, and the most it may ask for
+    private int defaultLimit = 10;
+    private int maxLimit = 50;
+
+    // Rows fetched per keyset query while building the index
+    private int loadChunkSize = 10000;
+
+    // Quiet time after a change before pending changes are merged into a new index
+    private Duration compactionDelay = Duration.ofSeconds(2);
+
+    // Full rebuild from Postgres, bounding staleness for writes made by other instances
+    private Duration refreshInterval = Duration.ofMinutes(30);
+
+}
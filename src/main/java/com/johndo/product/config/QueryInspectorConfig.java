@@ -0,0 +1,34 @@
+package com.johndo.product.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "products.query-inspector")
+public class QueryInspectorConfig {
+
+    private boolean enabled = true;
+
+    // Statements slower than this are logged together with the endpoint that issued them
+    private long slowQueryThresholdMs = 200;
+
+    // The same statement shape executed this many times in one request is reported as N+1
+    private int nPlusOneThreshold = 5;
+
+    // Fail the request (instead of only logging) once an endpoint exceeds its budget.
+    // Meant for tests so that a query regression breaks the build.
+    private boolean failOnBudgetExceeded = false;
+
+    // Maximum statements per request keyed by "<METHOD> <uri pattern>",
+    // e.g. "GET /api/v1/products/{id}"
+    private Map<String, Integer> budgets = new HashMap<>();
+
+}
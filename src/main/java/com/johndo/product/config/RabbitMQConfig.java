@@ -1,9 +1,15 @@
 package com.johndo.product.config;
 
+import org.springframework.amqp.core.AcknowledgeMode;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.FanoutExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
 import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
@@ -12,8 +18,6 @@ import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.retry.support.RetryTemplate;
-import org.springframework.retry.support.RetryTemplateBuilder;
 
 @Configuration
 public class RabbitMQConfig {
@@ -44,6 +48,8 @@ public class RabbitMQConfig {
         CachingConnectionFactory connectionFactory = new CachingConnectionFactory(rabbitHost, rabbitPort);
         connectionFactory.setUsername(rabbitUsername);
         connectionFactory.setPassword(rabbitPassword);
+        // Broker acks/nacks are delivered per message to the CorrelationData passed on send
+        connectionFactory.setPublisherConfirmType(CachingConnectionFactory.ConfirmType.CORRELATED);
 
         return connectionFactory;
     }
@@ -66,10 +72,102 @@ public class RabbitMQConfig {
         return BindingBuilder.bind(productQueue).to(productExchange).with(rabbitRoutingKey);
     }
 
+    // Failed messages wait here for their TTL, then expire back into the main exchange
+    @Bean
+    public Queue productRetryQueue(RabbitMQConsumerConfig consumerConfig) {
+        return QueueBuilder.durable(retryQueueName(rabbitQueue))
+                .ttl((int) consumerConfig.getRetryDelay().toMillis())
+                .deadLetterExchange(rabbitExchange)
+                .deadLetterRoutingKey(rabbitRoutingKey)
+                .build();
+    }
+
+    // Messages that exhausted their attempts. The main queue keeps its arguments (redeclaring
+    // an existing queue with different ones fails), so the consumer routes here explicitly.
+    @Bean
+    public DirectExchange productDeadLetterExchange() {
+        return new DirectExchange(deadLetterExchangeName(rabbitExchange));
+    }
+
+    @Bean
+    public Queue productDeadLetterQueue() {
+        return QueueBuilder.durable(deadLetterQueueName(rabbitQueue)).build();
+    }
+
+    @Bean
+    public Binding deadLetterBinding(Queue productDeadLetterQueue, DirectExchange productDeadLetterExchange) {
+        return BindingBuilder.bind(productDeadLetterQueue).to(productDeadLetterExchange).with(rabbitRoutingKey);
+    }
+
+    // Cross-instance cache invalidations, see InvalidationBus
+    @Bean
+    public FanoutExchange productInvalidationExchange(InvalidationBusConfig invalidationConfig) {
+        return new FanoutExchange(invalidationConfig.getExchange());
+    }
+
+    // One server-named, exclusive, auto-delete queue per instance: it only lives as long as the instance
+    @Bean
+    public Queue productInvalidationQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding invalidationBinding(Queue productInvalidationQueue, FanoutExchange productInvalidationExchange) {
+        return BindingBuilder.bind(productInvalidationQueue).to(productInvalidationExchange);
+    }
+
+    public static String retryQueueName(String queue) {
+        return queue + ".retry";
+    }
+
+    public static String deadLetterExchangeName(String exchange) {
+        return exchange + ".dlx";
+    }
+
+    public static String deadLetterQueueName(String queue) {
+        return queue + ".dlq";
+    }
+
     // 5. Message Converter (Jackson for JSON)
     @Bean
-    public MessageConverter messageConverter() {
-        return new Jackson2JsonMessageConverter();
+    public Jackson2JsonMessageConverter messageConverter() {
+        Jackson2JsonMessageConverter converter = new Jackson2JsonMessageConverter();
+        // Every message gets an id, which consumers use to recognize redeliveries
+        converter.setCreateMessageIds(true);
+        return converter;
+    }
+
+    // Replaces Boot's default factory: batched, concurrent consumers with a bounded prefetch
+    @Bean
+    public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(ConnectionFactory connectionFactory,
+            RabbitMQConsumerConfig consumerConfig) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setConcurrentConsumers(consumerConfig.getConcurrency());
+        factory.setMaxConcurrentConsumers(Math.max(consumerConfig.getConcurrency(), consumerConfig.getMaxConcurrency()));
+        factory.setPrefetchCount(consumerConfig.getPrefetch());
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(consumerConfig.getBatchSize());
+        factory.setBatchReceiveTimeout(consumerConfig.getBatchReceiveTimeout().toMillis());
+        factory.setAcknowledgeMode(AcknowledgeMode.AUTO);
+        // A batch that fails as a whole is redelivered; already processed messages are skipped by id
+        factory.setDefaultRequeueRejected(true);
+        return factory;
+    }
+
+    // Invalidations are applied one message at a time, in the order they were broadcast
+    @Bean
+    public SimpleRabbitListenerContainerFactory invalidationListenerContainerFactory(
+            ConnectionFactory connectionFactory, Jackson2JsonMessageConverter messageConverter) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(messageConverter);
+        factory.setConcurrentConsumers(1);
+        factory.setMaxConcurrentConsumers(1);
+        // A message that cannot be applied is dropped; the periodic refreshes repair the state
+        factory.setDefaultRequeueRejected(false);
+        return factory;
     }
 
     // 6. RabbitTemplate with Message Converter
@@ -77,15 +175,9 @@ public class RabbitMQConfig {
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory, MessageConverter messageConverter) {
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
         rabbitTemplate.setMessageConverter(messageConverter);
-
-        // add retry logic
-        rabbitTemplate.setRetryTemplate(retryTemplate());
+        // No RetryTemplate: a blocking retry would hold the caller. RabbitMQProducer retries
+        // unconfirmed messages on its own publisher thread instead.
         return rabbitTemplate;
     }
 
-    @Bean
-    public RetryTemplate retryTemplate() {
-        return new RetryTemplateBuilder().maxAttempts(5).fixedBackoff(2000).build();
-    }
-
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.johndo.product.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "products.consumer")
+public class RabbitMQConsumerConfig {
+
+    // Consumers started per listener; more are added under load up to maxConcurrency
+    private int concurrency = 2;
+
+    private int maxConcurrency = 8;
+
+    // Unacknowledged messages the broker may push to each consumer
+    private int prefetch = 250;
+
+    // Messages handed to the listener at once, and how long to wait to fill a batch
+    private int batchSize = 50;
+
+    private Duration batchReceiveTimeout = Duration.ofMillis(100);
+
+    // Deliveries per message (first attempt included) before it is dead-lettered
+    private int maxAttempts = 4;
+
+    // Time a failed message waits in the retry queue before it is redelivered
+    private Duration retryDelay = Duration.ofSeconds(5);
+
+    // How long processed message ids are remembered to skip redeliveries
+    private Duration idempotencyTtl = Duration.ofHours(24);
+
+    // A message claimed by a consumer that died is treated as unprocessed after this
+    private Duration processingLease = Duration.ofMinutes(5);
+
+}
@@ -0,0 +1,34 @@
+package com.johndo.product.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "products.publisher")
+public class RabbitMQPublisherConfig {
+
+    // Messages accepted but not yet handed to the broker; sendMessage is rejected once it is full
+    private int bufferCapacity = 10000;
+
+    // Messages published on one channel before waiting for their confirms together
+    private int batchSize = 100;
+
+    // How long to wait for the broker to confirm a batch before treating it as failed
+    private Duration confirmTimeout = Duration.ofSeconds(10);
+
+    // Publish attempts per message before it is dropped
+    private int maxAttempts = 8;
+
+    // Delay before the first retry, doubled per attempt up to maxBackoff
+    private Duration initialBackoff = Duration.ofMillis(200);
+
+    private Duration maxBackoff = Duration.ofSeconds(30);
+
+}
@@ -2,39 +2,143 @@ package com.johndo.product.config;
 
 import java.time.Duration;
 
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+import org.springframework.cache.interceptor.LoggingCacheErrorHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.cache.BatchStrategies;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisNode;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.RedisStaticMasterReplicaConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
 
+import com.johndo.product.cache.CacheCircuitBreaker;
+import com.johndo.product.cache.ResilientCacheManager;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import io.micrometer.core.instrument.MeterRegistry;
+
 @Configuration
-public class RedisConfig {
+public class RedisConfig implements CachingConfigurer {
 
         @Value("${spring.redis.host}")
         private String redisHost;
         @Value("${spring.redis.port}")
         private int redisPort;
+        @Value("${spring.cache.redis.time-to-live}")
+        private Duration cacheTtl;
+
+        // Commands other than cache reads go to the primary, so scripts, counters and dedup
+        // markers always see the latest writes
+        @Bean
+        @Primary
+        public LettuceConnectionFactory redisConnectionFactory(RedisTopologyConfig topology) {
+                return connectionFactory(topology, redisHost, redisPort, ReadFrom.UPSTREAM);
+        }
 
+        // Cache reads may be served by replicas: an entry a few milliseconds behind is still
+        // within what the TTL allows. Writes through it still go to the primary
         @Bean
-        public RedisConnectionFactory redisConnectionFactory() {
-                LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(redisHost, redisPort);
-                connectionFactory.afterPropertiesSet();
+        public LettuceConnectionFactory cacheRedisConnectionFactory(RedisTopologyConfig topology) {
+                return connectionFactory(topology, redisHost, redisPort, ReadFrom.valueOf(topology.getCacheReadFrom()));
+        }
+
+        static LettuceConnectionFactory connectionFactory(RedisTopologyConfig topology, String host, int port,
+                        ReadFrom readFrom) {
+                var pool = topology.getPool();
+                LettuceClientConfiguration.LettuceClientConfigurationBuilder client = pool.isEnabled()
+                                ? LettucePoolingClientConfiguration.builder().poolConfig(poolConfig(pool))
+                                : LettuceClientConfiguration.builder();
+                // Fail fast instead of queueing commands while disconnected: the cache circuit
+                // breaker turns the errors into misses
+                var socketOptions = SocketOptions.builder().connectTimeout(topology.getConnectTimeout()).build();
+                client.commandTimeout(topology.getCommandTimeout())
+                                .clientOptions(ClientOptions.builder()
+                                                .socketOptions(socketOptions)
+                                                .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                                                .build());
+
+                LettuceConnectionFactory connectionFactory = switch (topology.getMode()) {
+                        case STANDALONE -> new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port),
+                                        client.build());
+                        case CLUSTER -> {
+                                var cluster = new RedisClusterConfiguration(topology.getNodes());
+                                cluster.setMaxRedirects(topology.getMaxRedirects());
+                                client.readFrom(readFrom).clientOptions(ClusterClientOptions.builder()
+                                                .socketOptions(socketOptions)
+                                                .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                                                .topologyRefreshOptions(topologyRefresh(topology))
+                                                .build());
+                                yield new LettuceConnectionFactory(cluster, client.build());
+                        }
+                        case REPLICA -> {
+                                var nodes = topology.getNodes().stream().map(RedisNode::fromString).toList();
+                                if (nodes.isEmpty()) {
+                                        throw new IllegalStateException("products.redis.nodes must list the primary");
+                                }
+                                var replica = new RedisStaticMasterReplicaConfiguration(nodes.get(0).getHost(),
+                                                nodes.get(0).getPort());
+                                nodes.stream().skip(1).forEach(node -> replica.node(node.getHost(), node.getPort()));
+                                yield new LettuceConnectionFactory(replica, client.readFrom(readFrom).build());
+                        }
+                };
+                // Let the container initialize it; the shared connection is opened on first use
+                // instead of blocking startup
+                connectionFactory.setEagerInitialization(false);
                 return connectionFactory;
         }
 
+        private static ClusterTopologyRefreshOptions topologyRefresh(RedisTopologyConfig topology) {
+                var refresh = ClusterTopologyRefreshOptions.builder();
+                var period = topology.getTopologyRefreshPeriod();
+                if (period != null && !period.isZero()) {
+                        refresh.enablePeriodicRefresh(period);
+                }
+                if (topology.isAdaptiveTopologyRefresh()) {
+                        refresh.enableAllAdaptiveRefreshTriggers();
+                }
+                return refresh.build();
+        }
+
+        private static GenericObjectPoolConfig<StatefulConnection<?, ?>> poolConfig(RedisTopologyConfig.Pool pool) {
+                var poolConfig = new GenericObjectPoolConfig<StatefulConnection<?, ?>>();
+                poolConfig.setMaxTotal(pool.getMaxTotal());
+                poolConfig.setMaxIdle(pool.getMaxIdle());
+                poolConfig.setMinIdle(pool.getMinIdle());
+                poolConfig.setMaxWait(pool.getMaxWait());
+                return poolConfig;
+        }
+
         @Bean
-        public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+        public RedisSerializer<Object> cacheValueSerializer() {
                 // Configure ObjectMapper for GenericJackson2JsonRedisSerializer
                 ObjectMapper objectMapper = new ObjectMapper();
                 objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
@@ -43,18 +147,63 @@ public class RedisConfig {
                                 ObjectMapper.DefaultTyping.NON_FINAL);
 
                 // Use the customized ObjectMapper in GenericJackson2JsonRedisSerializer
-                GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+                return new GenericJackson2JsonRedisSerializer(objectMapper);
+        }
+
+        // Errors the resilient caches do not absorb (e.g. unreadable entries) are logged and
+        // treated as misses instead of failing the request
+        @Override
+        public CacheErrorHandler errorHandler() {
+                return new LoggingCacheErrorHandler();
+        }
 
+        @Bean
+        public CacheManager cacheManager(
+                        @Qualifier("cacheRedisConnectionFactory") RedisConnectionFactory connectionFactory,
+                        RedisSerializer<Object> cacheValueSerializer,
+                        CacheCircuitBreaker cacheCircuitBreaker,
+                        CacheBreakerConfig cacheBreakerConfig,
+                        ProductIdFilterConfig productIdFilterConfig,
+                        MeterRegistry meterRegistry) {
                 // Configure RedisCacheConfiguration
                 RedisCacheConfiguration cacheConfig = RedisCacheConfiguration.defaultCacheConfig()
                                 .serializeValuesWith(
-                                                RedisSerializationContext.SerializationPair.fromSerializer(serializer))
-                                .entryTtl(Duration.ofHours(1)); // Set default TTL for caches: 1 hour
+                                                RedisSerializationContext.SerializationPair
+                                                                .fromSerializer(cacheValueSerializer))
+                                .entryTtl(cacheTtl); // Default TTL for caches: spring.cache.redis.time-to-live
 
                 // Build and return RedisCacheManager
-                return RedisCacheManager.builder(connectionFactory)
+                // SCAN instead of KEYS when a cache is cleared by pattern, so evicting one
+                // category's pages does not block Redis
+                RedisCacheManager redisCacheManager = RedisCacheManager
+                                .builder(RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory,
+                                                BatchStrategies.scan(1000)))
                                 .cacheDefaults(cacheConfig)
+                                // Misses are only remembered briefly: a product created elsewhere must show up soon
+                                .withCacheConfiguration("missingProducts",
+                                                cacheConfig.entryTtl(productIdFilterConfig.getNegativeCacheTtl()))
                                 .build();
+                if (!cacheBreakerConfig.isEnabled()) {
+                        return redisCacheManager;
+                }
+                // Not a bean of its own, so it is initialized here
+                redisCacheManager.afterPropertiesSet();
+                return new ResilientCacheManager(redisCacheManager, cacheCircuitBreaker, cacheBreakerConfig,
+                                meterRegistry);
+        }
+
+        // Template sharing the cache key/value format, for bulk (pipelined) cache writes
+        // that the CacheManager API cannot express
+        @Bean
+        public RedisTemplate<String, Object> cacheRedisTemplate(
+                        @Qualifier("cacheRedisConnectionFactory") RedisConnectionFactory connectionFactory,
+                        RedisSerializer<Object> cacheValueSerializer) {
+                RedisTemplate<String, Object> redisTemplate = new RedisTemplate<>();
+                redisTemplate.setConnectionFactory(connectionFactory);
+                redisTemplate.setKeySerializer(new StringRedisSerializer());
+                redisTemplate.setValueSerializer(cacheValueSerializer);
+                redisTemplate.afterPropertiesSet();
+                return redisTemplate;
         }
 }
 
@@ -0,0 +1,67 @@
+package com.johndo.product.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "products.redis")
+public class RedisTopologyConfig {
+
+    public enum Mode {
+        // One node at spring.redis.host/port
+        STANDALONE,
+        // Redis Cluster discovered from the seed nodes
+        CLUSTER,
+        // A primary and its replicas, listed in nodes
+        REPLICA
+    }
+
+    private Mode mode = Mode.STANDALONE;
+
+    // host:port entries; cluster seed nodes, or the primary and replicas in replica mode
+    private List<String> nodes = new ArrayList<>();
+
+    // Lettuce ReadFrom for cache reads in cluster and replica mode (e.g. replicaPreferred,
+    // nearest, upstream). Everything else always reads from the primary
+    private String cacheReadFrom = "replicaPreferred";
+
+    // Cluster redirects (MOVED/ASK) followed before a command fails
+    private int maxRedirects = 3;
+
+    // Cluster topology refresh: periodic (zero disables) and on redirects or reconnects
+    private Duration topologyRefreshPeriod = Duration.ofSeconds(30);
+    private boolean adaptiveTopologyRefresh = true;
+
+    // Per command; a slow Redis fails the command (and counts against the cache circuit
+    // breaker) instead of holding up the request
+    private Duration commandTimeout = Duration.ofMillis(250);
+    private Duration connectTimeout = Duration.ofSeconds(1);
+
+    private Pool pool = new Pool();
+
+    // Dedicated connections for blocking commands and transactions; other commands keep
+    // sharing one multiplexed connection
+    @Getter
+    @Setter
+    public static class Pool {
+
+        private boolean enabled = false;
+
+        private int maxTotal = 16;
+        private int maxIdle = 8;
+        private int minIdle = 0;
+
+        // How long a command waits for a free connection before failing
+        private Duration maxWait = Duration.ofMillis(500);
+    }
+
+}
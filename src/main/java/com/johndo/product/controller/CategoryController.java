@@ -1,5 +1,7 @@
 package com.johndo.product.controller;
 
+import java.util.List;
+
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,6 +14,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.johndo.product.dto.Category.CategoryRequestDTO;
 import com.johndo.product.dto.Category.CategoryResponseDTO;
+import com.johndo.product.dto.Category.CategoryTreeDTO;
 import com.johndo.product.service.CategoryService;
 
 import jakarta.validation.Valid;
@@ -32,6 +35,16 @@ public class CategoryController {
         return ResponseEntity.ok(categoryService.getCategoryById(id));
     }
 
+    @GetMapping("/categories/tree")
+    public ResponseEntity<List<CategoryTreeDTO>> getCategoryTree() {
+        return ResponseEntity.ok(categoryService.getCategoryTree());
+    }
+
+    @GetMapping("/categories/{id}/breadcrumbs")
+    public ResponseEntity<List<CategoryResponseDTO>> getBreadcrumbs(@PathVariable Integer id) {
+        return ResponseEntity.ok(categoryService.getBreadcrumbs(id));
+    }
+
     @PostMapping("/categories")
     public ResponseEntity<CategoryResponseDTO> createCategory(
             @Valid @RequestBody CategoryRequestDTO categoryRequestDTO) {
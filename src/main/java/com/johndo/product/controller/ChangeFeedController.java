@@ -0,0 +1,41 @@
+package com.johndo.product.controller;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.johndo.product.dto.Change.ChangeFeedPageDTO;
+import com.johndo.product.service.ChangeFeedService;
+
+@RestController
+@RequestMapping("/api/v1")
+public class ChangeFeedController {
+
+    private final ChangeFeedService changeFeedService;
+
+    public ChangeFeedController(ChangeFeedService changeFeedService) {
+        this.changeFeedService = changeFeedService;
+    }
+
+    // Changes after the given offset, oldest first; keep passing next_since back to sync incrementally
+    @GetMapping("/products/changes")
+    public ResponseEntity<ChangeFeedPageDTO> getChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(changeFeedService.getChanges(since, limit));
+    }
+
+    // Live variant: event ids are offsets, so a reconnecting EventSource resumes via Last-Event-ID
+    @GetMapping(path = "/products/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+        return changeFeedService.subscribe(lastEventId != null ? lastEventId : since);
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.johndo.product.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.johndo.product.dto.Facet.FacetsResponseDTO;
+import com.johndo.product.service.FacetService;
+
+@RestController
+@RequestMapping("/api/v1")
+public class FacetController {
+
+    private final FacetService facetService;
+
+    public FacetController(FacetService facetService) {
+        this.facetService = facetService;
+    }
+
+    // Counts per child category (including descendants) and per price bucket, optionally below one category
+    @GetMapping("/products/facets")
+    public ResponseEntity<FacetsResponseDTO> getFacets(@RequestParam(required = false) Integer category) {
+        return ResponseEntity.ok(facetService.getFacets(category));
+    }
+
+}
@@ -1,5 +1,8 @@
 package com.johndo.product.controller;
 
+import java.math.BigDecimal;
+import java.util.List;
+
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -12,9 +15,13 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.johndo.product.dto.PageWrapper;
+import com.johndo.product.dto.CursorPageWrapper;
+import com.johndo.product.dto.Product.ProductFieldSet;
+import com.johndo.product.dto.Product.ProductQuery;
 import com.johndo.product.dto.Product.ProductRequestDTO;
 import com.johndo.product.dto.Product.ProductResponseDTO;
+import com.johndo.product.dto.Product.ProductSearchHitDTO;
+import com.johndo.product.dto.Product.ProductSuggestionDTO;
 import com.johndo.product.service.ProductService;
 
 import jakarta.validation.Valid;
@@ -28,16 +35,59 @@ public class ProductController {
         this.productService = productService;
     }
 
+    @GetMapping("/products/suggest")
+    public ResponseEntity<List<ProductSuggestionDTO>> suggestProducts(@RequestParam String prefix,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(productService.suggestProducts(prefix, limit));
+    }
+
+    @GetMapping("/products/search")
+    public ResponseEntity<List<ProductSearchHitDTO>> searchProducts(@RequestParam String q,
+            @RequestParam(name = "category_id", required = false) Integer categoryId,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(productService.searchProducts(q, categoryId, limit));
+    }
+
     @GetMapping("/products/{id}")
-    public ResponseEntity<ProductResponseDTO> getProductById(@PathVariable Long id) {
-        return ResponseEntity.ok(productService.getProductById(id));
+    public ResponseEntity<?> getProductById(@PathVariable Long id,
+            @RequestParam(required = false) String fields) {
+        var fieldSet = ProductFieldSet.parse(fields);
+        if (fieldSet.isAll()) {
+            return ResponseEntity.ok(productService.getProductById(id));
+        }
+        return ResponseEntity.ok(productService.getProductById(id, fieldSet));
     }
 
     @GetMapping("/products")
-    public ResponseEntity<PageWrapper<ProductResponseDTO>> getAllProducts(
+    public ResponseEntity<?> getAllProducts(
             @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String fields,
+            @RequestParam(name = "category_id", required = false) Integer categoryId,
+            @RequestParam(name = "min_price", required = false) BigDecimal minPrice,
+            @RequestParam(name = "max_price", required = false) BigDecimal maxPrice,
+            @RequestParam(name = "in_stock", required = false) Boolean inStock,
+            @RequestParam(name = "name_prefix", required = false) String namePrefix,
+            @RequestParam(required = false) String sort) {
+        var fieldSet = ProductFieldSet.parse(fields);
+        var query = ProductQuery.of(categoryId, minPrice, maxPrice, inStock, namePrefix, sort, page, size);
+        if (query.isFiltered()) {
+            // Filtered pages are cached whole; a field subset is trimmed from them
+            var products = productService.getProducts(query);
+            return ResponseEntity.ok(fieldSet.isAll() ? products : products.map(fieldSet::apply));
+        }
+        if (fieldSet.isAll()) {
+            return ResponseEntity.ok(productService.getAllProducts(page, size));
+        }
+        return ResponseEntity.ok(productService.getAllProducts(page, size, fieldSet));
+    }
+
+    @GetMapping("/categories/{categoryId}/products")
+    public ResponseEntity<CursorPageWrapper<ProductResponseDTO>> getProductsByCategory(
+            @PathVariable Integer categoryId,
+            @RequestParam(required = false) Long after,
             @RequestParam(defaultValue = "10") int size) {
-        return ResponseEntity.ok(productService.getAllProducts(page, size));
+        return ResponseEntity.ok(productService.getProductsByCategory(categoryId, after, size));
     }
 
     @PostMapping("/products")
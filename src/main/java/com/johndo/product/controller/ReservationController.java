@@ -0,0 +1,54 @@
+package com.johndo.product.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.johndo.product.dto.Reservation.AvailabilityResponseDTO;
+import com.johndo.product.dto.Reservation.ReservationRequestDTO;
+import com.johndo.product.dto.Reservation.ReservationResponseDTO;
+import com.johndo.product.service.InventoryReservationService;
+
+import jakarta.validation.Valid;
+
+@RestController
+@RequestMapping("/api/v1")
+public class ReservationController {
+
+    private final InventoryReservationService reservationService;
+
+    public ReservationController(InventoryReservationService reservationService) {
+        this.reservationService = reservationService;
+    }
+
+    // Holds stock for a limited time; 409 when less than the requested quantity is available
+    @PostMapping("/products/{id}/reservations")
+    public ResponseEntity<ReservationResponseDTO> reserve(@PathVariable Long id,
+            @Valid @RequestBody ReservationRequestDTO request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(reservationService.reserve(id, request.getQuantity()));
+    }
+
+    @PostMapping("/products/{id}/reservations/{reservationId}/confirm")
+    public ResponseEntity<Void> confirm(@PathVariable Long id, @PathVariable String reservationId) {
+        reservationService.confirm(id, reservationId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/products/{id}/reservations/{reservationId}")
+    public ResponseEntity<Void> release(@PathVariable Long id, @PathVariable String reservationId) {
+        reservationService.release(id, reservationId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/products/{id}/availability")
+    public ResponseEntity<AvailabilityResponseDTO> getAvailability(@PathVariable Long id) {
+        return ResponseEntity.ok(reservationService.getAvailability(id));
+    }
+
+}
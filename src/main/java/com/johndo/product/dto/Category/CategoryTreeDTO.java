@@ -0,0 +1,25 @@
+package com.johndo.product.dto.Category;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CategoryTreeDTO {
+    private Integer id;
+    private String name;
+    @JsonProperty("parent_id")
+    private Integer parentId;
+    private List<CategoryTreeDTO> children;
+
+}
@@ -0,0 +1,27 @@
+package com.johndo.product.dto.Change;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ChangeFeedPageDTO {
+    private List<ProductChangeDTO> changes;
+    // Offset for the next request: the seq of the last change returned, or the requested one if none
+    @JsonProperty("next_since")
+    private long nextSince;
+    // True when the page was full and more changes are already available
+    @JsonProperty("has_more")
+    private boolean hasMore;
+
+}
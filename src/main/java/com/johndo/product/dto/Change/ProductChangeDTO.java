@@ -0,0 +1,31 @@
+package com.johndo.product.dto.Change;
+
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.johndo.product.dto.Product.ProductResponseDTO;
+import com.johndo.product.event.ProductChangedEvent.ChangeType;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ProductChangeDTO {
+    // Position in the feed; pass the last one seen as since (or Last-Event-ID) to resume
+    private long seq;
+    @JsonProperty("product_id")
+    private Long productId;
+    private ChangeType type;
+    // The product after the change, null for deletions
+    private ProductResponseDTO product;
+    @JsonProperty("changed_at")
+    private Instant changedAt;
+
+}
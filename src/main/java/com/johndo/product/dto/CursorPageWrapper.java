@@ -0,0 +1,23 @@
+package com.johndo.product.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Keyset-paginated slice of a listing. {@code nextCursor} is passed back as
+ * {@code after} to fetch the following page and is null on the last page.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageWrapper<T> {
+    private List<T> content;
+    private int pageSize;
+    private Long nextCursor;
+
+}
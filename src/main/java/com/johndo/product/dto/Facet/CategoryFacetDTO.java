@@ -0,0 +1,23 @@
+package com.johndo.product.dto.Facet;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CategoryFacetDTO {
+    private Integer id;
+    private String name;
+    // Products in this category and all of its descendants
+    @JsonProperty("product_count")
+    private long productCount;
+
+}
@@ -0,0 +1,29 @@
+package com.johndo.product.dto.Facet;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FacetsResponseDTO {
+    // The parent category the facets are scoped to, null for the whole catalog
+    @JsonProperty("category_id")
+    private Integer categoryId;
+    @JsonProperty("product_count")
+    private long productCount;
+    // Direct children of the parent category (root categories when unscoped)
+    private List<CategoryFacetDTO> categories;
+    @JsonProperty("price_buckets")
+    private List<PriceBucketFacetDTO> priceBuckets;
+
+}
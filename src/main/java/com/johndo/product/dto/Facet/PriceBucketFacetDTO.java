@@ -0,0 +1,26 @@
+package com.johndo.product.dto.Facet;
+
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PriceBucketFacetDTO {
+    // Inclusive lower bound
+    private BigDecimal from;
+    // Exclusive upper bound, null for the last bucket
+    private BigDecimal to;
+    @JsonProperty("product_count")
+    private long productCount;
+
+}
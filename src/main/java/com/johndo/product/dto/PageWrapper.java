@@ -1,6 +1,7 @@
 package com.johndo.product.dto;
 
 import java.util.List;
+import java.util.function.Function;
 
 import org.springframework.data.domain.Page;
 
@@ -20,6 +21,16 @@ public class PageWrapper<T> {
         this.totalElements = page.getTotalElements();
     }
 
+    // Copies the paging metadata and converts the content
+    public <R> PageWrapper<R> map(Function<T, R> converter) {
+        var mapped = new PageWrapper<R>();
+        mapped.content = content.stream().map(converter).toList();
+        mapped.pageNumber = pageNumber;
+        mapped.pageSize = pageSize;
+        mapped.totalElements = totalElements;
+        return mapped;
+    }
+
     public List<T> getContent() {
         return content;
     }
@@ -0,0 +1,50 @@
+package com.johndo.product.dto.Product;
+
+import java.util.function.Function;
+
+/**
+ * Fields of {@link ProductResponseDTO} that can be requested through
+ * {@code fields=}, with their JSON name and the entity attribute they are
+ * read from.
+ */
+public enum ProductField {
+
+    ID("id", "id", ProductResponseDTO::getId),
+    NAME("name", "name", ProductResponseDTO::getName),
+    DESCRIPTION("description", "description", ProductResponseDTO::getDescription),
+    UNIT_PRICE("unit_price", "unitPrice", ProductResponseDTO::getUnitPrice),
+    QUANTITY("quantity", "quantity", ProductResponseDTO::getQuantity),
+    CATEGORY_ID("category_id", "category.id", ProductResponseDTO::getCategoryId);
+
+    private final String jsonName;
+    private final String attributePath;
+    private final Function<ProductResponseDTO, Object> accessor;
+
+    ProductField(String jsonName, String attributePath, Function<ProductResponseDTO, Object> accessor) {
+        this.jsonName = jsonName;
+        this.attributePath = attributePath;
+        this.accessor = accessor;
+    }
+
+    public String getJsonName() {
+        return jsonName;
+    }
+
+    public String getAttributePath() {
+        return attributePath;
+    }
+
+    public Object valueOf(ProductResponseDTO product) {
+        return accessor.apply(product);
+    }
+
+    public static ProductField fromJsonName(String jsonName) {
+        for (ProductField field : values()) {
+            if (field.jsonName.equals(jsonName)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.johndo.product.dto.Product;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.johndo.product.exception.InvalidFieldSelection;
+
+/**
+ * Parsed {@code fields=} selection. The id is always included so clients can
+ * still address what they received.
+ */
+public class ProductFieldSet {
+
+    private static final ProductFieldSet ALL = new ProductFieldSet(EnumSet.allOf(ProductField.class));
+
+    private final Set<ProductField> fields;
+
+    private ProductFieldSet(Set<ProductField> fields) {
+        this.fields = fields;
+    }
+
+    public static ProductFieldSet all() {
+        return ALL;
+    }
+
+    // Parses a comma separated list of JSON field names, e.g. "id,name,unit_price"
+    public static ProductFieldSet parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        var selected = EnumSet.of(ProductField.ID);
+        for (String name : fields.split(",")) {
+            var field = ProductField.fromJsonName(name.trim());
+            if (field == null) {
+                throw new InvalidFieldSelection("Unknown product field: " + name.trim());
+            }
+            selected.add(field);
+        }
+        return selected.size() == ProductField.values().length ? ALL : new ProductFieldSet(selected);
+    }
+
+    public boolean isAll() {
+        return fields.size() == ProductField.values().length;
+    }
+
+    public Set<ProductField> getFields() {
+        return fields;
+    }
+
+    // Trims a full product to the selected fields, keeping the declaration order of ProductField
+    public Map<String, Object> apply(ProductResponseDTO product) {
+        Map<String, Object> trimmed = new LinkedHashMap<>();
+        for (ProductField field : fields) {
+            trimmed.put(field.getJsonName(), field.valueOf(product));
+        }
+        return trimmed;
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.johndo.product.dto.Product;
+
+import java.math.BigDecimal;
+
+import com.johndo.product.exception.InvalidProductQuery;
+
+import lombok.Getter;
+
+/**
+ * Filters, order and page of {@code GET /products}, normalized so that
+ * equivalent requests compare (and cache) the same: blank values and
+ * {@code in_stock=false} mean no filter, prices lose trailing zeros and the
+ * default order is {@link ProductSort#NEWEST}.
+ */
+@Getter
+public class ProductQuery {
+
+    private final Integer categoryId;
+    private final BigDecimal minPrice;
+    private final BigDecimal maxPrice;
+    private final boolean inStock;
+    // Case-sensitive, matched with LIKE 'prefix%'
+    private final String namePrefix;
+    private final ProductSort sort;
+    private final int page;
+    private final int size;
+
+    private ProductQuery(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, boolean inStock,
+            String namePrefix, ProductSort sort, int page, int size) {
+        this.categoryId = categoryId;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.inStock = inStock;
+        this.namePrefix = namePrefix;
+        this.sort = sort;
+        this.page = page;
+        this.size = size;
+    }
+
+    public static ProductQuery of(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, Boolean inStock,
+            String namePrefix, String sort, int page, int size) {
+        if (minPrice != null && minPrice.signum() < 0 || maxPrice != null && maxPrice.signum() < 0) {
+            throw new InvalidProductQuery("Price bounds must not be negative");
+        }
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new InvalidProductQuery("min_price must not be greater than max_price");
+        }
+        return new ProductQuery(categoryId, normalize(minPrice), normalize(maxPrice), Boolean.TRUE.equals(inStock),
+                namePrefix == null || namePrefix.isBlank() ? null : namePrefix,
+                ProductSort.fromParamName(sort), page, size);
+    }
+
+    // Plain listing: all products newest first
+    public static ProductQuery page(int page, int size) {
+        return new ProductQuery(null, null, null, false, null, ProductSort.NEWEST, page, size);
+    }
+
+    public ProductQuery withPage(int page, int size) {
+        return new ProductQuery(categoryId, minPrice, maxPrice, inStock, namePrefix, sort, page, size);
+    }
+
+    // False for the plain listing, which is served from the in-process catalog and its own cache keys
+    public boolean isFiltered() {
+        return categoryId != null || minPrice != null || maxPrice != null || inStock || namePrefix != null
+                || sort != ProductSort.NEWEST;
+    }
+
+    /**
+     * Canonical form of the query, used as its cache key. The name prefix is
+     * free text, so it goes last and is left empty (never blank) when absent.
+     */
+    public String cacheKey() {
+        return "category:" + orAny(categoryId)
+                + ":min:" + orAny(minPrice == null ? null : minPrice.toPlainString())
+                + ":max:" + orAny(maxPrice == null ? null : maxPrice.toPlainString())
+                + ":stock:" + (inStock ? "1" : "*")
+                + ":sort:" + sort.getParamName()
+                + ":page:" + page + ":size:" + size
+                + ":prefix:" + (namePrefix == null ? "" : namePrefix);
+    }
+
+    private static BigDecimal normalize(BigDecimal price) {
+        return price == null ? null : price.stripTrailingZeros();
+    }
+
+    private static String orAny(Object value) {
+        return value == null ? "*" : String.valueOf(value);
+    }
+
+}
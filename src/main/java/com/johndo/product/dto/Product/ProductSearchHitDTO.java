@@ -0,0 +1,21 @@
+package com.johndo.product.dto.Product;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ProductSearchHitDTO {
+
+    private ProductResponseDTO product;
+
+    // BM25 relevance; only comparable between hits of the same query
+    private double score;
+
+}
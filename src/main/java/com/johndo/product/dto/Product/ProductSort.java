@@ -0,0 +1,49 @@
+package com.johndo.product.dto.Product;
+
+import org.springframework.data.domain.Sort;
+
+import com.johndo.product.exception.InvalidProductQuery;
+
+/**
+ * Orders accepted by {@code sort=} on the product listing. Ties are broken by
+ * id in the same direction, so pages are stable and each order is one scan of
+ * its index (see V5__listing_filter_indexes.sql).
+ */
+public enum ProductSort {
+
+    NEWEST("newest", Sort.by(Sort.Direction.DESC, "id")),
+    PRICE_ASC("price_asc", Sort.by(Sort.Direction.ASC, "unitPrice", "id")),
+    PRICE_DESC("price_desc", Sort.by(Sort.Direction.DESC, "unitPrice", "id")),
+    NAME_ASC("name_asc", Sort.by(Sort.Direction.ASC, "name", "id")),
+    NAME_DESC("name_desc", Sort.by(Sort.Direction.DESC, "name", "id"));
+
+    private final String paramName;
+    private final Sort sort;
+
+    ProductSort(String paramName, Sort sort) {
+        this.paramName = paramName;
+        this.sort = sort;
+    }
+
+    public String getParamName() {
+        return paramName;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    // Newest first when no order is given
+    public static ProductSort fromParamName(String paramName) {
+        if (paramName == null || paramName.isBlank()) {
+            return NEWEST;
+        }
+        for (ProductSort sort : values()) {
+            if (sort.paramName.equalsIgnoreCase(paramName.trim())) {
+                return sort;
+            }
+        }
+        throw new InvalidProductQuery("Unknown sort order: " + paramName.trim());
+    }
+
+}
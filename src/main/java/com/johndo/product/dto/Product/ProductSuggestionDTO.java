@@ -0,0 +1,25 @@
+package com.johndo.product.dto.Product;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ProductSuggestionDTO {
+
+    private Long id;
+    private String name;
+
+    // Suggestions in stock are ranked first
+    @JsonProperty(value = "in_stock")
+    private boolean inStock;
+
+}
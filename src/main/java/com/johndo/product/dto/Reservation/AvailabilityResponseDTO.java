@@ -0,0 +1,25 @@
+package com.johndo.product.dto.Reservation;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AvailabilityResponseDTO {
+    @JsonProperty("product_id")
+    private Long productId;
+    // Stock including confirmed sales not yet written to the database
+    private long quantity;
+    // Held by open reservations
+    private long reserved;
+    private long available;
+
+}
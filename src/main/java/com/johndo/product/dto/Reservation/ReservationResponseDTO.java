@@ -0,0 +1,28 @@
+package com.johndo.product.dto.Reservation;
+
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ReservationResponseDTO {
+    @JsonProperty("reservation_id")
+    private String reservationId;
+    @JsonProperty("product_id")
+    private Long productId;
+    private int quantity;
+    // The hold lapses at this time unless it is confirmed or released before
+    @JsonProperty("expires_at")
+    private Instant expiresAt;
+
+}
@@ -0,0 +1,38 @@
+package com.johndo.product.event;
+
+import com.johndo.product.dto.Product.ProductResponseDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published by {@code ProductService} after a product write has been
+ * persisted. {@code previous} is null for creations, {@code current} is null
+ * for deletions.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductChangedEvent {
+
+    public enum ChangeType {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final ChangeType type;
+    private final Long productId;
+    private final ProductResponseDTO previous;
+    private final ProductResponseDTO current;
+
+    public static ProductChangedEvent created(ProductResponseDTO current) {
+        return new ProductChangedEvent(ChangeType.CREATED, current.getId(), null, current);
+    }
+
+    public static ProductChangedEvent updated(ProductResponseDTO previous, ProductResponseDTO current) {
+        return new ProductChangedEvent(ChangeType.UPDATED, current.getId(), previous, current);
+    }
+
+    public static ProductChangedEvent deleted(ProductResponseDTO previous) {
+        return new ProductChangedEvent(ChangeType.DELETED, previous.getId(), previous, null);
+    }
+
+}
@@ -30,6 +30,41 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
     }
 
+    @ExceptionHandler(InvalidFieldSelection.class)
+    public ResponseEntity<Map<String, String>> handleInvalidFieldSelection(InvalidFieldSelection ex) {
+        Map<String, String> response = new HashMap<>();
+        response.put("message", ex.getMessage());
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    @ExceptionHandler(InvalidProductQuery.class)
+    public ResponseEntity<Map<String, String>> handleInvalidProductQuery(InvalidProductQuery ex) {
+        Map<String, String> response = new HashMap<>();
+        response.put("message", ex.getMessage());
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    @ExceptionHandler(ReservationNotFound.class)
+    public ResponseEntity<Map<String, String>> handleReservationNotFound(ReservationNotFound ex) {
+        Map<String, String> response = new HashMap<>();
+        response.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+    }
+
+    @ExceptionHandler(InsufficientStock.class)
+    public ResponseEntity<Map<String, String>> handleInsufficientStock(InsufficientStock ex) {
+        Map<String, String> response = new HashMap<>();
+        response.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+
+    @ExceptionHandler(PublisherBufferFull.class)
+    public ResponseEntity<Map<String, String>> handlePublisherBufferFull(PublisherBufferFull ex) {
+        Map<String, String> response = new HashMap<>();
+        response.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+
     @ExceptionHandler(HttpRequestMethodNotSupportedException.class)
     public ResponseEntity<Map<String, Object>> handleMethodNotSupported(HttpRequestMethodNotSupportedException ex) {
         Map<String, Object> response = new HashMap<>();
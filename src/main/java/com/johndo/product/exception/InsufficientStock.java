@@ -0,0 +1,9 @@
+package com.johndo.product.exception;
+
+public class InsufficientStock extends RuntimeException {
+
+    public InsufficientStock(String message) {
+        super(message);
+    }
+
+}
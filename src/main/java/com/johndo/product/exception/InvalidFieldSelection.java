@@ -0,0 +1,9 @@
+package com.johndo.product.exception;
+
+public class InvalidFieldSelection extends RuntimeException {
+
+    public InvalidFieldSelection(String message) {
+        super(message);
+    }
+
+}
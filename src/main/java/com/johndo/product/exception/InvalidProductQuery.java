@@ -0,0 +1,9 @@
+package com.johndo.product.exception;
+
+public class InvalidProductQuery extends RuntimeException {
+
+    public InvalidProductQuery(String message) {
+        super(message);
+    }
+
+}
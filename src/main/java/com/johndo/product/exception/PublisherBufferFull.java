@@ -0,0 +1,8 @@
+package com.johndo.product.exception;
+
+public class PublisherBufferFull extends RuntimeException {
+    public PublisherBufferFull(String message) {
+        super(message);
+    }
+
+}
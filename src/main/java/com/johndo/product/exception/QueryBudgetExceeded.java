@@ -0,0 +1,9 @@
+package com.johndo.product.exception;
+
+public class QueryBudgetExceeded extends RuntimeException {
+
+    public QueryBudgetExceeded(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,9 @@
+package com.johndo.product.exception;
+
+public class ReservationNotFound extends RuntimeException {
+
+    public ReservationNotFound(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.johndo.product.messaging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import com.johndo.product.config.RabbitMQConsumerConfig;
+
+/**
+ * Remembers message ids in Redis so redelivered messages are processed once.
+ * A consumer claims an id with SET NX before processing it (the claim expires
+ * after the processing lease, in case the consumer dies) and marks it done
+ * afterwards. If Redis is unreachable every message is treated as new: the
+ * queue then degrades to plain at-least-once delivery instead of stalling.
+ */
+@Component
+public class MessageDeduplicator {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageDeduplicator.class);
+
+    private static final String KEY_PREFIX = "rabbitmq:processed:";
+    private static final String PROCESSING = "processing";
+    private static final String DONE = "done";
+
+    public enum Claim {
+        // The caller owns the message now
+        CLAIMED,
+        // Processed before, the delivery is a duplicate
+        DONE,
+        // Another consumer is processing it right now
+        IN_PROGRESS
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final RabbitMQConsumerConfig config;
+
+    public MessageDeduplicator(StringRedisTemplate redisTemplate, RabbitMQConsumerConfig config) {
+        this.redisTemplate = redisTemplate;
+        this.config = config;
+    }
+
+    public Claim tryClaim(String messageId) {
+        try {
+            var values = redisTemplate.opsForValue();
+            if (Boolean.TRUE.equals(values.setIfAbsent(key(messageId), PROCESSING, config.getProcessingLease()))) {
+                return Claim.CLAIMED;
+            }
+            var state = values.get(key(messageId));
+            if (state == null) {
+                // The previous claim expired in between, try once more
+                return Boolean.TRUE.equals(values.setIfAbsent(key(messageId), PROCESSING, config.getProcessingLease()))
+                        ? Claim.CLAIMED
+                        : Claim.IN_PROGRESS;
+            }
+            return DONE.equals(state) ? Claim.DONE : Claim.IN_PROGRESS;
+        } catch (RuntimeException e) {
+            log.warn("Idempotency store unavailable, processing message {} without deduplication", messageId, e);
+            return Claim.CLAIMED;
+        }
+    }
+
+    public void markDone(String messageId) {
+        try {
+            redisTemplate.opsForValue().set(key(messageId), DONE, config.getIdempotencyTtl());
+        } catch (RuntimeException e) {
+            log.warn("Failed to record message {} as processed", messageId, e);
+        }
+    }
+
+    // Gives up a claim after failed processing so the retried delivery can claim it again
+    public void release(String messageId) {
+        try {
+            redisTemplate.delete(key(messageId));
+        } catch (RuntimeException e) {
+            log.warn("Failed to release claim on message {}", messageId, e);
+        }
+    }
+
+    private static String key(String messageId) {
+        return KEY_PREFIX + messageId;
+    }
+
+}
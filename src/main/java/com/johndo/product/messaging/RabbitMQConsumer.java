@@ -1,17 +1,163 @@
 package com.johndo.product.messaging;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.SmartMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Service;
 
-import com.johndo.product.dto.Message;
+import com.johndo.product.config.RabbitMQConfig;
+import com.johndo.product.config.RabbitMQConsumerConfig;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
+/**
+ * Consumes the product queue in batches. Each message is processed at most
+ * once per message id (see {@link MessageDeduplicator}). A message that fails
+ * is parked in the retry queue, whose TTL sends it back to the main exchange
+ * after the retry delay; after the last attempt, or if it cannot be read at
+ * all, it goes to the dead-letter exchange.
+ */
 @Service
 public class RabbitMQConsumer {
 
+    private static final Logger log = LoggerFactory.getLogger(RabbitMQConsumer.class);
+
+    // Number of failed deliveries so far
+    static final String RETRY_COUNT_HEADER = "x-retry-count";
+
+    private static final ParameterizedTypeReference<com.johndo.product.dto.Message> PAYLOAD_TYPE =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private final RabbitTemplate rabbitTemplate;
+    private final SmartMessageConverter messageConverter;
+    private final MessageDeduplicator deduplicator;
+    private final RabbitMQConsumerConfig config;
+    private final String retryQueue;
+    private final String deadLetterExchange;
+    private final String rabbitRoutingKey;
+
+    private final Timer batchTimer;
+    private final Counter processed;
+    private final Counter duplicates;
+    private final Counter retried;
+    private final Counter deadLettered;
+
+    public RabbitMQConsumer(RabbitTemplate rabbitTemplate,
+            SmartMessageConverter messageConverter,
+            MessageDeduplicator deduplicator,
+            RabbitMQConsumerConfig config,
+            MeterRegistry meterRegistry,
+            @Value("${spring.rabbitmq.queue}") String rabbitQueue,
+            @Value("${spring.rabbitmq.exchange}") String rabbitExchange,
+            @Value("${spring.rabbitmq.routing-key}") String rabbitRoutingKey) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.messageConverter = messageConverter;
+        this.deduplicator = deduplicator;
+        this.config = config;
+        this.retryQueue = RabbitMQConfig.retryQueueName(rabbitQueue);
+        this.deadLetterExchange = RabbitMQConfig.deadLetterExchangeName(rabbitExchange);
+        this.rabbitRoutingKey = rabbitRoutingKey;
+
+        this.batchTimer = Timer.builder("rabbitmq.consumer.batch")
+                .description("Time to handle one batch of deliveries")
+                .register(meterRegistry);
+        this.processed = meterRegistry.counter("rabbitmq.consumer.processed");
+        this.duplicates = meterRegistry.counter("rabbitmq.consumer.duplicates");
+        this.retried = meterRegistry.counter("rabbitmq.consumer.retried");
+        this.deadLettered = meterRegistry.counter("rabbitmq.consumer.dead_lettered");
+    }
+
     @RabbitListener(queues = "${spring.rabbitmq.queue}")
-    public void receiveMessage(Message message) {
-        System.out.println("Message received: " + message.getContent());
+    public void receiveMessages(List<Message> deliveries) {
+        long start = System.nanoTime();
+        for (var delivery : deliveries) {
+            handle(delivery);
+        }
+        batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    void handle(Message delivery) {
+        var messageId = delivery.getMessageProperties().getMessageId();
+        if (messageId != null) {
+            switch (deduplicator.tryClaim(messageId)) {
+                case DONE -> {
+                    duplicates.increment();
+                    return;
+                }
+                case IN_PROGRESS -> {
+                    // Look again once the other consumer is likely done; this is not a failed attempt
+                    rabbitTemplate.send("", retryQueue, delivery);
+                    return;
+                }
+                case CLAIMED -> {
+                }
+            }
+        }
+
+        com.johndo.product.dto.Message message;
+        try {
+            message = (com.johndo.product.dto.Message) messageConverter.fromMessage(delivery, PAYLOAD_TYPE);
+        } catch (MessageConversionException e) {
+            // Retrying cannot fix a malformed payload
+            log.error("Dead-lettering unreadable message {}", messageId, e);
+            deadLetter(delivery);
+            if (messageId != null) {
+                deduplicator.markDone(messageId);
+            }
+            return;
+        }
+
+        try {
+            process(message);
+        } catch (RuntimeException e) {
+            if (messageId != null) {
+                deduplicator.release(messageId);
+            }
+            retryOrDeadLetter(delivery, e);
+            return;
+        }
+        if (messageId != null) {
+            deduplicator.markDone(messageId);
+        }
+        processed.increment();
+    }
+
+    void process(com.johndo.product.dto.Message message) {
+        log.info("Message received: {}", message.getContent());
         // Add your business logic here to process the message
     }
 
-}
\ No newline at end of file
+    private void retryOrDeadLetter(Message delivery, RuntimeException cause) {
+        var properties = delivery.getMessageProperties();
+        Integer previous = properties.getHeader(RETRY_COUNT_HEADER);
+        int failures = (previous == null ? 0 : previous) + 1;
+        properties.setHeader(RETRY_COUNT_HEADER, failures);
+        if (failures >= config.getMaxAttempts()) {
+            log.error("Dead-lettering message {} after {} attempts", properties.getMessageId(), failures, cause);
+            deadLetter(delivery);
+            return;
+        }
+        log.warn("Processing message {} failed (attempt {}), retrying in {}", properties.getMessageId(), failures,
+                config.getRetryDelay(), cause);
+        retried.increment();
+        rabbitTemplate.send("", retryQueue, delivery);
+    }
+
+    private void deadLetter(Message delivery) {
+        deadLettered.increment();
+        rabbitTemplate.send(deadLetterExchange, rabbitRoutingKey, delivery);
+    }
+
+}
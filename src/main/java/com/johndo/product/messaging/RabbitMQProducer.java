@@ -1,28 +1,227 @@
 package com.johndo.product.messaging;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
+import com.johndo.product.config.RabbitMQPublisherConfig;
 import com.johndo.product.dto.Message;
+import com.johndo.product.exception.PublisherBufferFull;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 
+/**
+ * Non-blocking publisher. {@link #sendMessage} only enqueues into a bounded
+ * buffer; a single background thread publishes batches on one channel and
+ * waits for their correlated publisher confirms. Nacked, unconfirmed or failed
+ * messages are retried with exponential backoff on that thread.
+ */
 @Service
 public class RabbitMQProducer {
 
+    private static final Logger log = LoggerFactory.getLogger(RabbitMQProducer.class);
+
+    // A message waiting to be (re)published
+    private static final class Outgoing implements Delayed {
+        private final String id = UUID.randomUUID().toString();
+        private final Message message;
+        private int attempts;
+        private long notBeforeNanos;
+
+        Outgoing(Message message) {
+            this.message = message;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(notBeforeNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(notBeforeNanos, ((Outgoing) other).notBeforeNanos);
+        }
+    }
+
     private final RabbitTemplate rabbitTemplate;
+    private final RabbitMQPublisherConfig config;
+    private final String rabbitExchange;
+    private final String rabbitRoutingKey;
 
-    @Value("${spring.rabbitmq.exchange}")
-    private String rabbitExchange;
+    private final BlockingQueue<Outgoing> buffer;
+    private final DelayQueue<Outgoing> retries = new DelayQueue<>();
+    private final ExecutorService publisher;
+    private volatile boolean running = true;
 
-    @Value("${spring.rabbitmq.routing-key}")
-    private String rabbitRoutingKey;
+    private final Timer confirmLatency;
+    private final Counter nacks;
+    private final Counter retried;
+    private final Counter dropped;
+    private final Counter rejected;
 
-    public RabbitMQProducer(RabbitTemplate rabbitTemplate) {
+    // Exchange and routing key are constructor-injected: the publisher thread starts here
+    public RabbitMQProducer(RabbitTemplate rabbitTemplate, RabbitMQPublisherConfig config,
+            MeterRegistry meterRegistry,
+            @Value("${spring.rabbitmq.exchange}") String rabbitExchange,
+            @Value("${spring.rabbitmq.routing-key}") String rabbitRoutingKey) {
         this.rabbitTemplate = rabbitTemplate;
+        this.config = config;
+        this.rabbitExchange = rabbitExchange;
+        this.rabbitRoutingKey = rabbitRoutingKey;
+        this.buffer = new ArrayBlockingQueue<>(config.getBufferCapacity());
+
+        Gauge.builder("rabbitmq.publisher.buffered", buffer, BlockingQueue::size).register(meterRegistry);
+        Gauge.builder("rabbitmq.publisher.retrying", retries, DelayQueue::size).register(meterRegistry);
+        this.confirmLatency = Timer.builder("rabbitmq.publisher.confirm.latency")
+                .description("Time from publishing a batch until the broker confirmed a message of it")
+                .register(meterRegistry);
+        this.nacks = meterRegistry.counter("rabbitmq.publisher.nacks");
+        this.retried = meterRegistry.counter("rabbitmq.publisher.retried");
+        this.dropped = meterRegistry.counter("rabbitmq.publisher.dropped");
+        this.rejected = meterRegistry.counter("rabbitmq.publisher.rejected");
+
+        this.publisher = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("rabbitmq-publisher-"));
+        publisher.execute(this::run);
     }
 
+    /**
+     * Queues the message for publishing and returns immediately.
+     *
+     * @throws PublisherBufferFull when the broker has fallen so far behind
+     *                             that the buffer is full
+     */
     public void sendMessage(Message message) {
-        rabbitTemplate.convertAndSend(rabbitExchange, rabbitRoutingKey, message);
-        System.out.println("Message sent: " + message.getContent());
+        if (!buffer.offer(new Outgoing(message))) {
+            rejected.increment();
+            throw new PublisherBufferFull("Message buffer is full, try again later");
+        }
+    }
+
+    private void run() {
+        List<Outgoing> batch = new ArrayList<>(config.getBatchSize());
+        while (running || !buffer.isEmpty()) {
+            try {
+                nextBatch(batch);
+                if (!batch.isEmpty()) {
+                    publish(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Unexpected error in RabbitMQ publisher", e);
+                batch.forEach(this::retryLater);
+                batch.clear();
+            }
+        }
+    }
+
+    // Due retries first, then fresh messages, waiting briefly if there is nothing to send
+    private void nextBatch(List<Outgoing> batch) throws InterruptedException {
+        int batchSize = config.getBatchSize();
+        retries.drainTo(batch, batchSize);
+        buffer.drainTo(batch, batchSize - batch.size());
+        if (batch.isEmpty()) {
+            var first = buffer.poll(100, TimeUnit.MILLISECONDS);
+            if (first != null) {
+                batch.add(first);
+                buffer.drainTo(batch, batchSize - 1);
+            }
+        }
+    }
+
+    void publish(List<Outgoing> batch) throws InterruptedException {
+        List<CorrelationData> confirms = new ArrayList<>(batch.size());
+        long start = System.nanoTime();
+        try {
+            // One channel for the whole batch; confirms arrive asynchronously
+            rabbitTemplate.invoke(operations -> {
+                for (var outgoing : batch) {
+                    var correlation = new CorrelationData(outgoing.id);
+                    // A re-send keeps the message id, so consumers can drop the duplicate
+                    operations.convertAndSend(rabbitExchange, rabbitRoutingKey, outgoing.message, message -> {
+                        message.getMessageProperties().setMessageId(outgoing.id);
+                        return message;
+                    }, correlation);
+                    confirms.add(correlation);
+                }
+                return null;
+            });
+        } catch (AmqpException e) {
+            log.warn("Publishing a batch of {} messages failed: {}", batch.size(), e.getMessage());
+            // Messages sent before the failure may still be confirmed, but they are re-sent to be safe
+            batch.forEach(this::retryLater);
+            return;
+        }
+
+        long deadline = start + config.getConfirmTimeout().toNanos();
+        for (int i = 0; i < batch.size(); i++) {
+            var outgoing = batch.get(i);
+            try {
+                var confirm = confirms.get(i).getFuture().get(Math.max(0, deadline - System.nanoTime()),
+                        TimeUnit.NANOSECONDS);
+                if (confirm.isAck()) {
+                    confirmLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                } else {
+                    nacks.increment();
+                    log.warn("Broker nacked message {}: {}", outgoing.id, confirm.getReason());
+                    retryLater(outgoing);
+                }
+            } catch (ExecutionException | TimeoutException e) {
+                retryLater(outgoing);
+            }
+        }
     }
-}
\ No newline at end of file
+
+    private void retryLater(Outgoing outgoing) {
+        outgoing.attempts++;
+        if (outgoing.attempts >= config.getMaxAttempts()) {
+            dropped.increment();
+            log.error("Dropping message {} after {} publish attempts: {}", outgoing.id, outgoing.attempts,
+                    outgoing.message.getContent());
+            return;
+        }
+        retried.increment();
+        long backoff = Math.min(config.getMaxBackoff().toNanos(),
+                config.getInitialBackoff().toNanos() << Math.min(outgoing.attempts - 1, 30));
+        outgoing.notBeforeNanos = System.nanoTime() + backoff;
+        retries.add(outgoing);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Stop taking new work but publish what is already buffered, bounded by the confirm timeout
+        running = false;
+        publisher.shutdown();
+        if (!publisher.awaitTermination(config.getConfirmTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+            publisher.shutdownNow();
+        }
+        if (!buffer.isEmpty() || !retries.isEmpty()) {
+            log.warn("RabbitMQ publisher stopped with {} unpublished messages", buffer.size() + retries.size());
+        }
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.johndo.product.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "stock_reconciliations")
+public class StockReconciliation {
+
+    @Id
+    @Column(name = "claim_id", length = 36)
+    private String claimId;
+
+    // True when the claimed sales were written to products.quantity, false when they were handed back
+    @Column(name = "applied", nullable = false)
+    private boolean applied;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
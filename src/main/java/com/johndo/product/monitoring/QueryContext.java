@@ -0,0 +1,84 @@
+package com.johndo.product.monitoring;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Statement bookkeeping for the HTTP request currently bound to this thread.
+ * Opened by {@link QueryInspectionInterceptor} and fed by
+ * {@link QueryInspectionListener}.
+ */
+public class QueryContext {
+
+    private static final ThreadLocal<QueryContext> CURRENT = new ThreadLocal<>();
+
+    private final String endpoint;
+    private final Integer budget;
+    private final Map<String, Integer> statementCounts = new HashMap<>();
+    private final Set<String> nPlusOneSuspects = new HashSet<>();
+    private int statementCount;
+    private int slowStatementCount;
+
+    QueryContext(String endpoint, Integer budget) {
+        this.endpoint = endpoint;
+        this.budget = budget;
+    }
+
+    public static QueryContext begin(String endpoint, Integer budget) {
+        var context = new QueryContext(endpoint, budget);
+        CURRENT.set(context);
+        return context;
+    }
+
+    public static QueryContext current() {
+        return CURRENT.get();
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Records one executed statement and returns how many times this exact
+     * statement (with bind placeholders) has run in the current request.
+     */
+    int record(String sql) {
+        statementCount++;
+        return statementCounts.merge(sql, 1, Integer::sum);
+    }
+
+    void recordSlow() {
+        slowStatementCount++;
+    }
+
+    boolean flagNPlusOne(String sql) {
+        return nPlusOneSuspects.add(sql);
+    }
+
+    public boolean isOverBudget() {
+        return budget != null && statementCount > budget;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public Integer getBudget() {
+        return budget;
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public int getSlowStatementCount() {
+        return slowStatementCount;
+    }
+
+    public Set<String> getNPlusOneSuspects() {
+        return nPlusOneSuspects;
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.johndo.product.monitoring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.johndo.product.config.QueryInspectorConfig;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Opens a {@link QueryContext} for every handled request and publishes the
+ * number of statements it issued as the {@code http.server.requests.statements}
+ * summary, tagged with the matched endpoint.
+ */
+public class QueryInspectionInterceptor implements HandlerInterceptor {
+
+    // Exposed to tests (MockMvc) that want to assert on the statement count of a call
+    public static final String STATEMENT_COUNT_ATTRIBUTE = QueryInspectionInterceptor.class.getName()
+            + ".statementCount";
+
+    private static final Logger log = LoggerFactory.getLogger(QueryInspectionInterceptor.class);
+
+    private final QueryInspectorConfig config;
+    private final MeterRegistry meterRegistry;
+
+    public QueryInspectionInterceptor(QueryInspectorConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull Object handler) {
+        var endpoint = endpointOf(request);
+        QueryContext.begin(endpoint, config.getBudgets().get(endpoint));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull Object handler, Exception ex) {
+        var context = QueryContext.current();
+        QueryContext.end();
+        if (context == null) {
+            return;
+        }
+
+        request.setAttribute(STATEMENT_COUNT_ATTRIBUTE, context.getStatementCount());
+        DistributionSummary.builder("http.server.requests.statements")
+                .description("JDBC statements issued per HTTP request")
+                .tag("method", request.getMethod())
+                .tag("uri", uriOf(request))
+                .register(meterRegistry)
+                .record(context.getStatementCount());
+
+        if (context.isOverBudget()) {
+            log.warn("{} issued {} statements, budget is {}", context.getEndpoint(), context.getStatementCount(),
+                    context.getBudget());
+        }
+    }
+
+    private static String endpointOf(HttpServletRequest request) {
+        return request.getMethod() + " " + uriOf(request);
+    }
+
+    private static String uriOf(HttpServletRequest request) {
+        var pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+
+}
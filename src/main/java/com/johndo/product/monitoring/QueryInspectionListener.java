@@ -0,0 +1,78 @@
+package com.johndo.product.monitoring;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.johndo.product.config.QueryInspectorConfig;
+import com.johndo.product.exception.QueryBudgetExceeded;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+/**
+ * Receives every JDBC statement from the proxied {@code DataSource} and
+ * attributes it to the request in {@link QueryContext}: counts it, flags
+ * repeated statement shapes as N+1 suspects and logs slow statements.
+ */
+@Component
+public class QueryInspectionListener implements QueryExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryInspectionListener.class);
+    private static final String NO_ENDPOINT = "-";
+
+    private final QueryInspectorConfig config;
+    private final MeterRegistry meterRegistry;
+
+    public QueryInspectionListener(QueryInspectorConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        var context = QueryContext.current();
+        if (context == null || !config.isFailOnBudgetExceeded() || context.getBudget() == null) {
+            return;
+        }
+        // Fail before the statement runs so the offending query shows up in the stack trace
+        if (context.getStatementCount() + queryInfoList.size() > context.getBudget()) {
+            throw new QueryBudgetExceeded("Query budget of " + context.getBudget() + " statements exceeded for "
+                    + context.getEndpoint() + " by: " + queryInfoList.get(0).getQuery());
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        var context = QueryContext.current();
+        var endpoint = context != null ? context.getEndpoint() : NO_ENDPOINT;
+
+        if (execInfo.getElapsedTime() >= config.getSlowQueryThresholdMs()) {
+            log.warn("Slow statement ({} ms) on {}: {}", execInfo.getElapsedTime(), endpoint,
+                    queryInfoList.get(0).getQuery());
+            meterRegistry.counter("jdbc.statements.slow", "uri", endpoint).increment();
+            if (context != null) {
+                context.recordSlow();
+            }
+        }
+
+        if (context == null) {
+            return; // startup, schedulers and listeners are not attributed to an endpoint
+        }
+
+        for (QueryInfo queryInfo : queryInfoList) {
+            var sql = queryInfo.getQuery();
+            int executions = context.record(sql);
+            if (executions >= config.getNPlusOneThreshold() && context.flagNPlusOne(sql)) {
+                log.warn("Possible N+1 on {}: statement executed {} times in one request: {}", endpoint,
+                        executions, sql);
+                meterRegistry.counter("jdbc.statements.n_plus_one", "uri", endpoint).increment();
+            }
+        }
+    }
+
+}
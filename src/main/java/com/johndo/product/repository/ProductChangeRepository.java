@@ -0,0 +1,27 @@
+package com.johndo.product.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.johndo.product.model.ProductChange;
+
+@Repository
+public interface ProductChangeRepository extends JpaRepository<ProductChange, Long> {
+
+    // Held until the calling transaction ends; serializes appends so seq order is commit order
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(:key)", nativeQuery = true)
+    int lockForAppend(@Param("key") long key);
+
+    // One primary key range scan per page of the feed
+    List<ProductChange> findBySeqGreaterThanOrderBySeqAsc(Long seq, Limit limit);
+
+    // Position of the newest change, 0 while the feed is empty
+    @Query("SELECT COALESCE(MAX(c.seq), 0) FROM ProductChange c")
+    long findLatestSeq();
+
+}
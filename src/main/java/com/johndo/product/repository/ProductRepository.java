@@ -1,14 +1,52 @@
 package com.johndo.product.repository;
 
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.johndo.product.model.Product;
 
+import jakarta.persistence.LockModeType;
+
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository
+        extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>, ProductRepositoryCustom {
+
+    // Keyset pagination for full scans (catalog rebuilds); avoids OFFSET and the count query
+    Slice<Product> findByIdGreaterThan(Long id, Pageable pageable);
+
+    // Ids only, in keyset chunks (id filter rebuilds)
+    @Query("SELECT p.id FROM Product p WHERE p.id > :after ORDER BY p.id")
+    List<Long> findIdsAfter(@Param("after") Long after, Pageable pageable);
+
+    @Query("SELECT p.id FROM Product p WHERE p.category.id = :categoryId ORDER BY p.id")
+    List<Long> findIdsByCategoryId(@Param("categoryId") Integer categoryId);
+
+    // Rows of [id, name, quantity] in keyset chunks (name index rebuilds)
+    @Query("SELECT p.id, p.name, p.quantity FROM Product p WHERE p.id > :after ORDER BY p.id")
+    List<Object[]> findNamesAfter(@Param("after") Long after, Pageable pageable);
+
+    // Keyset pagination within a category, newest first; served by idx_products_category_id_id
+    Slice<Product> findByCategoryIdAndIdLessThanOrderByIdDesc(Integer categoryId, Long id, Pageable pageable);
+
+    // Rows of [category_id, bucket, count]; bucket i (1-based) holds prices in [bounds[i-1], bounds[i])
+    // and the last bucket everything from the highest bound up. bounds is a Postgres array literal.
+    @Query(value = "SELECT category_id, width_bucket(unit_price, CAST(:bounds AS numeric[])), COUNT(*) "
+            + "FROM products GROUP BY 1, 2", nativeQuery = true)
+    List<Object[]> countByCategoryAndPriceBucket(@Param("bounds") String bounds);
+
+    // SELECT ... FOR UPDATE in id order, so concurrent callers lock rows in the same order and cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids ORDER BY p.id")
+    List<Product> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
 
     @Query("SELECT COUNT(p) FROM Product p WHERE p.id < :productId")
     long findPositionById(@Param("productId") Long productId);
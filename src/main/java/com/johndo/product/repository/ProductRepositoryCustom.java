@@ -0,0 +1,15 @@
+package com.johndo.product.repository;
+
+import java.util.Map;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import com.johndo.product.dto.Product.ProductFieldSet;
+
+public interface ProductRepositoryCustom {
+
+    // Pages through products selecting only the requested columns; rows are keyed by JSON field name
+    Page<Map<String, Object>> findAllProjected(ProductFieldSet fields, Pageable pageable);
+
+}
@@ -0,0 +1,78 @@
+package com.johndo.product.repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import com.johndo.product.dto.Product.ProductField;
+import com.johndo.product.dto.Product.ProductFieldSet;
+import com.johndo.product.model.Product;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<Map<String, Object>> findAllProjected(ProductFieldSet fields, Pageable pageable) {
+        var cb = entityManager.getCriteriaBuilder();
+
+        var query = cb.createTupleQuery();
+        Root<Product> root = query.from(Product.class);
+        List<Selection<?>> selections = new ArrayList<>();
+        for (ProductField field : fields.getFields()) {
+            selections.add(path(root, field.getAttributePath()).alias(field.getJsonName()));
+        }
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order order : pageable.getSort()) {
+            Expression<?> property = path(root, order.getProperty());
+            orders.add(order.isAscending() ? cb.asc(property) : cb.desc(property));
+        }
+        query.multiselect(selections).orderBy(orders);
+
+        List<Tuple> tuples = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (ProductField field : fields.getFields()) {
+                row.put(field.getJsonName(), tuple.get(field.getJsonName()));
+            }
+            rows.add(row);
+        }
+
+        var countQuery = cb.createQuery(Long.class);
+        countQuery.select(cb.count(countQuery.from(Product.class)));
+        long total = entityManager.createQuery(countQuery).getSingleResult();
+
+        return new PageImpl<>(rows, pageable, total);
+    }
+
+    // Resolves dotted paths such as "category.id" (read from the foreign key, no join)
+    private static Path<?> path(Root<Product> root, String attributePath) {
+        Path<?> path = root;
+        for (String attribute : attributePath.split("\\.")) {
+            path = path.get(attribute);
+        }
+        return path;
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.johndo.product.repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.johndo.product.dto.Product.ProductQuery;
+import com.johndo.product.model.Product;
+
+/**
+ * Filters of {@link ProductQuery} as JPA specifications. Absent filters are
+ * left out of the WHERE clause entirely, so each combination is a distinct
+ * statement the planner can match to an index.
+ */
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    public static Specification<Product> matching(ProductQuery query) {
+        List<Specification<Product>> filters = new ArrayList<>();
+        if (query.getCategoryId() != null) {
+            filters.add(inCategory(query.getCategoryId()));
+        }
+        if (query.getMinPrice() != null) {
+            filters.add(priceAtLeast(query.getMinPrice()));
+        }
+        if (query.getMaxPrice() != null) {
+            filters.add(priceAtMost(query.getMaxPrice()));
+        }
+        if (query.isInStock()) {
+            filters.add(inStock());
+        }
+        if (query.getNamePrefix() != null) {
+            filters.add(nameStartsWith(query.getNamePrefix()));
+        }
+        return Specification.allOf(filters);
+    }
+
+    // Compares the foreign key column, no join
+    public static Specification<Product> inCategory(Integer categoryId) {
+        return (root, query, cb) -> cb.equal(root.get("category").get("id"), categoryId);
+    }
+
+    public static Specification<Product> priceAtLeast(BigDecimal price) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("unitPrice"), price);
+    }
+
+    public static Specification<Product> priceAtMost(BigDecimal price) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("unitPrice"), price);
+    }
+
+    public static Specification<Product> inStock() {
+        return (root, query, cb) -> cb.greaterThan(root.get("quantity"), 0);
+    }
+
+    // LIKE 'prefix%' with the prefix's own wildcards escaped; served by idx_products_name
+    public static Specification<Product> nameStartsWith(String prefix) {
+        var escaped = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return (root, query, cb) -> cb.like(root.get("name"), escaped + "%", '\\');
+    }
+
+}
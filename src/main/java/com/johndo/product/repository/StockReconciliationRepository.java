@@ -0,0 +1,29 @@
+package com.johndo.product.repository;
+
+import java.time.Instant;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.johndo.product.model.StockReconciliation;
+
+@Repository
+public interface StockReconciliationRepository extends JpaRepository<StockReconciliation, String> {
+
+    // 1 if this call decided the claim, 0 if it was decided before; waits for an uncommitted insert of the same claim
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO stock_reconciliations (claim_id, applied) VALUES (:claimId, :applied) "
+            + "ON CONFLICT (claim_id) DO NOTHING", nativeQuery = true)
+    int decide(@Param("claimId") String claimId, @Param("applied") boolean applied);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StockReconciliation r WHERE r.createdAt < :before")
+    int deleteDecidedBefore(@Param("before") Instant before);
+
+}
@@ -0,0 +1,317 @@
+package com.johndo.product.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * One top-K BM25 query against a {@link Segment}, evaluated term at a time
+ * with dynamic pruning so common terms do not cost a full posting list scan.
+ *
+ * <p>
+ * Terms are taken rarest first. A running threshold, the K-th best score
+ * found so far, bounds what is worth reading: a block of postings is skipped
+ * when even its best frequency on its shortest document, plus the most the
+ * remaining terms could add, cannot beat it (block-max); and once the
+ * remaining terms together cannot lift an unseen document over it, they are
+ * only looked up for the candidates already found, jumping through their
+ * posting lists by block (MaxScore). Both bounds are exact, so the result is
+ * the same as scoring every posting, up to ties at the threshold.
+ */
+final class Bm25Search {
+
+    // Score of documents that must not be returned: pending changes and other categories
+    private static final float EXCLUDED = Float.NEGATIVE_INFINITY;
+
+    // Buffers for one query: scores indexed by doc number (all zero between queries), and the docs whose score was set
+    private static final class Scratch {
+        private float[] scores = new float[0];
+        private int[] touched = new int[1024];
+    }
+
+    /**
+     * Idle buffers, one per core at most: queries are CPU bound, so more of
+     * them running at once gain nothing, and each buffer costs four bytes
+     * per document. A query finding the pool empty allocates its own buffer,
+     * which is dropped afterwards when the pool is full.
+     */
+    private static final BlockingQueue<Scratch> SCRATCH_POOL = new ArrayBlockingQueue<>(
+            Runtime.getRuntime().availableProcessors());
+
+    private record QueryTerm(int index, int docFreq, double idf, double maxScore) {
+    }
+
+    private final Segment segment;
+    private final double k1;
+    private final double b;
+    private final float[] norms;
+    // Sorted, or null for any category
+    private final int[] categories;
+    private final int limit;
+    private final Scratch scratch;
+    private int touchedCount;
+
+    private Bm25Search(Segment segment, double k1, double b, int[] categories, int limit) {
+        this.segment = segment;
+        this.k1 = k1;
+        this.b = b;
+        this.norms = segment.lengthNorms(k1, b);
+        this.categories = categories;
+        this.limit = limit;
+        var pooled = SCRATCH_POOL.poll();
+        this.scratch = pooled == null ? new Scratch() : pooled;
+        // Sized for this segment, so a buffer kept from a larger one does not pin its memory
+        if (scratch.scores.length != segment.docCount()) {
+            scratch.scores = new float[segment.docCount()];
+        }
+    }
+
+    /**
+     * The best {@code limit} documents for the terms, in no particular order.
+     * Products in {@code excludedIds} and, when {@code categories} is given,
+     * products outside those categories are left out.
+     */
+    static List<SearchIndex.Hit> search(Segment segment, List<String> terms, int[] categories, long[] excludedIds,
+            int limit, double k1, double b) {
+        var search = new Bm25Search(segment, k1, b, categories, limit);
+        try {
+            return search.run(terms, excludedIds);
+        } finally {
+            SCRATCH_POOL.offer(search.scratch);
+        }
+    }
+
+    static double idf(int docCount, int docFreq) {
+        return Math.log(1 + (docCount - docFreq + 0.5) / (docFreq + 0.5));
+    }
+
+    private List<SearchIndex.Hit> run(List<String> terms, long[] excludedIds) {
+        List<QueryTerm> queryTerms = new ArrayList<>();
+        for (var term : terms) {
+            int index = segment.termIndex(term);
+            if (index >= 0) {
+                int docFreq = segment.docFreq(index);
+                double idf = idf(segment.docCount(), docFreq);
+                queryTerms.add(new QueryTerm(index, docFreq, idf, idf * (k1 + 1)));
+            }
+        }
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+        queryTerms.sort(Comparator.comparingInt(QueryTerm::docFreq));
+        // remaining[i] is the most terms i.. can add to any document
+        var remaining = new double[queryTerms.size() + 1];
+        for (int i = queryTerms.size() - 1; i >= 0; i--) {
+            remaining[i] = remaining[i + 1] + queryTerms.get(i).maxScore();
+        }
+
+        var scores = scratch.scores;
+        try {
+            for (long id : excludedIds) {
+                int doc = segment.docOf(id);
+                if (doc >= 0 && scores[doc] != EXCLUDED) {
+                    scores[doc] = EXCLUDED;
+                    touch(doc);
+                }
+            }
+            float threshold = 0;
+            float maxPartial = 0;
+            int i = 0;
+            for (; i < queryTerms.size(); i++) {
+                if (i > 0) {
+                    var best = new ThresholdHeap(limit);
+                    for (int t = 0; t < touchedCount; t++) {
+                        float score = scores[scratch.touched[t]];
+                        if (score != EXCLUDED) {
+                            best.offer(score);
+                            maxPartial = Math.max(maxPartial, score);
+                        }
+                    }
+                    threshold = best.threshold();
+                    if (remaining[i] <= threshold) {
+                        break;
+                    }
+                }
+                scanAll(queryTerms.get(i), remaining[i + 1], threshold, maxPartial, i == 0);
+            }
+            if (i == queryTerms.size()) {
+                return top(scratch.touched, touchedCount);
+            }
+            return scoreCandidates(queryTerms, remaining, i, threshold);
+        } finally {
+            for (int t = 0; t < touchedCount; t++) {
+                scores[scratch.touched[t]] = 0;
+            }
+        }
+    }
+
+    /**
+     * Adds the term's contribution to every document in its posting list
+     * that could still make the top K. While the first term is scanned the
+     * threshold rises as documents are scored; later terms use the one
+     * computed before them.
+     */
+    private void scanAll(QueryTerm term, double rest, float threshold, float maxPartial, boolean first) {
+        var scores = scratch.scores;
+        var best = first ? new ThresholdHeap(limit) : null;
+        double idfK = term.idf() * (k1 + 1);
+        var postings = segment.postings(term.index());
+        while (true) {
+            if (postings.atBlockStart()) {
+                float current = first ? best.threshold() : threshold;
+                if (maxPartial + blockBound(term, postings) + rest <= current) {
+                    postings.skipBlock();
+                    continue;
+                }
+            }
+            if (!postings.next()) {
+                return;
+            }
+            int doc = postings.doc();
+            float score = scores[doc];
+            if (score == EXCLUDED) {
+                continue;
+            }
+            if (score == 0) {
+                touch(doc);
+                if (!inCategories(doc)) {
+                    scores[doc] = EXCLUDED;
+                    continue;
+                }
+            }
+            int freq = postings.freq();
+            score += (float) (idfK * freq / (freq + norms[doc]));
+            scores[doc] = score;
+            if (first) {
+                best.offer(score);
+            }
+        }
+    }
+
+    // Terms from {@code from} on can no longer lift an unseen document into the top K: only candidates are scored
+    private List<SearchIndex.Hit> scoreCandidates(List<QueryTerm> queryTerms, double[] remaining, int from,
+            float threshold) {
+        var scores = scratch.scores;
+        var candidates = new int[touchedCount];
+        int count = 0;
+        for (int t = 0; t < touchedCount; t++) {
+            int doc = scratch.touched[t];
+            if (scores[doc] != EXCLUDED && scores[doc] + remaining[from] > threshold) {
+                candidates[count++] = doc;
+            }
+        }
+        Arrays.sort(candidates, 0, count);
+        for (int i = from; i < queryTerms.size() && count > 0; i++) {
+            var term = queryTerms.get(i);
+            double idfK = term.idf() * (k1 + 1);
+            var postings = segment.postings(term.index());
+            for (int c = 0; c < count; c++) {
+                int doc = candidates[c];
+                if (!postings.advance(doc)) {
+                    break;
+                }
+                if (postings.doc() == doc) {
+                    int freq = postings.freq();
+                    scores[doc] += (float) (idfK * freq / (freq + norms[doc]));
+                }
+            }
+            // Scores only grow, so the threshold can only rise; drop candidates that fell behind for good
+            var best = new ThresholdHeap(limit);
+            for (int c = 0; c < count; c++) {
+                best.offer(scores[candidates[c]]);
+            }
+            float raised = best.threshold();
+            int kept = 0;
+            for (int c = 0; c < count; c++) {
+                if (scores[candidates[c]] + remaining[i + 1] >= raised) {
+                    candidates[kept++] = candidates[c];
+                }
+            }
+            count = kept;
+        }
+        return top(candidates, count);
+    }
+
+    // The most a block's documents can get from the term
+    private double blockBound(QueryTerm term, Segment.PostingsCursor postings) {
+        int freq = postings.blockMaxFreq();
+        double norm = k1 * (1 - b + b * postings.blockMinLength() / segment.averageLength());
+        return term.idf() * freq * (k1 + 1) / (freq + norm);
+    }
+
+    private List<SearchIndex.Hit> top(int[] docs, int count) {
+        var scores = scratch.scores;
+        var top = new PriorityQueue<SearchIndex.Hit>(limit + 1, Comparator.comparingDouble(SearchIndex.Hit::score));
+        for (int d = 0; d < count; d++) {
+            float score = scores[docs[d]];
+            if (score == EXCLUDED || top.size() == limit && score <= top.peek().score()) {
+                continue;
+            }
+            top.add(new SearchIndex.Hit(segment.productId(docs[d]), score));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        return new ArrayList<>(top);
+    }
+
+    private void touch(int doc) {
+        if (touchedCount == scratch.touched.length) {
+            scratch.touched = Arrays.copyOf(scratch.touched, touchedCount * 2);
+        }
+        scratch.touched[touchedCount++] = doc;
+    }
+
+    private boolean inCategories(int doc) {
+        return categories == null || Arrays.binarySearch(categories, segment.categoryId(doc)) >= 0;
+    }
+
+    // Min-heap of the best K scores offered; its threshold is the K-th best, or 0 until K were offered
+    private static final class ThresholdHeap {
+
+        private final float[] heap;
+        private int size;
+
+        ThresholdHeap(int capacity) {
+            this.heap = new float[capacity];
+        }
+
+        void offer(float score) {
+            if (size < heap.length) {
+                int at = size++;
+                while (at > 0 && heap[(at - 1) / 2] > score) {
+                    heap[at] = heap[(at - 1) / 2];
+                    at = (at - 1) / 2;
+                }
+                heap[at] = score;
+            } else if (score > heap[0]) {
+                int at = 0;
+                while (true) {
+                    int child = 2 * at + 1;
+                    if (child >= size) {
+                        break;
+                    }
+                    if (child + 1 < size && heap[child + 1] < heap[child]) {
+                        child++;
+                    }
+                    if (heap[child] >= score) {
+                        break;
+                    }
+                    heap[at] = heap[child];
+                    at = child;
+                }
+                heap[at] = score;
+            }
+        }
+
+        float threshold() {
+            return size < heap.length ? 0 : heap[0];
+        }
+
+    }
+
+}
@@ -0,0 +1,382 @@
+package com.johndo.product.search;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.johndo.product.cache.Invalidation;
+import com.johndo.product.cache.InvalidationBus;
+import com.johndo.product.cache.InvalidationListener;
+import com.johndo.product.catalog.IndexOverlay;
+import com.johndo.product.catalog.ProductCatalog;
+import com.johndo.product.config.ProductSearchConfig;
+import com.johndo.product.dto.Product.ProductResponseDTO;
+import com.johndo.product.event.ProductChangedEvent;
+import com.johndo.product.event.ProductChangedEvent.ChangeType;
+import com.johndo.product.mapper.ProductMapperInterface;
+import com.johndo.product.model.ProductChange;
+import com.johndo.product.repository.ProductChangeRepository;
+import com.johndo.product.repository.ProductRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keyword search over product names and descriptions, ranked with BM25 and
+ * answered from an in-process inverted index so it never reaches Postgres.
+ *
+ * <p>
+ * The index is one immutable {@link Segment} plus an overlay of products
+ * changed since it was built. Local writes are staged as they commit; the
+ * change feed is polled from the segment's position for writes made by other
+ * instances. After {@code compactionDelay} the overlay is merged into a new
+ * segment, which is written to {@code directory} so a restart loads it and
+ * only replays the feed from there instead of re-reading every product. A
+ * segment ahead of the feed (restored or reset database) is not loaded, and a
+ * periodic full rebuild, as well as one when all products are deleted,
+ * repairs anything the feed does not carry.
+ */
+@Component
+public class SearchIndex implements InvalidationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchIndex.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    public record Hit(long productId, double score) {
+    }
+
+    private static final Comparator<Hit> BY_SCORE = Comparator.comparingDouble(Hit::score)
+            .thenComparing(Hit::productId, Comparator.reverseOrder());
+
+    private final ProductRepository productRepository;
+    private final ProductChangeRepository productChangeRepository;
+    private final ProductMapperInterface productMapper;
+    private final ProductSearchConfig config;
+
+    // Seq of the last change feed entry staged; only touched on the executor thread
+    private long cursor;
+    private final ScheduledExecutorService executor;
+    private final IndexOverlay<Segment, ProductResponseDTO> overlay;
+
+    private final Timer queries;
+
+    public SearchIndex(ProductRepository productRepository,
+            ProductChangeRepository productChangeRepository,
+            ProductMapperInterface productMapper,
+            ProductSearchConfig config,
+            InvalidationBus invalidationBus,
+            MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.productChangeRepository = productChangeRepository;
+        this.productMapper = productMapper;
+        this.config = config;
+        this.executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("search-index-"));
+        this.overlay = new IndexOverlay<>("search index", executor, config::getCompactionDelay, this::rebuild,
+                this::compact);
+
+        if (config.isEnabled()) {
+            invalidationBus.subscribe(ProductCatalog.INVALIDATION_CACHE, this);
+        }
+
+        Gauge.builder("products.search.documents", overlay,
+                ref -> ref.current() == null ? 0 : ref.current().docCount())
+                .register(meterRegistry);
+        Gauge.builder("products.search.memory_bytes", overlay,
+                ref -> ref.current() == null ? 0 : ref.current().memoryBytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("products.search.pending_changes", overlay, IndexOverlay::pendingCount)
+                .register(meterRegistry);
+        this.queries = Timer.builder("products.search.latency").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        executor.execute(this::openSafely);
+        long pollMillis = config.getPollInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::pollSafely, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+        long refreshMillis = config.getRefreshInterval().toMillis();
+        executor.scheduleWithFixedDelay(overlay::rebuildSafely, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Single product changes come through the feed; only a bulk delete, which writes no feed rows, needs handling
+    @Override
+    public void onInvalidation(List<Invalidation> invalidations) {
+        overlay.rebuildOnFamily(invalidations);
+    }
+
+    // Staged right away so the writing instance searches its own writes; the feed brings the same change later
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        var before = event.getPrevious();
+        var after = event.getCurrent();
+        if (before != null && after != null && indexedFieldsEqual(before, after)) {
+            return;
+        }
+        overlay.stage(event.getProductId(), after);
+    }
+
+    public boolean isReady() {
+        return overlay.current() != null;
+    }
+
+    /**
+     * Up to {@code limit} products matching any term of the query, best BM25
+     * score first. With {@code categoryIds} only products in those categories
+     * are returned. Empty until the index has been loaded.
+     */
+    public List<Hit> search(String query, Collection<Integer> categoryIds, int limit) {
+        var current = overlay.current();
+        var terms = new ArrayList<>(new LinkedHashSet<>(Tokenizer.tokens(query)));
+        if (current == null || terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        long start = System.nanoTime();
+        var categories = categoryIds == null ? null
+                : categoryIds.stream().mapToInt(Integer::intValue).sorted().toArray();
+        // Products with pending changes are scored from the overlay instead of their stale documents
+        var pendingIds = overlay.pendingIds().stream().mapToLong(Long::longValue).toArray();
+        List<Hit> result = new ArrayList<>(
+                Bm25Search.search(current, terms, categories, pendingIds, limit, config.getK1(), config.getB()));
+        // Pending changes are scored against the segment's statistics, which they will shortly join
+        for (var pending : overlay.pendingChanges()) {
+            var product = pending.value();
+            if (product != null && inCategories(categoryOf(product), categories)) {
+                double score = score(product, terms, current);
+                if (score > 0) {
+                    result.add(new Hit(product.getId(), score));
+                }
+            }
+        }
+        result.sort(BY_SCORE.reversed());
+        if (result.size() > limit) {
+            result = result.subList(0, limit);
+        }
+        queries.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    private double score(ProductResponseDTO product, List<String> terms, Segment current) {
+        var frequencies = Segment.termFrequencies(product, config.getNameBoost());
+        int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+        double score = 0;
+        for (var term : terms) {
+            var freq = frequencies.get(term);
+            if (freq != null) {
+                score += Bm25Search.idf(current.docCount(), current.docFreq(term))
+                        * saturate(freq, length, current.averageLength());
+            }
+        }
+        return score;
+    }
+
+    private double saturate(int freq, int length, double averageLength) {
+        double k1 = config.getK1();
+        return freq * (k1 + 1) / (freq + k1 * (1 - config.getB() + config.getB() * length / averageLength));
+    }
+
+    private static boolean inCategories(int categoryId, int[] categories) {
+        return categories == null || Arrays.binarySearch(categories, categoryId) >= 0;
+    }
+
+    private static int categoryOf(ProductResponseDTO product) {
+        return product.getCategoryId() == null ? Segment.NO_CATEGORY : product.getCategoryId();
+    }
+
+    // Loads the newest readable segment from disk, or builds one from Postgres when there is none
+    void open() {
+        var loaded = loadLatestSegment();
+        if (loaded != null) {
+            cursor = loaded.highWaterSeq();
+            overlay.load(loaded);
+            return;
+        }
+        rebuild();
+    }
+
+    // Full build from Postgres using keyset pagination on the primary key
+    void rebuild() {
+        long start = System.nanoTime();
+        var applied = overlay.beginBuild();
+        // Read before the scan: changes committed during it are replayed, which is harmless
+        long highWaterSeq = productChangeRepository.findLatestSeq();
+        var builder = Segment.builder(config.getNameBoost(), highWaterSeq);
+        var chunk = PageRequest.of(0, config.getLoadChunkSize(), Sort.by(Sort.Direction.ASC, "id"));
+        long lastId = 0;
+        while (true) {
+            var slice = productRepository.findByIdGreaterThan(lastId, chunk);
+            slice.forEach(product -> builder.add(productMapper.toResponseDto(product)));
+            if (!slice.hasNext()) {
+                break;
+            }
+            lastId = slice.getContent().get(slice.getNumberOfElements() - 1).getId();
+        }
+        var next = builder.build();
+        cursor = highWaterSeq;
+        overlay.swap(next, applied);
+        persist(next);
+        log.info("Search index built with {} products ({} terms, {} bytes) in {} ms", next.docCount(),
+                next.termCount(), next.memoryBytes(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    // Stages every change after the cursor, in commit order
+    void poll() {
+        if (overlay.current() == null) {
+            return;
+        }
+        int batchSize = config.getFeedBatchSize();
+        List<ProductChange> changes;
+        do {
+            changes = productChangeRepository.findBySeqGreaterThanOrderBySeqAsc(cursor, Limit.of(batchSize));
+            for (var change : changes) {
+                overlay.stage(change.getProductId(),
+                        change.getChangeType() == ChangeType.DELETED ? null : change.getProduct());
+                cursor = change.getSeq();
+            }
+        } while (changes.size() == batchSize);
+    }
+
+    // Merges the overlay into a new segment and writes it out; the segment covers the feed up to the cursor
+    void compact() {
+        var next = overlay.compact((current, changes) -> current.withChanges(changes, cursor));
+        if (next != null) {
+            persist(next);
+        }
+    }
+
+    private void persist(Segment next) {
+        try {
+            var directory = Path.of(config.getDirectory());
+            Files.createDirectories(directory);
+            var file = directory.resolve(SEGMENT_PREFIX + next.highWaterSeq() + SEGMENT_SUFFIX);
+            next.writeTo(file);
+            for (var older : segmentFiles(directory)) {
+                if (!older.equals(file)) {
+                    Files.deleteIfExists(older);
+                }
+            }
+        } catch (IOException e) {
+            // The index keeps serving from memory; a restart falls back to an older segment or a full build
+            log.warn("Failed to write search segment to {}", config.getDirectory(), e);
+        }
+    }
+
+    private Segment loadLatestSegment() {
+        var directory = Path.of(config.getDirectory());
+        if (!Files.isDirectory(directory)) {
+            return null;
+        }
+        long latestSeq = productChangeRepository.findLatestSeq();
+        List<Path> files;
+        try {
+            files = segmentFiles(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        files.sort(Comparator.comparingLong(SearchIndex::highWaterSeqOf).reversed());
+        for (var file : files) {
+            try {
+                long start = System.nanoTime();
+                var loaded = Segment.readFrom(file);
+                if (loaded.highWaterSeq() > latestSeq) {
+                    // Written against another database or before a restore: the feed cannot bring it up to date
+                    log.info("Ignoring search segment {} ahead of the change feed at {}", file, latestSeq);
+                    continue;
+                }
+                if (loaded.nameBoost() != config.getNameBoost()) {
+                    log.info("Ignoring search segment {} built with name boost {}", file, loaded.nameBoost());
+                    continue;
+                }
+                log.info("Search index loaded from {} with {} products in {} ms", file, loaded.docCount(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                return loaded;
+            } catch (IOException e) {
+                log.warn("Skipping unreadable search segment {}", file, e);
+            }
+        }
+        return null;
+    }
+
+    private static List<Path> segmentFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return new ArrayList<>(files.filter(file -> {
+                var name = file.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).toList());
+        }
+    }
+
+    private static long highWaterSeqOf(Path file) {
+        var name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static boolean indexedFieldsEqual(ProductResponseDTO before, ProductResponseDTO after) {
+        return Objects.equals(before.getName(), after.getName())
+                && Objects.equals(before.getDescription(), after.getDescription())
+                && Objects.equals(before.getCategoryId(), after.getCategoryId());
+    }
+
+    private void openSafely() {
+        try {
+            open();
+        } catch (RuntimeException e) {
+            log.error("Failed to open search index", e);
+        }
+    }
+
+    private void pollSafely() {
+        try {
+            if (overlay.current() == null) {
+                // The initial build failed, most likely because Postgres was unavailable
+                open();
+            }
+            poll();
+        } catch (RuntimeException e) {
+            log.error("Failed to poll the change feed for the search index", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+}
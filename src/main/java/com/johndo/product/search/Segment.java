@@ -0,0 +1,663 @@
+package com.johndo.product.search;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import com.johndo.product.dto.Product.ProductResponseDTO;
+
+/**
+ * Immutable inverted index over a set of products. Documents are numbered
+ * densely in product id order; for each term the segment keeps its document
+ * frequency and a posting list of (doc number, term frequency) pairs, doc
+ * numbers delta encoded and both written as variable-length ints, so a
+ * posting usually takes two bytes. Name terms count {@code nameBoost} times,
+ * which weighs the name over the description (BM25F-style, applied at index
+ * time).
+ *
+ * <p>
+ * Long posting lists are cut into blocks of {@link #BLOCK_SIZE} postings.
+ * For each block the segment keeps its last doc, where it ends, and the
+ * highest frequency and shortest document in it, so a search can jump over
+ * blocks that hold no wanted doc or cannot score high enough.
+ *
+ * <p>
+ * A segment records the change feed position it reflects
+ * ({@code highWaterSeq}) and can be written to and read back from a single
+ * file, so a restart only has to replay the feed from there.
+ */
+final class Segment {
+
+    static final int NO_CATEGORY = -1;
+
+    static final int BLOCK_SIZE = 128;
+
+    // "PSEG"
+    private static final int MAGIC = 0x50534547;
+    private static final int VERSION = 1;
+
+    // BM25 length normalization of every document, for one choice of k1 and b
+    private record LengthNorms(double k1, double b, float[] values) {
+    }
+
+    private final long highWaterSeq;
+    private final int nameBoost;
+    private final int docCount;
+    // Ascending, so doc numbers are found by binary search
+    private final long[] productIds;
+    private final int[] categoryIds;
+    // Weighted token count of each document
+    private final int[] lengths;
+    private final long totalLength;
+    // Sorted, for binary search
+    private final String[] terms;
+    private final int[] docFreqs;
+    // Postings of term t are postings[postingOffsets[t], postingOffsets[t + 1])
+    private final int[] postingOffsets;
+    private final byte[] postings;
+    // Blocks of term t are [blockOffsets[t], blockOffsets[t + 1]); only terms with more than BLOCK_SIZE postings have any
+    private final int[] blockOffsets;
+    private final int[] blockLastDocs;
+    // Position in postings just after the block
+    private final int[] blockEnds;
+    private final int[] blockMaxFreqs;
+    private final int[] blockMinLengths;
+
+    private volatile LengthNorms lengthNorms;
+
+    private Segment(long highWaterSeq, int nameBoost, int docCount, long[] productIds, int[] categoryIds,
+            int[] lengths, String[] terms, int[] docFreqs, int[] postingOffsets, byte[] postings,
+            int[] blockOffsets, int[] blockLastDocs, int[] blockEnds, int[] blockMaxFreqs, int[] blockMinLengths) {
+        this.highWaterSeq = highWaterSeq;
+        this.nameBoost = nameBoost;
+        this.docCount = docCount;
+        this.productIds = productIds;
+        this.categoryIds = categoryIds;
+        this.lengths = lengths;
+        this.terms = terms;
+        this.docFreqs = docFreqs;
+        this.postingOffsets = postingOffsets;
+        this.postings = postings;
+        this.blockOffsets = blockOffsets;
+        this.blockLastDocs = blockLastDocs;
+        this.blockEnds = blockEnds;
+        this.blockMaxFreqs = blockMaxFreqs;
+        this.blockMinLengths = blockMinLengths;
+        long total = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            total += lengths[doc];
+        }
+        this.totalLength = total;
+    }
+
+    static Builder builder(int nameBoost, long highWaterSeq) {
+        return new Builder(nameBoost, highWaterSeq);
+    }
+
+    long highWaterSeq() {
+        return highWaterSeq;
+    }
+
+    int nameBoost() {
+        return nameBoost;
+    }
+
+    int docCount() {
+        return docCount;
+    }
+
+    double averageLength() {
+        return docCount == 0 ? 1 : (double) totalLength / docCount;
+    }
+
+    long productId(int doc) {
+        return productIds[doc];
+    }
+
+    // Doc number of the product, or a negative number if the segment does not hold it
+    int docOf(long productId) {
+        return Arrays.binarySearch(productIds, productId);
+    }
+
+    int categoryId(int doc) {
+        return categoryIds[doc];
+    }
+
+    int length(int doc) {
+        return lengths[doc];
+    }
+
+    // Index of the term, or a negative number if no document contains it
+    int termIndex(String term) {
+        return Arrays.binarySearch(terms, term);
+    }
+
+    int docFreq(int termIndex) {
+        return docFreqs[termIndex];
+    }
+
+    int docFreq(String term) {
+        int index = termIndex(term);
+        return index < 0 ? 0 : docFreqs[index];
+    }
+
+    PostingsCursor postings(int termIndex) {
+        return new PostingsCursor(this, termIndex);
+    }
+
+    /**
+     * {@code k1 * (1 - b + b * length / averageLength)} for every document,
+     * the part of the BM25 denominator that depends only on the document.
+     * Kept for the last k1 and b asked for.
+     */
+    float[] lengthNorms(double k1, double b) {
+        var cached = lengthNorms;
+        if (cached != null && cached.k1() == k1 && cached.b() == b) {
+            return cached.values();
+        }
+        var values = new float[docCount];
+        double averageLength = averageLength();
+        for (int doc = 0; doc < docCount; doc++) {
+            values[doc] = (float) (k1 * (1 - b + b * lengths[doc] / averageLength));
+        }
+        lengthNorms = new LengthNorms(k1, b, values);
+        return values;
+    }
+
+    int termCount() {
+        return terms.length;
+    }
+
+    int postingsBytes() {
+        return postings.length;
+    }
+
+    // Approximate heap held by the segment
+    long memoryBytes() {
+        long termBytes = 0;
+        for (var term : terms) {
+            termBytes += 48 + term.length();
+        }
+        return 16L * docCount + termBytes + 12L * terms.length + postings.length + 16L * blockLastDocs.length;
+    }
+
+    /**
+     * A new segment with the given products replaced, added, or removed where
+     * the value is null. Unchanged documents keep their postings, which are
+     * copied without re-tokenizing them; changed and new products are
+     * tokenized and merged in at their place in product id order.
+     */
+    Segment withChanges(Map<Long, ProductResponseDTO> changes, long newHighWaterSeq) {
+        var builder = new Builder(nameBoost, newHighWaterSeq);
+        var upserts = changes.values().stream()
+                .filter(product -> product != null)
+                .sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+                .toList();
+
+        // Documents in id order, remembering where old ones went; postings of upserts are collected per term
+        int[] remap = new int[docCount];
+        Map<String, List<int[]>> added = new TreeMap<>();
+        int doc = 0;
+        for (var product : upserts) {
+            for (; doc < docCount && productIds[doc] < product.getId(); doc++) {
+                remap[doc] = changes.containsKey(productIds[doc]) ? -1
+                        : builder.addDocument(productIds[doc], categoryIds[doc], lengths[doc]);
+            }
+            var frequencies = termFrequencies(product, nameBoost);
+            int newDoc = builder.addDocument(product.getId(), categoryOf(product), totalFrequency(frequencies));
+            frequencies.forEach((term, freq) -> added.computeIfAbsent(term, key -> new ArrayList<>())
+                    .add(new int[] { newDoc, freq }));
+        }
+        for (; doc < docCount; doc++) {
+            remap[doc] = changes.containsKey(productIds[doc]) ? -1
+                    : builder.addDocument(productIds[doc], categoryIds[doc], lengths[doc]);
+        }
+
+        // Each term's old postings and new ones are both in doc order, so they merge
+        for (int term = 0; term < terms.length; term++) {
+            var fresh = added.remove(terms[term]);
+            var writer = builder.termWriter(terms[term], postingOffsets[term + 1] - postingOffsets[term]);
+            int next = 0;
+            var cursor = postings(term);
+            while (cursor.next()) {
+                int target = remap[cursor.doc()];
+                if (target < 0) {
+                    continue;
+                }
+                for (; fresh != null && next < fresh.size() && fresh.get(next)[0] < target; next++) {
+                    builder.addPosting(writer, fresh.get(next)[0], fresh.get(next)[1]);
+                }
+                builder.addPosting(writer, target, cursor.freq());
+            }
+            for (; fresh != null && next < fresh.size(); next++) {
+                builder.addPosting(writer, fresh.get(next)[0], fresh.get(next)[1]);
+            }
+        }
+        added.forEach((term, fresh) -> fresh.forEach(posting -> builder.addPosting(term, posting[0], posting[1])));
+        return builder.build();
+    }
+
+    // Writes the segment to a temporary file and moves it into place, so readers never see a partial file
+    void writeTo(Path path) throws IOException {
+        var temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        var checksum = new CRC32();
+        try (var out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16), checksum))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(highWaterSeq);
+            out.writeInt(nameBoost);
+            out.writeInt(docCount);
+            for (int doc = 0; doc < docCount; doc++) {
+                out.writeLong(productIds[doc]);
+            }
+            writeInts(out, categoryIds, docCount);
+            writeInts(out, lengths, docCount);
+            out.writeInt(terms.length);
+            for (int term = 0; term < terms.length; term++) {
+                var bytes = terms[term].getBytes(StandardCharsets.UTF_8);
+                out.writeShort(bytes.length);
+                out.write(bytes);
+                out.writeInt(docFreqs[term]);
+                out.writeInt(postingOffsets[term + 1]);
+                out.writeInt(blockOffsets[term + 1]);
+            }
+            out.writeInt(postings.length);
+            out.write(postings);
+            out.writeInt(blockLastDocs.length);
+            writeInts(out, blockLastDocs, blockLastDocs.length);
+            writeInts(out, blockEnds, blockEnds.length);
+            writeInts(out, blockMaxFreqs, blockMaxFreqs.length);
+            writeInts(out, blockMinLengths, blockMinLengths.length);
+            out.flush();
+            // The checksum covers everything above; writing it through the stream would change it
+            out.write(ByteBuffer.allocate(Long.BYTES).putLong(checksum.getValue()).array());
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            out.writeInt(values[i]);
+        }
+    }
+
+    /**
+     * Reads a segment written by {@link #writeTo}. The file is memory-mapped
+     * and decoded in bulk.
+     *
+     * @throws IOException when the file is truncated, corrupt or of another
+     *                     format version
+     */
+    static Segment readFrom(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 28 || size > Integer.MAX_VALUE) {
+                throw new IOException("Unexpected search segment size " + size + ": " + path);
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            var checksum = new CRC32();
+            checksum.update(buffer.duplicate().limit((int) size - Long.BYTES));
+            if (checksum.getValue() != buffer.getLong((int) size - Long.BYTES)) {
+                throw new IOException("Checksum mismatch in search segment " + path);
+            }
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a search segment of version " + VERSION + ": " + path);
+            }
+            long highWaterSeq = buffer.getLong();
+            int nameBoost = buffer.getInt();
+            int docCount = buffer.getInt();
+            var productIds = new long[docCount];
+            buffer.asLongBuffer().get(productIds);
+            buffer.position(buffer.position() + docCount * Long.BYTES);
+            var categoryIds = readInts(buffer, docCount);
+            var lengths = readInts(buffer, docCount);
+
+            int termCount = buffer.getInt();
+            var terms = new String[termCount];
+            var docFreqs = new int[termCount];
+            var postingOffsets = new int[termCount + 1];
+            var blockOffsets = new int[termCount + 1];
+            var termBytes = new byte[Short.MAX_VALUE];
+            for (int term = 0; term < termCount; term++) {
+                int length = buffer.getShort();
+                buffer.get(termBytes, 0, length);
+                terms[term] = new String(termBytes, 0, length, StandardCharsets.UTF_8);
+                docFreqs[term] = buffer.getInt();
+                postingOffsets[term + 1] = buffer.getInt();
+                blockOffsets[term + 1] = buffer.getInt();
+            }
+            var postings = new byte[buffer.getInt()];
+            buffer.get(postings);
+            int blockCount = buffer.getInt();
+            return new Segment(highWaterSeq, nameBoost, docCount, productIds, categoryIds, lengths, terms, docFreqs,
+                    postingOffsets, postings, blockOffsets, readInts(buffer, blockCount), readInts(buffer, blockCount),
+                    readInts(buffer, blockCount), readInts(buffer, blockCount));
+        } catch (RuntimeException e) {
+            // Buffer underflows and the like: the file does not hold what its header claims
+            throw new IOException("Malformed search segment " + path, e);
+        }
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        var values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+        return values;
+    }
+
+    /**
+     * Iterates over one posting list; {@link #doc()} and {@link #freq()} are
+     * valid after {@link #next()} or {@link #advance} returned true.
+     */
+    static final class PostingsCursor {
+
+        private final Segment segment;
+        private final byte[] data;
+        private int position;
+        private final int end;
+        private final int firstBlock;
+        private final int blockCount;
+        // Postings decoded or skipped so far
+        private int read;
+        private int doc = -1;
+        private int freq;
+
+        private PostingsCursor(Segment segment, int termIndex) {
+            this.segment = segment;
+            this.data = segment.postings;
+            this.position = segment.postingOffsets[termIndex];
+            this.end = segment.postingOffsets[termIndex + 1];
+            this.firstBlock = segment.blockOffsets[termIndex];
+            this.blockCount = segment.blockOffsets[termIndex + 1] - firstBlock;
+        }
+
+        boolean next() {
+            if (position >= end) {
+                return false;
+            }
+            doc += readVarInt();
+            freq = readVarInt();
+            read++;
+            return true;
+        }
+
+        /**
+         * Moves to the first doc not before {@code target}, which may be the
+         * current one, jumping over whole blocks where it can. False when the
+         * list has no such doc.
+         */
+        boolean advance(int target) {
+            while (block() < blockCount && segment.blockLastDocs[firstBlock + block()] < target) {
+                skipBlock();
+            }
+            while (doc < target) {
+                if (!next()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int doc() {
+            return doc;
+        }
+
+        int freq() {
+            return freq;
+        }
+
+        // True when the next posting starts a block that skipBlock() can jump over
+        boolean atBlockStart() {
+            return read % BLOCK_SIZE == 0 && block() < blockCount;
+        }
+
+        // Highest frequency and shortest document in the block holding the next posting
+        int blockMaxFreq() {
+            return segment.blockMaxFreqs[firstBlock + block()];
+        }
+
+        int blockMinLength() {
+            return segment.blockMinLengths[firstBlock + block()];
+        }
+
+        // Moves past the rest of the block holding the next posting
+        void skipBlock() {
+            int block = block();
+            position = segment.blockEnds[firstBlock + block];
+            doc = segment.blockLastDocs[firstBlock + block];
+            read = (block + 1) * BLOCK_SIZE;
+        }
+
+        private int block() {
+            return read / BLOCK_SIZE;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            for (int shift = 0;; shift += 7) {
+                byte b = data[position++];
+                value |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Collects documents in ascending product id order. Postings of a term
+     * must be added in increasing doc number order, which {@link #add} and
+     * {@link Segment#withChanges} guarantee by construction.
+     */
+    static final class Builder {
+
+        private final int nameBoost;
+        private final long highWaterSeq;
+        private long[] productIds = new long[1024];
+        private int[] categoryIds = new int[1024];
+        private int[] lengths = new int[1024];
+        private int docCount;
+        private final Map<String, TermWriter> termWriters = new HashMap<>();
+
+        private Builder(int nameBoost, long highWaterSeq) {
+            this.nameBoost = nameBoost;
+            this.highWaterSeq = highWaterSeq;
+        }
+
+        int add(ProductResponseDTO product) {
+            var frequencies = termFrequencies(product, nameBoost);
+            int doc = addDocument(product.getId(), categoryOf(product), totalFrequency(frequencies));
+            frequencies.forEach((term, freq) -> addPosting(term, doc, freq));
+            return doc;
+        }
+
+        int size() {
+            return docCount;
+        }
+
+        private int addDocument(long productId, int categoryId, int length) {
+            if (docCount > 0 && productIds[docCount - 1] >= productId) {
+                throw new IllegalArgumentException("Products must be added in ascending id order, got " + productId
+                        + " after " + productIds[docCount - 1]);
+            }
+            if (docCount == productIds.length) {
+                productIds = Arrays.copyOf(productIds, docCount * 2);
+                categoryIds = Arrays.copyOf(categoryIds, docCount * 2);
+                lengths = Arrays.copyOf(lengths, docCount * 2);
+            }
+            productIds[docCount] = productId;
+            categoryIds[docCount] = categoryId;
+            lengths[docCount] = length;
+            return docCount++;
+        }
+
+        private void addPosting(String term, int doc, int freq) {
+            addPosting(termWriter(term), doc, freq);
+        }
+
+        private void addPosting(TermWriter writer, int doc, int freq) {
+            writer.add(doc, freq, lengths[doc]);
+        }
+
+        private TermWriter termWriter(String term) {
+            return termWriter(term, 8);
+        }
+
+        private TermWriter termWriter(String term, int expectedBytes) {
+            return termWriters.computeIfAbsent(term, key -> new TermWriter(expectedBytes));
+        }
+
+        Segment build() {
+            // Terms whose every document was removed by withChanges are dropped
+            var terms = termWriters.entrySet().stream()
+                    .filter(entry -> entry.getValue().docFreq > 0)
+                    .map(Map.Entry::getKey)
+                    .toArray(String[]::new);
+            Arrays.sort(terms);
+            var docFreqs = new int[terms.length];
+            var postingOffsets = new int[terms.length + 1];
+            var blockOffsets = new int[terms.length + 1];
+            long total = 0;
+            for (int term = 0; term < terms.length; term++) {
+                var writer = termWriters.get(terms[term]);
+                docFreqs[term] = writer.docFreq;
+                total += writer.length;
+                if (total > Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException("Search segment postings exceed 2 GB");
+                }
+                postingOffsets[term + 1] = (int) total;
+                blockOffsets[term + 1] = blockOffsets[term] + writer.finishBlocks();
+            }
+            var postings = new byte[(int) total];
+            int blockCount = blockOffsets[terms.length];
+            var blockLastDocs = new int[blockCount];
+            var blockEnds = new int[blockCount];
+            var blockMaxFreqs = new int[blockCount];
+            var blockMinLengths = new int[blockCount];
+            for (int term = 0; term < terms.length; term++) {
+                var writer = termWriters.get(terms[term]);
+                System.arraycopy(writer.bytes, 0, postings, postingOffsets[term], writer.length);
+                for (int block = 0, at = blockOffsets[term]; at < blockOffsets[term + 1]; block++, at++) {
+                    blockLastDocs[at] = writer.blocks[4 * block];
+                    blockEnds[at] = postingOffsets[term] + writer.blocks[4 * block + 1];
+                    blockMaxFreqs[at] = writer.blocks[4 * block + 2];
+                    blockMinLengths[at] = writer.blocks[4 * block + 3];
+                }
+            }
+            return new Segment(highWaterSeq, nameBoost, docCount, Arrays.copyOf(productIds, docCount),
+                    Arrays.copyOf(categoryIds, docCount), Arrays.copyOf(lengths, docCount), terms, docFreqs,
+                    postingOffsets, postings, blockOffsets, blockLastDocs, blockEnds, blockMaxFreqs, blockMinLengths);
+        }
+
+    }
+
+    // Weighted term frequencies of a product: name terms count nameBoost times
+    static Map<String, Integer> termFrequencies(ProductResponseDTO product, int nameBoost) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (var token : Tokenizer.tokens(product.getName())) {
+            frequencies.merge(token, nameBoost, Integer::sum);
+        }
+        for (var token : Tokenizer.tokens(product.getDescription())) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        return frequencies;
+    }
+
+    static int totalFrequency(Map<String, Integer> frequencies) {
+        int total = 0;
+        for (int freq : frequencies.values()) {
+            total += freq;
+        }
+        return total;
+    }
+
+    private static int categoryOf(ProductResponseDTO product) {
+        return product.getCategoryId() == null ? NO_CATEGORY : product.getCategoryId();
+    }
+
+    // Growing posting list of one term, with the statistics of each finished block
+    private static final class TermWriter {
+
+        private byte[] bytes;
+        private int length;
+        private int lastDoc = -1;
+        private int docFreq;
+        // Per block: last doc, end position, max frequency, min length; allocated once a block fills
+        private int[] blocks;
+        private int blockCount;
+        private int blockMaxFreq;
+        private int blockMinLength = Integer.MAX_VALUE;
+
+        TermWriter(int expectedBytes) {
+            this.bytes = new byte[Math.max(8, expectedBytes)];
+        }
+
+        void add(int doc, int freq, int docLength) {
+            writeVarInt(doc - lastDoc);
+            writeVarInt(freq);
+            lastDoc = doc;
+            docFreq++;
+            blockMaxFreq = Math.max(blockMaxFreq, freq);
+            blockMinLength = Math.min(blockMinLength, docLength);
+            if (docFreq % BLOCK_SIZE == 0) {
+                closeBlock();
+            }
+        }
+
+        // Closes the last partial block; short lists are read straight through and keep no blocks
+        int finishBlocks() {
+            if (docFreq <= BLOCK_SIZE) {
+                return 0;
+            }
+            if (docFreq % BLOCK_SIZE != 0) {
+                closeBlock();
+            }
+            return blockCount;
+        }
+
+        private void closeBlock() {
+            if (blocks == null) {
+                blocks = new int[16];
+            } else if (4 * blockCount + 4 > blocks.length) {
+                blocks = Arrays.copyOf(blocks, blocks.length * 2);
+            }
+            blocks[4 * blockCount] = lastDoc;
+            blocks[4 * blockCount + 1] = length;
+            blocks[4 * blockCount + 2] = blockMaxFreq;
+            blocks[4 * blockCount + 3] = blockMinLength;
+            blockCount++;
+            blockMaxFreq = 0;
+            blockMinLength = Integer.MAX_VALUE;
+        }
+
+        private void writeVarInt(int value) {
+            if (length + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            while ((value & ~0x7f) != 0) {
+                bytes[length++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.johndo.product.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits text into lower-case terms on anything that is not a letter or a
+ * digit. Single characters and a few English stop words are dropped: they
+ * match nearly every product and only cost posting list reads.
+ */
+final class Tokenizer {
+
+    private static final Set<String> STOP_WORDS = Set.of("an", "and", "are", "as", "at", "be", "by", "for", "from",
+            "in", "is", "it", "of", "on", "or", "the", "to", "with");
+
+    private Tokenizer() {
+    }
+
+    static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                addToken(text.substring(start, i), tokens);
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static void addToken(String word, List<String> tokens) {
+        if (word.length() < 2) {
+            return;
+        }
+        var token = word.toLowerCase(Locale.ROOT);
+        if (!STOP_WORDS.contains(token)) {
+            tokens.add(token);
+        }
+    }
+
+}
@@ -1,33 +1,64 @@
 package com.johndo.product.service;
 
+import java.util.List;
+
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.johndo.product.catalog.CategoryTreeCache;
 import com.johndo.product.dto.Category.CategoryRequestDTO;
 import com.johndo.product.dto.Category.CategoryResponseDTO;
+import com.johndo.product.dto.Category.CategoryTreeDTO;
 import com.johndo.product.exception.CategoryNotFound;
 import com.johndo.product.mapper.CategoryMapperInterface;
 import com.johndo.product.repository.CategoryRepository;
+import com.johndo.product.repository.ProductRepository;
 
 @Service
 public class CategoryService {
     private final CategoryRepository categoryRepository;
     private final CategoryMapperInterface categoryMapper;
+    private final CategoryTreeCache categoryTreeCache;
+    private final ProductRepository productRepository;
+    private final ProductService productService;
 
-    public CategoryService(CategoryRepository categoryRepository, CategoryMapperInterface categoryMapper) {
+    public CategoryService(CategoryRepository categoryRepository, CategoryMapperInterface categoryMapper,
+            CategoryTreeCache categoryTreeCache, ProductRepository productRepository,
+            ProductService productService) {
         this.categoryMapper = categoryMapper;
         this.categoryRepository = categoryRepository;
+        this.categoryTreeCache = categoryTreeCache;
+        this.productRepository = productRepository;
+        this.productService = productService;
     }
 
+    // Reads are served from the in-memory category tree
     public CategoryResponseDTO getCategoryById(Integer id) {
-        var category = categoryRepository.findById(id)
-                .orElseThrow(() -> new CategoryNotFound("Category not found"));
-        return categoryMapper.toResponseDto(category);
+        var category = categoryTreeCache.current().find(id);
+        if (category == null) {
+            throw new CategoryNotFound("Category not found");
+        }
+        return category;
+    }
+
+    public List<CategoryTreeDTO> getCategoryTree() {
+        return categoryTreeCache.current().toNestedDtos();
+    }
+
+    // Categories from the root down to the requested one
+    public List<CategoryResponseDTO> getBreadcrumbs(Integer id) {
+        var breadcrumbs = categoryTreeCache.current().breadcrumbs(id);
+        if (breadcrumbs == null) {
+            throw new CategoryNotFound("Category not found");
+        }
+        return breadcrumbs;
     }
 
     public CategoryResponseDTO createCategory(CategoryRequestDTO categoryRequestDTO) {
         var category = categoryMapper.toEntity(categoryRequestDTO);
-        var savedCategory = categoryRepository.save(category);
-        return categoryMapper.toResponseDto(savedCategory);
+        var savedCategory = categoryMapper.toResponseDto(categoryRepository.save(category));
+        categoryTreeCache.categorySaved(savedCategory);
+        return savedCategory;
     }
 
     public CategoryResponseDTO updateCategory(Integer id, CategoryRequestDTO categoryRequestDTO) {
@@ -35,18 +66,33 @@ public class CategoryService {
                 .orElseThrow(() -> new CategoryNotFound("Category not found"));
         var updatedCategory = categoryMapper.toEntity(categoryRequestDTO);
         updatedCategory.setId(existingCategory.getId());
-        var savedCategory = categoryRepository.save(updatedCategory);
-        return categoryMapper.toResponseDto(savedCategory);
+        var savedCategory = categoryMapper.toResponseDto(categoryRepository.save(updatedCategory));
+        categoryTreeCache.categorySaved(savedCategory);
+        return savedCategory;
     }
 
+    /**
+     * Deletes the category's products one by one through
+     * {@link ProductService#deleteProduct} before the category itself, so each
+     * gets its change feed row, cache evictions and index updates; the cascade
+     * from {@code Category.products} would remove them silently.
+     */
+    @Transactional
     public void deleteCategory(Integer id) {
         var category = categoryRepository.findById(id)
                 .orElseThrow(() -> new CategoryNotFound("Category not found"));
+        productRepository.findIdsByCategoryId(id).forEach(productService::deleteProduct);
+        // Leaves the cascade nothing to load
+        productRepository.flush();
         categoryRepository.delete(category);
+        categoryTreeCache.categoryDeleted(id);
     }
 
+    // Products go first, through the service, for the same reason as in deleteCategory
     public void deleteAllCategories() {
+        productService.deleteAllProducts();
         categoryRepository.deleteAll();
+        categoryTreeCache.allCategoriesDeleted();
     }
 
 }
@@ -0,0 +1,220 @@
+package com.johndo.product.service;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.johndo.product.config.ChangeFeedConfig;
+import com.johndo.product.dto.Change.ChangeFeedPageDTO;
+import com.johndo.product.dto.Change.ProductChangeDTO;
+import com.johndo.product.event.ProductChangedEvent;
+import com.johndo.product.model.ProductChange;
+import com.johndo.product.repository.ProductChangeRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Ordered log of product writes for incremental sync. Every
+ * {@link ProductChangedEvent} is appended to {@code product_changes} inside
+ * the write's transaction, so the feed never misses or invents a change.
+ * Clients page through it by sequence number, or stream it over SSE: streams
+ * are served by one background thread that polls the table (and is woken up
+ * by local commits), fetching once per distinct stream position so streams
+ * that are caught up share a single query.
+ */
+@Service
+public class ChangeFeedService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeedService.class);
+
+    // Advisory lock key serializing appends to the feed ("pc" in ASCII)
+    private static final long APPEND_LOCK = 0x7063;
+
+    static final String EVENT_NAME = "product-change";
+
+    // An open stream and the seq of the last change sent to it; only touched on the executor thread
+    static final class Subscriber {
+        private final SseEmitter emitter;
+        private long cursor;
+
+        Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+
+    private final ProductChangeRepository productChangeRepository;
+    private final ChangeFeedConfig config;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean pollScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService executor;
+
+    public ChangeFeedService(ProductChangeRepository productChangeRepository,
+            ChangeFeedConfig config,
+            MeterRegistry meterRegistry) {
+        this.productChangeRepository = productChangeRepository;
+        this.config = config;
+        this.executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("change-feed-"));
+
+        Gauge.builder("products.changes.streams", subscribers, Set::size).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        long pollMillis = config.getPollInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::pollSafely, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+        long heartbeatMillis = config.getHeartbeatInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Runs in the writing transaction: the change is committed or rolled back together with the product
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(ProductChangedEvent event) {
+        productChangeRepository.lockForAppend(APPEND_LOCK);
+        productChangeRepository.save(ProductChange.builder()
+                .productId(event.getProductId())
+                .changeType(event.getType())
+                .product(event.getCurrent())
+                .changedAt(Instant.now())
+                .build());
+    }
+
+    // Pushes a locally committed change to the streams without waiting for the next poll
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!subscribers.isEmpty() && pollScheduled.compareAndSet(false, true)) {
+            executor.execute(this::pollSafely);
+        }
+    }
+
+    /**
+     * Changes after {@code since} in write order, at most {@code limit} of
+     * them (the configured default when null, capped at the maximum).
+     */
+    public ChangeFeedPageDTO getChanges(long since, Integer limit) {
+        int pageSize = limit == null || limit <= 0 ? config.getDefaultLimit() : Math.min(limit, config.getMaxLimit());
+        var changes = fetch(Math.max(0, since), pageSize);
+        return ChangeFeedPageDTO.builder()
+                .changes(changes)
+                .nextSince(changes.isEmpty() ? since : changes.get(changes.size() - 1).getSeq())
+                .hasMore(changes.size() == pageSize)
+                .build();
+    }
+
+    // Opens a stream of every change after since: the backlog first, then live changes
+    public SseEmitter subscribe(long since) {
+        var emitter = new SseEmitter(config.getStreamTimeout().toMillis());
+        register(emitter, Math.max(0, since));
+        return emitter;
+    }
+
+    void register(SseEmitter emitter, long since) {
+        var subscriber = new Subscriber(emitter, since);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        executor.execute(this::pollSafely);
+    }
+
+    void poll() {
+        pollScheduled.set(false);
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Map<Long, List<Subscriber>> byCursor = subscribers.stream()
+                .collect(Collectors.groupingBy(subscriber -> subscriber.cursor));
+        int batchSize = config.getMaxLimit();
+        byCursor.forEach((cursor, group) -> {
+            long position = cursor;
+            List<ProductChangeDTO> changes;
+            do {
+                changes = fetch(position, batchSize);
+                for (var subscriber : group) {
+                    send(subscriber, changes);
+                }
+                if (!changes.isEmpty()) {
+                    position = changes.get(changes.size() - 1).getSeq();
+                }
+            } while (changes.size() == batchSize);
+        });
+    }
+
+    private void send(Subscriber subscriber, List<ProductChangeDTO> changes) {
+        try {
+            for (var change : changes) {
+                subscriber.emitter.send(SseEmitter.event()
+                        .id(String.valueOf(change.getSeq()))
+                        .name(EVENT_NAME)
+                        .data(change, MediaType.APPLICATION_JSON));
+                subscriber.cursor = change.getSeq();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; it resumes from its Last-Event-ID when it reconnects
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    private void heartbeat() {
+        for (var subscriber : subscribers) {
+            try {
+                subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(subscriber);
+                subscriber.emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private List<ProductChangeDTO> fetch(long since, int limit) {
+        return productChangeRepository.findBySeqGreaterThanOrderBySeqAsc(since, Limit.of(limit)).stream()
+                .map(change -> ProductChangeDTO.builder()
+                        .seq(change.getSeq())
+                        .productId(change.getProductId())
+                        .type(change.getChangeType())
+                        .product(change.getProduct())
+                        .changedAt(change.getChangedAt())
+                        .build())
+                .toList();
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            log.error("Failed to poll the product change feed", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+}
@@ -0,0 +1,215 @@
+package com.johndo.product.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.johndo.product.catalog.CategoryTreeCache;
+import com.johndo.product.config.FacetConfig;
+import com.johndo.product.dto.Facet.CategoryFacetDTO;
+import com.johndo.product.dto.Facet.FacetsResponseDTO;
+import com.johndo.product.dto.Facet.PriceBucketFacetDTO;
+import com.johndo.product.dto.Product.ProductResponseDTO;
+import com.johndo.product.event.ProductChangedEvent;
+import com.johndo.product.exception.CategoryNotFound;
+import com.johndo.product.repository.ProductRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Product counts per category and price bucket, kept in memory so facets cost
+ * O(categories) regardless of catalog size. Counts are seeded (and
+ * periodically recounted) with one GROUP BY query and adjusted from
+ * {@link ProductChangedEvent}s in between. Only direct counts are stored;
+ * descendant totals are summed over the category tree at read time, so moving
+ * a category needs no counter maintenance.
+ */
+@Service
+public class FacetService {
+
+    private static final Logger log = LoggerFactory.getLogger(FacetService.class);
+
+    private final ProductRepository productRepository;
+    private final CategoryTreeCache categoryTreeCache;
+    private final FacetConfig config;
+    private final BigDecimal[] bounds;
+
+    // categoryId -> product count per bucket, index i as returned by width_bucket (0 = below the first bound)
+    private final AtomicReference<ConcurrentMap<Integer, AtomicLongArray>> counts = new AtomicReference<>();
+    private final ScheduledExecutorService executor;
+
+    public FacetService(ProductRepository productRepository,
+            CategoryTreeCache categoryTreeCache,
+            FacetConfig config) {
+        this.productRepository = productRepository;
+        this.categoryTreeCache = categoryTreeCache;
+        this.config = config;
+        this.bounds = config.getPriceBuckets().toArray(BigDecimal[]::new);
+        this.executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("product-facets-"));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        long refreshMillis = config.getRefreshInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::recountSafely, 0, refreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // A change racing a recount may be counted twice or not at all until the next recount
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        var current = counts.get();
+        if (current == null) {
+            return;
+        }
+        var before = event.getPrevious();
+        var after = event.getCurrent();
+        if (before != null && after != null && before.getCategoryId().equals(after.getCategoryId())
+                && bucketOf(before.getUnitPrice()) == bucketOf(after.getUnitPrice())) {
+            return;
+        }
+        if (before != null) {
+            adjust(current, before, -1);
+        }
+        if (after != null) {
+            adjust(current, after, 1);
+        }
+    }
+
+    /**
+     * Facets for the subtree of {@code categoryId}, or for the whole catalog
+     * when it is null.
+     */
+    public FacetsResponseDTO getFacets(Integer categoryId) {
+        var tree = categoryTreeCache.current();
+        if (categoryId != null && tree.find(categoryId) == null) {
+            throw new CategoryNotFound("Category not found");
+        }
+        var current = countsOrLoad();
+
+        Collection<Integer> scope = categoryId == null ? current.keySet() : tree.descendantIds(categoryId);
+        long[] buckets = sum(current, scope);
+
+        List<CategoryFacetDTO> categories = tree.children(categoryId).stream()
+                .map(child -> CategoryFacetDTO.builder()
+                        .id(child.getId())
+                        .name(child.getName())
+                        .productCount(total(sum(current, tree.descendantIds(child.getId()))))
+                        .build())
+                .toList();
+
+        List<PriceBucketFacetDTO> priceBuckets = new ArrayList<>(bounds.length);
+        for (int i = 1; i <= bounds.length; i++) {
+            priceBuckets.add(PriceBucketFacetDTO.builder()
+                    .from(bounds[i - 1])
+                    .to(i < bounds.length ? bounds[i] : null)
+                    .productCount(buckets[i])
+                    .build());
+        }
+
+        return FacetsResponseDTO.builder()
+                .categoryId(categoryId)
+                .productCount(total(buckets))
+                .categories(categories)
+                .priceBuckets(priceBuckets)
+                .build();
+    }
+
+    void recount() {
+        long start = System.nanoTime();
+        var arrayLiteral = Arrays.stream(bounds).map(BigDecimal::toPlainString)
+                .collect(Collectors.joining(",", "{", "}"));
+        ConcurrentMap<Integer, AtomicLongArray> next = new ConcurrentHashMap<>();
+        for (Object[] row : productRepository.countByCategoryAndPriceBucket(arrayLiteral)) {
+            var categoryId = ((Number) row[0]).intValue();
+            var bucket = ((Number) row[1]).intValue();
+            next.computeIfAbsent(categoryId, key -> new AtomicLongArray(bounds.length + 1))
+                    .addAndGet(bucket, ((Number) row[2]).longValue());
+        }
+        counts.set(next);
+        log.info("Product facets recounted for {} categories in {} ms", next.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    // Same bucketing as width_bucket: the number of bounds that are <= price
+    int bucketOf(BigDecimal price) {
+        int low = 0;
+        int high = bounds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (bounds[mid].compareTo(price) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private ConcurrentMap<Integer, AtomicLongArray> countsOrLoad() {
+        var current = counts.get();
+        if (current == null) {
+            synchronized (this) {
+                if (counts.get() == null) {
+                    recount();
+                }
+            }
+            current = counts.get();
+        }
+        return current;
+    }
+
+    private void adjust(ConcurrentMap<Integer, AtomicLongArray> current, ProductResponseDTO product, int delta) {
+        current.computeIfAbsent(product.getCategoryId(), key -> new AtomicLongArray(bounds.length + 1))
+                .addAndGet(bucketOf(product.getUnitPrice()), delta);
+    }
+
+    private long[] sum(ConcurrentMap<Integer, AtomicLongArray> current, Collection<Integer> categoryIds) {
+        long[] result = new long[bounds.length + 1];
+        for (var categoryId : categoryIds) {
+            var buckets = current.get(categoryId);
+            if (buckets == null) {
+                continue;
+            }
+            for (int i = 0; i < result.length; i++) {
+                result[i] += buckets.get(i);
+            }
+        }
+        return result;
+    }
+
+    private static long total(long[] buckets) {
+        return Arrays.stream(buckets).sum();
+    }
+
+    private void recountSafely() {
+        try {
+            recount();
+        } catch (RuntimeException e) {
+            log.error("Failed to recount product facets", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+}
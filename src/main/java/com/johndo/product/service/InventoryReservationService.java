@@ -0,0 +1,388 @@
+package com.johndo.product.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
+
+import com.johndo.product.config.InventoryReservationConfig;
+import com.johndo.product.dto.Reservation.AvailabilityResponseDTO;
+import com.johndo.product.dto.Reservation.ReservationResponseDTO;
+import com.johndo.product.event.ProductChangedEvent;
+import com.johndo.product.exception.InsufficientStock;
+import com.johndo.product.exception.ProductNotFound;
+import com.johndo.product.exception.ReservationNotFound;
+import com.johndo.product.model.StockReconciliation;
+import com.johndo.product.repository.ProductRepository;
+import com.johndo.product.repository.StockReconciliationRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Checkout holds on product stock, kept in Redis so cart actions never lock
+ * the product row. Each operation is one Lua script over the product's keys
+ * (all in one hash slot):
+ * <ul>
+ * <li>{@code quantity}: the stock, copied from Postgres on first use, minus
+ * confirmed sales not yet written back</li>
+ * <li>{@code holds}/{@code held}: open reservations by expiry time and by
+ * quantity, {@code reserved}: their sum</li>
+ * <li>{@code confirmed}: sold quantity waiting for the reconciler,
+ * {@code claims}: sold quantity a reconciler is writing to Postgres, by
+ * claim id</li>
+ * </ul>
+ * Available stock is {@code quantity - reserved}. Expired holds are dropped by
+ * whichever script touches the product next. A background reconciler writes
+ * confirmed sales to {@code products.quantity} in batches.
+ *
+ * <p>
+ * Every claim is also listed in {@code inventory:claims} with an expiry. A
+ * claim still open after {@code claimTimeout} belongs to a reconciler that
+ * died or stalled, and is decided through {@code stock_reconciliations}: the
+ * owner records its claim there in the same transaction as the stock update,
+ * and the sweeper records it as abandoned before handing it back. Whichever
+ * insert comes first wins, so a sale is written once and never also handed
+ * back.
+ */
+@Service
+public class InventoryReservationService {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryReservationService.class);
+
+    // Products with confirmed sales waiting for the reconciler
+    static final String CONFIRMED_PRODUCTS_KEY = "inventory:confirmed-products";
+    // Open claims as "claimId:productId", scored by the time they count as abandoned
+    static final String CLAIMS_KEY = "inventory:claims";
+
+    private static final long INSUFFICIENT = -1;
+    private static final long NOT_LOADED = -2;
+    private static final long NOT_FOUND = -1;
+
+    private final StringRedisTemplate redisTemplate;
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final StockReconciliationRepository stockReconciliationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final InventoryReservationConfig config;
+    private final ScheduledExecutorService executor;
+    // Set while the reconciler writes sales, whose product events must not reload the quantity
+    private final ThreadLocal<Boolean> reconciling = ThreadLocal.withInitial(() -> false);
+
+    private final RedisScript<Long> reserveScript = script("reserve", Long.class);
+    private final RedisScript<Long> confirmScript = script("confirm", Long.class);
+    private final RedisScript<Long> releaseScript = script("release", Long.class);
+    private final RedisScript<Long> claimScript = script("claim", Long.class);
+    private final RedisScript<Long> unclaimScript = script("unclaim", Long.class);
+    private final RedisScript<Long> pendingScript = script("pending", Long.class);
+    @SuppressWarnings("rawtypes")
+    private final RedisScript<List> availabilityScript = script("availability", List.class);
+
+    private final Counter reserved;
+    private final Counter rejected;
+    private final Counter confirmed;
+    private final Counter released;
+
+    public InventoryReservationService(StringRedisTemplate redisTemplate,
+            ProductRepository productRepository,
+            ProductService productService,
+            StockReconciliationRepository stockReconciliationRepository,
+            TransactionTemplate transactionTemplate,
+            InventoryReservationConfig config,
+            MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.productRepository = productRepository;
+        this.productService = productService;
+        this.stockReconciliationRepository = stockReconciliationRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.config = config;
+        this.executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("inventory-reconciler-"));
+
+        this.reserved = meterRegistry.counter("inventory.reservations", "outcome", "reserved");
+        this.rejected = meterRegistry.counter("inventory.reservations", "outcome", "insufficient");
+        this.confirmed = meterRegistry.counter("inventory.reservations", "outcome", "confirmed");
+        this.released = meterRegistry.counter("inventory.reservations", "outcome", "released");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        long intervalMillis = config.getReconcileInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::reconcileSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        long sweepMillis = config.getClaimTimeout().toMillis();
+        executor.scheduleWithFixedDelay(this::sweepSafely, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Edits made through the API (restocking, deletion) reload the quantity on next use
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (reconciling.get()) {
+            return;
+        }
+        var before = event.getPrevious();
+        var after = event.getCurrent();
+        if (before == null || after == null || !before.getQuantity().equals(after.getQuantity())) {
+            redisTemplate.delete(key(event.getProductId(), "quantity"));
+        }
+    }
+
+    public ReservationResponseDTO reserve(Long productId, int quantity) {
+        var reservationId = UUID.randomUUID().toString();
+        var now = Instant.now();
+        var expiresAt = now.plus(config.getHoldTtl());
+        var args = new String[] { reservationId, String.valueOf(quantity), String.valueOf(now.toEpochMilli()),
+                String.valueOf(expiresAt.toEpochMilli()), String.valueOf(config.getPurgeLimit()) };
+
+        long left = redisTemplate.execute(reserveScript, holdKeys(productId), (Object[]) args);
+        if (left == NOT_LOADED) {
+            loadQuantity(productId);
+            left = redisTemplate.execute(reserveScript, holdKeys(productId), (Object[]) args);
+        }
+        if (left == INSUFFICIENT) {
+            rejected.increment();
+            throw new InsufficientStock("Not enough stock to reserve " + quantity + " of product " + productId);
+        }
+        reserved.increment();
+        return ReservationResponseDTO.builder()
+                .reservationId(reservationId)
+                .productId(productId)
+                .quantity(quantity)
+                .expiresAt(expiresAt)
+                .build();
+    }
+
+    // Turns the hold into a sale; the stock is written to Postgres by the reconciler
+    public void confirm(Long productId, String reservationId) {
+        var keys = List.of(key(productId, "quantity"), key(productId, "holds"), key(productId, "held"),
+                key(productId, "reserved"), key(productId, "confirmed"));
+        long result = redisTemplate.execute(confirmScript, keys, reservationId, now(),
+                String.valueOf(config.getPurgeLimit()));
+        if (result == NOT_FOUND) {
+            throw new ReservationNotFound("Reservation not found or expired");
+        }
+        redisTemplate.opsForSet().add(CONFIRMED_PRODUCTS_KEY, String.valueOf(productId));
+        confirmed.increment();
+    }
+
+    public void release(Long productId, String reservationId) {
+        long result = redisTemplate.execute(releaseScript, holdKeys(productId), reservationId, now(),
+                String.valueOf(config.getPurgeLimit()));
+        if (result == NOT_FOUND) {
+            throw new ReservationNotFound("Reservation not found or expired");
+        }
+        released.increment();
+    }
+
+    public AvailabilityResponseDTO getAvailability(Long productId) {
+        var counts = availability(productId);
+        if (counts.get(0) == 0) {
+            loadQuantity(productId);
+            counts = availability(productId);
+        }
+        return AvailabilityResponseDTO.builder()
+                .productId(productId)
+                .quantity(counts.get(1))
+                .reserved(counts.get(2))
+                .available(counts.get(1) - counts.get(2))
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> availability(Long productId) {
+        return redisTemplate.execute(availabilityScript, holdKeys(productId), now(),
+                String.valueOf(config.getPurgeLimit()));
+    }
+
+    /**
+     * Copies the product's quantity, less sales not yet written back, unless
+     * another request just did. The pending sales are read first: a claim
+     * written back in between is then subtracted twice, which undersells
+     * until the quantity expires, rather than not at all, which would oversell.
+     */
+    private void loadQuantity(Long productId) {
+        long pending = redisTemplate.execute(pendingScript, claimKeys(productId));
+        var product = productRepository.findById(productId)
+                .orElseThrow(() -> new ProductNotFound("Product not found"));
+        redisTemplate.opsForValue().setIfAbsent(key(productId, "quantity"),
+                String.valueOf(product.getQuantity() - pending), config.getQuantityTtl());
+    }
+
+    /**
+     * Writes confirmed sales to Postgres. Products are popped off the pending
+     * set and their sales moved into a claim atomically, so with several
+     * instances reconciling each sale is written once; a sale confirmed
+     * concurrently re-adds the product and is picked up next round. The claim
+     * is listed with its expiry before it is taken, so a crash at any point
+     * leaves it to {@link #sweep}. A failed write is decided right away.
+     */
+    void reconcile() {
+        var productIds = redisTemplate.opsForSet().pop(CONFIRMED_PRODUCTS_KEY, config.getReconcileBatchSize());
+        if (productIds == null || productIds.isEmpty()) {
+            return;
+        }
+        var claimId = UUID.randomUUID().toString();
+        long abandonAt = Instant.now().plus(config.getClaimTimeout()).toEpochMilli();
+        Map<Long, Integer> sold = new LinkedHashMap<>();
+        for (var productId : productIds) {
+            var id = Long.valueOf(productId);
+            var member = claimId + ":" + id;
+            redisTemplate.opsForZSet().add(CLAIMS_KEY, member, abandonAt);
+            long claimed = redisTemplate.execute(claimScript, claimKeys(id), claimId);
+            if (claimed > 0) {
+                sold.put(id, (int) claimed);
+            } else {
+                redisTemplate.opsForZSet().remove(CLAIMS_KEY, member);
+            }
+        }
+        if (sold.isEmpty()) {
+            return;
+        }
+        try {
+            reconciling.set(true);
+            transactionTemplate.executeWithoutResult(status -> {
+                if (stockReconciliationRepository.decide(claimId, true) == 0) {
+                    throw new IllegalStateException("Claim " + claimId + " was swept before it was written");
+                }
+                productService.applyStockSold(sold);
+            });
+        } catch (RuntimeException e) {
+            try {
+                decideAbandoned(claimId, sold.keySet());
+            } catch (RuntimeException undecided) {
+                // Left to the sweeper once the claim expires
+                e.addSuppressed(undecided);
+            }
+            throw e;
+        } finally {
+            reconciling.remove();
+        }
+        settle(claimId, sold.keySet(), true);
+        log.debug("Reconciled confirmed reservations for {} products", sold.size());
+    }
+
+    /**
+     * Decides claims still open past their expiry. Their owner either wrote
+     * them and died before settling, or never will; the fencing row tells
+     * which. Deciding the same claim twice, here or on another instance, is
+     * harmless.
+     */
+    void sweep() {
+        var expired = redisTemplate.opsForZSet().rangeByScore(CLAIMS_KEY, Double.NEGATIVE_INFINITY,
+                System.currentTimeMillis(), 0, config.getReconcileBatchSize());
+        if (expired == null || expired.isEmpty()) {
+            return;
+        }
+        Map<String, List<Long>> productsByClaim = new LinkedHashMap<>();
+        for (var member : expired) {
+            int separator = member.lastIndexOf(':');
+            productsByClaim.computeIfAbsent(member.substring(0, separator), id -> new ArrayList<>())
+                    .add(Long.valueOf(member.substring(separator + 1)));
+        }
+        productsByClaim.forEach(this::decideAbandoned);
+        stockReconciliationRepository.deleteDecidedBefore(Instant.now().minus(config.getClaimRetention()));
+    }
+
+    // Records the claim as not applied unless its owner committed it first, then acts on the outcome
+    private void decideAbandoned(String claimId, Collection<Long> productIds) {
+        stockReconciliationRepository.decide(claimId, false);
+        boolean applied = stockReconciliationRepository.findById(claimId)
+                .map(StockReconciliation::isApplied)
+                .orElseThrow(() -> new IllegalStateException("Claim " + claimId + " was not recorded"));
+        if (applied) {
+            log.info("Dropping claim {} on {} products, already written to Postgres", claimId, productIds.size());
+        } else {
+            log.warn("Handing back claim {} on {} products, not written to Postgres", claimId, productIds.size());
+        }
+        settle(claimId, productIds, applied);
+    }
+
+    // Closes a decided claim: dropped if its sales are in Postgres, otherwise handed back to confirmed
+    private void settle(String claimId, Collection<Long> productIds, boolean applied) {
+        for (var productId : productIds) {
+            if (applied) {
+                redisTemplate.opsForHash().delete(key(productId, "claims"), claimId);
+            } else {
+                // Listed before the sales return, so a crash in between cannot strand them
+                redisTemplate.opsForSet().add(CONFIRMED_PRODUCTS_KEY, String.valueOf(productId));
+                redisTemplate.execute(unclaimScript, claimKeys(productId), claimId);
+            }
+            redisTemplate.opsForZSet().remove(CLAIMS_KEY, claimId + ":" + productId);
+        }
+    }
+
+    private void reconcileSafely() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.error("Failed to reconcile confirmed reservations", e);
+        }
+    }
+
+    private void sweepSafely() {
+        try {
+            sweep();
+        } catch (RuntimeException e) {
+            log.error("Failed to sweep abandoned inventory claims", e);
+        }
+    }
+
+    private static List<String> holdKeys(Long productId) {
+        return List.of(key(productId, "quantity"), key(productId, "holds"), key(productId, "held"),
+                key(productId, "reserved"));
+    }
+
+    private static List<String> claimKeys(Long productId) {
+        return List.of(key(productId, "confirmed"), key(productId, "claims"));
+    }
+
+    // The braces make every key of a product hash to the same cluster slot, as multi-key scripts require
+    private static String key(Long productId, String name) {
+        return "inventory:{" + productId + "}:" + name;
+    }
+
+    private static String now() {
+        return String.valueOf(System.currentTimeMillis());
+    }
+
+    // Prepends the shared purge_expired function to the script
+    private static <T> RedisScript<T> script(String name, Class<T> resultType) {
+        try {
+            var prelude = new ClassPathResource("scripts/inventory/purge_expired.lua");
+            var body = new ClassPathResource("scripts/inventory/" + name + ".lua");
+            var text = StreamUtils.copyToString(prelude.getInputStream(), StandardCharsets.UTF_8) + "\n"
+                    + StreamUtils.copyToString(body.getInputStream(), StandardCharsets.UTF_8);
+            return new DefaultRedisScript<>(text, resultType);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load Redis script " + name, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,221 @@
+package com.johndo.product.service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.johndo.product.cache.CacheCircuitBreaker;
+import com.johndo.product.config.ProductBatchLoaderConfig;
+import com.johndo.product.dto.Product.ProductResponseDTO;
+import com.johndo.product.exception.ProductNotFound;
+import com.johndo.product.mapper.ProductMapperInterface;
+import com.johndo.product.model.Product;
+import com.johndo.product.repository.ProductRepository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Dataloader-style batcher for product cache misses. Misses arriving within
+ * {@code window} of each other (or until {@code maxBatchSize} distinct ids are
+ * waiting) are resolved with a single {@code findAllById}, written back to the
+ * {@code products} cache in one Redis pipeline (skipped while the
+ * {@link CacheCircuitBreaker} is open), and handed to every waiting caller.
+ * Concurrent misses for the same id share one future.
+ */
+@Component
+public class ProductBatchLoader {
+
+    static final String CACHE_NAME = "products";
+
+    private static final Logger log = LoggerFactory.getLogger(ProductBatchLoader.class);
+
+    private final ProductRepository productRepository;
+    private final ProductMapperInterface productMapper;
+    private final RedisTemplate<String, Object> cacheRedisTemplate;
+    private final CacheCircuitBreaker cacheCircuitBreaker;
+    private final ProductBatchLoaderConfig config;
+    private final Duration cacheTtl;
+    private final DistributionSummary batchSizes;
+
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService dispatcher;
+
+    private final Object lock = new Object();
+    private Map<Long, CompletableFuture<ProductResponseDTO>> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    public ProductBatchLoader(ProductRepository productRepository,
+            ProductMapperInterface productMapper,
+            RedisTemplate<String, Object> cacheRedisTemplate,
+            CacheCircuitBreaker cacheCircuitBreaker,
+            ProductBatchLoaderConfig config,
+            MeterRegistry meterRegistry,
+            @Value("${spring.cache.redis.time-to-live}") Duration cacheTtl) {
+        this.productRepository = productRepository;
+        this.productMapper = productMapper;
+        this.cacheRedisTemplate = cacheRedisTemplate;
+        this.cacheCircuitBreaker = cacheCircuitBreaker;
+        this.config = config;
+        this.cacheTtl = cacheTtl;
+        this.batchSizes = DistributionSummary.builder("products.batch_loader.batch_size")
+                .description("Distinct product ids resolved per batched query")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                new CustomizableThreadFactory("product-batch-timer-"));
+        this.dispatcher = Executors.newFixedThreadPool(config.getDispatchThreads(),
+                new CustomizableThreadFactory("product-batch-loader-"));
+    }
+
+    /**
+     * Loads a product that was not found in the cache, blocking until its
+     * batch completes. Throws {@link ProductNotFound} for unknown ids.
+     */
+    public ProductResponseDTO get(Long id) {
+        if (!config.isEnabled()) {
+            var product = productRepository.findById(id)
+                    .orElseThrow(() -> new ProductNotFound("Product not found"));
+            var response = productMapper.toResponseDto(product);
+            writeToCache(Map.of(id, response));
+            return response;
+        }
+        try {
+            return load(id).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public CompletableFuture<ProductResponseDTO> load(Long id) {
+        Map<Long, CompletableFuture<ProductResponseDTO>> fullBatch = null;
+        CompletableFuture<ProductResponseDTO> future;
+        synchronized (lock) {
+            future = pending.get(id);
+            if (future != null) {
+                return future;
+            }
+            future = new CompletableFuture<>();
+            pending.put(id, future);
+            if (pending.size() >= config.getMaxBatchSize()) {
+                fullBatch = drain();
+            } else if (pending.size() == 1) {
+                scheduledFlush = scheduler.schedule(this::flush, config.getWindow().toNanos(),
+                        TimeUnit.NANOSECONDS);
+            }
+        }
+        if (fullBatch != null) {
+            submit(fullBatch);
+        }
+        return future;
+    }
+
+    private void flush() {
+        Map<Long, CompletableFuture<ProductResponseDTO>> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return; // already dispatched because it filled up
+            }
+            batch = drain();
+        }
+        submit(batch);
+    }
+
+    // Caller must hold the lock
+    private Map<Long, CompletableFuture<ProductResponseDTO>> drain() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        var batch = pending;
+        pending = new LinkedHashMap<>();
+        return batch;
+    }
+
+    private void submit(Map<Long, CompletableFuture<ProductResponseDTO>> batch) {
+        try {
+            dispatcher.execute(() -> dispatch(batch));
+        } catch (RuntimeException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private void dispatch(Map<Long, CompletableFuture<ProductResponseDTO>> batch) {
+        batchSizes.record(batch.size());
+        Map<Long, ProductResponseDTO> loaded = new HashMap<>();
+        try {
+            for (Product product : productRepository.findAllById(batch.keySet())) {
+                loaded.put(product.getId(), productMapper.toResponseDto(product));
+            }
+        } catch (RuntimeException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+            return;
+        }
+
+        writeToCache(loaded);
+
+        batch.forEach((id, future) -> {
+            var response = loaded.get(id);
+            if (response != null) {
+                future.complete(response);
+            } else {
+                future.completeExceptionally(new ProductNotFound("Product not found"));
+            }
+        });
+    }
+
+    // Same key layout as RedisCacheManager ("products::<id>") so @Cacheable readers see these entries
+    private void writeToCache(Map<Long, ProductResponseDTO> products) {
+        if (products.isEmpty() || !cacheCircuitBreaker.allowRequest()) {
+            return;
+        }
+        try {
+            cacheRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(@NonNull RedisOperations operations) throws DataAccessException {
+                    products.forEach((id, product) -> operations.opsForValue()
+                            .set(CACHE_NAME + "::" + id, product, cacheTtl));
+                    return null;
+                }
+            });
+            cacheCircuitBreaker.recordSuccess();
+        } catch (RuntimeException e) {
+            if (e instanceof DataAccessException redisError) {
+                cacheCircuitBreaker.recordFailure(redisError);
+            }
+            // The database answer is still valid; the next miss simply retries the write
+            log.warn("Failed to cache {} batch-loaded products: {}", products.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        dispatcher.shutdown();
+    }
+
+}
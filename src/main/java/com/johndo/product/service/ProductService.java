@@ -1,158 +1,393 @@
 package com.johndo.product.service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.cache.CacheManager;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.CachePut;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.cache.RedisCache;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.johndo.product.cache.CacheWriteBehind;
+import com.johndo.product.cache.Invalidation;
+import com.johndo.product.cache.InvalidationBus;
+import com.johndo.product.cache.ListingGeneration;
+import com.johndo.product.cache.ResilientCache;
+import com.johndo.product.catalog.CategoryTreeCache;
+import com.johndo.product.catalog.ProductCatalog;
+import com.johndo.product.catalog.ProductIdFilter;
+import com.johndo.product.catalog.ProductSuggester;
 import com.johndo.product.config.PaginationConfig;
+import com.johndo.product.config.ProductSearchConfig;
+import com.johndo.product.config.ProductSuggestConfig;
+import com.johndo.product.dto.CursorPageWrapper;
 import com.johndo.product.dto.PageWrapper;
+import com.johndo.product.dto.Product.ProductFieldSet;
+import com.johndo.product.dto.Product.ProductQuery;
 import com.johndo.product.dto.Product.ProductRequestDTO;
 import com.johndo.product.dto.Product.ProductResponseDTO;
+import com.johndo.product.dto.Product.ProductSearchHitDTO;
+import com.johndo.product.dto.Product.ProductSort;
+import com.johndo.product.dto.Product.ProductSuggestionDTO;
+import com.johndo.product.event.ProductChangedEvent;
+import com.johndo.product.exception.CategoryNotFound;
 import com.johndo.product.exception.ProductNotFound;
 import com.johndo.product.mapper.ProductMapperInterface;
 import com.johndo.product.repository.ProductRepository;
+import com.johndo.product.repository.ProductSpecifications;
+import com.johndo.product.search.SearchIndex;
 
 @Service
 public class ProductService {
+    // Keyset pages of GET /categories/{id}/products, keyed "<categoryId>:<cursor>:size:<size>"
+    static final String CATEGORY_PRODUCTS_CACHE = "categoryProducts";
+    // Ids looked up but not found, kept for products.id-filter.negative-cache-ttl
+    static final String MISSING_PRODUCTS_CACHE = "missingProducts";
+
     private final ProductRepository productRepository;
     private final ProductMapperInterface productMapper;
     private final PaginationConfig paginationConfig;
     private final CacheManager cacheManager;
+    private final ProductBatchLoader productBatchLoader;
+    private final ProductCatalog productCatalog;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CategoryTreeCache categoryTreeCache;
+    private final CacheWriteBehind cacheWriteBehind;
+    private final InvalidationBus invalidationBus;
+    private final ListingGeneration listingGeneration;
+    private final ProductIdFilter productIdFilter;
+    private final ProductSuggester productSuggester;
+    private final ProductSuggestConfig productSuggestConfig;
+    private final SearchIndex searchIndex;
+    private final ProductSearchConfig productSearchConfig;
 
     public ProductService(ProductRepository productRepository,
             ProductMapperInterface productMapper,
             PaginationConfig paginationConfig,
-            CacheManager cacheManager) {
+            CacheManager cacheManager,
+            ProductBatchLoader productBatchLoader,
+            ProductCatalog productCatalog,
+            ApplicationEventPublisher eventPublisher,
+            CategoryTreeCache categoryTreeCache,
+            CacheWriteBehind cacheWriteBehind,
+            InvalidationBus invalidationBus,
+            ListingGeneration listingGeneration,
+            ProductIdFilter productIdFilter,
+            ProductSuggester productSuggester,
+            ProductSuggestConfig productSuggestConfig,
+            SearchIndex searchIndex,
+            ProductSearchConfig productSearchConfig) {
+        this.searchIndex = searchIndex;
+        this.productSearchConfig = productSearchConfig;
+        this.productIdFilter = productIdFilter;
+        this.productSuggester = productSuggester;
+        this.productSuggestConfig = productSuggestConfig;
+        this.invalidationBus = invalidationBus;
+        this.listingGeneration = listingGeneration;
+        this.categoryTreeCache = categoryTreeCache;
+        this.cacheWriteBehind = cacheWriteBehind;
         this.cacheManager = cacheManager;
+        this.productBatchLoader = productBatchLoader;
+        this.productCatalog = productCatalog;
+        this.eventPublisher = eventPublisher;
         this.paginationConfig = paginationConfig;
         this.productRepository = productRepository;
         this.productMapper = productMapper;
 
     }
 
-    @Cacheable(value = "products", key = "'page:' + #page + ':size:' + #size", unless = "#result == null or #result.content.isEmpty()")
     public PageWrapper<ProductResponseDTO> getAllProducts(int page, int size) {
+        return getProducts(ProductQuery.page(page, size));
+    }
 
-        size = size <= 0 || size > paginationConfig.getDefaultPageSize() ? paginationConfig.getDefaultPageSize() : size;
+    /**
+     * Products matching the query's filters, in its order. Pages are cached
+     * under the canonical query and the listing generation, which every write
+     * bumps, so equivalent queries share an entry and a write retires them
+     * all. The plain listing keeps its page keys and bypasses Redis entirely
+     * while the in-process catalog can answer.
+     */
+    public PageWrapper<ProductResponseDTO> getProducts(ProductQuery query) {
+        var pageable = pageRequest(query.getPage(), query.getSize(), query.getSort());
+        query = query.withPage(pageable.getPageNumber(), pageable.getPageSize());
+        if (!query.isFiltered() && productCatalog.canServeListings()) {
+            return productCatalog.page(pageable);
+        }
+        var cache = cacheManager.getCache("products");
+        var cacheKey = query.isFiltered() ? listingGeneration.queryKey(query.cacheKey())
+                : listingGeneration.pageKey(query.getPage(), query.getSize());
+        if (cache != null) {
+            @SuppressWarnings("unchecked")
+            PageWrapper<ProductResponseDTO> cachedPage = cache.get(cacheKey, PageWrapper.class);
+            if (cachedPage != null) {
+                return cachedPage;
+            }
+        }
 
-        page = page < 0 ? paginationConfig.getDefaultPage() : page;
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "id"));
-        Page<ProductResponseDTO> productPage = productRepository.findAll(pageable)
+        Page<ProductResponseDTO> productPage = productRepository
+                .findAll(ProductSpecifications.matching(query), pageable)
                 .map(productMapper::toResponseDto);
-        return new PageWrapper<>(productPage);
+        var result = new PageWrapper<>(productPage);
+        if (cache != null && !result.getContent().isEmpty()) {
+            cache.put(cacheKey, result);
+        }
+        return result;
+    }
+
+    /**
+     * Sparse variant of {@link #getAllProducts(int, int)}. A cached full page is
+     * trimmed in memory; on a miss only the selected columns are queried and
+     * the result is not cached, so field subsets never add cache entries.
+     */
+    public PageWrapper<Map<String, Object>> getAllProducts(int page, int size, ProductFieldSet fields) {
+        var pageable = pageRequest(page, size);
+        if (productCatalog.canServeListings()) {
+            return productCatalog.page(pageable).map(fields::apply);
+        }
+        var cache = cacheManager.getCache("products");
+        if (cache != null) {
+            @SuppressWarnings("unchecked")
+            PageWrapper<ProductResponseDTO> cachedPage = cache.get(
+                    listingGeneration.pageKey(pageable.getPageNumber(), pageable.getPageSize()), PageWrapper.class);
+            if (cachedPage != null) {
+                return cachedPage.map(fields::apply);
+            }
+        }
+        return new PageWrapper<>(productRepository.findAllProjected(fields, pageable));
+    }
+
+    /**
+     * Products of one category, newest first. {@code after} is the
+     * {@code nextCursor} of the previous page (null for the first page).
+     */
+    public CursorPageWrapper<ProductResponseDTO> getProductsByCategory(Integer categoryId, Long after, int size) {
+        if (categoryTreeCache.current().find(categoryId) == null) {
+            throw new CategoryNotFound("Category not found");
+        }
+        size = size <= 0 ? paginationConfig.getDefaultPageSize() : Math.min(size, paginationConfig.getMaxPageSize());
+        var cache = cacheManager.getCache(CATEGORY_PRODUCTS_CACHE);
+        var cacheKey = categoryId + ":" + (after == null ? "first" : after) + ":size:" + size;
+        if (cache != null) {
+            @SuppressWarnings("unchecked")
+            CursorPageWrapper<ProductResponseDTO> cachedPage = cache.get(cacheKey, CursorPageWrapper.class);
+            if (cachedPage != null) {
+                return cachedPage;
+            }
+        }
+
+        var slice = productRepository.findByCategoryIdAndIdLessThanOrderByIdDesc(categoryId,
+                after == null ? Long.MAX_VALUE : after, PageRequest.of(0, size));
+        var content = slice.getContent().stream().map(productMapper::toResponseDto).toList();
+        var nextCursor = slice.hasNext() ? content.get(content.size() - 1).getId() : null;
+        var result = new CursorPageWrapper<>(content, size, nextCursor);
+        if (cache != null) {
+            cache.put(cacheKey, result);
+        }
+        return result;
+    }
+
+    // Typeahead, answered from the in-process name index without touching Redis or Postgres
+    public List<ProductSuggestionDTO> suggestProducts(String prefix, Integer limit) {
+        int size = limit == null || limit <= 0 ? productSuggestConfig.getDefaultLimit()
+                : Math.min(limit, productSuggestConfig.getMaxLimit());
+        return productSuggester.suggest(prefix, size);
+    }
+
+    /**
+     * Keyword search over names and descriptions, ranked by the in-process
+     * index. With a category, products anywhere below it match too. Hits are
+     * hydrated through the regular product lookup, so a product deleted since
+     * it was indexed is left out.
+     */
+    public List<ProductSearchHitDTO> searchProducts(String query, Integer categoryId, Integer limit) {
+        int size = limit == null || limit <= 0 ? productSearchConfig.getDefaultLimit()
+                : Math.min(limit, productSearchConfig.getMaxLimit());
+        List<Integer> categoryIds = null;
+        if (categoryId != null) {
+            var tree = categoryTreeCache.current();
+            if (tree.find(categoryId) == null) {
+                throw new CategoryNotFound("Category not found");
+            }
+            categoryIds = tree.descendantIds(categoryId);
+        }
+        List<ProductSearchHitDTO> result = new ArrayList<>();
+        for (var hit : searchIndex.search(query, categoryIds, size)) {
+            try {
+                result.add(new ProductSearchHitDTO(getProductById(hit.productId()), hit.score()));
+            } catch (ProductNotFound e) {
+                // Deleted by another instance; the index drops it once the change feed catches up
+            }
+        }
+        return result;
+    }
+
+    public Map<String, Object> getProductById(Long id, ProductFieldSet fields) {
+        // Single rows are cheap to load in full, and doing so keeps the per-item cache entry complete
+        return fields.apply(getProductById(id));
     }
 
-    @Cacheable(value = "products", key = "#id", unless = "#result == null")
     public ProductResponseDTO getProductById(Long id) {
-        var product = productRepository.findById(id)
-                .orElseThrow(() -> new ProductNotFound("Product not found"));
-        return productMapper.toResponseDto(product);
+        var catalogProduct = productCatalog.find(id);
+        if (catalogProduct != null) {
+            return catalogProduct;
+        }
+        // Ids that never existed stop here instead of reaching Redis and Postgres
+        if (!productIdFilter.mightExist(id)) {
+            throw new ProductNotFound("Product not found");
+        }
+        var cache = cacheManager.getCache("products");
+        var cachedProduct = cache != null ? cache.get(id, ProductResponseDTO.class) : null;
+        if (cachedProduct != null) {
+            return cachedProduct;
+        }
+        // Deleted products and the filter's false positives are remembered as misses for a while
+        var missing = cacheManager.getCache(MISSING_PRODUCTS_CACHE);
+        if (missing != null && missing.get(id) != null) {
+            throw new ProductNotFound("Product not found");
+        }
+        // Concurrent misses are merged into one query and cached in one pipeline by the loader
+        try {
+            return productBatchLoader.get(id);
+        } catch (ProductNotFound e) {
+            if (missing != null) {
+                missing.put(id, Boolean.TRUE);
+            }
+            throw e;
+        }
     }
 
-    @CachePut(value = "products", key = "#result.id") // Cache the newly created product
+    // Each write commits together with its change feed entry. Cache maintenance is queued on the
+    // write-behind executor after commit instead of holding up the response on Redis
+    @Transactional
     public ProductResponseDTO createProduct(ProductRequestDTO productRequestDTO) {
         var product = productMapper.toEntity(productRequestDTO);
         var savedProduct = productRepository.save(product);
-        // Evict the first page cache to ensure it reflects the new product
-        evictFirstPageCache();
-        return productMapper.toResponseDto(savedProduct);
+        var response = productMapper.toResponseDto(savedProduct);
+        productIdFilter.add(response.getId());
+        cacheProduct(response);
+        cacheWriteBehind.afterCommit(MISSING_PRODUCTS_CACHE + "::" + response.getId(), () -> {
+            var missing = cacheManager.getCache(MISSING_PRODUCTS_CACHE);
+            if (missing != null) {
+                missing.evict(response.getId());
+            }
+        });
+        evictListingPages();
+        evictCategoryPages(response.getCategoryId());
+        eventPublisher.publishEvent(ProductChangedEvent.created(response));
+        invalidationBus.publish(Invalidation.key(ProductCatalog.INVALIDATION_CACHE, response.getId()));
+        return response;
     }
 
-    @CachePut(value = "products", key = "#id")
+    @Transactional
     public ProductResponseDTO updateProduct(Long id, ProductRequestDTO productRequestDTO) {
         var existingProduct = productRepository.findById(id)
                 .orElseThrow(() -> new ProductNotFound("Product not found"));
+        var previous = productMapper.toResponseDto(existingProduct);
         var updatedProduct = productMapper.toEntity(productRequestDTO);
         updatedProduct.setId(existingProduct.getId());
         var savedProduct = productRepository.save(updatedProduct);
-        // Evict the page where the updated product is located
-        evictUpdatedProductPageCache(id);
-        return productMapper.toResponseDto(savedProduct);
+        var response = productMapper.toResponseDto(savedProduct);
+        productUpdated(previous, response);
+        return response;
     }
 
-    @CacheEvict(value = "products", key = "#id")
+    /**
+     * Takes stock sold through reservations off {@code products.quantity}, in
+     * one transaction. The rows are locked when they are read, so no
+     * concurrent update can commit between the read and the write and be
+     * overwritten by it. Products deleted in the meantime are skipped.
+     */
+    @Transactional
+    public void applyStockSold(Map<Long, Integer> soldByProduct) {
+        for (var product : productRepository.findAllByIdForUpdate(soldByProduct.keySet())) {
+            var previous = productMapper.toResponseDto(product);
+            product.setQuantity(product.getQuantity() - soldByProduct.get(product.getId()));
+            productUpdated(previous, productMapper.toResponseDto(product));
+        }
+    }
+
+    private void productUpdated(ProductResponseDTO previous, ProductResponseDTO response) {
+        var id = response.getId();
+        cacheProduct(response);
+        evictListingPages();
+        // A move drops the product from the old category's pages and adds it to the new one's
+        evictCategoryPages(previous.getCategoryId(), response.getCategoryId());
+        eventPublisher.publishEvent(ProductChangedEvent.updated(previous, response));
+        invalidationBus.publish(Invalidation.key(ProductCatalog.INVALIDATION_CACHE, id));
+    }
+
+    @Transactional
     public void deleteProduct(Long id) {
         var product = productRepository.findById(id)
                 .orElseThrow(() -> new ProductNotFound("Product not found"));
+        var previous = productMapper.toResponseDto(product);
         productRepository.delete(product);
+        cacheWriteBehind.afterCommit("products::" + id, () -> {
+            var cache = cacheManager.getCache("products");
+            if (cache != null) {
+                cache.evict(id);
+            }
+        });
+        evictListingPages();
+        evictCategoryPages(previous.getCategoryId());
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(previous));
+        invalidationBus.publish(Invalidation.key(ProductCatalog.INVALIDATION_CACHE, id));
     }
 
-    private void evictFirstPageCache() {
-        String cacheKey = paginationConfig.toString();
-        var cache = cacheManager.getCache("products");
-        if (cache != null) {
-            cache.evict(cacheKey);
-        }
+    private void cacheProduct(ProductResponseDTO product) {
+        cacheWriteBehind.afterCommit("products::" + product.getId(), () -> {
+            var cache = cacheManager.getCache("products");
+            if (cache != null) {
+                cache.put(product.getId(), product);
+            }
+        });
     }
 
-    private void evictUpdatedProductPageCache(Long productId) {
-        var cache = cacheManager.getCache("products");
-        if (cache == null) {
-            return; // No cache available
-        }
-
-        int pageSize = paginationConfig.getDefaultPageSize();
-        int low = 0;
-        int high = (int) Math.ceil((double) productRepository.count() / pageSize) - 1; // Total number of pages - 1 for
-                                                                                       // zero-based index(page start
-                                                                                       // from 0)
-
-        // Perform binary search on cached pages
-
-        while (low <= high) {
-            int mid = low + (high - low) / 2;
-            String cacheKey = "page:" + mid + ":size:" + pageSize;
-            var cachedPageWrapper = cache.get(cacheKey, PageWrapper.class); // Retrieve the cached PageWrapper
+    // A write can shift products across every page, so all of them are dropped at once. Queued
+    // under one key, a burst of writes costs a single INCR
+    private void evictListingPages() {
+        cacheWriteBehind.afterCommit("products::listing-generation", listingGeneration::bump);
+    }
 
-            if (cachedPageWrapper == null) {
-                // If the page is not cached, adjust the search range
-                high = mid - 1;
-                if (low > high) {
-                    break; // No more pages to check
+    // Clears every cached page of the given categories and nothing else
+    private void evictCategoryPages(Integer... categoryIds) {
+        for (var categoryId : new LinkedHashSet<>(Arrays.asList(categoryIds))) {
+            cacheWriteBehind.afterCommit(CATEGORY_PRODUCTS_CACHE + "::" + categoryId + ":*", () -> {
+                var cache = cacheManager.getCache(CATEGORY_PRODUCTS_CACHE);
+                if (cache instanceof ResilientCache resilientCache) {
+                    resilientCache.evictFamily(categoryId + ":");
+                } else if (cache instanceof RedisCache redisCache) {
+                    redisCache.clear(categoryId + ":*");
+                } else if (cache != null) {
+                    cache.clear();
                 }
-                continue;
-            }
-
-            @SuppressWarnings("unchecked")
-            List<ProductResponseDTO> productList = (List<ProductResponseDTO>) cachedPageWrapper.getContent();
-
-            // Check if the product ID exists in the cached page
-            boolean productFound = productList.stream()
-                    .anyMatch(product -> product.getId().equals(productId));
+            });
+        }
+    }
 
-            if (productFound) {
-                // Evict the cache for the identified page
-                System.out.println("Evicting cache for page: " + mid);
-                cache.evict(cacheKey);
-                return;
-            }
+    private Pageable pageRequest(int page, int size) {
+        return pageRequest(page, size, ProductSort.NEWEST);
+    }
 
-            // Adjust the binary search range based on the product ID
-            Long maxIdInPage = productList.get(0).getId(); // First product in descending order
-            Long minIdInPage = productList.get(productList.size() - 1).getId(); // Last product in descending order
-
-            if (productId > maxIdInPage) {
-                high = mid - 1; // Search in the lower half for the List of products is descending order
-            } else if (productId < minIdInPage) {
-                low = mid + 1; // Search in the upper half
-            } else {
-                // Product ID is not in this page, but it should have been; stop searching
-                break;
-            }
-        }
+    private Pageable pageRequest(int page, int size, ProductSort sort) {
+        size = size <= 0 ? paginationConfig.getDefaultPageSize() : Math.min(size, paginationConfig.getMaxPageSize());
 
+        page = page < 0 ? paginationConfig.getDefaultPage() : page;
+        return PageRequest.of(page, size, sort.getSort());
     }
 
     public void deleteAllProducts() {
         productRepository.deleteAll();
+        evictListingPages();
+        // Rebuilds this instance's catalog, suggester, id filter and search index as well as the others'
+        invalidationBus.publish(Invalidation.all(ProductCatalog.INVALIDATION_CACHE));
 
     }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+-- Schema as previously generated by Hibernate ddl-auto=update.
+-- Existing databases are baselined at this version and skip it.
+
+CREATE TABLE categories (
+    id        integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name      varchar(255) NOT NULL,
+    parent_id integer REFERENCES categories (id)
+);
+
+CREATE TABLE products (
+    id          bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name        varchar(255)   NOT NULL,
+    description varchar(255)   NOT NULL,
+    unit_price  numeric(38, 2) NOT NULL,
+    quantity    integer        NOT NULL,
+    category_id integer        NOT NULL REFERENCES categories (id)
+);
@@ -0,0 +1,17 @@
+-- Indexes derived from the repository queries. IF NOT EXISTS keeps this safe on
+-- databases where someone already added them by hand.
+
+-- Products of a category, and the foreign key check when a category is deleted
+CREATE INDEX IF NOT EXISTS idx_products_category_id ON products (category_id);
+
+-- Children of a category when walking or deleting the tree
+CREATE INDEX IF NOT EXISTS idx_categories_parent_id ON categories (parent_id);
+
+-- Name prefix lookups (name LIKE 'abc%'); text_pattern_ops makes LIKE usable under any collation
+CREATE INDEX IF NOT EXISTS idx_products_name ON products (name text_pattern_ops);
+
+-- findPositionById (COUNT ... WHERE id < ?), findById and the id DESC listing are
+-- served by the primary key index, so no extra index is needed for them.
+
+-- ProductRequestDTO accepts descriptions up to 500 characters
+ALTER TABLE products ALTER COLUMN description TYPE varchar(500);
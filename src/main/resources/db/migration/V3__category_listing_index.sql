@@ -0,0 +1,9 @@
+-- GET /categories/{id}/products pages with
+--   WHERE category_id = ? AND id < ? ORDER BY id DESC LIMIT ?
+-- The composite index answers it as one ordered range scan, without a sort or
+-- a filter on the primary key.
+CREATE INDEX IF NOT EXISTS idx_products_category_id_id ON products (category_id, id DESC);
+
+-- Its leading column serves every lookup the single-column index did
+-- (including the foreign key check when a category is deleted)
+DROP INDEX IF EXISTS idx_products_category_id;
@@ -0,0 +1,12 @@
+-- Change feed behind GET /products/changes: one row per product write,
+-- inserted in the same transaction as the write. Writers serialize on an
+-- advisory lock before inserting, so seq values become visible in order and
+-- a reader that has seen seq N never later finds a committed row below N.
+CREATE TABLE product_changes (
+    seq         bigserial PRIMARY KEY,
+    product_id  bigint      NOT NULL,
+    change_type varchar(16) NOT NULL,
+    -- The product after the change, null for deletions
+    product     jsonb,
+    changed_at  timestamptz NOT NULL DEFAULT now()
+);
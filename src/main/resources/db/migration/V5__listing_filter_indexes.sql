@@ -0,0 +1,17 @@
+-- GET /products filters and orders (ProductSort). Each order ties on id in the
+-- same direction, so one index serves a sort and its range filters in both
+-- directions without a separate Sort step.
+
+-- sort=price_asc|price_desc, optionally with min_price/max_price
+CREATE INDEX IF NOT EXISTS idx_products_unit_price_id ON products (unit_price, id);
+
+-- category_id with a price order or price range; category_id with the default
+-- newest-first order is already served by idx_products_category_id_id
+CREATE INDEX IF NOT EXISTS idx_products_category_id_unit_price_id ON products (category_id, unit_price, id);
+
+-- sort=name_asc|name_desc. idx_products_name (text_pattern_ops) serves name_prefix
+-- but cannot return rows in the collation's order, so sorting needs its own index
+CREATE INDEX IF NOT EXISTS idx_products_name_id ON products (name, id);
+
+-- in_stock (quantity > 0) is left to a filter on whichever index drives the
+-- order: most products are in stock, so an index on quantity would not be selective.
@@ -0,0 +1,14 @@
+-- Fencing for the inventory reconciler: one row per claim on confirmed
+-- sales. The reconciler inserts its claim with applied = true in the same
+-- transaction as the stock update; a claim found abandoned is inserted with
+-- applied = false before it is handed back. Whichever insert wins decides
+-- the claim, so a sale is written to products.quantity at most once and an
+-- abandoned one is never both written and handed back.
+CREATE TABLE stock_reconciliations (
+    claim_id   varchar(36) PRIMARY KEY,
+    applied    boolean     NOT NULL,
+    created_at timestamptz NOT NULL DEFAULT now()
+);
+
+-- Pruning of decided claims
+CREATE INDEX idx_stock_reconciliations_created_at ON stock_reconciliations (created_at);
@@ -0,0 +1,6 @@
+-- KEYS: quantity, holds, held, reserved
+-- ARGV: now ms, purge limit
+-- Returns {loaded (1/0), quantity, reserved}.
+purge_expired(ARGV[1], ARGV[2])
+local quantity = redis.call('GET', KEYS[1])
+return { quantity and 1 or 0, tonumber(quantity or '0'), tonumber(redis.call('GET', KEYS[4]) or '0') }
@@ -0,0 +1,11 @@
+-- KEYS: confirmed, claims
+-- ARGV: claim id
+-- Moves the product's confirmed sales into the claims hash under the
+-- reconciler's claim id, so no other instance can write the same sales to
+-- Postgres. Returns the amount.
+local confirmed = tonumber(redis.call('GET', KEYS[1]) or '0')
+if confirmed > 0 then
+    redis.call('DECRBY', KEYS[1], confirmed)
+    redis.call('HINCRBY', KEYS[2], ARGV[1], confirmed)
+end
+return confirmed
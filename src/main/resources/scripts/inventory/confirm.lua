@@ -0,0 +1,18 @@
+-- KEYS: quantity, holds, held, reserved, confirmed
+-- ARGV: reservation id, now ms, purge limit
+-- Turns the hold into a sale: the quantity drops right away and the amount
+-- is queued in confirmed for the reconciler. Returns the quantity, or -1 if
+-- the hold does not exist (anymore).
+purge_expired(ARGV[2], ARGV[3])
+local held = redis.call('HGET', KEYS[3], ARGV[1])
+if not held then
+    return -1
+end
+redis.call('HDEL', KEYS[3], ARGV[1])
+redis.call('ZREM', KEYS[2], ARGV[1])
+redis.call('DECRBY', KEYS[4], held)
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    redis.call('DECRBY', KEYS[1], held)
+end
+redis.call('INCRBY', KEYS[5], held)
+return tonumber(held)
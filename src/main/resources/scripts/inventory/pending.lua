@@ -0,0 +1,8 @@
+-- KEYS: confirmed, claims
+-- Returns the sales not yet written back to Postgres: confirmed plus every
+-- open claim, read in one step so a sale moving between them is counted once.
+local pending = tonumber(redis.call('GET', KEYS[1]) or '0')
+for _, claimed in ipairs(redis.call('HVALS', KEYS[2])) do
+    pending = pending + tonumber(claimed)
+end
+return pending
@@ -0,0 +1,14 @@
+-- Shared prelude: drops holds whose TTL passed (bounded per call) from
+-- KEYS[2] holds (zset reservation -> expiry ms), KEYS[3] held (hash
+-- reservation -> quantity) and KEYS[4] reserved (sum of active holds).
+local function purge_expired(now, limit)
+    local expired = redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', now, 'LIMIT', 0, limit)
+    for _, reservation in ipairs(expired) do
+        local held = redis.call('HGET', KEYS[3], reservation)
+        if held then
+            redis.call('DECRBY', KEYS[4], held)
+            redis.call('HDEL', KEYS[3], reservation)
+        end
+        redis.call('ZREM', KEYS[2], reservation)
+    end
+end
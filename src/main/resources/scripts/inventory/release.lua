@@ -0,0 +1,12 @@
+-- KEYS: quantity, holds, held, reserved
+-- ARGV: reservation id, now ms, purge limit
+-- Returns the released quantity, or -1 if the hold does not exist (anymore).
+purge_expired(ARGV[2], ARGV[3])
+local held = redis.call('HGET', KEYS[3], ARGV[1])
+if not held then
+    return -1
+end
+redis.call('HDEL', KEYS[3], ARGV[1])
+redis.call('ZREM', KEYS[2], ARGV[1])
+redis.call('DECRBY', KEYS[4], held)
+return tonumber(held)
@@ -0,0 +1,18 @@
+-- KEYS: quantity, holds, held, reserved
+-- ARGV: reservation id, quantity, now ms, expires at ms, purge limit
+-- Returns the stock left after the hold, -1 if there is not enough, -2 if
+-- the quantity is not loaded yet.
+purge_expired(ARGV[3], ARGV[5])
+local quantity = redis.call('GET', KEYS[1])
+if not quantity then
+    return -2
+end
+local wanted = tonumber(ARGV[2])
+local available = tonumber(quantity) - tonumber(redis.call('GET', KEYS[4]) or '0')
+if wanted > available then
+    return -1
+end
+redis.call('INCRBY', KEYS[4], wanted)
+redis.call('HSET', KEYS[3], ARGV[1], wanted)
+redis.call('ZADD', KEYS[2], ARGV[4], ARGV[1])
+return available - wanted
@@ -0,0 +1,12 @@
+-- KEYS: confirmed, claims
+-- ARGV: claim id
+-- Hands a claim whose sales were not written to Postgres back to the
+-- confirmed sales. Returns the amount, 0 if the claim is already gone, so
+-- handing the same claim back twice is harmless.
+local claimed = redis.call('HGET', KEYS[2], ARGV[1])
+if not claimed then
+    return 0
+end
+redis.call('HDEL', KEYS[2], ARGV[1])
+redis.call('INCRBY', KEYS[1], claimed)
+return tonumber(claimed)
@@ -0,0 +1,42 @@
+package com.johndo.product;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.Map;
+
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Points the on-disk search index and catalog snapshots of every test
+ * context at a fresh temporary directory, removed when the context closes.
+ * Files left by a run against another database must not be picked up by
+ * this one. Registered in {@code META-INF/spring.factories}.
+ */
+public class TemporaryDirectoriesInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    @Override
+    public void initialize(ConfigurableApplicationContext context) {
+        try {
+            var directory = Files.createTempDirectory("product-test-");
+            // Covers contexts that fail to start and are never closed; nothing has been written to it then
+            directory.toFile().deleteOnExit();
+            context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("temporaryDirectories",
+                    Map.of("products.search.directory", directory.resolve("search-index").toString(),
+                            "products.catalog.snapshot-directory", directory.resolve("catalog-snapshot").toString())));
+            context.addApplicationListener((ApplicationListener<ContextClosedEvent>) event -> {
+                if (event.getApplicationContext() == context) {
+                    FileSystemUtils.deleteRecursively(directory.toFile());
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
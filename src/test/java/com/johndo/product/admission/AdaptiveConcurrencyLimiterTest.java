@@ -0,0 +1,56 @@
+package com.johndo.product.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long BASELINE_RTT = 5_000_000L; // 5 ms
+
+    @Test
+    public void testWritesAreShedBeforeCachedReads() {
+        var limiter = new AdaptiveConcurrencyLimiter(10, 2, 100, 2.0, 0.2, 0.9);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(0.5));
+        }
+        // writes may only use half of the limit, cached reads the whole of it
+        assertFalse(limiter.tryAcquire(0.5));
+        assertTrue(limiter.tryAcquire(1.0));
+        assertEquals(6, limiter.getInFlight());
+    }
+
+    @Test
+    public void testLimitShrinksWhenLatencyDegrades() {
+        var limiter = new AdaptiveConcurrencyLimiter(50, 2, 100, 2.0, 0.2, 0.9);
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire(1.0);
+            limiter.onSample(BASELINE_RTT);
+        }
+        int healthyLimit = limiter.getLimit();
+
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire(1.0);
+            limiter.onSample(BASELINE_RTT * 20);
+        }
+
+        assertTrue(limiter.getLimit() < healthyLimit);
+    }
+
+    @Test
+    public void testDroppedRequestsBackOffToMinLimit() {
+        var limiter = new AdaptiveConcurrencyLimiter(20, 4, 100, 2.0, 0.2, 0.5);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire(1.0);
+            limiter.onDropped();
+        }
+
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+}
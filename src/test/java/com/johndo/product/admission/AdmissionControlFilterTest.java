@@ -0,0 +1,126 @@
+package com.johndo.product.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.johndo.product.config.AdmissionControlConfig;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+
+public class AdmissionControlFilterTest {
+
+    private AdmissionControlConfig config;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        config = new AdmissionControlConfig();
+        config.setRetryAfterSeconds(3);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void testClassifiesByMethodAndPath() {
+        assertEquals(RequestPriority.CACHED_READ,
+                AdmissionControlFilter.classify(new MockHttpServletRequest("GET", "/api/v1/products/42")));
+        assertEquals(RequestPriority.CACHED_READ,
+                AdmissionControlFilter.classify(new MockHttpServletRequest("GET", "/api/v1/categories/7")));
+        assertEquals(RequestPriority.LISTING,
+                AdmissionControlFilter.classify(new MockHttpServletRequest("GET", "/api/v1/products")));
+        assertEquals(RequestPriority.LISTING,
+                AdmissionControlFilter.classify(new MockHttpServletRequest("GET", "/api/v1/products/search")));
+        assertEquals(RequestPriority.WRITE,
+                AdmissionControlFilter.classify(new MockHttpServletRequest("PUT", "/api/v1/products/42")));
+        assertEquals(RequestPriority.WRITE,
+                AdmissionControlFilter.classify(new MockHttpServletRequest("POST", "/api/v1/products")));
+    }
+
+    @Test
+    public void testClientOverItsRateGets429() throws Exception {
+        enableRateLimit(1);
+        var filter = new AdmissionControlFilter(config, meterRegistry);
+
+        assertEquals(200, send(filter, "a").getStatus());
+        var rejected = send(filter, "a");
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("3", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        // Other clients have their own bucket
+        assertEquals(200, send(filter, "b").getStatus());
+    }
+
+    @Test
+    public void testLeastRecentlySeenClientIsEvicted() throws Exception {
+        enableRateLimit(2);
+        var filter = new AdmissionControlFilter(config, meterRegistry);
+
+        send(filter, "a");
+        send(filter, "b");
+        assertEquals(429, send(filter, "a").getStatus());
+        // "b" is now the least recently seen and makes room for "c"
+        send(filter, "c");
+
+        assertEquals(429, send(filter, "a").getStatus());
+        assertEquals(200, send(filter, "b").getStatus());
+    }
+
+    @Test
+    public void testRequestOverTheConcurrencyLimitGets503() throws Exception {
+        config.setInitialLimit(1);
+        config.setMinLimit(1);
+        config.setMaxLimit(1);
+        var filter = new AdmissionControlFilter(config, meterRegistry);
+        var nested = new MockHttpServletResponse();
+
+        // The second request arrives while the first still holds the only permit
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/products/1"), new MockHttpServletResponse(),
+                (request, response) -> filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/products/2"),
+                        nested, new MockFilterChain()));
+
+        assertEquals(503, nested.getStatus());
+        assertEquals("3", nested.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(0, inFlight());
+    }
+
+    @Test
+    public void testPermitIsReleasedWhenTheChainThrows() {
+        var filter = new AdmissionControlFilter(config, meterRegistry);
+
+        assertThrows(ServletException.class,
+                () -> filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/products"),
+                        new MockHttpServletResponse(), (request, response) -> {
+                            throw new ServletException("boom");
+                        }));
+
+        assertEquals(0, inFlight());
+    }
+
+    private void enableRateLimit(int maxClients) {
+        var rateLimit = config.getClientRateLimit();
+        rateLimit.setEnabled(true);
+        rateLimit.setPermitsPerSecond(0.001);
+        rateLimit.setBurst(1);
+        rateLimit.setMaxClients(maxClients);
+    }
+
+    private MockHttpServletResponse send(AdmissionControlFilter filter, String clientId) throws Exception {
+        var request = new MockHttpServletRequest("GET", "/api/v1/products/1");
+        request.addHeader("X-Client-Id", clientId);
+        var response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("admission.in_flight").gauge().value();
+    }
+
+}
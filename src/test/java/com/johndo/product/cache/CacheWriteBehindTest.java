@@ -0,0 +1,95 @@
+package com.johndo.product.cache;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.johndo.product.config.CacheWriteBehindConfig;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class CacheWriteBehindTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CacheWriteBehind writeBehind;
+
+    @BeforeEach
+    public void setUp() {
+        var config = new CacheWriteBehindConfig();
+        config.setThreads(1);
+        config.setMaxAttempts(3);
+        config.setRetryBackoff(Duration.ofMillis(10));
+        meterRegistry = new SimpleMeterRegistry();
+        writeBehind = new CacheWriteBehind(config, meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        writeBehind.shutdown();
+    }
+
+    @Test
+    public void testQueuedOperationsForSameKeyAreCoalesced() {
+        var blocker = new CountDownLatch(1);
+        List<String> applied = new CopyOnWriteArrayList<>();
+        // Occupy the only worker so the following operations stay queued
+        writeBehind.submit("blocker", () -> awaitLatch(blocker));
+        writeBehind.submit("products::1", () -> applied.add("v1"));
+        writeBehind.submit("products::1", () -> applied.add("v2"));
+        writeBehind.submit("products::1", () -> applied.add("v3"));
+        blocker.countDown();
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> writeBehind.pendingCount() == 0);
+        assertEquals(List.of("v3"), applied);
+        assertEquals(2, meterRegistry.counter("cache.write_behind.coalesced").count());
+    }
+
+    @Test
+    public void testFailedOperationIsRetried() {
+        var attempts = new AtomicInteger();
+        writeBehind.submit("products::2", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new IllegalStateException("Redis unavailable");
+            }
+        });
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> writeBehind.pendingCount() == 0);
+        assertEquals(3, attempts.get());
+        assertEquals(2, meterRegistry.counter("cache.write_behind.retried").count());
+        assertEquals(0, meterRegistry.counter("cache.write_behind.dropped").count());
+    }
+
+    @Test
+    public void testRetryIsAbandonedForNewerOperation() {
+        List<String> applied = new CopyOnWriteArrayList<>();
+        var firstAttempt = new CountDownLatch(1);
+        writeBehind.submit("products::3", () -> {
+            firstAttempt.countDown();
+            throw new IllegalStateException("Redis unavailable");
+        });
+        awaitLatch(firstAttempt);
+        writeBehind.submit("products::3", () -> applied.add("newer"));
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> writeBehind.pendingCount() == 0);
+        assertEquals(List.of("newer"), applied);
+        assertEquals(0, meterRegistry.counter("cache.write_behind.dropped").count());
+    }
+
+    private static void awaitLatch(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.johndo.product.cache;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import com.johndo.product.config.InvalidationBusConfig;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class InvalidationBusTest {
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private InvalidationBus bus;
+
+    @BeforeEach
+    public void setUp() {
+        var config = new InvalidationBusConfig();
+        // Flushed by hand in the tests
+        config.setCoalesceWindow(Duration.ofMinutes(1));
+        bus = new InvalidationBus(rabbitTemplate, config, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        bus.shutdown();
+    }
+
+    private InvalidationBatch flushAndCapture() {
+        bus.flush();
+        var sent = ArgumentCaptor.forClass(InvalidationBatch.class);
+        verify(rabbitTemplate).convertAndSend(eq("product-invalidation"), eq(""), sent.capture());
+        return sent.getValue();
+    }
+
+    @Test
+    public void testPublishesWithinWindowAreSentAsOneBatch() {
+        bus.publish(Invalidation.key("products", 1L));
+        bus.publish(Invalidation.key("products", 2L));
+        bus.publish(Invalidation.key("products", 1L));
+        bus.publish(Invalidation.key("categories", 7));
+
+        var batch = flushAndCapture();
+
+        assertEquals(List.of(Invalidation.key("products", 1L), Invalidation.key("products", 2L),
+                Invalidation.key("categories", 7)), batch.invalidations());
+    }
+
+    @Test
+    public void testCompactDropsCoveredKeysAndWidensLargeBatches() {
+        var compacted = InvalidationBus.compact(List.of(
+                Invalidation.key("categoryProducts", "7:first:size:10"),
+                Invalidation.family("categoryProducts", "7:"),
+                Invalidation.key("categoryProducts", "8:first:size:10")), 10);
+        assertEquals(List.of(Invalidation.family("categoryProducts", "7:"),
+                Invalidation.key("categoryProducts", "8:first:size:10")), compacted);
+
+        List<Invalidation> many = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            many.add(Invalidation.key("products", i));
+        }
+        many.add(Invalidation.key("categories", 1));
+        assertEquals(List.of(Invalidation.all("products"), Invalidation.all("categories")),
+                InvalidationBus.compact(many, 10));
+    }
+
+    @Test
+    public void testDispatchesOtherInstancesBatchesBySubscribedCache() {
+        List<Invalidation> products = new ArrayList<>();
+        bus.subscribe("products", products::addAll);
+
+        bus.onBatch(new InvalidationBatch("other-instance",
+                List.of(Invalidation.key("products", 3L), Invalidation.key("categories", 1))));
+
+        assertEquals(List.of(Invalidation.key("products", 3L)), products);
+    }
+
+    @Test
+    public void testIgnoresItsOwnBroadcasts() {
+        List<Invalidation> received = new ArrayList<>();
+        bus.subscribe("products", received::addAll);
+        bus.publish(Invalidation.key("products", 1L));
+        var own = flushAndCapture();
+
+        bus.onBatch(own);
+
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    public void testFamiliesAreAlsoDeliveredLocally() {
+        var config = new InvalidationBusConfig();
+        config.setEnabled(false);
+        var disabled = new InvalidationBus(rabbitTemplate, config, new SimpleMeterRegistry());
+        List<Invalidation> received = new CopyOnWriteArrayList<>();
+        disabled.subscribe("products", received::addAll);
+
+        disabled.publish(Invalidation.key("products", 1L));
+        disabled.publish(Invalidation.all("products"));
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> !received.isEmpty());
+        disabled.shutdown();
+        assertEquals(List.of(Invalidation.all("products")), received);
+    }
+
+    @Test
+    public void testNothingIsSentWhenDisabled() {
+        var config = new InvalidationBusConfig();
+        config.setEnabled(false);
+        var disabled = new InvalidationBus(rabbitTemplate, config, new SimpleMeterRegistry());
+        disabled.publish(Invalidation.key("products", 1L));
+        disabled.shutdown();
+
+        verify(rabbitTemplate, never()).convertAndSend(any(String.class), any(String.class), any(Object.class));
+    }
+
+}
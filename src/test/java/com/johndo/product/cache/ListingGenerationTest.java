@@ -0,0 +1,100 @@
+package com.johndo.product.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import com.johndo.product.config.CacheBreakerConfig;
+import com.johndo.product.config.ListingCacheConfig;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ListingGenerationTest {
+
+    private ValueOperations<String, String> values;
+    private ListingCacheConfig config;
+    private CacheBreakerConfig breakerConfig;
+    private CacheCircuitBreaker breaker;
+    private ListingGeneration generation;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        var redisTemplate = mock(StringRedisTemplate.class);
+        values = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        config = new ListingCacheConfig();
+        breakerConfig = new CacheBreakerConfig();
+        breakerConfig.setFailureThreshold(1);
+        breakerConfig.setOpenDuration(Duration.ofMinutes(1));
+        var meterRegistry = new SimpleMeterRegistry();
+        breaker = new CacheCircuitBreaker(breakerConfig, meterRegistry);
+        generation = new ListingGeneration(redisTemplate, config, breaker, meterRegistry);
+    }
+
+    @Test
+    public void testGenerationIsReadOncePerLocalTtl() {
+        config.setGenerationLocalTtl(Duration.ofMinutes(1));
+        when(values.get(ListingGeneration.KEY)).thenReturn("7");
+
+        assertEquals("listing:7:page:0:size:10", generation.pageKey(0, 10));
+        assertEquals("listing:7:page:3:size:20", generation.pageKey(3, 20));
+        verify(values, times(1)).get(ListingGeneration.KEY);
+    }
+
+    @Test
+    public void testExpiredGenerationIsReadAgain() {
+        config.setGenerationLocalTtl(Duration.ZERO);
+        when(values.get(ListingGeneration.KEY)).thenReturn(null, "1");
+
+        assertEquals(0, generation.current());
+        // Bumped by another instance
+        assertEquals(1, generation.current());
+    }
+
+    @Test
+    public void testBumpMovesEveryPageToNewKeys() {
+        config.setGenerationLocalTtl(Duration.ofMinutes(1));
+        when(values.get(ListingGeneration.KEY)).thenReturn("4");
+        when(values.increment(ListingGeneration.KEY)).thenReturn(5L);
+        var before = generation.pageKey(2, 10);
+
+        generation.bump();
+
+        assertNotEquals(before, generation.pageKey(2, 10));
+        assertEquals("listing:5:page:2:size:10", generation.pageKey(2, 10));
+    }
+
+    @Test
+    public void testBumpDuringOutageIsAppliedOnRecovery() {
+        config.setGenerationLocalTtl(Duration.ZERO);
+        when(values.get(ListingGeneration.KEY)).thenReturn("4");
+        assertEquals(4, generation.current());
+
+        when(values.increment(ListingGeneration.KEY)).thenThrow(new RedisConnectionFailureException("down"));
+        generation.bump();
+        generation.bump();
+        // Redis is skipped, but pages cached locally under the old generation are not reused
+        assertEquals(CacheCircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(6, generation.current());
+
+        doReturn(5L).when(values).increment(ListingGeneration.KEY);
+        breakerConfig.setOpenDuration(Duration.ZERO);
+        assertEquals(5, generation.current());
+        assertEquals(CacheCircuitBreaker.State.CLOSED, breaker.getState());
+        verify(values, times(2)).increment(ListingGeneration.KEY);
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.johndo.product.cache;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.lang.NonNull;
+
+import com.johndo.product.config.CacheBreakerConfig;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ResilientCacheManagerTest {
+
+    // In-memory stand-in for Redis that can be taken down
+    private static class FlakyCacheManager extends ConcurrentMapCacheManager {
+        private volatile boolean down;
+
+        @Override
+        @NonNull
+        protected org.springframework.cache.Cache createConcurrentMapCache(@NonNull String name) {
+            return new ConcurrentMapCache(name) {
+                @Override
+                protected Object lookup(@NonNull Object key) {
+                    check();
+                    return super.lookup(key);
+                }
+
+                @Override
+                public void put(@NonNull Object key, Object value) {
+                    check();
+                    super.put(key, value);
+                }
+
+                @Override
+                public void evict(@NonNull Object key) {
+                    check();
+                    super.evict(key);
+                }
+            };
+        }
+
+        private void check() {
+            if (down) {
+                throw new RedisConnectionFailureException("Connection refused");
+            }
+        }
+    }
+
+    private FlakyCacheManager redis;
+    private CacheBreakerConfig config;
+    private CacheCircuitBreaker breaker;
+    private SimpleMeterRegistry meterRegistry;
+    private ResilientCacheManager cacheManager;
+
+    @BeforeEach
+    public void setUp() {
+        redis = new FlakyCacheManager();
+        config = new CacheBreakerConfig();
+        config.setFailureThreshold(2);
+        config.setOpenDuration(Duration.ofMinutes(1));
+        meterRegistry = new SimpleMeterRegistry();
+        breaker = new CacheCircuitBreaker(config, meterRegistry);
+        cacheManager = new ResilientCacheManager(redis, breaker, config, meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        breaker.shutdown();
+    }
+
+    @Test
+    public void testRedisFailuresBecomeMissesAndOpenTheBreaker() {
+        var cache = cacheManager.getCache("products");
+        cache.put(1L, "cached");
+        redis.down = true;
+
+        assertNull(cache.get(1L));
+        assertNull(cache.get(1L));
+        assertEquals(CacheCircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(1, meterRegistry.get("cache.breaker.state").gauge().value());
+
+        // Open: Redis is not even tried
+        assertNull(cache.get(1L));
+        assertEquals(2, meterRegistry.counter("cache.breaker.failures").count());
+        assertEquals(1, meterRegistry.counter("cache.breaker.short_circuited").count());
+    }
+
+    @Test
+    public void testOpenBreakerServesLocalCacheAndReplaysWritesOnRecovery() {
+        // String keys, as Redis sees them
+        var cache = cacheManager.getCache("products");
+        cache.put("1", "before outage");
+        cache.put("2", "before outage");
+        redis.down = true;
+        cache.get("1");
+        cache.get("1");
+
+        cache.put("1", "during outage");
+        cache.evict("2");
+        assertEquals("during outage", cache.get("1", String.class));
+        assertEquals(2, cacheManager.queuedCount());
+
+        redis.down = false;
+        config.setOpenDuration(Duration.ZERO);
+        // The probe reaches Redis, which still has the stale entry
+        assertEquals("before outage", cache.get("1", String.class));
+        assertEquals(CacheCircuitBreaker.State.CLOSED, breaker.getState());
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> cacheManager.queuedCount() == 0);
+        var redisCache = redis.getCache("products");
+        assertNull(redisCache.get("1"));
+        assertNull(redisCache.get("2"));
+        assertEquals(2, meterRegistry.counter("cache.breaker.invalidations.replayed").count());
+    }
+
+    @Test
+    public void testQueueIsWidenedToWholeCachesWhenFull() {
+        config.setMaxQueuedInvalidations(3);
+        for (int i = 0; i < 5; i++) {
+            cacheManager.queue(Invalidation.key("products", i));
+        }
+        cacheManager.queue(Invalidation.key("categoryProducts", "7:first:size:10"));
+
+        assertEquals(2, cacheManager.queuedCount());
+    }
+
+}
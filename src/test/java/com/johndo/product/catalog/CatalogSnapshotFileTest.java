@@ -0,0 +1,95 @@
+package com.johndo.product.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.johndo.product.dto.Category.CategoryResponseDTO;
+import com.johndo.product.dto.Product.ProductResponseDTO;
+
+public class CatalogSnapshotFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testRoundTripsProductsCategoriesAndPosition() throws IOException {
+        var snapshot = CatalogSnapshot.builder(2)
+                .add(product(3L, "Kettle", "Boils water quickly", "24.50", 7, 2))
+                .add(product(10L, "Teapot", null, "12.00", 0, null))
+                .build();
+        var file = directory.resolve("catalog-42.snap");
+        var writtenAt = Instant.parse("2026-01-01T00:00:00Z");
+
+        CatalogSnapshotFile.write(file, snapshot, List.of(new CategoryResponseDTO(1, "Kitchen", null),
+                new CategoryResponseDTO(2, "Kettles", 1)), 42L, writtenAt);
+        var contents = CatalogSnapshotFile.read(file);
+
+        assertEquals(42L, contents.highWaterSeq());
+        assertEquals(writtenAt, contents.writtenAt());
+        var loaded = contents.snapshot();
+        assertEquals(2, loaded.size());
+        var kettle = loaded.toResponse(loaded.indexOf(3L));
+        assertEquals("Kettle", kettle.getName());
+        assertEquals("Boils water quickly", kettle.getDescription());
+        assertEquals(new BigDecimal("24.50"), kettle.getUnitPrice());
+        assertEquals(7, kettle.getQuantity());
+        assertEquals(2, kettle.getCategoryId());
+        var teapot = loaded.toResponse(loaded.indexOf(10L));
+        assertNull(teapot.getDescription());
+        assertNull(teapot.getCategoryId());
+
+        assertEquals(List.of("Kitchen", "Kettles"),
+                contents.categories().stream().map(CategoryResponseDTO::getName).toList());
+        assertNull(contents.categories().get(0).getParentId());
+        assertEquals(1, contents.categories().get(1).getParentId());
+    }
+
+    @Test
+    public void testRejectsCorruptFile() throws IOException {
+        var snapshot = CatalogSnapshot.builder(2).add(product(1L, "Kettle", "Steel", "9.99", 1, 1)).build();
+        var file = directory.resolve("catalog-1.snap");
+        CatalogSnapshotFile.write(file, snapshot, List.of(), 1L, Instant.now());
+
+        var bytes = Files.readAllBytes(file);
+        assertTrue(CatalogSnapshotFile.read(file).checksumMatches());
+
+        // A corrupt body is still mapped, but fails the full checksum
+        bytes[60] ^= 1;
+        Files.write(file, bytes);
+        assertFalse(CatalogSnapshotFile.read(file).checksumMatches());
+
+        bytes[10] ^= 1;
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> CatalogSnapshotFile.read(file));
+
+        Files.write(file, Arrays.copyOf(bytes, 40));
+        assertThrows(IOException.class, () -> CatalogSnapshotFile.read(file));
+    }
+
+    private static ProductResponseDTO product(Long id, String name, String description, String price,
+            Integer quantity, Integer categoryId) {
+        return ProductResponseDTO.builder()
+                .id(id)
+                .name(name)
+                .description(description)
+                .unitPrice(new BigDecimal(price))
+                .quantity(quantity)
+                .categoryId(categoryId)
+                .build();
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.johndo.product.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+import com.johndo.product.dto.Product.ProductResponseDTO;
+
+public class CatalogSnapshotTest {
+
+    @Test
+    public void testRoundTripsEveryColumn() {
+        var snapshot = CatalogSnapshot.builder(2)
+                .add(product(3L, "Kettle", "Boils water quickly", "24.50", 7, 2))
+                .add(product(10L, "Teapot", null, "12.00", 0, null))
+                .build();
+
+        var kettle = snapshot.toResponse(snapshot.indexOf(3L));
+        assertEquals(3L, kettle.getId());
+        assertEquals("Kettle", kettle.getName());
+        assertEquals("Boils water quickly", kettle.getDescription());
+        assertEquals(new BigDecimal("24.50"), kettle.getUnitPrice());
+        assertEquals(7, kettle.getQuantity());
+        assertEquals(2, kettle.getCategoryId());
+
+        var teapot = snapshot.toResponse(snapshot.indexOf(10L));
+        assertNull(teapot.getDescription());
+        assertNull(teapot.getCategoryId());
+    }
+
+    @Test
+    public void testIndexOfMissingIdIsNegative() {
+        var snapshot = CatalogSnapshot.builder(2)
+                .add(product(1L, "A", "a", "1.00", 1, 1))
+                .add(product(5L, "B", "b", "1.00", 1, 1))
+                .build();
+
+        assertTrue(snapshot.indexOf(3L) < 0);
+        assertTrue(snapshot.indexOf(99L) < 0);
+    }
+
+    @Test
+    public void testRepeatedStringsShareOneDictionaryEntry() {
+        var builder = CatalogSnapshot.builder(2);
+        for (long id = 1; id <= 100; id++) {
+            builder.add(product(id, "Product " + id, "Same description for all", "1.00", 1, 1));
+        }
+        var snapshot = builder.build();
+
+        // 100 distinct names + 1 shared description
+        assertEquals(101, snapshot.dictionary().size());
+    }
+
+    @Test
+    public void testRejectsOutOfOrderRows() {
+        var builder = CatalogSnapshot.builder(2).add(product(5L, "B", "b", "1.00", 1, 1));
+
+        assertThrows(IllegalStateException.class, () -> builder.add(product(4L, "A", "a", "1.00", 1, 1)));
+    }
+
+    private static ProductResponseDTO product(Long id, String name, String description, String price,
+            int quantity, Integer categoryId) {
+        return ProductResponseDTO.builder()
+                .id(id)
+                .name(name)
+                .description(description)
+                .unitPrice(new BigDecimal(price))
+                .quantity(quantity)
+                .categoryId(categoryId)
+                .build();
+    }
+
+}
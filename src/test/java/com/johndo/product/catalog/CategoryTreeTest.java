@@ -0,0 +1,71 @@
+package com.johndo.product.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.johndo.product.dto.Category.CategoryResponseDTO;
+import com.johndo.product.dto.Category.CategoryTreeDTO;
+
+public class CategoryTreeTest {
+
+    // 1 Home > 2 Kitchen > 3 Kettles, 4 Garden
+    private final CategoryTree tree = CategoryTree.of(List.of(
+            category(3, "Kettles", 2),
+            category(1, "Home", null),
+            category(2, "Kitchen", 1),
+            category(4, "Garden", null)));
+
+    @Test
+    public void testBuildsNestedTree() {
+        var roots = tree.toNestedDtos();
+
+        assertEquals(List.of(1, 4), roots.stream().map(CategoryTreeDTO::getId).toList());
+        assertEquals("Kettles", roots.get(0).getChildren().get(0).getChildren().get(0).getName());
+    }
+
+    @Test
+    public void testBreadcrumbsRunFromRoot() {
+        var path = tree.breadcrumbs(3).stream().map(CategoryResponseDTO::getName).toList();
+
+        assertEquals(List.of("Home", "Kitchen", "Kettles"), path);
+        assertNull(tree.breadcrumbs(99));
+    }
+
+    @Test
+    public void testMovingCategoryCarriesSubtree() {
+        var moved = tree.withCategory(category(2, "Kitchen", 4));
+
+        assertEquals(List.of("Garden", "Kitchen", "Kettles"),
+                moved.breadcrumbs(3).stream().map(CategoryResponseDTO::getName).toList());
+        assertEquals(List.of(), moved.toNestedDtos().get(0).getChildren());
+        // The previous snapshot is untouched
+        assertEquals("Home", tree.breadcrumbs(3).get(0).getName());
+    }
+
+    @Test
+    public void testRejectsParentThatWouldCreateCycle() {
+        var updated = tree.withCategory(category(1, "Home", 3));
+
+        assertEquals(List.of(1, 4), updated.toNestedDtos().stream().map(CategoryTreeDTO::getId).toList());
+        assertEquals(3, updated.breadcrumbs(3).size());
+    }
+
+    @Test
+    public void testRemovingCategoryPromotesChildren() {
+        var updated = tree.withoutCategory(2).withCategory(category(5, "Lights", 4));
+
+        assertNull(updated.find(2));
+        assertEquals(List.of(1, 3, 4), updated.toNestedDtos().stream().map(CategoryTreeDTO::getId).toList());
+        assertEquals(List.of(4, 5), updated.descendantIds(4));
+        assertEquals(List.of(1, 2, 3), tree.descendantIds(1));
+    }
+
+    private static CategoryResponseDTO category(Integer id, String name, Integer parentId) {
+        return CategoryResponseDTO.builder().id(id).name(name).parentId(parentId).build();
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.johndo.product.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.johndo.product.cache.Invalidation;
+
+public class IndexOverlayTest {
+
+    private ScheduledExecutorService executor;
+    private IndexOverlay<Map<Long, String>, String> overlay;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        overlay = new IndexOverlay<>("test index", executor, () -> Duration.ofHours(1), () -> {
+        }, () -> {
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testCompactMergesPendingChangesIntoTheIndex() {
+        assertNull(overlay.compact(IndexOverlayTest::merge));
+
+        overlay.load(new TreeMap<>(Map.of(1L, "Kettle", 2L, "Teapot")));
+        assertNull(overlay.compact(IndexOverlayTest::merge));
+
+        overlay.stage(1L, "Steel kettle");
+        overlay.stage(2L, null);
+        assertEquals(2, overlay.pendingCount());
+        assertEquals("Steel kettle", overlay.pending(1L).value());
+
+        var next = overlay.compact(IndexOverlayTest::merge);
+        assertEquals(Map.of(1L, "Steel kettle"), next);
+        assertEquals(next, overlay.current());
+        assertFalse(overlay.hasPending());
+    }
+
+    @Test
+    public void testChangesStagedDuringABuildStayPending() {
+        overlay.stage(1L, "Kettle");
+        overlay.stage(2L, "Teapot");
+        var applied = overlay.beginBuild();
+
+        overlay.stage(2L, "Glass teapot");
+        overlay.stage(3L, "Mug");
+        overlay.swap(Map.of(1L, "Kettle", 2L, "Teapot"), applied);
+
+        assertEquals(2, overlay.pendingCount());
+        assertEquals("Glass teapot", overlay.pending(2L).value());
+        assertEquals("Mug", overlay.pending(3L).value());
+        assertNull(overlay.pending(1L));
+    }
+
+    @Test
+    public void testOnlyFamilyInvalidationsTriggerARebuild() {
+        assertFalse(overlay.rebuildOnFamily(List.of(Invalidation.key("products", "1"))));
+        assertTrue(overlay.rebuildOnFamily(List.of(Invalidation.all("products"))));
+    }
+
+    private static Map<Long, String> merge(Map<Long, String> current, Map<Long, String> changes) {
+        var next = new TreeMap<>(current);
+        changes.forEach((id, value) -> {
+            if (value == null) {
+                next.remove(id);
+            } else {
+                next.put(id, value);
+            }
+        });
+        return next;
+    }
+
+}
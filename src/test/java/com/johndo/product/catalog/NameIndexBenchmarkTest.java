@@ -0,0 +1,102 @@
+package com.johndo.product.catalog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.johndo.product.dto.Product.ProductSuggestionDTO;
+
+/**
+ * Footprint and lookup latency of {@link NameIndex} for a large catalog of
+ * generated names (5M by default, {@code -Dbenchmark.names=...}):
+ *
+ * <pre>
+ * mvn test -Dtest=NameIndexBenchmarkTest -Dbenchmark=true -DargLine=-Xmx3g
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class NameIndexBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(NameIndexBenchmarkTest.class);
+
+    private static final String[] BRANDS = { "Acme", "Bolt", "Cobalt", "Delta", "Ember", "Flux", "Granite", "Helix",
+            "Iris", "Juniper", "Kestrel", "Lumen", "Mosaic", "Nimbus", "Onyx", "Pioneer", "Quartz", "Raven", "Summit",
+            "Titan" };
+    private static final String[] ITEMS = { "desk lamp", "office chair", "kettle", "water bottle", "backpack",
+            "headphones", "keyboard", "monitor stand", "coffee grinder", "yoga mat", "frying pan", "bike light",
+            "phone case", "notebook", "table fan", "rain jacket", "hiking boots", "wall clock", "cutting board",
+            "travel mug" };
+
+    private static final int LOOKUPS = 200_000;
+    private static final int LIMIT = 10;
+
+    @Test
+    void fiveMillionNames() {
+        int count = Integer.getInteger("benchmark.names", 5_000_000);
+        var random = new Random(7);
+        var runtime = Runtime.getRuntime();
+
+        long start = System.nanoTime();
+        var builder = NameIndex.builder();
+        for (long id = 1; id <= count; id++) {
+            builder.add(id, name(random), random.nextInt(10) > 0);
+        }
+        var index = builder.build();
+        builder = null;
+        long buildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.gc();
+        long heapUsed = runtime.totalMemory() - runtime.freeMemory();
+        log.info("{} names indexed in {} ms: {} MB in the index ({} bytes per name), {} MB heap in use", index.size(),
+                buildMillis, index.memoryBytes() >> 20, index.memoryBytes() / index.size(), heapUsed >> 20);
+
+        // Prefixes as typed: the first 1 to 12 characters of a generated name
+        var prefixes = new String[4096];
+        for (int i = 0; i < prefixes.length; i++) {
+            var name = NameIndex.normalize(name(random));
+            prefixes[i] = name.substring(0, 1 + random.nextInt(Math.min(12, name.length())));
+        }
+        for (int i = 0; i < 20_000; i++) {
+            index.top(prefixes[i % prefixes.length], LIMIT, id -> false);
+        }
+        var latencies = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            long lookupStart = System.nanoTime();
+            index.top(prefixes[i % prefixes.length], LIMIT, id -> false);
+            latencies[i] = System.nanoTime() - lookupStart;
+        }
+        Arrays.sort(latencies);
+        log.info("top-{} lookups: p50 {} us, p99 {} us, p99.9 {} us, max {} us", LIMIT,
+                micros(latencies[LOOKUPS / 2]), micros(latencies[LOOKUPS * 99 / 100]),
+                micros(latencies[LOOKUPS * 999 / 1000]), micros(latencies[LOOKUPS - 1]));
+
+        start = System.nanoTime();
+        Map<Long, ProductSuggestionDTO> changes = new HashMap<>();
+        for (long id = 1; id <= 1000; id++) {
+            changes.put(id * 997, new ProductSuggestionDTO(id * 997, name(random), true));
+        }
+        var merged = index.withChanges(changes);
+        log.info("1000 changes merged into {} names in {} ms", merged.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        assertThat(latencies[LOOKUPS * 99 / 100]).isLessThan(TimeUnit.MILLISECONDS.toNanos(10));
+    }
+
+    private static String name(Random random) {
+        return BRANDS[random.nextInt(BRANDS.length)] + " " + ITEMS[random.nextInt(ITEMS.length)] + " "
+                + Integer.toString(random.nextInt(1_000_000), 36).toUpperCase();
+    }
+
+    private static String micros(long nanos) {
+        return String.format("%.1f", nanos / 1000.0);
+    }
+
+}
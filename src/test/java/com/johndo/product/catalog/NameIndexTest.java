@@ -0,0 +1,101 @@
+package com.johndo.product.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.johndo.product.dto.Product.ProductSuggestionDTO;
+
+public class NameIndexTest {
+
+    @Test
+    public void testMatchesPrefixCaseInsensitivelyInRankOrder() {
+        var index = NameIndex.builder()
+                .add(1, "Kettle", true)
+                .add(2, "kitchen scale", false)
+                .add(3, "Knife", true)
+                .add(4, "KETTLE deluxe", true)
+                .add(5, "Lamp", true)
+                .build();
+
+        // In stock first, then newest
+        assertEquals(List.of(4L, 3L, 1L, 2L), ids(index.top("k", 10, id -> false)));
+        assertEquals(List.of(4L, 1L), ids(index.top("kettle", 10, id -> false)));
+        assertEquals(List.of(4L), ids(index.top("kettle", 1, id -> false)));
+        assertTrue(index.top("m", 10, id -> false).isEmpty());
+        assertEquals("KETTLE deluxe", index.top("kettle d", 10, id -> false).get(0).getName());
+    }
+
+    @Test
+    public void testSkippedIdsAreLeftOut() {
+        var index = NameIndex.builder().add(1, "Kettle", true).add(2, "Kettle", true).build();
+
+        assertEquals(List.of(1L), ids(index.top("ket", 10, id -> id == 2)));
+    }
+
+    @Test
+    public void testTopKMatchesFullScanOnRandomNames() {
+        var random = new Random(42);
+        var builder = NameIndex.builder();
+        List<ProductSuggestionDTO> all = new ArrayList<>();
+        for (long id = 1; id <= 5000; id++) {
+            var name = randomName(random);
+            boolean inStock = random.nextInt(4) > 0;
+            builder.add(id, name, inStock);
+            all.add(new ProductSuggestionDTO(id, name, inStock));
+        }
+        var index = builder.build();
+
+        for (var prefix : List.of("a", "ab", "b", "ca", "dd", "abc", "e")) {
+            var expected = all.stream()
+                    .filter(product -> NameIndex.normalize(product.getName()).startsWith(prefix))
+                    .sorted(NameIndex.RANKING)
+                    .limit(10)
+                    .map(ProductSuggestionDTO::getId)
+                    .toList();
+            assertEquals(expected, ids(index.top(prefix, 10, id -> false)), "prefix " + prefix);
+        }
+    }
+
+    @Test
+    public void testChangesAreMergedInOrder() {
+        var index = NameIndex.builder()
+                .add(1, "Apple", true)
+                .add(2, "Apricot", true)
+                .add(3, "Banana", true)
+                .build();
+        Map<Long, ProductSuggestionDTO> changes = new HashMap<>();
+        changes.put(1L, null);
+        changes.put(3L, new ProductSuggestionDTO(3L, "Avocado", false));
+        changes.put(4L, new ProductSuggestionDTO(4L, "Almond", true));
+
+        var merged = index.withChanges(changes);
+
+        assertEquals(3, merged.size());
+        assertEquals(List.of(4L, 2L, 3L), ids(merged.top("a", 10, id -> false)));
+        assertTrue(merged.top("b", 10, id -> false).isEmpty());
+        assertEquals(List.of(4L), ids(merged.top("al", 10, id -> false)));
+        assertEquals(List.of(3L), ids(merged.top("av", 10, id -> false)));
+    }
+
+    private static List<Long> ids(List<ProductSuggestionDTO> suggestions) {
+        return suggestions.stream().map(ProductSuggestionDTO::getId).toList();
+    }
+
+    private static String randomName(Random random) {
+        var name = new StringBuilder();
+        for (int i = 0, length = 1 + random.nextInt(6); i < length; i++) {
+            char letter = (char) ('a' + random.nextInt(5));
+            name.append(random.nextBoolean() ? Character.toUpperCase(letter) : letter);
+        }
+        return name.toString();
+    }
+
+}
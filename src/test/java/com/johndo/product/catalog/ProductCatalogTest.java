@@ -0,0 +1,225 @@
+package com.johndo.product.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import com.johndo.product.cache.InvalidationBus;
+import com.johndo.product.config.ProductCatalogConfig;
+import com.johndo.product.dto.Category.CategoryResponseDTO;
+import com.johndo.product.dto.Product.ProductResponseDTO;
+import com.johndo.product.event.ProductChangedEvent;
+import com.johndo.product.event.ProductChangedEvent.ChangeType;
+import com.johndo.product.mapper.ProductMapperInterface;
+import com.johndo.product.model.Category;
+import com.johndo.product.model.Product;
+import com.johndo.product.model.ProductChange;
+import com.johndo.product.repository.ProductChangeRepository;
+import com.johndo.product.repository.ProductRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ProductCatalogTest {
+
+    @TempDir
+    Path directory;
+
+    private ProductRepository productRepository;
+    private ProductChangeRepository productChangeRepository;
+    private ProductMapperInterface productMapper;
+    private CategoryTreeCache categoryTreeCache;
+    private ProductCatalogConfig config;
+    private ProductCatalog catalog;
+
+    @BeforeEach
+    public void setUp() {
+        productRepository = mock(ProductRepository.class);
+        productChangeRepository = mock(ProductChangeRepository.class);
+        productMapper = mock(ProductMapperInterface.class);
+        categoryTreeCache = mock(CategoryTreeCache.class);
+        when(productRepository.findByIdGreaterThan(anyLong(), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(entity(1L), entity(2L), entity(3L))));
+        when(productMapper.toResponseDto(any(Product.class))).thenAnswer(invocation -> {
+            Product product = invocation.getArgument(0);
+            return dto(product.getId(), product.getName());
+        });
+
+        when(productChangeRepository.findLatestSeq()).thenReturn(10L);
+        when(categoryTreeCache.current())
+                .thenReturn(CategoryTree.of(List.of(new CategoryResponseDTO(1, "Tools", null))));
+
+        config = new ProductCatalogConfig();
+        config.setEnabled(true);
+        config.setSnapshotDirectory(directory.toString());
+        catalog = newCatalog();
+        catalog.rebuild();
+    }
+
+    private ProductCatalog newCatalog() {
+        return new ProductCatalog(productRepository, productChangeRepository, productMapper, categoryTreeCache,
+                config, mock(InvalidationBus.class), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        catalog.shutdown();
+    }
+
+    @Test
+    public void testServesListingsInDescendingIdOrder() {
+        var page = catalog.page(PageRequest.of(0, 2));
+
+        assertEquals(List.of(3L, 2L), page.getContent().stream().map(ProductResponseDTO::getId).toList());
+        assertEquals(3, page.getTotalElements());
+    }
+
+    @Test
+    public void testPendingChangesAreVisibleAndFoldedIn() {
+        catalog.onProductChanged(ProductChangedEvent.updated(dto(2L, "Product 2"), dto(2L, "Renamed")));
+        catalog.onProductChanged(ProductChangedEvent.deleted(dto(1L, "Product 1")));
+        catalog.onProductChanged(ProductChangedEvent.created(dto(4L, "Product 4")));
+
+        assertEquals("Renamed", catalog.find(2L).getName());
+        assertNull(catalog.find(1L));
+        assertFalse(catalog.canServeListings());
+
+        catalog.compact();
+
+        assertTrue(catalog.canServeListings());
+        var page = catalog.page(PageRequest.of(0, 10));
+        assertEquals(List.of(4L, 3L, 2L), page.getContent().stream().map(ProductResponseDTO::getId).toList());
+        assertEquals("Renamed", catalog.find(2L).getName());
+    }
+
+    @Test
+    public void testRestartMapsSnapshotFileAndReplaysLaterChanges() throws Exception {
+        catalog.persist();
+        assertTrue(Files.exists(directory.resolve("catalog-10.snap")));
+        clearInvocations(productRepository);
+        when(productChangeRepository.findBySeqGreaterThanOrderBySeqAsc(eq(10L), any(Limit.class)))
+                .thenReturn(List.of(change(11L, 2L, ChangeType.UPDATED, dto(2L, "Renamed")),
+                        change(12L, 3L, ChangeType.DELETED, null)));
+
+        var restarted = newCatalog();
+        try {
+            restarted.open();
+
+            assertEquals("Product 1", restarted.find(1L).getName());
+            assertEquals("Renamed", restarted.find(2L).getName());
+            assertNull(restarted.find(3L));
+            verify(categoryTreeCache).restore(any());
+            // Served from the file: Postgres is only asked for the changes since
+            verify(productRepository, never()).findByIdGreaterThan(anyLong(), any(Pageable.class));
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    @Test
+    public void testStaleSnapshotFileFallsBackToRebuild() throws Exception {
+        CatalogSnapshotFile.write(directory.resolve("catalog-10.snap"),
+                CatalogSnapshot.builder(2).add(dto(1L, "Old")).build(), List.of(), 10L,
+                Instant.now().minus(config.getSnapshotMaxAge()).minusSeconds(1));
+
+        var restarted = newCatalog();
+        try {
+            restarted.open();
+
+            assertEquals("Product 1", restarted.find(1L).getName());
+            assertEquals(3, restarted.page(PageRequest.of(0, 10)).getTotalElements());
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    @Test
+    public void testSnapshotFileAheadOfTheFeedFallsBackToRebuild() throws Exception {
+        CatalogSnapshotFile.write(directory.resolve("catalog-50.snap"),
+                CatalogSnapshot.builder(2).add(dto(9L, "Ghost")).build(), List.of(), 50L, Instant.now());
+
+        var restarted = newCatalog();
+        try {
+            restarted.open();
+
+            assertNull(restarted.find(9L));
+            assertEquals(3, restarted.page(PageRequest.of(0, 10)).getTotalElements());
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    @Test
+    public void testCorruptSnapshotFileIsReplacedByRebuild() throws Exception {
+        var file = directory.resolve("catalog-10.snap");
+        CatalogSnapshotFile.write(file, CatalogSnapshot.builder(2).add(dto(1L, "Old")).build(), List.of(), 10L,
+                Instant.now());
+        var bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file, bytes);
+
+        var restarted = newCatalog();
+        try {
+            restarted.open();
+
+            assertEquals("Product 1", restarted.find(1L).getName());
+            assertEquals(3, restarted.page(PageRequest.of(0, 10)).getTotalElements());
+            verify(categoryTreeCache).reload();
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    private static ProductChange change(long seq, long productId, ChangeType type, ProductResponseDTO product) {
+        return ProductChange.builder()
+                .seq(seq)
+                .productId(productId)
+                .changeType(type)
+                .product(product)
+                .changedAt(Instant.now())
+                .build();
+    }
+
+    private static Product entity(Long id) {
+        return Product.builder()
+                .id(id)
+                .name("Product " + id)
+                .category(Category.builder().id(1).build())
+                .build();
+    }
+
+    private static ProductResponseDTO dto(Long id, String name) {
+        return ProductResponseDTO.builder()
+                .id(id)
+                .name(name)
+                .description("Description")
+                .unitPrice(new BigDecimal("9.99"))
+                .quantity(1)
+                .categoryId(1)
+                .build();
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.johndo.product.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import com.johndo.product.cache.Invalidation;
+import com.johndo.product.cache.InvalidationBus;
+import com.johndo.product.config.ProductIdFilterConfig;
+import com.johndo.product.repository.ProductRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ProductIdFilterTest {
+
+    // Even ids up to 20000 exist
+    private static final List<Long> IDS = LongStream.rangeClosed(1, 10000).map(i -> i * 2).boxed().toList();
+
+    private List<Long> ids;
+    private ProductIdFilter filter;
+
+    @BeforeEach
+    public void setUp() {
+        var productRepository = mock(ProductRepository.class);
+        ids = IDS;
+        when(productRepository.count()).thenAnswer(invocation -> (long) ids.size());
+        when(productRepository.findIdsAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            Pageable pageable = invocation.getArgument(1);
+            return ids.stream().filter(id -> id > after).limit(pageable.getPageSize()).toList();
+        });
+
+        var config = new ProductIdFilterConfig();
+        config.setLoadChunkSize(3000);
+        config.setRecentIdMargin(1000);
+        filter = new ProductIdFilter(productRepository, config, mock(InvalidationBus.class),
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        filter.shutdown();
+    }
+
+    @Test
+    public void testLetsEverythingThroughUntilBuilt() {
+        assertTrue(filter.mightExist(1L));
+    }
+
+    @Test
+    public void testNeverRejectsAnExistingIdAndRejectsMostUnknownOnes() {
+        filter.rebuild();
+
+        assertTrue(IDS.stream().allMatch(filter::mightExist));
+        // Odd ids up to 18999, below the newest 1000 ids
+        long passed = LongStream.rangeClosed(0, 9499).map(i -> i * 2 + 1).filter(filter::mightExist).count();
+        // Sized for 1.5x the products at 1%, so well under 1% of unknown ids get through
+        assertTrue(passed < 100, passed + " unknown ids passed");
+    }
+
+    @Test
+    public void testIdsNewerThanTheLastRebuildAreNotJudged() {
+        filter.rebuild();
+
+        assertTrue(filter.mightExist(20001L));
+        assertTrue(filter.mightExist(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testRecentIdsMissedByTheScanAreLetThroughUntilTheNextRebuild() {
+        filter.rebuild();
+        // Handed out before the scan passed them, committed after it
+        assertTrue(LongStream.rangeClosed(9501, 9999).map(i -> i * 2 + 1).allMatch(filter::mightExist));
+
+        ids = LongStream.rangeClosed(1, 10500).map(i -> i * 2).boxed().toList();
+        filter.rebuild();
+
+        // The previous scan's ids are old enough to judge, even within the margin of this one
+        long passed = LongStream.rangeClosed(9501, 9999).map(i -> i * 2 + 1).filter(filter::mightExist).count();
+        assertTrue(passed < 20, passed + " unknown ids passed");
+        assertTrue(filter.mightExist(20999L));
+    }
+
+    @Test
+    public void testCreatesAnnouncedByOtherInstancesAreAdded() {
+        filter.rebuild();
+        assertFalse(IDS.stream().allMatch(id -> filter.mightExist(id + 1)));
+
+        var created = IDS.stream().map(id -> Invalidation.key(ProductCatalog.INVALIDATION_CACHE, id + 1)).toList();
+        filter.onInvalidation(created);
+        filter.add(15L);
+
+        assertTrue(IDS.stream().allMatch(id -> filter.mightExist(id + 1)));
+        assertTrue(filter.mightExist(15L));
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.johndo.product.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import com.johndo.product.cache.InvalidationBus;
+import com.johndo.product.config.ProductSuggestConfig;
+import com.johndo.product.dto.Product.ProductResponseDTO;
+import com.johndo.product.dto.Product.ProductSuggestionDTO;
+import com.johndo.product.event.ProductChangedEvent;
+import com.johndo.product.repository.ProductRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ProductSuggesterTest {
+
+    private ProductSuggester suggester;
+
+    @BeforeEach
+    public void setUp() {
+        var productRepository = mock(ProductRepository.class);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { 1L, "Desk lamp", 3 });
+        rows.add(new Object[] { 2L, "Desk chair", 0 });
+        rows.add(new Object[] { 3L, "Door mat", 7 });
+        when(productRepository.findNamesAfter(anyLong(), any(Pageable.class))).thenReturn(rows);
+
+        suggester = new ProductSuggester(productRepository, new ProductSuggestConfig(), mock(InvalidationBus.class),
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        suggester.shutdown();
+    }
+
+    @Test
+    public void testSuggestsNothingUntilBuilt() {
+        assertTrue(suggester.suggest("desk", 10).isEmpty());
+
+        suggester.rebuild();
+
+        assertEquals(List.of(1L, 2L), ids(suggester.suggest("DESK", 10)));
+    }
+
+    @Test
+    public void testPendingChangesAreVisibleAndFoldedIn() {
+        suggester.rebuild();
+        suggester.onProductChanged(ProductChangedEvent.updated(product(1L, "Desk lamp", 3), product(1L, "Floor lamp", 3)));
+        suggester.onProductChanged(ProductChangedEvent.deleted(product(3L, "Door mat", 7)));
+        suggester.onProductChanged(ProductChangedEvent.created(product(4L, "Desk organizer", 5)));
+
+        assertEquals(List.of(4L, 2L), ids(suggester.suggest("desk", 10)));
+        assertEquals(List.of(1L), ids(suggester.suggest("floor", 10)));
+        assertTrue(suggester.suggest("door", 10).isEmpty());
+
+        suggester.compact();
+
+        assertEquals(List.of(4L, 2L), ids(suggester.suggest("desk", 10)));
+        assertEquals(List.of(1L), ids(suggester.suggest("floor", 10)));
+        assertTrue(suggester.suggest("door", 10).isEmpty());
+    }
+
+    private static List<Long> ids(List<ProductSuggestionDTO> suggestions) {
+        return suggestions.stream().map(ProductSuggestionDTO::getId).toList();
+    }
+
+    private static ProductResponseDTO product(long id, String name, int quantity) {
+        return ProductResponseDTO.builder().id(id).name(name).quantity(quantity).build();
+    }
+
+}
@@ -0,0 +1,138 @@
+package com.johndo.product.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import io.lettuce.core.ReadFrom;
+
+/**
+ * Cache read and transaction throughput of the connection factories built by
+ * {@link RedisConfig}, against Redis processes started by hand:
+ *
+ * <pre>
+ * mvn test -Dtest=RedisTopologyBenchmarkTest -Dbenchmark=true \
+ *     -Dbenchmark.redis.standalone=localhost:6379 \
+ *     -Dbenchmark.redis.cluster=localhost:7000,localhost:7001,localhost:7002 \
+ *     -Dbenchmark.redis.replica=localhost:6380,localhost:6381
+ * </pre>
+ *
+ * Topologies without a property are skipped.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class RedisTopologyBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisTopologyBenchmarkTest.class);
+
+    private static final int THREADS = 32;
+    private static final int OPERATIONS_PER_THREAD = 5_000;
+    private static final int KEYS = 1_000;
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark.redis.standalone", matches = ".+")
+    void standalone() throws Exception {
+        var node = System.getProperty("benchmark.redis.standalone").split(":");
+        var topology = new RedisTopologyConfig();
+        measure("standalone", topology, node[0], Integer.parseInt(node[1]), ReadFrom.UPSTREAM);
+        topology.getPool().setEnabled(true);
+        topology.getPool().setMaxTotal(THREADS);
+        topology.getPool().setMaxIdle(THREADS);
+        measure("standalone, pooled", topology, node[0], Integer.parseInt(node[1]), ReadFrom.UPSTREAM);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark.redis.cluster", matches = ".+")
+    void cluster() throws Exception {
+        var topology = new RedisTopologyConfig();
+        topology.setMode(RedisTopologyConfig.Mode.CLUSTER);
+        topology.setNodes(Arrays.asList(System.getProperty("benchmark.redis.cluster").split(",")));
+        measure("cluster", topology, null, 0, ReadFrom.UPSTREAM);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark.redis.replica", matches = ".+")
+    void replica() throws Exception {
+        var topology = new RedisTopologyConfig();
+        topology.setMode(RedisTopologyConfig.Mode.REPLICA);
+        topology.setNodes(Arrays.asList(System.getProperty("benchmark.redis.replica").split(",")));
+        measure("replica, primary reads", topology, null, 0, ReadFrom.UPSTREAM);
+        measure("replica, replica reads", topology, null, 0, ReadFrom.REPLICA_PREFERRED);
+    }
+
+    private void measure(String name, RedisTopologyConfig topology, String host, int port, ReadFrom readFrom)
+            throws Exception {
+        var connectionFactory = RedisConfig.connectionFactory(topology, host, port, readFrom);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        try {
+            var template = new StringRedisTemplate(connectionFactory);
+            for (int i = 0; i < KEYS; i++) {
+                template.opsForValue().set("benchmark:" + i, "value-" + i);
+            }
+            // Let replicas catch up before reading from them
+            Thread.sleep(200);
+
+            double gets = run(() -> {
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    assertThat(template.opsForValue().get("benchmark:" + (i % KEYS))).isNotNull();
+                }
+                return null;
+            });
+            log.info("{}: {} GET/s", name, String.format("%.0f", gets));
+            if (topology.getMode() == RedisTopologyConfig.Mode.CLUSTER) {
+                // Spring Data Redis has no MULTI in cluster mode
+                return;
+            }
+            // MULTI/EXEC needs a connection of its own: opened per call without a pool
+            double transactions = run(() -> {
+                for (int i = 0; i < OPERATIONS_PER_THREAD / 10; i++) {
+                    template.execute(new SessionCallback<List<Object>>() {
+                        @Override
+                        @SuppressWarnings({ "unchecked", "rawtypes" })
+                        public List<Object> execute(RedisOperations operations) throws DataAccessException {
+                            operations.multi();
+                            operations.opsForValue().increment("benchmark:{tx}:counter");
+                            return operations.exec();
+                        }
+                    });
+                }
+                return null;
+            }) / 10;
+            log.info("{}: {} MULTI-EXEC/s", name, String.format("%.0f", transactions));
+        } finally {
+            connectionFactory.destroy();
+        }
+    }
+
+    // Operations per second of THREADS threads running the task OPERATIONS_PER_THREAD times
+    private static double run(Callable<Void> task) throws Exception {
+        List<Callable<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            workers.add(task);
+        }
+        var pool = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        try {
+            for (var result : pool.invokeAll(workers)) {
+                result.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return THREADS * OPERATIONS_PER_THREAD / ((System.nanoTime() - start) / 1e9);
+    }
+
+}
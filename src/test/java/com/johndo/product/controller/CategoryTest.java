@@ -8,6 +8,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.util.List;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -18,6 +20,7 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import com.johndo.product.dto.Category.CategoryRequestDTO;
 import com.johndo.product.dto.Category.CategoryResponseDTO;
+import com.johndo.product.dto.Category.CategoryTreeDTO;
 import com.johndo.product.exception.CategoryNotFound;
 import com.johndo.product.mapper.CategoryMapperImplementation;
 import com.johndo.product.mapper.CategoryMapperInterface;
@@ -181,6 +184,41 @@ public class CategoryTest {
                                 .andExpect(jsonPath("$.parent_id").value(org.hamcrest.Matchers.nullValue()));
         }
 
+        @Test
+        public void testGetCategoryTree() throws Exception {
+                var child = CategoryTreeDTO.builder().id(2).name("Refrigerators").parentId(1).children(List.of())
+                                .build();
+                var root = CategoryTreeDTO.builder().id(1).name("Home Appliances").children(List.of(child)).build();
+                when(mockCategoryService.getCategoryTree()).thenReturn(List.of(root));
+
+                mockMvc.perform(get("/api/v1/categories/tree"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$[0].id").value(1))
+                                .andExpect(jsonPath("$[0].children[0].name").value("Refrigerators"))
+                                .andExpect(jsonPath("$[0].children[0].parent_id").value(1));
+        }
+
+        @Test
+        public void testGetBreadcrumbs() throws Exception {
+                when(mockCategoryService.getBreadcrumbs(2)).thenReturn(List.of(
+                                CategoryResponseDTO.builder().id(1).name("Home Appliances").build(),
+                                CategoryResponseDTO.builder().id(2).name("Refrigerators").parentId(1).build()));
+
+                mockMvc.perform(get("/api/v1/categories/2/breadcrumbs"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$[0].name").value("Home Appliances"))
+                                .andExpect(jsonPath("$[1].name").value("Refrigerators"));
+        }
+
+        @Test
+        public void testGetBreadcrumbsNotFound() throws Exception {
+                when(mockCategoryService.getBreadcrumbs(999)).thenThrow(new CategoryNotFound("Category not found"));
+
+                mockMvc.perform(get("/api/v1/categories/999/breadcrumbs"))
+                                .andExpect(status().isNotFound())
+                                .andExpect(jsonPath("$.message").value("Category not found"));
+        }
+
         @Test
         public void testDeleteCategory() throws Exception {
                 // Mock the service method
@@ -1,25 +1,39 @@
 package com.johndo.product.controller;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.johndo.product.dto.CursorPageWrapper;
+import com.johndo.product.dto.PageWrapper;
+import com.johndo.product.dto.Product.ProductFieldSet;
+import com.johndo.product.dto.Product.ProductQuery;
 import com.johndo.product.dto.Product.ProductRequestDTO;
 import com.johndo.product.dto.Product.ProductResponseDTO;
+import com.johndo.product.dto.Product.ProductSearchHitDTO;
+import com.johndo.product.dto.Product.ProductSuggestionDTO;
+import com.johndo.product.exception.CategoryNotFound;
 import com.johndo.product.exception.ProductNotFound;
 import com.johndo.product.mapper.ProductMapperInterface;
 import com.johndo.product.model.Category;
@@ -86,6 +100,142 @@ public class ProductTest {
                                 .andExpect(jsonPath("$.message").value("Product not found"));
         }
 
+        @Test
+        public void testGetProductByIdWithSparseFields() throws Exception {
+                when(mockProductService.getProductById(Mockito.eq(1L), Mockito.any(ProductFieldSet.class)))
+                                .thenAnswer(invocation -> ((ProductFieldSet) invocation.getArgument(1))
+                                                .apply(ProductResponseDTO.builder()
+                                                                .id(1L)
+                                                                .name("Test Product")
+                                                                .description("Test Description")
+                                                                .unitPrice(BigDecimal.valueOf(100.00))
+                                                                .categoryId(1)
+                                                                .build()));
+
+                mockMvc.perform(get("/api/v1/products/1?fields=name,unit_price"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.id").value(1))
+                                .andExpect(jsonPath("$.name").value("Test Product"))
+                                .andExpect(jsonPath("$.unit_price").value(100.00))
+                                .andExpect(jsonPath("$.description").doesNotExist())
+                                .andExpect(jsonPath("$.category_id").doesNotExist());
+        }
+
+        @Test
+        public void testGetAllProductsWithUnknownField() throws Exception {
+                mockMvc.perform(get("/api/v1/products?fields=name,secret"))
+                                .andExpect(status().isBadRequest())
+                                .andExpect(jsonPath("$.message").value("Unknown product field: secret"));
+        }
+
+        @Test
+        public void testGetProductByIdAsCbor() throws Exception {
+                var mockResponseDto = ProductResponseDTO.builder()
+                                .id(1L)
+                                .name("Test Product")
+                                .description("Test Description")
+                                .unitPrice(BigDecimal.valueOf(100.00))
+                                .categoryId(1)
+                                .build();
+                when(mockProductService.getProductById(1L)).thenReturn(mockResponseDto);
+
+                var body = mockMvc.perform(get("/api/v1/products/1").accept("application/cbor"))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType("application/cbor"))
+                                .andReturn().getResponse().getContentAsByteArray();
+
+                var decoded = new ObjectMapper(new CBORFactory()).readTree(body);
+                assertEquals(1, decoded.get("id").asInt());
+                assertEquals("Test Product", decoded.get("name").asText());
+                assertEquals(1, decoded.get("category_id").asInt());
+        }
+
+        @Test
+        public void testGetProductByIdDefaultsToJson() throws Exception {
+                when(mockProductService.getProductById(1L))
+                                .thenReturn(ProductResponseDTO.builder().id(1L).name("Test Product").build());
+
+                mockMvc.perform(get("/api/v1/products/1"))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType("application/json"));
+        }
+
+        @Test
+        public void testGetProductsFilteredAndSorted() throws Exception {
+                var page = new PageWrapper<>(new PageImpl<>(List.of(
+                                ProductResponseDTO.builder().id(7L).name("Kettle").unitPrice(BigDecimal.valueOf(20))
+                                                .categoryId(3).build())));
+                // Equivalent spellings of the same query reach the service normalized
+                var query = ProductQuery.of(3, new BigDecimal("10"), null, true, "Ke", "price_asc", 0, 10);
+                when(mockProductService.getProducts(argThat(actual -> actual.cacheKey().equals(query.cacheKey()))))
+                                .thenReturn(page);
+
+                mockMvc.perform(get("/api/v1/products").param("category_id", "3").param("min_price", "10.00")
+                                .param("in_stock", "true").param("name_prefix", "Ke").param("sort", "PRICE_ASC")
+                                .param("fields", "name"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.content[0].id").value(7))
+                                .andExpect(jsonPath("$.content[0].name").value("Kettle"))
+                                .andExpect(jsonPath("$.content[0].unit_price").doesNotExist());
+        }
+
+        @Test
+        public void testGetProductsWithInvalidFilters() throws Exception {
+                mockMvc.perform(get("/api/v1/products").param("sort", "popularity"))
+                                .andExpect(status().isBadRequest())
+                                .andExpect(jsonPath("$.message").value("Unknown sort order: popularity"));
+                mockMvc.perform(get("/api/v1/products").param("min_price", "50").param("max_price", "10"))
+                                .andExpect(status().isBadRequest())
+                                .andExpect(jsonPath("$.message").value("min_price must not be greater than max_price"));
+        }
+
+        @Test
+        public void testSuggestProducts() throws Exception {
+                when(mockProductService.suggestProducts("des", 5)).thenReturn(List.of(
+                                new ProductSuggestionDTO(9L, "Desk lamp", true),
+                                new ProductSuggestionDTO(4L, "Desk chair", false)));
+
+                // Matched as its own path, not as a product id
+                mockMvc.perform(get("/api/v1/products/suggest").param("prefix", "des").param("limit", "5"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$[0].name").value("Desk lamp"))
+                                .andExpect(jsonPath("$[1].in_stock").value(false));
+        }
+
+        @Test
+        public void testSearchProducts() throws Exception {
+                var hit = new ProductSearchHitDTO(
+                                ProductResponseDTO.builder().id(7L).name("Oak desk").categoryId(3).build(), 2.5);
+                when(mockProductService.searchProducts("oak desk", 3, null)).thenReturn(List.of(hit));
+
+                mockMvc.perform(get("/api/v1/products/search").param("q", "oak desk").param("category_id", "3"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$[0].product.name").value("Oak desk"))
+                                .andExpect(jsonPath("$[0].score").value(2.5));
+        }
+
+        @Test
+        public void testGetProductsByCategory() throws Exception {
+                var page = new CursorPageWrapper<>(List.of(
+                                ProductResponseDTO.builder().id(42L).name("Kettle").categoryId(3).build()), 1, 42L);
+                when(mockProductService.getProductsByCategory(3, 50L, 1)).thenReturn(page);
+
+                mockMvc.perform(get("/api/v1/categories/3/products").param("after", "50").param("size", "1"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.content[0].id").value(42))
+                                .andExpect(jsonPath("$.nextCursor").value(42));
+        }
+
+        @Test
+        public void testGetProductsByUnknownCategory() throws Exception {
+                when(mockProductService.getProductsByCategory(999, null, 10))
+                                .thenThrow(new CategoryNotFound("Category not found"));
+
+                mockMvc.perform(get("/api/v1/categories/999/products"))
+                                .andExpect(status().isNotFound())
+                                .andExpect(jsonPath("$.message").value("Category not found"));
+        }
+
         @Test
         public void testGetProductByIdInvalid() throws Exception {
                 mockMvc.perform(get("/api/v1/products/invalid"))
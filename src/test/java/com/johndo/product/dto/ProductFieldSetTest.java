@@ -0,0 +1,62 @@
+package com.johndo.product.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.johndo.product.dto.Product.ProductFieldSet;
+import com.johndo.product.dto.Product.ProductResponseDTO;
+
+public class ProductFieldSetTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testIdIsAlwaysSelected() {
+        var fields = ProductFieldSet.parse("name");
+
+        assertEquals(List.of("id", "name"), List.copyOf(fields.apply(product(1L)).keySet()));
+    }
+
+    @Test
+    public void testSelectingEveryFieldIsTheFullRepresentation() {
+        assertTrue(ProductFieldSet.parse(null).isAll());
+        assertTrue(ProductFieldSet.parse("id,name,description,unit_price,quantity,category_id").isAll());
+    }
+
+    // Compares the listing payload a mobile client receives for one default page
+    @Test
+    public void testListingPayloadSavings() throws Exception {
+        List<ProductResponseDTO> page = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            page.add(product(id));
+        }
+        var fields = ProductFieldSet.parse("id,name,unit_price");
+        List<Map<String, Object>> sparsePage = page.stream().map(fields::apply).toList();
+
+        int fullBytes = objectMapper.writeValueAsBytes(page).length;
+        int sparseBytes = objectMapper.writeValueAsBytes(sparsePage).length;
+
+        // a 500 character description dominates every row
+        assertTrue(sparseBytes * 5 < fullBytes, "full=" + fullBytes + " bytes, sparse=" + sparseBytes + " bytes");
+    }
+
+    private static ProductResponseDTO product(Long id) {
+        return ProductResponseDTO.builder()
+                .id(id)
+                .name("Product " + id)
+                .description("d".repeat(500))
+                .unitPrice(new BigDecimal("19.99"))
+                .quantity(10)
+                .categoryId(1)
+                .build();
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.johndo.product.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+import com.johndo.product.dto.Product.ProductQuery;
+import com.johndo.product.exception.InvalidProductQuery;
+
+public class ProductQueryTest {
+
+    @Test
+    public void testEquivalentQueriesShareACacheKey() {
+        var query = ProductQuery.of(3, new BigDecimal("10.50"), new BigDecimal("100"), true, "Ket", "price_asc",
+                0, 20);
+        var same = ProductQuery.of(3, new BigDecimal("10.5"), new BigDecimal("1E+2"), Boolean.TRUE, "Ket",
+                "PRICE_ASC", 0, 20);
+
+        assertEquals(query.cacheKey(), same.cacheKey());
+        assertNotEquals(query.cacheKey(), query.withPage(1, 20).cacheKey());
+    }
+
+    @Test
+    public void testNamePrefixIsKeptVerbatim() {
+        var word = ProductQuery.of(null, null, null, null, "Red ", null, 0, 10);
+
+        assertEquals("Red ", word.getNamePrefix());
+        assertNotEquals(word.cacheKey(), ProductQuery.of(null, null, null, null, "Red", null, 0, 10).cacheKey());
+    }
+
+    @Test
+    public void testDefaultsAreNotFilters() {
+        assertFalse(ProductQuery.of(null, null, null, false, "  ", "newest", 0, 10).isFiltered());
+        assertEquals(ProductQuery.page(0, 10).cacheKey(),
+                ProductQuery.of(null, null, null, null, null, null, 0, 10).cacheKey());
+        assertTrue(ProductQuery.of(null, null, null, null, null, "name_desc", 0, 10).isFiltered());
+    }
+
+    @Test
+    public void testNamePrefixCannotImitateOtherParts() {
+        var absent = ProductQuery.of(null, null, null, null, null, "name_asc", 0, 10);
+        var star = ProductQuery.of(null, null, null, null, "*", "name_asc", 0, 10);
+
+        assertNotEquals(absent.cacheKey(), star.cacheKey());
+    }
+
+    @Test
+    public void testRejectsInvalidBoundsAndOrders() {
+        assertThrows(InvalidProductQuery.class,
+                () -> ProductQuery.of(null, new BigDecimal("5"), new BigDecimal("1"), null, null, null, 0, 10));
+        assertThrows(InvalidProductQuery.class,
+                () -> ProductQuery.of(null, new BigDecimal("-1"), null, null, null, null, 0, 10));
+        assertThrows(InvalidProductQuery.class, () -> ProductQuery.of(null, null, null, null, null, "random", 0, 10));
+    }
+
+}
@@ -0,0 +1,206 @@
+package com.johndo.product.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.johndo.product.cache.CacheWriteBehind;
+import com.johndo.product.dto.Category.CategoryRequestDTO;
+import com.johndo.product.dto.Product.ProductRequestDTO;
+import com.johndo.product.exception.InsufficientStock;
+import com.johndo.product.exception.ReservationNotFound;
+import com.johndo.product.repository.ProductRepository;
+import com.johndo.product.repository.StockReconciliationRepository;
+import com.johndo.product.service.CategoryService;
+import com.johndo.product.service.InventoryReservationService;
+import com.johndo.product.service.ProductService;
+
+@Testcontainers
+@SpringBootTest(properties = {
+        "products.reservations.hold-ttl=1s",
+        "products.reservations.reconcile-interval=200ms",
+        "products.reservations.claim-timeout=500ms" })
+public class InventoryReservationIntegrationTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("testdb")
+            .withUsername("testuser")
+            .withPassword("testpass");
+
+    @Container
+    private static final GenericContainer<?> redisContainer = new GenericContainer<>("redis:7-alpine")
+            .withExposedPorts(6379);
+
+    @DynamicPropertySource
+    static void configureProperties(org.springframework.test.context.DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgresContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgresContainer::getUsername);
+        registry.add("spring.datasource.password", postgresContainer::getPassword);
+        registry.add("spring.redis.host", redisContainer::getHost);
+        registry.add("spring.redis.port", () -> redisContainer.getMappedPort(6379));
+    }
+
+    @Autowired
+    private InventoryReservationService reservationService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockReconciliationRepository stockReconciliationRepository;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private CacheWriteBehind cacheWriteBehind;
+
+    @BeforeAll
+    static void setup() {
+        assertThat(postgresContainer.isRunning()).isTrue();
+        assertThat(redisContainer.isRunning()).isTrue();
+    }
+
+    @AfterEach
+    void cleanup() {
+        await().atMost(Duration.ofSeconds(10)).until(() -> cacheWriteBehind.pendingCount() == 0);
+        productService.deleteAllProducts();
+        categoryService.deleteAllCategories();
+    }
+
+    private Long productWithStock(int quantity) {
+        var category = categoryService.createCategory(CategoryRequestDTO.builder().name("Stock").build());
+        ProductRequestDTO request = new ProductRequestDTO();
+        request.setName("Hot item");
+        request.setUnitPrice(BigDecimal.TEN);
+        request.setQuantity(quantity);
+        request.setDescription("Everybody wants one");
+        request.setCategoryId(category.getId());
+        return productService.createProduct(request).getId();
+    }
+
+    @Test
+    void testConcurrentReservationsNeverOversell() throws Exception {
+        var productId = productWithStock(20);
+        var granted = new AtomicInteger();
+        List<Callable<Void>> buyers = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            buyers.add(() -> {
+                try {
+                    reservationService.reserve(productId, 1);
+                    granted.incrementAndGet();
+                } catch (InsufficientStock e) {
+                    // Sold out
+                }
+                return null;
+            });
+        }
+        var pool = Executors.newFixedThreadPool(16);
+        try {
+            for (var result : pool.invokeAll(buyers)) {
+                result.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertThat(granted).hasValue(20);
+        var availability = reservationService.getAvailability(productId);
+        assertThat(availability.getReserved()).isEqualTo(20);
+        assertThat(availability.getAvailable()).isZero();
+    }
+
+    @Test
+    void testExpiredHoldsReturnTheirStock() {
+        var productId = productWithStock(2);
+        reservationService.reserve(productId, 2);
+        assertThatThrownBy(() -> reservationService.reserve(productId, 1)).isInstanceOf(InsufficientStock.class);
+
+        await().atMost(Duration.ofSeconds(5)).ignoreException(InsufficientStock.class)
+                .until(() -> reservationService.reserve(productId, 1) != null);
+    }
+
+    @Test
+    void testConfirmedSalesAreWrittenToPostgres() {
+        var productId = productWithStock(10);
+        var sold = reservationService.reserve(productId, 3);
+        var abandoned = reservationService.reserve(productId, 4);
+
+        reservationService.confirm(productId, sold.getReservationId());
+        reservationService.release(productId, abandoned.getReservationId());
+        assertThatThrownBy(() -> reservationService.confirm(productId, abandoned.getReservationId()))
+                .isInstanceOf(ReservationNotFound.class);
+        assertThat(reservationService.getAvailability(productId).getAvailable()).isEqualTo(7);
+
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> productRepository.findById(productId).orElseThrow().getQuantity() == 7);
+        // The written-back sale is not subtracted a second time
+        assertThat(reservationService.getAvailability(productId).getAvailable()).isEqualTo(7);
+    }
+
+    @Test
+    void testClaimOfAReconcilerThatDiedBeforeWritingIsHandedBack() {
+        var productId = productWithStock(10);
+        var claimId = abandonedClaim(productId, 3);
+
+        await().atMost(Duration.ofSeconds(10))
+                .until(() -> productRepository.findById(productId).orElseThrow().getQuantity() == 7);
+        assertThat(stockReconciliationRepository.findById(claimId).orElseThrow().isApplied()).isFalse();
+        assertThat(redisTemplate.opsForHash().hasKey("inventory:{" + productId + "}:claims", claimId)).isFalse();
+    }
+
+    @Test
+    void testClaimOfAReconcilerThatDiedAfterWritingIsDropped() {
+        var productId = productWithStock(10);
+        var claimId = UUID.randomUUID().toString();
+        stockReconciliationRepository.decide(claimId, true);
+        abandonedClaim(productId, claimId, 2);
+
+        await().atMost(Duration.ofSeconds(10))
+                .until(() -> !redisTemplate.opsForHash().hasKey("inventory:{" + productId + "}:claims", claimId));
+        // Not written a second time, and no longer held back from the stock
+        assertThat(productRepository.findById(productId).orElseThrow().getQuantity()).isEqualTo(10);
+        assertThat(reservationService.getAvailability(productId).getAvailable()).isEqualTo(10);
+    }
+
+    // What a reconciler leaves behind when it stops between claiming sales and settling the claim
+    private String abandonedClaim(Long productId, int quantity) {
+        var claimId = UUID.randomUUID().toString();
+        abandonedClaim(productId, claimId, quantity);
+        return claimId;
+    }
+
+    private void abandonedClaim(Long productId, String claimId, int quantity) {
+        redisTemplate.opsForHash().put("inventory:{" + productId + "}:claims", claimId, String.valueOf(quantity));
+        redisTemplate.opsForZSet().add("inventory:claims", claimId + ":" + productId, 0);
+    }
+
+}
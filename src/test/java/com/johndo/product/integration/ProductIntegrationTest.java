@@ -44,6 +44,8 @@ public class ProductIntegrationTest {
                 registry.add("spring.datasource.url", postgresContainer::getJdbcUrl);
                 registry.add("spring.datasource.username", postgresContainer::getUsername);
                 registry.add("spring.datasource.password", postgresContainer::getPassword);
+                // Fail the request when an endpoint issues more statements than its budget
+                registry.add("products.query-inspector.fail-on-budget-exceeded", () -> "true");
         }
 
         @Autowired
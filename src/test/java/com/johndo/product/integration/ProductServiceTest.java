@@ -1,8 +1,11 @@
 package com.johndo.product.integration;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
 
 import org.junit.jupiter.api.AfterEach;
@@ -17,11 +20,18 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import com.johndo.product.cache.CacheWriteBehind;
+import com.johndo.product.cache.ListingGeneration;
 import com.johndo.product.dto.PageWrapper;
 import com.johndo.product.dto.Category.CategoryRequestDTO;
+import com.johndo.product.dto.Change.ProductChangeDTO;
+import com.johndo.product.dto.Product.ProductQuery;
 import com.johndo.product.dto.Product.ProductRequestDTO;
 import com.johndo.product.dto.Product.ProductResponseDTO;
+import com.johndo.product.event.ProductChangedEvent.ChangeType;
+import com.johndo.product.exception.ProductNotFound;
 import com.johndo.product.service.CategoryService;
+import com.johndo.product.service.ChangeFeedService;
 import com.johndo.product.service.ProductService;
 
 @Testcontainers
@@ -56,6 +66,15 @@ public class ProductServiceTest {
     @Autowired
     private CacheManager cacheManager;
 
+    @Autowired
+    private CacheWriteBehind cacheWriteBehind;
+
+    @Autowired
+    private ListingGeneration listingGeneration;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
     @BeforeAll
     static void setup() {
         // Ensure containers are running
@@ -63,8 +82,14 @@ public class ProductServiceTest {
         assertThat(redisContainer.isRunning()).isTrue();
     }
 
+    // Cache maintenance for writes is applied asynchronously after the response
+    private void awaitCacheMaintenance() {
+        await().atMost(Duration.ofSeconds(10)).until(() -> cacheWriteBehind.pendingCount() == 0);
+    }
+
     @AfterEach
     void cleanup() {
+        awaitCacheMaintenance();
         // Clear the database
         productService.deleteAllProducts(); // Implement this method in your service
         categoryService.deleteAllCategories(); // Implement this method in your service
@@ -74,6 +99,14 @@ public class ProductServiceTest {
         if (cache != null) {
             cache.clear();
         }
+        var categoryPages = cacheManager.getCache("categoryProducts");
+        if (categoryPages != null) {
+            categoryPages.clear();
+        }
+        var missingProducts = cacheManager.getCache("missingProducts");
+        if (missingProducts != null) {
+            missingProducts.clear();
+        }
     }
 
     @Test
@@ -100,13 +133,15 @@ public class ProductServiceTest {
         request2.setCategoryId(savedCategory.getId()); // Assuming a category with ID 1 exists
         productService.createProduct(request2);
 
+        awaitCacheMaintenance();
+
         // Retrieve all products
         productService.getAllProducts(0, 10);
 
         // Verify the products are cached
         var cache = cacheManager.getCache("products");
         assertThat(cache).isNotNull();
-        var cachedProducts = cache.get("page:0:size:10", PageWrapper.class);
+        var cachedProducts = cache.get(listingGeneration.pageKey(0, 10), PageWrapper.class);
         @SuppressWarnings("unchecked")
         List<ProductResponseDTO> cachedProductList = (List<ProductResponseDTO>) cachedProducts.getContent();
         assertThat(cachedProducts).isNotNull();
@@ -140,6 +175,7 @@ public class ProductServiceTest {
         ProductResponseDTO createdProduct = productService.createProduct(request);
 
         // Verify product is cached
+        awaitCacheMaintenance();
         var cache = cacheManager.getCache("products");
         assertThat(cache).isNotNull();
         ProductResponseDTO cachedProduct = cache.get(createdProduct.getId(), ProductResponseDTO.class);
@@ -179,6 +215,7 @@ public class ProductServiceTest {
         ProductResponseDTO updatedProduct = productService.updateProduct(createdProduct.getId(), updateRequest);
 
         // Verify the cache is updated
+        awaitCacheMaintenance();
         var cache = cacheManager.getCache("products");
         if (cache != null) {
 
@@ -221,12 +258,117 @@ public class ProductServiceTest {
         productService.updateProduct(createdProduct.getId(), updateRequest);
 
         // Verify the page cache is evicted
+        awaitCacheMaintenance();
         var cache = cacheManager.getCache("products");
         assertThat(cache).isNotNull();
-        var cachedProducts = cache.get("page:0:size:10", PageWrapper.class);
+        var cachedProducts = cache.get(listingGeneration.pageKey(0, 10), PageWrapper.class);
         assertThat(cachedProducts).isNull(); // The page should be evicted
     }
 
+    @Test
+    void testWriteInvalidatesEveryListingPage() {
+        var savedCategory = categoryService.createCategory(CategoryRequestDTO.builder().name("Paged").build());
+        ProductRequestDTO request = new ProductRequestDTO();
+        request.setName("Paged Product");
+        request.setUnitPrice(BigDecimal.valueOf(10.0));
+        request.setQuantity(1);
+        request.setDescription("One per page");
+        request.setCategoryId(savedCategory.getId());
+        var oldest = productService.createProduct(request);
+        productService.createProduct(request);
+        productService.createProduct(request);
+        awaitCacheMaintenance();
+
+        // Pages of size 1; the oldest product is on the last page
+        var cache = cacheManager.getCache("products");
+        for (int page = 0; page < 3; page++) {
+            productService.getAllProducts(page, 1);
+            assertThat(cache.get(listingGeneration.pageKey(page, 1))).isNotNull();
+        }
+
+        request.setName("Renamed Product");
+        productService.updateProduct(oldest.getId(), request);
+        awaitCacheMaintenance();
+
+        for (int page = 0; page < 3; page++) {
+            assertThat(cache.get(listingGeneration.pageKey(page, 1))).isNull();
+        }
+        // The product's own entry is refreshed, not dropped
+        assertThat(cache.get(oldest.getId(), ProductResponseDTO.class).getName()).isEqualTo("Renamed Product");
+    }
+
+    @Test
+    void testFilteredListingIsCachedUnderItsCanonicalQuery() {
+        var kitchen = categoryService.createCategory(CategoryRequestDTO.builder().name("Kitchen").build());
+        var garden = categoryService.createCategory(CategoryRequestDTO.builder().name("Garden").build());
+        createProduct("Kettle", "30", 5, kitchen.getId());
+        createProduct("Knife", "12", 0, kitchen.getId());
+        createProduct("Kitchen scale", "18", 2, kitchen.getId());
+        createProduct("Kneeler", "15", 9, garden.getId());
+        awaitCacheMaintenance();
+
+        // A size above max-page-size is capped, and the cached page is keyed by the capped query
+        var query = ProductQuery.of(kitchen.getId(), new BigDecimal("10.00"), null, true, "K", "price_asc", 0, 1000);
+        var page = productService.getProducts(query);
+
+        assertThat(page.getContent()).extracting(ProductResponseDTO::getName).containsExactly("Kitchen scale", "Kettle");
+        assertThat(page.getPageSize()).isEqualTo(100);
+        var cache = cacheManager.getCache("products");
+        var equivalent = ProductQuery.of(kitchen.getId(), new BigDecimal("10"), null, true, "K", "PRICE_ASC", 0, 100);
+        assertThat(cache.get(listingGeneration.queryKey(equivalent.cacheKey()))).isNotNull();
+
+        // Any write retires the cached query
+        createProduct("Kettle", "11", 5, kitchen.getId());
+        awaitCacheMaintenance();
+        assertThat(cache.get(listingGeneration.queryKey(equivalent.cacheKey()))).isNull();
+        assertThat(productService.getProducts(query).getContent()).extracting(ProductResponseDTO::getUnitPrice)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("11"), new BigDecimal("18"), new BigDecimal("30"));
+    }
+
+    private ProductResponseDTO createProduct(String name, String unitPrice, int quantity, Integer categoryId) {
+        ProductRequestDTO request = new ProductRequestDTO();
+        request.setName(name);
+        request.setUnitPrice(new BigDecimal(unitPrice));
+        request.setQuantity(quantity);
+        request.setDescription("Description of " + name);
+        request.setCategoryId(categoryId);
+        return productService.createProduct(request);
+    }
+
+    @Test
+    void testMovingProductEvictsBothCategories() {
+        var kitchen = categoryService.createCategory(CategoryRequestDTO.builder().name("Kitchen").build());
+        var garden = categoryService.createCategory(CategoryRequestDTO.builder().name("Garden").build());
+        var other = categoryService.createCategory(CategoryRequestDTO.builder().name("Other").build());
+        ProductRequestDTO request = new ProductRequestDTO();
+        request.setName("Watering Can");
+        request.setUnitPrice(BigDecimal.valueOf(12.0));
+        request.setQuantity(4);
+        request.setDescription("Moved between categories");
+        request.setCategoryId(kitchen.getId());
+        ProductResponseDTO createdProduct = productService.createProduct(request);
+        awaitCacheMaintenance();
+
+        // Cache the first page of every category
+        productService.getProductsByCategory(kitchen.getId(), null, 10);
+        productService.getProductsByCategory(garden.getId(), null, 10);
+        productService.getProductsByCategory(other.getId(), null, 10);
+
+        request.setCategoryId(garden.getId());
+        productService.updateProduct(createdProduct.getId(), request);
+        awaitCacheMaintenance();
+
+        var cache = cacheManager.getCache("categoryProducts");
+        assertThat(cache).isNotNull();
+        assertThat(cache.get(kitchen.getId() + ":first:size:10")).isNull();
+        assertThat(cache.get(garden.getId() + ":first:size:10")).isNull();
+        assertThat(cache.get(other.getId() + ":first:size:10")).isNotNull(); // Unrelated pages are kept
+        assertThat(productService.getProductsByCategory(garden.getId(), null, 10).getContent())
+                .extracting(ProductResponseDTO::getId)
+                .containsExactly(createdProduct.getId());
+    }
+
     @Test
     void testDeleteProduct() {
         var category = CategoryRequestDTO.builder()
@@ -246,10 +388,89 @@ public class ProductServiceTest {
         productService.deleteProduct(createdProduct.getId());
 
         // Verify the product is removed from the cache
+        awaitCacheMaintenance();
         var cache = cacheManager.getCache("products");
         assertThat(cache).isNotNull();
         ProductResponseDTO cachedProduct = cache.get(createdProduct.getId(), ProductResponseDTO.class);
         assertThat(cachedProduct).isNull();
     }
 
-}
\ No newline at end of file
+    @Test
+    void testLookupOfDeletedProductIsRememberedAsMissing() {
+        var savedCategory = categoryService.createCategory(CategoryRequestDTO.builder().name("Test Category").build());
+        ProductRequestDTO request = new ProductRequestDTO();
+        request.setName("Short-lived Product");
+        request.setUnitPrice(BigDecimal.valueOf(5.0));
+        request.setQuantity(1);
+        request.setDescription("Deleted right away");
+        request.setCategoryId(savedCategory.getId());
+        var createdProduct = productService.createProduct(request);
+        productService.deleteProduct(createdProduct.getId());
+        awaitCacheMaintenance();
+
+        assertThatThrownBy(() -> productService.getProductById(createdProduct.getId()))
+                .isInstanceOf(ProductNotFound.class);
+
+        var missingProducts = cacheManager.getCache("missingProducts");
+        assertThat(missingProducts).isNotNull();
+        assertThat(missingProducts.get(createdProduct.getId())).isNotNull();
+        assertThatThrownBy(() -> productService.getProductById(createdProduct.getId()))
+                .isInstanceOf(ProductNotFound.class);
+    }
+
+    @Test
+    void testWritesAppendToChangeFeedInOrder() {
+        var savedCategory = categoryService.createCategory(CategoryRequestDTO.builder().name("Feed").build());
+        var head = changeFeedService.getChanges(0, null);
+        while (head.isHasMore()) {
+            head = changeFeedService.getChanges(head.getNextSince(), null);
+        }
+
+        ProductRequestDTO request = new ProductRequestDTO();
+        request.setName("Tracked");
+        request.setUnitPrice(BigDecimal.valueOf(12.5));
+        request.setQuantity(1);
+        request.setDescription("Tracked by the feed");
+        request.setCategoryId(savedCategory.getId());
+        var created = productService.createProduct(request);
+        request.setName("Tracked, renamed");
+        productService.updateProduct(created.getId(), request);
+        productService.deleteProduct(created.getId());
+
+        var changes = changeFeedService.getChanges(head.getNextSince(), null).getChanges();
+        assertThat(changes).extracting(ProductChangeDTO::getType)
+                .containsExactly(ChangeType.CREATED, ChangeType.UPDATED, ChangeType.DELETED);
+        assertThat(changes).extracting(ProductChangeDTO::getProductId).containsOnly(created.getId());
+        assertThat(changes).extracting(ProductChangeDTO::getSeq).isSorted();
+        assertThat(changes.get(1).getProduct().getName()).isEqualTo("Tracked, renamed");
+        assertThat(changes.get(2).getProduct()).isNull();
+    }
+
+    @Test
+    void testDeletingACategoryDeletesItsProductsThroughTheFeed() {
+        var savedCategory = categoryService.createCategory(CategoryRequestDTO.builder().name("Doomed").build());
+        ProductRequestDTO request = new ProductRequestDTO();
+        request.setUnitPrice(BigDecimal.valueOf(5));
+        request.setQuantity(1);
+        request.setDescription("Goes with its category");
+        request.setCategoryId(savedCategory.getId());
+        request.setName("First");
+        var first = productService.createProduct(request);
+        request.setName("Second");
+        var second = productService.createProduct(request);
+        var head = changeFeedService.getChanges(0, null);
+        while (head.isHasMore()) {
+            head = changeFeedService.getChanges(head.getNextSince(), null);
+        }
+
+        categoryService.deleteCategory(savedCategory.getId());
+
+        var changes = changeFeedService.getChanges(head.getNextSince(), null).getChanges();
+        assertThat(changes).extracting(ProductChangeDTO::getType).containsOnly(ChangeType.DELETED);
+        assertThat(changes).extracting(ProductChangeDTO::getProductId)
+                .containsExactlyInAnyOrder(first.getId(), second.getId());
+        assertThatThrownBy(() -> productService.getProductById(first.getId()))
+                .isInstanceOf(ProductNotFound.class);
+    }
+
+}
@@ -0,0 +1,221 @@
+package com.johndo.product.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.johndo.product.dto.Product.ProductQuery;
+import com.johndo.product.repository.ProductRepository;
+import com.johndo.product.repository.ProductSpecifications;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+
+/**
+ * Runs the hot repository calls against the Flyway schema, captures the SQL
+ * Hibernate generates for them through the datasource proxy, and EXPLAINs it
+ * with the same bind parameters. Fails if a plan falls back to a sequential
+ * scan or an extra sort, e.g. because an index was dropped or a query changed
+ * shape.
+ */
+@SpringBootTest
+@Testcontainers
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class QueryPlanIntegrationTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:15.2")
+            .withDatabaseName("testdb")
+            .withUsername("testuser")
+            .withPassword("testpass");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgresContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgresContainer::getUsername);
+        registry.add("spring.datasource.password", postgresContainer::getPassword);
+    }
+
+    // A statement run by the test thread, with the parameter setters it was bound with
+    private record Statement(String sql, List<ParameterSetOperation> parameters) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private volatile Thread capturing;
+    private final List<Statement> captured = new ArrayList<>();
+
+    @BeforeAll
+    void seed() {
+        // Enough rows that the planner prefers an index for selective predicates
+        jdbcTemplate.execute("""
+                INSERT INTO categories (name, parent_id)
+                SELECT 'Category ' || i, NULL FROM generate_series(1, 10) i
+                """);
+        jdbcTemplate.execute("""
+                INSERT INTO categories (name, parent_id)
+                SELECT 'Category ' || i, 1 + (i % 10) FROM generate_series(11, 500) i
+                """);
+        jdbcTemplate.execute("""
+                INSERT INTO products (name, description, unit_price, quantity, category_id)
+                SELECT 'Product ' || i, 'Description of product ' || i, (i % 1000) + 0.99, i % 50, 1 + (i % 500)
+                FROM generate_series(1, 50000) i
+                """);
+        jdbcTemplate.execute("VACUUM ANALYZE categories");
+        jdbcTemplate.execute("VACUUM ANALYZE products");
+
+        // Background jobs share the pool, so only statements of the capturing thread are kept
+        ((ProxyDataSource) dataSource).getProxyConfig().getQueryListener().addListener(new QueryExecutionListener() {
+            @Override
+            public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            }
+
+            @Override
+            public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                if (Thread.currentThread() != capturing) {
+                    return;
+                }
+                for (var queryInfo : queryInfoList) {
+                    var parameters = queryInfo.getParametersList();
+                    captured.add(new Statement(queryInfo.getQuery(),
+                            parameters.isEmpty() ? List.of() : parameters.get(0)));
+                }
+            }
+        });
+    }
+
+    @Test
+    void testProductsByCategoryUseIndex() {
+        // First page of GET /categories/{id}/products
+        plans(() -> productRepository.findByCategoryIdAndIdLessThanOrderByIdDesc(42, Long.MAX_VALUE,
+                PageRequest.of(0, 10))).forEach(this::assertNoSeqScan);
+    }
+
+    @Test
+    void testCategoryKeysetPageIsOneIndexRange() {
+        // Both predicates must be index conditions on the composite index, with no sort or post-filter step
+        String plan = plans(() -> productRepository.findByCategoryIdAndIdLessThanOrderByIdDesc(42, 30000L,
+                PageRequest.of(0, 10))).get(0);
+        assertThat(plan).contains("Index Scan using idx_products_category_id_id")
+                .doesNotContain("Sort")
+                .doesNotContain("Filter:");
+    }
+
+    @Test
+    void testChildCategoriesUseIndex() {
+        // Not issued by the application: Postgres runs it to check the parent_id foreign key when a category
+        // is deleted
+        assertNoSeqScan(explain(new Statement("SELECT 1 FROM categories WHERE parent_id = 7", List.of())));
+    }
+
+    @Test
+    void testNamePrefixUsesIndex() {
+        // GET /products?name_prefix=..: LIKE ? ESCAPE '\' with a bound prefix, and the page's count query
+        var statements = capture(() -> listing(ProductQuery.of(null, null, null, null, "Product 4242", null, 0, 10)));
+        assertThat(statements).hasSize(2).allSatisfy(statement -> assertThat(statement.sql()).contains("escape"));
+        statements.stream().map(this::explain).forEach(plan -> assertThat(plan).contains("idx_products_name"));
+    }
+
+    @Test
+    void testPriceOrderedListingIsOneIndexScan() {
+        // GET /products?min_price=..&max_price=..&sort=price_desc
+        String plan = plans(() -> listing(ProductQuery.of(null, new BigDecimal("100"), new BigDecimal("120"), null,
+                null, "price_desc", 0, 10))).get(0);
+        assertThat(plan).contains("idx_products_unit_price_id").doesNotContain("Sort");
+    }
+
+    @Test
+    void testCategoryPriceOrderedListingIsOneIndexScan() {
+        // GET /products?category_id=..&sort=price_asc
+        String plan = plans(() -> listing(ProductQuery.of(42, null, null, null, null, "price_asc", 0, 10))).get(0);
+        assertThat(plan).contains("idx_products_category_id_unit_price_id").doesNotContain("Sort");
+    }
+
+    @Test
+    void testNameOrderedListingUsesIndex() {
+        // GET /products?in_stock=true&sort=name_asc; the count query reads most of the table and may scan it
+        String plan = plans(() -> listing(ProductQuery.of(null, null, null, true, null, "name_asc", 0, 10))).get(0);
+        assertThat(plan).contains("idx_products_name_id").doesNotContain("Seq Scan");
+    }
+
+    @Test
+    void testFindPositionByIdUsesPrimaryKey() {
+        plans(() -> productRepository.findPositionById(100L)).forEach(this::assertNoSeqScan);
+    }
+
+    @Test
+    void testFirstListingPageUsesPrimaryKey() {
+        // GET /products while the in-process catalog is not serving; the count query may scan the table
+        assertNoSeqScan(plans(() -> listing(ProductQuery.page(0, 10))).get(0));
+    }
+
+    private void listing(ProductQuery query) {
+        productRepository.findAll(ProductSpecifications.matching(query),
+                PageRequest.of(query.getPage(), query.getSize(), query.getSort().getSort()));
+    }
+
+    // Plans of the statements the call runs, in order
+    private List<String> plans(Runnable call) {
+        return capture(call).stream().map(this::explain).toList();
+    }
+
+    private List<Statement> capture(Runnable call) {
+        captured.clear();
+        capturing = Thread.currentThread();
+        try {
+            call.run();
+        } finally {
+            capturing = null;
+        }
+        assertThat(captured).as("statements run").isNotEmpty();
+        return List.copyOf(captured);
+    }
+
+    private void assertNoSeqScan(String plan) {
+        assertThat(plan).doesNotContain("Seq Scan");
+    }
+
+    private String explain(Statement statement) {
+        return String.join("\n", jdbcTemplate.query(connection -> {
+            PreparedStatement explain = connection.prepareStatement("EXPLAIN " + statement.sql());
+            for (var parameter : statement.parameters()) {
+                try {
+                    parameter.getMethod().invoke(explain, parameter.getArgs());
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    throw new IllegalStateException("Cannot bind " + parameter.getMethod().getName(), e);
+                }
+            }
+            return explain;
+        }, (rs, row) -> rs.getString(1)));
+    }
+
+}
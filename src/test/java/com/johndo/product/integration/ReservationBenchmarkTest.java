@@ -0,0 +1,161 @@
+package com.johndo.product.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.johndo.product.dto.Category.CategoryRequestDTO;
+import com.johndo.product.dto.Product.ProductRequestDTO;
+import com.johndo.product.exception.InsufficientStock;
+import com.johndo.product.service.CategoryService;
+import com.johndo.product.service.InventoryReservationService;
+import com.johndo.product.service.ProductService;
+
+/**
+ * Reservation throughput on a single hot product: the Redis script against
+ * decrementing the row under {@code SELECT ... FOR UPDATE}. Only runs with
+ * {@code mvn test -Dtest=ReservationBenchmarkTest -Dbenchmark=true}.
+ */
+@Testcontainers
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ReservationBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationBenchmarkTest.class);
+
+    private static final int THREADS = 32;
+    private static final int ATTEMPTS_PER_THREAD = 500;
+    private static final int STOCK = 10_000;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("testdb")
+            .withUsername("testuser")
+            .withPassword("testpass");
+
+    @Container
+    private static final GenericContainer<?> redisContainer = new GenericContainer<>("redis:7-alpine")
+            .withExposedPorts(6379);
+
+    @DynamicPropertySource
+    static void configureProperties(org.springframework.test.context.DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgresContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgresContainer::getUsername);
+        registry.add("spring.datasource.password", postgresContainer::getPassword);
+        registry.add("spring.redis.host", redisContainer::getHost);
+        registry.add("spring.redis.port", () -> redisContainer.getMappedPort(6379));
+    }
+
+    @Autowired
+    private InventoryReservationService reservationService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void cleanup() {
+        productService.deleteAllProducts();
+        categoryService.deleteAllCategories();
+    }
+
+    @Test
+    void compareHotProductReservations() throws Exception {
+        var redisProduct = productWithStock(STOCK);
+        var redisRate = run("redis-script", () -> {
+            try {
+                reservationService.reserve(redisProduct, 1);
+                return true;
+            } catch (InsufficientStock e) {
+                return false;
+            }
+        });
+        assertThat(reservationService.getAvailability(redisProduct).getAvailable())
+                .isEqualTo(STOCK - redisRate.granted());
+
+        var dbProduct = productWithStock(STOCK);
+        var dbRate = run("row-lock", () -> transactionTemplate.execute(status -> {
+            int quantity = jdbcTemplate.queryForObject("SELECT quantity FROM products WHERE id = ? FOR UPDATE",
+                    Integer.class, dbProduct);
+            if (quantity < 1) {
+                return false;
+            }
+            jdbcTemplate.update("UPDATE products SET quantity = quantity - 1 WHERE id = ?", dbProduct);
+            return true;
+        }));
+        assertThat(jdbcTemplate.queryForObject("SELECT quantity FROM products WHERE id = ?", Integer.class, dbProduct))
+                .isEqualTo(STOCK - dbRate.granted());
+    }
+
+    private record Result(int granted, double opsPerSecond) {
+    }
+
+    private Result run(String name, Callable<Boolean> reservation) throws Exception {
+        var granted = new AtomicInteger();
+        List<Callable<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            workers.add(() -> {
+                for (int attempt = 0; attempt < ATTEMPTS_PER_THREAD; attempt++) {
+                    if (reservation.call()) {
+                        granted.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        var pool = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        try {
+            for (var result : pool.invokeAll(workers)) {
+                result.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        var result = new Result(granted.get(), THREADS * ATTEMPTS_PER_THREAD / seconds);
+        log.info("{}: {} reservations by {} threads in {} s, {} ops/s", name, THREADS * ATTEMPTS_PER_THREAD,
+                THREADS, String.format("%.2f", seconds), String.format("%.0f", result.opsPerSecond()));
+        return result;
+    }
+
+    private Long productWithStock(int quantity) {
+        var category = categoryService.createCategory(CategoryRequestDTO.builder().name("Bench").build());
+        ProductRequestDTO request = new ProductRequestDTO();
+        request.setName("Hot item");
+        request.setUnitPrice(BigDecimal.TEN);
+        request.setQuantity(quantity);
+        request.setDescription("Everybody wants one");
+        request.setCategoryId(category.getId());
+        return productService.createProduct(request).getId();
+    }
+
+}
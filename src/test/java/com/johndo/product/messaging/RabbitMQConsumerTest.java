@@ -0,0 +1,104 @@
+package com.johndo.product.messaging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import com.johndo.product.config.RabbitMQConsumerConfig;
+import com.johndo.product.messaging.MessageDeduplicator.Claim;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class RabbitMQConsumerTest {
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final MessageDeduplicator deduplicator = mock(MessageDeduplicator.class);
+    private final Jackson2JsonMessageConverter converter = new Jackson2JsonMessageConverter();
+    private RabbitMQConsumer consumer;
+
+    @BeforeEach
+    public void setUp() {
+        converter.setCreateMessageIds(true);
+        var config = new RabbitMQConsumerConfig();
+        config.setMaxAttempts(2);
+        consumer = spy(new RabbitMQConsumer(rabbitTemplate, converter, deduplicator, config,
+                new SimpleMeterRegistry(), "product-queue", "product-exchange", "product-routing-key"));
+        when(deduplicator.tryClaim(any())).thenReturn(Claim.CLAIMED);
+    }
+
+    private Message delivery(String content) {
+        return converter.toMessage(new com.johndo.product.dto.Message(content), new MessageProperties());
+    }
+
+    @Test
+    public void testProcessesBatchAndRemembersIds() {
+        var first = delivery("first");
+        var second = delivery("second");
+
+        consumer.receiveMessages(List.of(first, second));
+
+        var processed = ArgumentCaptor.forClass(com.johndo.product.dto.Message.class);
+        verify(consumer, times(2)).process(processed.capture());
+        assertEquals("first", processed.getAllValues().get(0).getContent());
+        verify(deduplicator).markDone(first.getMessageProperties().getMessageId());
+        verify(deduplicator).markDone(second.getMessageProperties().getMessageId());
+    }
+
+    @Test
+    public void testSkipsRedelivery() {
+        when(deduplicator.tryClaim(any())).thenReturn(Claim.DONE);
+
+        consumer.receiveMessages(List.of(delivery("again")));
+
+        verify(consumer, never()).process(any());
+        verify(rabbitTemplate, never()).send(any(), any(), any(Message.class));
+    }
+
+    @Test
+    public void testFailedMessageIsRetriedThenDeadLettered() {
+        doThrow(new IllegalStateException("boom")).when(consumer).process(any());
+        var delivery = delivery("fails");
+
+        consumer.receiveMessages(List.of(delivery));
+        verify(deduplicator).release(delivery.getMessageProperties().getMessageId());
+        verify(rabbitTemplate).send("", "product-queue.retry", delivery);
+        assertEquals(1, (Integer) delivery.getMessageProperties().getHeader(RabbitMQConsumer.RETRY_COUNT_HEADER));
+
+        // The retry queue expires it back into the main queue with the header kept
+        consumer.receiveMessages(List.of(delivery));
+        verify(rabbitTemplate).send("product-exchange.dlx", "product-routing-key", delivery);
+        verify(deduplicator, never()).markDone(any());
+    }
+
+    @Test
+    public void testUnreadableMessageIsDeadLetteredImmediately() {
+        var properties = new MessageProperties();
+        properties.setMessageId("broken");
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        var delivery = new Message("{not json".getBytes(), properties);
+
+        consumer.receiveMessages(List.of(delivery));
+
+        verify(consumer, never()).process(any());
+        verify(rabbitTemplate).send(eq("product-exchange.dlx"), eq("product-routing-key"), eq(delivery));
+        verify(rabbitTemplate, never()).send(eq(""), any(), any(Message.class));
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.johndo.product.messaging;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import com.johndo.product.config.RabbitMQPublisherConfig;
+import com.johndo.product.dto.Message;
+import com.johndo.product.exception.PublisherBufferFull;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class RabbitMQProducerTest {
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final List<String> confirmed = new CopyOnWriteArrayList<>();
+    private final AtomicInteger nacksToSend = new AtomicInteger();
+    private SimpleMeterRegistry meterRegistry;
+    private RabbitMQProducer producer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        // The template runs the batch callback against itself, and the "broker" confirms each send
+        when(rabbitTemplate.invoke(any())).thenAnswer(invocation -> invocation
+                .<RabbitOperations.OperationsCallback<Object>>getArgument(0).doInRabbit(rabbitTemplate));
+        doAnswer(invocation -> {
+            Message message = invocation.getArgument(2);
+            CorrelationData correlation = invocation.getArgument(4);
+            boolean ack = nacksToSend.getAndDecrement() <= 0;
+            if (ack) {
+                confirmed.add(message.getContent());
+            }
+            correlation.getFuture().complete(new CorrelationData.Confirm(ack, ack ? null : "queue full"));
+            return null;
+        }).when(rabbitTemplate).convertAndSend(eq("product-exchange"), anyString(), any(Object.class),
+                any(MessagePostProcessor.class), any(CorrelationData.class));
+    }
+
+    private void start(int bufferCapacity) {
+        var config = new RabbitMQPublisherConfig();
+        config.setBufferCapacity(bufferCapacity);
+        config.setBatchSize(10);
+        config.setInitialBackoff(Duration.ofMillis(10));
+        meterRegistry = new SimpleMeterRegistry();
+        producer = new RabbitMQProducer(rabbitTemplate, config, meterRegistry, "product-exchange", "product-key");
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        producer.shutdown();
+    }
+
+    @Test
+    public void testMessagesAreConfirmedInOrder() {
+        start(100);
+        for (int i = 0; i < 25; i++) {
+            producer.sendMessage(new Message("m" + i));
+        }
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> confirmed.size() == 25);
+        assertEquals("m0", confirmed.get(0));
+        assertEquals("m24", confirmed.get(24));
+        assertEquals(25, meterRegistry.timer("rabbitmq.publisher.confirm.latency").count());
+    }
+
+    @Test
+    public void testNackedMessageIsRetried() {
+        nacksToSend.set(1);
+        start(100);
+        producer.sendMessage(new Message("retry me"));
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> confirmed.contains("retry me"));
+        assertEquals(1, meterRegistry.counter("rabbitmq.publisher.nacks").count());
+        assertEquals(1, meterRegistry.counter("rabbitmq.publisher.retried").count());
+    }
+
+    @Test
+    public void testFullBufferRejectsWithoutBlocking() {
+        // No invoke answer: the publisher thread is stuck on the first batch, so the buffer fills up
+        var stuck = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            stuck.await();
+            return null;
+        }).when(rabbitTemplate).invoke(any());
+        start(2);
+        producer.sendMessage(new Message("taken by the publisher"));
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> meterRegistry.get("rabbitmq.publisher.buffered").gauge().value() == 0);
+        producer.sendMessage(new Message("buffered 1"));
+        producer.sendMessage(new Message("buffered 2"));
+
+        assertThrows(PublisherBufferFull.class, () -> producer.sendMessage(new Message("rejected")));
+        assertEquals(1, meterRegistry.counter("rabbitmq.publisher.rejected").count());
+        stuck.countDown();
+    }
+
+}
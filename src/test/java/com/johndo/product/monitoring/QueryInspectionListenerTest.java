@@ -0,0 +1,86 @@
+package com.johndo.product.monitoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.johndo.product.config.QueryInspectorConfig;
+import com.johndo.product.exception.QueryBudgetExceeded;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+
+public class QueryInspectionListenerTest {
+
+    private static final String SELECT_CATEGORY = "select c.id, c.name, c.parent_id from categories c where c.id=?";
+
+    private QueryInspectorConfig config;
+    private SimpleMeterRegistry meterRegistry;
+    private QueryInspectionListener listener;
+
+    @BeforeEach
+    public void setUp() {
+        config = new QueryInspectorConfig();
+        config.setNPlusOneThreshold(3);
+        config.setSlowQueryThresholdMs(100);
+        meterRegistry = new SimpleMeterRegistry();
+        listener = new QueryInspectionListener(config, meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        QueryContext.end();
+    }
+
+    @Test
+    public void testCountsStatementsAndFlagsNPlusOne() {
+        var context = QueryContext.begin("GET /api/v1/categories/{id}", null);
+
+        for (int i = 0; i < 4; i++) {
+            execute(SELECT_CATEGORY, 1);
+        }
+
+        assertEquals(4, context.getStatementCount());
+        assertTrue(context.getNPlusOneSuspects().contains(SELECT_CATEGORY));
+        // flagged once per request, not once per repetition
+        assertEquals(1.0, meterRegistry.counter("jdbc.statements.n_plus_one", "uri",
+                "GET /api/v1/categories/{id}").count());
+    }
+
+    @Test
+    public void testSlowStatementIsAttributedToEndpoint() {
+        var context = QueryContext.begin("GET /api/v1/products", null);
+
+        execute("select count(p.id) from products p", 250);
+
+        assertEquals(1, context.getSlowStatementCount());
+        assertEquals(1.0, meterRegistry.counter("jdbc.statements.slow", "uri", "GET /api/v1/products").count());
+    }
+
+    @Test
+    public void testFailsWhenBudgetExceeded() {
+        config.setFailOnBudgetExceeded(true);
+        QueryContext.begin("GET /api/v1/products/{id}", 1);
+
+        execute("select p.id from products p where p.id=?", 1);
+
+        assertThrows(QueryBudgetExceeded.class,
+                () -> listener.beforeQuery(new ExecutionInfo(), List.of(new QueryInfo(SELECT_CATEGORY))));
+    }
+
+    private void execute(String sql, long elapsedMs) {
+        var queries = List.of(new QueryInfo(sql));
+        var execInfo = new ExecutionInfo();
+        execInfo.setElapsedTime(elapsedMs);
+        listener.beforeQuery(execInfo, queries);
+        listener.afterQuery(execInfo, queries);
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.johndo.product.search;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.johndo.product.dto.Product.ProductResponseDTO;
+
+public class Bm25SearchTest {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    @Test
+    public void testPrunedSearchMatchesExhaustiveScoring() {
+        var random = new Random(11);
+        List<ProductResponseDTO> products = new ArrayList<>();
+        var builder = Segment.builder(3, 0);
+        for (long id = 1; id <= 5000; id++) {
+            var product = ProductResponseDTO.builder()
+                    .id(id)
+                    .name(words(random, 1 + random.nextInt(3)))
+                    .description(words(random, random.nextInt(15)))
+                    .categoryId(1 + random.nextInt(5))
+                    .build();
+            products.add(product);
+            builder.add(product);
+        }
+        var segment = builder.build();
+
+        for (int query = 0; query < 300; query++) {
+            var terms = new ArrayList<>(new LinkedHashSet<>(Tokenizer.tokens(words(random, 1 + random.nextInt(3)))));
+            int[] categories = query % 3 == 0 ? new int[] { 2, 4 } : null;
+            long[] excluded = { 1 + random.nextInt(5000), 1 + random.nextInt(5000) };
+            int limit = 1 + random.nextInt(10);
+
+            var pruned = Bm25Search.search(segment, terms, categories, excluded, limit, K1, B);
+            var expected = exhaustive(segment, products, terms, categories, excluded, limit);
+
+            assertEquals(expected.length, pruned.size(), "hits for " + terms);
+            assertArrayEquals(expected, scores(pruned), 1e-4, "scores for " + terms);
+        }
+    }
+
+    private static double[] exhaustive(Segment segment, List<ProductResponseDTO> products, List<String> terms,
+            int[] categories, long[] excluded, int limit) {
+        return products.stream()
+                .filter(product -> product.getId() != excluded[0] && product.getId() != excluded[1])
+                .filter(product -> categories == null || product.getCategoryId() == categories[0]
+                        || product.getCategoryId() == categories[1])
+                .mapToDouble(product -> {
+                    var frequencies = Segment.termFrequencies(product, 3);
+                    double norm = K1 * (1 - B + B * Segment.totalFrequency(frequencies) / segment.averageLength());
+                    double score = 0;
+                    for (var term : terms) {
+                        var freq = frequencies.get(term);
+                        if (freq != null) {
+                            score += Bm25Search.idf(segment.docCount(), segment.docFreq(term)) * freq * (K1 + 1)
+                                    / (freq + norm);
+                        }
+                    }
+                    return score;
+                })
+                .filter(score -> score > 0)
+                .boxed()
+                .sorted(Comparator.reverseOrder())
+                .limit(limit)
+                .mapToDouble(Double::doubleValue)
+                .toArray();
+    }
+
+    private static double[] scores(List<SearchIndex.Hit> hits) {
+        return hits.stream().mapToDouble(SearchIndex.Hit::score).boxed().sorted(Comparator.reverseOrder())
+                .mapToDouble(Double::doubleValue).toArray();
+    }
+
+    // Skewed vocabulary, so some terms have posting lists many blocks long
+    private static String words(Random random, int count) {
+        var text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append("w").append((int) Math.pow(400, random.nextDouble())).append(' ');
+        }
+        return text.toString();
+    }
+
+}
@@ -0,0 +1,162 @@
+package com.johndo.product.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.johndo.product.cache.InvalidationBus;
+import com.johndo.product.config.ProductSearchConfig;
+import com.johndo.product.dto.Product.ProductResponseDTO;
+import com.johndo.product.mapper.ProductMapperInterface;
+import com.johndo.product.repository.ProductChangeRepository;
+import com.johndo.product.repository.ProductRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Build time, size on heap and disk, load time and query latency of the
+ * search index for a large catalog of generated products (1M by default,
+ * {@code -Dbenchmark.products=...}):
+ *
+ * <pre>
+ * mvn test -Dtest=SearchIndexBenchmarkTest -Dbenchmark=true -DargLine=-Xmx3g
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class SearchIndexBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchIndexBenchmarkTest.class);
+
+    private static final String[] BRANDS = { "Acme", "Bolt", "Cobalt", "Delta", "Ember", "Flux", "Granite", "Helix",
+            "Iris", "Juniper", "Kestrel", "Lumen", "Mosaic", "Nimbus", "Onyx", "Pioneer", "Quartz", "Raven", "Summit",
+            "Titan" };
+    private static final String[] ITEMS = { "desk lamp", "office chair", "kettle", "water bottle", "backpack",
+            "headphones", "keyboard", "monitor stand", "coffee grinder", "yoga mat", "frying pan", "bike light",
+            "phone case", "notebook", "table fan", "rain jacket", "hiking boots", "wall clock", "cutting board",
+            "travel mug" };
+    // Description words are drawn from a skewed vocabulary, the rare ones being the discriminating terms
+    private static final int VOCABULARY = 20_000;
+    private static final int DESCRIPTION_WORDS = 20;
+
+    private static final int QUERIES = 20_000;
+    private static final int LIMIT = 10;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void oneMillionProducts() throws Exception {
+        int count = Integer.getInteger("benchmark.products", 1_000_000);
+        var random = new Random(7);
+        var runtime = Runtime.getRuntime();
+
+        long start = System.nanoTime();
+        var builder = Segment.builder(3, 0);
+        for (long id = 1; id <= count; id++) {
+            builder.add(product(id, random));
+        }
+        var segment = builder.build();
+        builder = null;
+        long buildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("{} products indexed in {} ms: {} terms, {} MB postings ({} bytes per product), {} MB in the index",
+                segment.docCount(), buildMillis, segment.termCount(), segment.postingsBytes() >> 20,
+                segment.postingsBytes() / segment.docCount(), segment.memoryBytes() >> 20);
+
+        var file = directory.resolve("segment-0.seg");
+        start = System.nanoTime();
+        segment.writeTo(file);
+        log.info("Segment written in {} ms: {} MB on disk", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                Files.size(file) >> 20);
+        segment = null;
+        System.gc();
+
+        var config = new ProductSearchConfig();
+        config.setDirectory(directory.toString());
+        var index = new SearchIndex(mock(ProductRepository.class), mock(ProductChangeRepository.class),
+                mock(ProductMapperInterface.class), config, mock(InvalidationBus.class), new SimpleMeterRegistry());
+        try {
+            start = System.nanoTime();
+            index.open();
+            long loadMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            System.gc();
+            log.info("Segment loaded in {} ms, {} MB heap in use", loadMillis,
+                    (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+
+            // One or two rare words, or an item name with a rare word: the shapes of typed queries
+            var queries = new String[4096];
+            for (int i = 0; i < queries.length; i++) {
+                queries[i] = switch (i % 3) {
+                    case 0 -> word(random);
+                    case 1 -> word(random) + " " + word(random);
+                    default -> ITEMS[random.nextInt(ITEMS.length)] + " " + word(random);
+                };
+            }
+            for (int i = 0; i < 5_000; i++) {
+                index.search(queries[i % queries.length], null, LIMIT);
+            }
+            var latencies = new long[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                long queryStart = System.nanoTime();
+                index.search(queries[i % queries.length], i % 4 == 0 ? List.of(3, 4, 5) : null, LIMIT);
+                latencies[i] = System.nanoTime() - queryStart;
+            }
+            Arrays.sort(latencies);
+            log.info("top-{} queries: p50 {} us, p99 {} us, p99.9 {} us, max {} us", LIMIT,
+                    micros(latencies[QUERIES / 2]), micros(latencies[QUERIES * 99 / 100]),
+                    micros(latencies[QUERIES * 999 / 1000]), micros(latencies[QUERIES - 1]));
+
+            start = System.nanoTime();
+            Map<Long, ProductResponseDTO> changes = new HashMap<>();
+            for (long id = 1; id <= 1000; id++) {
+                changes.put(id * 997, product(id * 997, random));
+            }
+            var compacted = Segment.readFrom(file).withChanges(changes, 1);
+            log.info("1000 changes merged into {} products in {} ms", compacted.docCount(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+            assertThat(latencies[QUERIES * 99 / 100]).isLessThan(TimeUnit.MILLISECONDS.toNanos(50));
+        } finally {
+            index.shutdown();
+        }
+    }
+
+    private static ProductResponseDTO product(long id, Random random) {
+        var name = BRANDS[random.nextInt(BRANDS.length)] + " " + ITEMS[random.nextInt(ITEMS.length)] + " "
+                + Integer.toString(random.nextInt(1_000_000), 36).toUpperCase();
+        var description = new StringBuilder();
+        for (int i = 0; i < DESCRIPTION_WORDS; i++) {
+            description.append(word(random)).append(' ');
+        }
+        return ProductResponseDTO.builder()
+                .id(id)
+                .name(name)
+                .description(description.toString())
+                .categoryId(1 + random.nextInt(50))
+                .build();
+    }
+
+    // Roughly Zipf distributed: low word numbers are far more common
+    private static String word(Random random) {
+        int rank = (int) Math.pow(VOCABULARY, random.nextDouble());
+        return "w" + Integer.toString(rank, 36);
+    }
+
+    private static String micros(long nanos) {
+        return String.format("%.1f", nanos / 1000.0);
+    }
+
+}
@@ -0,0 +1,170 @@
+package com.johndo.product.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import com.johndo.product.cache.InvalidationBus;
+import com.johndo.product.config.ProductSearchConfig;
+import com.johndo.product.dto.Product.ProductResponseDTO;
+import com.johndo.product.event.ProductChangedEvent;
+import com.johndo.product.event.ProductChangedEvent.ChangeType;
+import com.johndo.product.mapper.ProductMapperInterface;
+import com.johndo.product.model.Product;
+import com.johndo.product.model.ProductChange;
+import com.johndo.product.repository.ProductChangeRepository;
+import com.johndo.product.repository.ProductRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class SearchIndexTest {
+
+    @TempDir
+    Path directory;
+
+    private ProductRepository productRepository;
+    private ProductChangeRepository productChangeRepository;
+    private ProductSearchConfig config;
+    private SearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        productRepository = mock(ProductRepository.class);
+        productChangeRepository = mock(ProductChangeRepository.class);
+        var productMapper = mock(ProductMapperInterface.class);
+        when(productRepository.findByIdGreaterThan(anyLong(), any(Pageable.class))).thenReturn(new SliceImpl<>(List.of(
+                entity(1L, "Oak desk", "Solid oak writing desk"),
+                entity(2L, "Office chair", "Fits under any desk"),
+                entity(3L, "Desk lamp", "Warm light for an oak desk"))));
+        when(productMapper.toResponseDto(any(Product.class))).thenAnswer(invocation -> {
+            Product product = invocation.getArgument(0);
+            return product(product.getId(), product.getName(), product.getDescription(), product.getId() == 2L ? 2 : 1);
+        });
+        when(productChangeRepository.findLatestSeq()).thenReturn(10L);
+        when(productChangeRepository.findBySeqGreaterThanOrderBySeqAsc(anyLong(), any(Limit.class)))
+                .thenReturn(List.of());
+
+        config = new ProductSearchConfig();
+        config.setDirectory(directory.toString());
+        index = new SearchIndex(productRepository, productChangeRepository, productMapper, config,
+                mock(InvalidationBus.class), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        index.shutdown();
+    }
+
+    @Test
+    public void testRanksByRelevanceWithinCategories() {
+        assertTrue(index.search("desk", null, 10).isEmpty());
+
+        index.open();
+
+        // Both terms in the name beat one of them, which beats a description-only match
+        assertEquals(List.of(1L, 3L, 2L), ids(index.search("oak desk", null, 10)));
+        assertEquals(List.of(1L), ids(index.search("oak desk", List.of(1), 1)));
+        assertEquals(List.of(2L), ids(index.search("desk", List.of(2), 10)));
+        assertTrue(index.search("the", null, 10).isEmpty());
+    }
+
+    @Test
+    public void testPendingChangesAreVisibleAndFoldedIn() {
+        index.open();
+        index.onProductChanged(ProductChangedEvent.updated(product(1L, "Oak desk", "Solid oak writing desk", 1),
+                product(1L, "Oak shelf", "Solid oak bookshelf", 1)));
+        index.onProductChanged(ProductChangedEvent.deleted(product(3L, "Desk lamp", "Warm light for an oak desk", 1)));
+        index.onProductChanged(ProductChangedEvent.created(product(4L, "Standing desk", "Adjustable desk", 1)));
+
+        assertEquals(List.of(4L, 2L), ids(index.search("desk", null, 10)));
+        assertEquals(List.of(1L), ids(index.search("shelf", null, 10)));
+
+        index.compact();
+
+        assertEquals(List.of(4L, 2L), ids(index.search("desk", null, 10)));
+        assertEquals(List.of(1L), ids(index.search("shelf", null, 10)));
+        assertTrue(index.search("lamp", null, 10).isEmpty());
+    }
+
+    @Test
+    public void testRestartLoadsTheSegmentAndReplaysTheFeed() throws Exception {
+        index.open();
+        assertTrue(Files.exists(directory.resolve("segment-10.seg")));
+        index.shutdown();
+
+        var change = ProductChange.builder()
+                .seq(11L)
+                .productId(5L)
+                .changeType(ChangeType.CREATED)
+                .product(product(5L, "Walnut desk", "Dark walnut", 1))
+                .changedAt(Instant.now())
+                .build();
+        when(productChangeRepository.findBySeqGreaterThanOrderBySeqAsc(eq(10L), any(Limit.class)))
+                .thenReturn(List.of(change));
+        var restarted = new SearchIndex(productRepository, productChangeRepository,
+                mock(ProductMapperInterface.class), config, mock(InvalidationBus.class), new SimpleMeterRegistry());
+        try {
+            restarted.open();
+            restarted.poll();
+            restarted.compact();
+
+            assertEquals(List.of(5L), ids(restarted.search("walnut", null, 10)));
+            assertEquals(List.of(1L, 3L), ids(restarted.search("oak desk", null, 2)));
+            // Loaded from disk once; the full scan ran only for the first instance
+            verify(productRepository).findByIdGreaterThan(anyLong(), any(Pageable.class));
+            assertTrue(Files.exists(directory.resolve("segment-11.seg")));
+            assertTrue(Files.notExists(directory.resolve("segment-10.seg")));
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    @Test
+    public void testSegmentAheadOfTheFeedIsRebuilt() {
+        index.open();
+        index.shutdown();
+        // The database was replaced by an empty one whose feed ends before the segment on disk
+        when(productChangeRepository.findLatestSeq()).thenReturn(3L);
+        when(productRepository.findByIdGreaterThan(anyLong(), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of()));
+
+        index = new SearchIndex(productRepository, productChangeRepository, mock(ProductMapperInterface.class),
+                config, mock(InvalidationBus.class), new SimpleMeterRegistry());
+        index.open();
+
+        assertTrue(index.search("oak", null, 10).isEmpty());
+        assertTrue(Files.exists(directory.resolve("segment-3.seg")));
+        assertTrue(Files.notExists(directory.resolve("segment-10.seg")));
+    }
+
+    private static List<Long> ids(List<SearchIndex.Hit> hits) {
+        return hits.stream().map(SearchIndex.Hit::productId).toList();
+    }
+
+    private static Product entity(long id, String name, String description) {
+        return Product.builder().id(id).name(name).description(description).build();
+    }
+
+    private static ProductResponseDTO product(long id, String name, String description, int categoryId) {
+        return ProductResponseDTO.builder().id(id).name(name).description(description).categoryId(categoryId).build();
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.johndo.product.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.johndo.product.dto.Product.ProductResponseDTO;
+
+public class SegmentTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testPostingsAreWeightedByField() {
+        var segment = segment(
+                product(1L, "Oak desk", "Solid oak writing desk", 1),
+                product(2L, "Office chair", "Fits under any oak desk", 2),
+                product(3L, "Lamp", "Warm light", 1));
+
+        assertEquals(3, segment.docCount());
+        assertEquals(2, segment.docFreq("desk"));
+        assertEquals(0, segment.docFreq("the"));
+        // Name terms count three times: "desk" in the name plus once in the description
+        assertEquals(Map.of(1L, 4, 2L, 1), postings(segment, "desk"));
+        assertEquals(3 + 3 + 4, segment.length(0));
+    }
+
+    @Test
+    public void testWithChangesReplacesAddsAndRemoves() {
+        var segment = segment(
+                product(1L, "Oak desk", "Solid oak writing desk", 1),
+                product(2L, "Office chair", "Fits under any oak desk", 2),
+                product(3L, "Lamp", "Warm light", 1));
+        Map<Long, ProductResponseDTO> changes = new HashMap<>();
+        changes.put(1L, product(1L, "Pine desk", "Light pine writing desk", 1));
+        changes.put(3L, null);
+        changes.put(4L, product(4L, "Desk lamp", "Bright light", 3));
+
+        var next = segment.withChanges(changes, 42);
+
+        assertEquals(42, next.highWaterSeq());
+        assertEquals(3, next.docCount());
+        assertEquals(Map.of(2L, 1, 1L, 4, 4L, 3), postings(next, "desk"));
+        assertEquals(Map.of(2L, 1), postings(next, "oak"));
+        assertEquals(Map.of(1L, 1, 4L, 1), postings(next, "light"));
+        assertTrue(next.termIndex("warm") < 0);
+        // The original is untouched
+        assertEquals(Map.of(1L, 4, 2L, 1), postings(segment, "oak"));
+    }
+
+    @Test
+    public void testRoundTripsThroughAFile() throws IOException {
+        var segment = segment(
+                product(1L, "Oak desk", "Solid oak writing desk", 1),
+                product(2L, "Café table", "Round marble top", null));
+        var file = directory.resolve("segment-7.seg");
+
+        segment.writeTo(file);
+        var read = Segment.readFrom(file);
+
+        assertEquals(7, read.highWaterSeq());
+        assertEquals(segment.docCount(), read.docCount());
+        assertEquals(Segment.NO_CATEGORY, read.categoryId(1));
+        assertEquals(postings(segment, "oak"), postings(read, "oak"));
+        assertEquals(Map.of(2L, 3), postings(read, "café"));
+        assertEquals(segment.averageLength(), read.averageLength());
+
+        var bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> Segment.readFrom(file));
+    }
+
+    private static Segment segment(ProductResponseDTO... products) {
+        var builder = Segment.builder(3, 7);
+        for (var product : products) {
+            builder.add(product);
+        }
+        return builder.build();
+    }
+
+    // Product id to weighted term frequency
+    private static Map<Long, Integer> postings(Segment segment, String term) {
+        Map<Long, Integer> result = new HashMap<>();
+        List<Integer> docs = new ArrayList<>();
+        var cursor = segment.postings(segment.termIndex(term));
+        while (cursor.next()) {
+            docs.add(cursor.doc());
+            result.put(segment.productId(cursor.doc()), cursor.freq());
+        }
+        assertEquals(docs.stream().sorted().toList(), docs);
+        return result;
+    }
+
+    private static ProductResponseDTO product(long id, String name, String description, Integer categoryId) {
+        return ProductResponseDTO.builder().id(id).name(name).description(description).categoryId(categoryId).build();
+    }
+
+}
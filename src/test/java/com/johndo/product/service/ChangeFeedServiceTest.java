@@ -0,0 +1,128 @@
+package com.johndo.product.service;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.johndo.product.config.ChangeFeedConfig;
+import com.johndo.product.dto.Product.ProductResponseDTO;
+import com.johndo.product.event.ProductChangedEvent;
+import com.johndo.product.event.ProductChangedEvent.ChangeType;
+import com.johndo.product.model.ProductChange;
+import com.johndo.product.repository.ProductChangeRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ChangeFeedServiceTest {
+
+    private final ProductChangeRepository repository = mock(ProductChangeRepository.class);
+    private ChangeFeedService changeFeedService;
+
+    // Records the ids of the events sent to it
+    private static final class RecordingEmitter extends SseEmitter {
+        private final List<String> ids = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            builder.build().stream()
+                    .map(part -> part.getData().toString())
+                    .filter(text -> text.startsWith("id:"))
+                    .forEach(text -> ids.add(text.substring(3, text.indexOf('\n'))));
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        var config = new ChangeFeedConfig();
+        config.setDefaultLimit(2);
+        config.setMaxLimit(3);
+        changeFeedService = new ChangeFeedService(repository, config, new SimpleMeterRegistry());
+        when(repository.findBySeqGreaterThanOrderBySeqAsc(anyLong(), any(Limit.class))).thenReturn(List.of());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        changeFeedService.shutdown();
+    }
+
+    private void feedContains(long... seqs) {
+        // Serve the feed like the table would: everything after since, up to the limit
+        when(repository.findBySeqGreaterThanOrderBySeqAsc(anyLong(), any(Limit.class))).thenAnswer(invocation -> {
+            long since = invocation.getArgument(0);
+            Limit limit = invocation.getArgument(1);
+            return LongStream.of(seqs).filter(seq -> seq > since).limit(limit.max()).mapToObj(this::change).toList();
+        });
+    }
+
+    private ProductChange change(long seq) {
+        return ProductChange.builder()
+                .seq(seq)
+                .productId(seq * 10)
+                .changeType(ChangeType.UPDATED)
+                .product(ProductResponseDTO.builder().id(seq * 10).build())
+                .changedAt(Instant.now())
+                .build();
+    }
+
+    @Test
+    public void testPagesResumeFromNextSince() {
+        feedContains(4, 7, 9);
+
+        var first = changeFeedService.getChanges(0, null);
+        assertEquals(List.of(4L, 7L), first.getChanges().stream().map(change -> change.getSeq()).toList());
+        assertEquals(7, first.getNextSince());
+        assertTrue(first.isHasMore());
+
+        var last = changeFeedService.getChanges(first.getNextSince(), 50);
+        assertEquals(1, last.getChanges().size());
+        assertEquals(9, last.getNextSince());
+        assertFalse(last.isHasMore());
+        // Limits above the maximum are capped
+        verify(repository).findBySeqGreaterThanOrderBySeqAsc(eq(7L), eq(Limit.of(3)));
+    }
+
+    @Test
+    public void testEmptyPageKeepsTheOffset() {
+        var page = changeFeedService.getChanges(12, 10);
+
+        assertTrue(page.getChanges().isEmpty());
+        assertEquals(12, page.getNextSince());
+    }
+
+    @Test
+    public void testStreamSendsBacklogThenLiveChanges() {
+        feedContains(1, 2, 3, 4, 5);
+        var emitter = new RecordingEmitter();
+        changeFeedService.register(emitter, 1);
+
+        // Backlog larger than one batch is drained in order
+        await().atMost(Duration.ofSeconds(5)).until(() -> emitter.ids.size() == 4);
+        assertEquals(List.of("2", "3", "4", "5"), emitter.ids);
+
+        feedContains(1, 2, 3, 4, 5, 6);
+        changeFeedService.onProductChanged(ProductChangedEvent.created(ProductResponseDTO.builder().id(60L).build()));
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> emitter.ids.size() == 5);
+        assertEquals("6", emitter.ids.get(4));
+    }
+
+}
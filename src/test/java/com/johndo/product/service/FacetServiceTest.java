@@ -0,0 +1,107 @@
+package com.johndo.product.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.johndo.product.catalog.CategoryTree;
+import com.johndo.product.catalog.CategoryTreeCache;
+import com.johndo.product.config.FacetConfig;
+import com.johndo.product.dto.Category.CategoryResponseDTO;
+import com.johndo.product.dto.Facet.CategoryFacetDTO;
+import com.johndo.product.dto.Facet.PriceBucketFacetDTO;
+import com.johndo.product.dto.Product.ProductResponseDTO;
+import com.johndo.product.event.ProductChangedEvent;
+import com.johndo.product.exception.CategoryNotFound;
+import com.johndo.product.repository.ProductRepository;
+
+public class FacetServiceTest {
+
+    private FacetService facetService;
+
+    @BeforeEach
+    public void setUp() {
+        // 1 Home > 2 Kitchen, 3 Garden
+        var tree = CategoryTree.of(List.of(category(1, "Home", null), category(2, "Kitchen", 1),
+                category(3, "Garden", null)));
+        var categoryTreeCache = mock(CategoryTreeCache.class);
+        when(categoryTreeCache.current()).thenReturn(tree);
+
+        var productRepository = mock(ProductRepository.class);
+        // [category_id, width_bucket, count] with bounds {0,10,100}
+        when(productRepository.countByCategoryAndPriceBucket(anyString())).thenReturn(List.of(
+                new Object[] { 1, 1, 4L },
+                new Object[] { 2, 2, 3L },
+                new Object[] { 3, 3, 2L }));
+
+        var config = new FacetConfig();
+        config.setPriceBuckets(List.of(new BigDecimal("0"), new BigDecimal("10"), new BigDecimal("100")));
+        facetService = new FacetService(productRepository, categoryTreeCache, config);
+        facetService.recount();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        facetService.shutdown();
+    }
+
+    @Test
+    public void testCategoryCountsIncludeDescendants() {
+        var facets = facetService.getFacets(null);
+
+        assertEquals(9, facets.getProductCount());
+        assertEquals(List.of(7L, 2L), facets.getCategories().stream().map(CategoryFacetDTO::getProductCount).toList());
+        assertEquals(List.of(4L, 3L, 2L),
+                facets.getPriceBuckets().stream().map(PriceBucketFacetDTO::getProductCount).toList());
+    }
+
+    @Test
+    public void testScopedToParentCategory() {
+        var facets = facetService.getFacets(1);
+
+        assertEquals(7, facets.getProductCount());
+        assertEquals(List.of("Kitchen"), facets.getCategories().stream().map(CategoryFacetDTO::getName).toList());
+        assertEquals(List.of(4L, 3L, 0L),
+                facets.getPriceBuckets().stream().map(PriceBucketFacetDTO::getProductCount).toList());
+        assertThrows(CategoryNotFound.class, () -> facetService.getFacets(99));
+    }
+
+    @Test
+    public void testChangesAdjustCounts() {
+        var kettle = product(2, "5.00");
+        facetService.onProductChanged(ProductChangedEvent.created(kettle));
+        // Moved to Garden and repriced into the open-ended bucket
+        facetService.onProductChanged(ProductChangedEvent.updated(kettle, product(3, "150.00")));
+
+        var facets = facetService.getFacets(null);
+        assertEquals(10, facets.getProductCount());
+        assertEquals(List.of(7L, 3L), facets.getCategories().stream().map(CategoryFacetDTO::getProductCount).toList());
+        assertEquals(List.of(4L, 3L, 3L),
+                facets.getPriceBuckets().stream().map(PriceBucketFacetDTO::getProductCount).toList());
+    }
+
+    @Test
+    public void testBucketBoundsAreInclusiveBelow() {
+        assertEquals(1, facetService.bucketOf(new BigDecimal("0")));
+        assertEquals(2, facetService.bucketOf(new BigDecimal("10.00")));
+        assertEquals(3, facetService.bucketOf(new BigDecimal("1000")));
+    }
+
+    private static CategoryResponseDTO category(Integer id, String name, Integer parentId) {
+        return CategoryResponseDTO.builder().id(id).name(name).parentId(parentId).build();
+    }
+
+    private static ProductResponseDTO product(Integer categoryId, String price) {
+        return ProductResponseDTO.builder().id(100L).categoryId(categoryId).unitPrice(new BigDecimal(price)).build();
+    }
+
+}
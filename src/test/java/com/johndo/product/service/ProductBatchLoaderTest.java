@@ -0,0 +1,116 @@
+package com.johndo.product.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+
+import com.johndo.product.cache.CacheCircuitBreaker;
+import com.johndo.product.config.CacheBreakerConfig;
+import com.johndo.product.config.ProductBatchLoaderConfig;
+import com.johndo.product.dto.Product.ProductResponseDTO;
+import com.johndo.product.exception.ProductNotFound;
+import com.johndo.product.mapper.ProductMapperInterface;
+import com.johndo.product.model.Product;
+import com.johndo.product.repository.ProductRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ProductBatchLoaderTest {
+
+    private ProductRepository productRepository;
+    private ProductMapperInterface productMapper;
+    private RedisTemplate<String, Object> cacheRedisTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private ProductBatchLoader loader;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        productRepository = mock(ProductRepository.class);
+        productMapper = mock(ProductMapperInterface.class);
+        cacheRedisTemplate = mock(RedisTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+
+        when(productMapper.toResponseDto(any(Product.class))).thenAnswer(invocation -> {
+            Product product = invocation.getArgument(0);
+            return ProductResponseDTO.builder().id(product.getId()).name(product.getName()).build();
+        });
+
+        var config = new ProductBatchLoaderConfig();
+        config.setWindow(Duration.ofMillis(50));
+        config.setMaxBatchSize(3);
+        loader = new ProductBatchLoader(productRepository, productMapper, cacheRedisTemplate,
+                new CacheCircuitBreaker(new CacheBreakerConfig(), meterRegistry), config,
+                meterRegistry, Duration.ofHours(1));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        loader.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testConcurrentMissesShareOneQueryAndOnePipeline() {
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(product(1L), product(2L)));
+
+        var first = loader.load(1L);
+        var sameId = loader.load(1L);
+        var second = loader.load(2L);
+
+        assertEquals(1L, first.join().getId());
+        assertEquals(2L, second.join().getId());
+        assertEquals(first, sameId);
+        verify(productRepository, times(1)).findAllById(anyIterable());
+        verify(cacheRedisTemplate, times(1)).executePipelined(any(SessionCallback.class));
+        assertEquals(2.0, meterRegistry.summary("products.batch_loader.batch_size").totalAmount());
+    }
+
+    @Test
+    public void testFullBatchIsDispatchedBeforeTheWindowEnds() {
+        when(productRepository.findAllById(anyIterable()))
+                .thenReturn(List.of(product(1L), product(2L), product(3L)));
+
+        var futures = new ArrayList<CompletableFuture<ProductResponseDTO>>();
+        for (long id = 1; id <= 3; id++) {
+            futures.add(loader.load(id));
+        }
+
+        futures.forEach(future -> future.join());
+        verify(productRepository, times(1)).findAllById(anyIterable());
+    }
+
+    @Test
+    public void testMissingIdFailsWithProductNotFound() {
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(product(1L)));
+
+        var found = loader.load(1L);
+        var missing = loader.load(42L);
+
+        assertEquals(1L, found.join().getId());
+        var thrown = assertThrows(CompletionException.class, missing::join);
+        assertEquals(ProductNotFound.class, thrown.getCause().getClass());
+    }
+
+    private static Product product(Long id) {
+        return Product.builder().id(id).name("Product " + id).build();
+    }
+
+}